@@ -0,0 +1,60 @@
+package rs.atekom.prati.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+
+/**
+ * {@link NyiTechProtokol#nyiTechObrada} над редовним јављањима (2001) из
+ * {@code okviri/nyitech.txt}, са и без OBD података. Парсер сам тражи уређај
+ * по коду, па мерење укључује и тај (овде лажни) позив сервиса.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NyiTechProtokolBenchmark {
+
+	private static final String UREDJAJ = "NYITECH-BENCH";
+	private static final String KOD = "2001";
+
+	private NyiTechProtokol protokol;
+	private String[] ulazi;
+	private int i;
+
+	@Setup
+	public void pripremi() {
+		Stubovi.pripremi();
+		protokol = new NyiTechProtokol();
+		List<String> okviri = Okviri.ucitaj("nyitech", KOD);
+		ulazi = okviri.toArray(new String[0]);
+		for (String ulaz : ulazi) {
+			NyiTechPar<Javljanja, Obd> par = protokol.nyiTechObrada(UREDJAJ, KOD, ulaz);
+			if (par == null || par.javljanje == null) {
+				throw new IllegalStateException("Okvir nije obrađen: " + ulaz);
+			}
+		}
+	}
+
+	@Benchmark
+	public NyiTechPar<Javljanja, Obd> nyiTechObrada() {
+		int p = i;
+		i = p + 1 == ulazi.length ? 0 : p + 1;
+		return protokol.nyiTechObrada(UREDJAJ, KOD, ulazi[p]);
+	}
+}
@@ -0,0 +1,73 @@
+package rs.atekom.prati.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Оквири уређаја за мерења, из {@code src/jmh/resources/okviri/<protokol>.txt}.
+ *
+ * <p>Један оквир по реду у облику {@code <vrsta> <okvir>}; празни редови и
+ * редови који почињу са {@code #} се прескачу.</p>
+ */
+public final class Okviri {
+
+	private Okviri() {
+	}
+
+	/** Сви оквири протокола, редом из датотеке. */
+	public static List<String> ucitaj(String protokol) {
+		return ucitaj(protokol, null);
+	}
+
+	/** Оквири дате врсте ({@code null} - све врсте). */
+	public static List<String> ucitaj(String protokol, String vrsta) {
+		String putanja = "/okviri/" + protokol + ".txt";
+		List<String> okviri = new ArrayList<>();
+		try (InputStream ulaz = Okviri.class.getResourceAsStream(putanja)) {
+			if (ulaz == null) {
+				throw new IllegalStateException("Nema datoteke okvira " + putanja);
+			}
+			BufferedReader citac = new BufferedReader(new InputStreamReader(ulaz, StandardCharsets.UTF_8));
+			String red;
+			while ((red = citac.readLine()) != null) {
+				red = red.trim();
+				if (red.isEmpty() || red.startsWith("#")) {
+					continue;
+				}
+				int razmak = red.indexOf(' ');
+				if (razmak < 0) {
+					throw new IllegalStateException("Okvir bez vrste u " + putanja + ": " + red);
+				}
+				if (vrsta == null || vrsta.equals(red.substring(0, razmak))) {
+					okviri.add(red.substring(razmak + 1).trim());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (okviri.isEmpty()) {
+			throw new IllegalStateException("Nema okvira " + (vrsta != null ? vrsta + " " : "") + "u " + putanja);
+		}
+		return okviri;
+	}
+
+	/** CRC-16 Kermit као у {@link OpstiThread} (RUPTELA пакет без поља дужине). */
+	public static int crc16Kermit(byte[] niz, int od, int duzina) {
+		return OpstiThread.calculateCrc16Kermit(niz, od, duzina);
+	}
+
+	/** Hex запис у бајтове. */
+	public static byte[] bajtovi(String hex) {
+		byte[] niz = new byte[hex.length() / 2];
+		for (int i = 0; i < niz.length; i++) {
+			niz[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return niz;
+	}
+}
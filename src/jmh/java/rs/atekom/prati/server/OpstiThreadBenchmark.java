@@ -0,0 +1,214 @@
+package rs.atekom.prati.server;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.ruptela.RuptelaProtokol;
+
+/**
+ * Заједнички део нити пријема: CRC-16 Kermit над RUPTELA пакетом и
+ * {@link OpstiThread#obradaJavljanja} (километража, стајање, брзина, гориво,
+ * зоне, аларми и предаја на упис) над јављањима која парсери дају из оквира.
+ *
+ * <p>Сервиси су лажни ({@link Stubovi}); стање објеката, индекс зона, збирови и
+ * обрачун су прави. Јављања долазе на 10 секунди, почев од пре два дана; после
+ * {@link Obrada#CIKLUS} јављања стање објекта се брише и вожња креће поново.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpstiThreadBenchmark {
+
+	/** Нит без конекције - само обрада јављања. */
+	static final class Nit extends OpstiThread {
+
+		Nit(OpstiServer server) {
+			super(null, server);
+		}
+
+		@Override
+		public void run() {
+		}
+
+		@Override
+		public boolean handleFrame(byte[] frame) {
+			return true;
+		}
+
+		Objekti getObjekat() {
+			return objekat;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Crc {
+
+		/** 93 - први пакет снимка (length + payload), 1022 - највећи пакет. */
+		@Param({"93", "1022"})
+		public int duzina;
+
+		byte[] paket;
+
+		@Setup
+		public void pripremi() {
+			paket = Okviri.bajtovi(Okviri.ucitaj("ruptela", "paket").get(0));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Obrada {
+
+		static final int CIKLUS = 8_640;
+		static final long KORAK_MS = TimeUnit.SECONDS.toMillis(10);
+
+		@Param({"ruptela", "neon", "geneko", "nyitech"})
+		public String protokol;
+
+		OpstiServer server;
+		Nit nit;
+		String kod;
+		Javljanja[] javljanja;
+		Obd[] obd;
+		long pocetak;
+		int n;
+
+		@Setup(Level.Trial)
+		public void pripremi() {
+			Stubovi.pripremi();
+			List<Javljanja> lista = new ArrayList<>();
+			List<Obd> obdLista = new ArrayList<>();
+			kod = protokol.toUpperCase() + "-OBRADA";
+			Objekti objekat = Stubovi.uredjaj(kod).getObjekti();
+			switch (protokol) {
+			case "ruptela":
+				server = new OpstiServer(9040, 1);
+				for (String zapis : Okviri.ucitaj("ruptela", "standard")) {
+					ByteBuffer bafer = ByteBuffer.wrap(Okviri.bajtovi(zapis));
+					JavljanjeObd jo = server.rProtokol.vratiJavljanje(objekat, bafer, 0, bafer.limit());
+					lista.add(jo.getJavljanje());
+					obdLista.add(jo.getObd());
+				}
+				break;
+			case "neon":
+				server = new OpstiServer(9000, 1);
+				for (String poruka : Okviri.ucitaj("neon")) {
+					lista.add(server.nProtokol.neonObrada(poruka.split(","), poruka, objekat));
+					obdLista.add(null);
+				}
+				break;
+			case "geneko":
+				server = new OpstiServer(9030, 1);
+				for (String okvir : Okviri.ucitaj("geneko")) {
+					lista.add(server.gProtokol.genekoObrada(okvir.split("\"")[3], objekat));
+					obdLista.add(null);
+				}
+				break;
+			case "nyitech":
+				server = new OpstiServer(0, 1);
+				NyiTechProtokol nyiTech = new NyiTechProtokol();
+				for (String ulaz : Okviri.ucitaj("nyitech", "2001")) {
+					NyiTechPar<Javljanja, Obd> par = nyiTech.nyiTechObrada(kod, "2001", ulaz);
+					lista.add(par.javljanje);
+					obdLista.add(par.obd);
+				}
+				break;
+			default:
+				throw new IllegalArgumentException(protokol);
+			}
+			if (lista.contains(null)) {
+				throw new IllegalStateException("Parser nije vratio javljanje za sve okvire " + protokol);
+			}
+			javljanja = lista.toArray(new Javljanja[0]);
+			obd = obdLista.toArray(new Obd[0]);
+			// циљна зона на трећој тачки вожње - има и уласка и изласка
+			Javljanja srednje = javljanja[Math.min(2, javljanja.length - 1)];
+			Stubovi.zone(objekat, srednje.getLat(), srednje.getLon(), 150, 40);
+			pocetak = LocalDate.now().minusDays(2).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		}
+
+		@Setup(Level.Iteration)
+		public void ispocetka() {
+			nit = new Nit(server);
+			Servis.stanjeObjekata.ukloni(Stubovi.uredjaj(kod).getObjekti().getId());
+			nit.pronadjiPostavi(kod);
+			if (nit.getObjekat() == null) {
+				throw new IllegalStateException("Uređaj nije postavljen " + kod);
+			}
+			n = 0;
+		}
+
+		@TearDown(Level.Trial)
+		public void zavrsi() {
+			server.stop();
+		}
+
+		Javljanja sledece() {
+			if (n == CIKLUS) {
+				ispocetka();
+			}
+			int k = n % javljanja.length;
+			Timestamp vreme = new Timestamp(pocetak + n * KORAK_MS);
+			n++;
+			Javljanja javljanje = kopija(javljanja[k], vreme);
+			Obd obdTrenutni = obd[k];
+			if (obdTrenutni != null) {
+				obdTrenutni.setDatumVreme(vreme);
+			}
+			nit.obradaJavljanja(javljanje, obdTrenutni);
+			return javljanje;
+		}
+	}
+
+	/** Ново јављање као из парсера, са датим временом. */
+	static Javljanja kopija(Javljanja uzor, Timestamp vreme) {
+		Javljanja javljanje = new Javljanja();
+		javljanje.setValid(uzor.isValid());
+		javljanje.setObjekti(uzor.getObjekti());
+		javljanje.setDatumVreme(vreme);
+		javljanje.setLat(uzor.getLat());
+		javljanje.setLon(uzor.getLon());
+		javljanje.setBrzina(uzor.getBrzina());
+		javljanje.setPravac(uzor.getPravac());
+		javljanje.setSistemAlarmi(uzor.getSistemAlarmi());
+		javljanje.setKontakt(uzor.isKontakt());
+		javljanje.setEventData(uzor.getEventData());
+		javljanje.setIbutton(uzor.getIbutton());
+		javljanje.setKreirano(vreme);
+		javljanje.setIzmenjeno(vreme);
+		return javljanje;
+	}
+
+	@Benchmark
+	public int calculateCrc16Kermit(Crc crc) {
+		return OpstiThread.calculateCrc16Kermit(crc.paket, 0, crc.duzina);
+	}
+
+	@Benchmark
+	public Javljanja obradaJavljanja(Obrada obrada) {
+		return obrada.sledece();
+	}
+}
@@ -0,0 +1,226 @@
+package rs.atekom.prati.server;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import pratiBaza.pomocne.Obracuni;
+import pratiBaza.servis.SistemAlarmiServis;
+import pratiBaza.servis.UredjajiServis;
+import pratiBaza.tabele.ObjekatZone;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.SistemAlarmi;
+import pratiBaza.tabele.Uredjaji;
+import pratiBaza.tabele.Zone;
+import rs.atekom.prati.server.stanje.StanjeObjekata;
+import rs.atekom.prati.server.zbir.Zbirovi;
+import rs.atekom.prati.server.zone.ZoneIndeks;
+
+/**
+ * Сервиси за мерења без базе: сва сервисна поља {@link Servis} добијају
+ * проксије који ништа не уписују, а читања враћају празну листу,
+ * {@code null}, нулу или {@code false}.
+ *
+ * <p>Изузеци, да би парсери и обрада јављања прошли као у раду:</p>
+ * <ul>
+ *   <li>аларм по шифри - активан аларм са том шифром, увек иста инстанца;</li>
+ *   <li>уређај по коду - уређај везан за објекат тог кода;</li>
+ *   <li>стање објеката, зоне, збирови и обрачун - праве класе над меморијом.</li>
+ * </ul>
+ *
+ * <p>Уписи ({@code unesi*}, {@code izmeni*}) се броје и, ако је задато
+ * {@link #kasnjenjeUpisa(long)}, трају колико и упис у базу.</p>
+ */
+public final class Stubovi {
+
+	private static final Map<String, SistemAlarmi> alarmi = new ConcurrentHashMap<>();
+	private static final Map<String, Uredjaji> uredjaji = new ConcurrentHashMap<>();
+	private static final Map<Long, List<ObjekatZone>> zone = new ConcurrentHashMap<>();
+	private static final AtomicLong brojac = new AtomicLong();
+	private static final LongAdder upisa = new LongAdder();
+	private static volatile long kasnjenjeUpisaNanos;
+
+	private static boolean pripremljeno;
+
+	private Stubovi() {
+	}
+
+	/** Попуњава {@link Servis}; поновни позив не мења ништа. */
+	public static synchronized void pripremi() {
+		if (pripremljeno) {
+			return;
+		}
+		for (Field polje : Servis.class.getFields()) {
+			if (Modifier.isStatic(polje.getModifiers()) && polje.getType().isInterface()
+					&& polje.getType().getName().startsWith("pratiBaza.servis.")) {
+				try {
+					polje.set(null, servis(polje.getType(), null));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		Servis.sistemAlarmServis = servis(SistemAlarmiServis.class, (metod, argumenti) ->
+				"nadjiAlarmPoSifri".equals(metod.getName()) ? alarm((String) argumenti[0]) : NEMA);
+		Servis.uredjajServis = servis(UredjajiServis.class, (metod, argumenti) ->
+				"nadjiUredjajPoKodu".equals(metod.getName()) ? uredjaj((String) argumenti[0]) : NEMA);
+		Servis.obracun = new Obracuni();
+		Servis.stanjeObjekata = new StanjeObjekata(objekat -> null);
+		Servis.zoneIndeks = new ZoneIndeks(objekat -> zone.getOrDefault(objekat.getId(), new ArrayList<>()));
+		Servis.zbirovi = new Zbirovi(7, 2);
+		pripremljeno = true;
+	}
+
+	/** Колико траје сваки упис; 0 - одмах. */
+	public static void kasnjenjeUpisa(long mikros) {
+		kasnjenjeUpisaNanos = TimeUnit.MICROSECONDS.toNanos(mikros);
+	}
+
+	/** Број уписа кроз лажне сервисе од покретања. */
+	public static long getUpisa() {
+		return upisa.sum();
+	}
+
+	/** Активан аларм са датом шифром; {@code "0"} је редовно јављање. */
+	public static SistemAlarmi alarm(String sifra) {
+		return alarmi.computeIfAbsent(sifra, s -> {
+			SistemAlarmi alarm = new SistemAlarmi();
+			alarm.setId(brojac.incrementAndGet());
+			alarm.setSifra(s);
+			alarm.setNaziv("0".equals(s) ? "редовно" : "аларм " + s);
+			alarm.setAktivan(true);
+			alarm.setAdresa(false);
+			return alarm;
+		});
+	}
+
+	/** Уређај датог кода са објектом; исти код враћа исти објекат. */
+	public static Uredjaji uredjaj(String kod) {
+		return uredjaji.computeIfAbsent(kod, k -> {
+			Objekti objekat = new Objekti();
+			objekat.setId(brojac.incrementAndGet());
+			objekat.setOznaka("BENCH-" + k);
+			objekat.setVremeStajanja(5);
+			objekat.setPrekoracenjeBrzine(90);
+			Uredjaji uredjaj = new Uredjaji();
+			uredjaj.setKod(k);
+			uredjaj.setObjekti(objekat);
+			return uredjaj;
+		});
+	}
+
+	/**
+	 * Зоне објекта: једна око {@code lat/lon} полупречника {@code precnik} метара
+	 * и {@code ostalih} расутих у кругу од око 100 km, као код већег корисника.
+	 */
+	public static void zone(Objekti objekat, double lat, double lon, int precnik, int ostalih) {
+		List<ObjekatZone> lista = new ArrayList<>();
+		lista.add(zona(objekat, "циљна", lat, lon, precnik));
+		Random rnd = new Random(objekat.getId());
+		for (int i = 0; i < ostalih; i++) {
+			lista.add(zona(objekat, "зона " + i, lat + (rnd.nextDouble() - 0.5) * 2, lon + (rnd.nextDouble() - 0.5) * 2,
+					100 + rnd.nextInt(900)));
+		}
+		zone.put(objekat.getId(), lista);
+		Servis.zoneIndeks.osveziObjekat(objekat.getId());
+	}
+
+	private static ObjekatZone zona(Objekti objekat, String naziv, double lat, double lon, int precnik) {
+		Zone zona = new Zone();
+		zona.setId(brojac.incrementAndGet());
+		zona.setNaziv(naziv);
+		zona.setLat(lat);
+		zona.setLon(lon);
+		zona.setPrecnik(precnik);
+		ObjekatZone objekatZona = new ObjekatZone();
+		objekatZona.setObjekti(objekat);
+		objekatZona.setZone(zona);
+		objekatZona.setAktivan(true);
+		objekatZona.setUlaz(true);
+		objekatZona.setIzlaz(true);
+		return objekatZona;
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// ПРОКСИЈИ
+	// ════════════════════════════════════════════════════════════
+
+	/** Одговор прокси метода; {@link #NEMA} значи подразумевану вредност. */
+	@FunctionalInterface
+	private interface Odgovor {
+		Object za(Method metod, Object[] argumenti);
+	}
+
+	private static final Object NEMA = new Object();
+
+	private static <T> T servis(Class<T> tip, Odgovor odgovor) {
+		Object proksi = Proxy.newProxyInstance(tip.getClassLoader(), new Class<?>[] {tip}, (p, metod, argumenti) -> {
+			if (metod.getDeclaringClass() == Object.class) {
+				switch (metod.getName()) {
+				case "equals":
+					return p == argumenti[0];
+				case "hashCode":
+					return System.identityHashCode(p);
+				default:
+					return tip.getSimpleName() + " (stub)";
+				}
+			}
+			if (metod.getName().startsWith("unesi") || metod.getName().startsWith("izmeni")) {
+				upis();
+			}
+			Object rezultat = odgovor != null ? odgovor.za(metod, argumenti) : NEMA;
+			return rezultat != NEMA ? rezultat : podrazumevano(metod.getReturnType());
+		});
+		return tip.cast(proksi);
+	}
+
+	private static void upis() {
+		upisa.increment();
+		long kasnjenje = kasnjenjeUpisaNanos;
+		if (kasnjenje > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(kasnjenje);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static Object podrazumevano(Class<?> tip) {
+		if (tip == boolean.class) {
+			return false;
+		}
+		if (tip == int.class) {
+			return 0;
+		}
+		if (tip == short.class) {
+			return (short) 0;
+		}
+		if (tip == byte.class) {
+			return (byte) 0;
+		}
+		if (tip == long.class) {
+			return 0L;
+		}
+		if (tip == float.class) {
+			return 0f;
+		}
+		if (tip == double.class) {
+			return 0d;
+		}
+		if (tip.isAssignableFrom(ArrayList.class) && Collection.class.isAssignableFrom(tip)) {
+			return new ArrayList<>();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,83 @@
+package rs.atekom.prati.server.geneko;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.OpstiServer;
+import rs.atekom.prati.server.Okviri;
+import rs.atekom.prati.server.Stubovi;
+
+/**
+ * {@link GenekoProtokol#genekoObrada} над FOX оквирима из {@code okviri/geneko.txt}:
+ * само подаци (tokens[3]) и подела оквира по наводницима заједно са обрадом,
+ * као у GenekoOpstiThread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenekoProtokolBenchmark {
+
+	private OpstiServer server;
+	private GenekoProtokol protokol;
+	private Objekti objekat;
+	private String[] okviri;
+	private String[] podaci;
+	private int i;
+
+	@Setup
+	public void pripremi() {
+		Stubovi.pripremi();
+		server = new OpstiServer(9030, 1);
+		protokol = server.gProtokol;
+		List<String> lista = Okviri.ucitaj("geneko");
+		okviri = lista.toArray(new String[0]);
+		podaci = new String[okviri.length];
+		for (int p = 0; p < okviri.length; p++) {
+			podaci[p] = okviri[p].split("\"")[3];
+		}
+		objekat = Stubovi.uredjaj(okviri[0].split("\"")[1]).getObjekti();
+		for (int p = 0; p < okviri.length; p++) {
+			if (protokol.genekoObrada(podaci[p], objekat) == null) {
+				throw new IllegalStateException("Okvir nije obrađen: " + okviri[p]);
+			}
+		}
+	}
+
+	@TearDown
+	public void zavrsi() {
+		server.stop();
+	}
+
+	private int sledeci() {
+		int p = i;
+		i = p + 1 == okviri.length ? 0 : p + 1;
+		return p;
+	}
+
+	@Benchmark
+	public Javljanja genekoObrada() {
+		return protokol.genekoObrada(podaci[sledeci()], objekat);
+	}
+
+	@Benchmark
+	public Javljanja podelaIObrada() {
+		return protokol.genekoObrada(okviri[sledeci()].split("\"")[3], objekat);
+	}
+}
@@ -0,0 +1,85 @@
+package rs.atekom.prati.server.neon;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.OpstiServer;
+import rs.atekom.prati.server.Okviri;
+import rs.atekom.prati.server.Stubovi;
+
+/**
+ * {@link NeonProtokol#neonObrada} над порукама из {@code okviri/neon.txt}:
+ * само обрада већ подељене поруке и подела зарезима заједно са обрадом,
+ * као у NeonOpstiThread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeonProtokolBenchmark {
+
+	private OpstiServer server;
+	private NeonProtokol protokol;
+	private Objekti objekat;
+	private String[] poruke;
+	private String[][] podeljene;
+	private int i;
+
+	@Setup
+	public void pripremi() {
+		Stubovi.pripremi();
+		server = new OpstiServer(9000, 1);
+		protokol = server.nProtokol;
+		List<String> okviri = Okviri.ucitaj("neon");
+		poruke = okviri.toArray(new String[0]);
+		podeljene = new String[poruke.length][];
+		for (int p = 0; p < poruke.length; p++) {
+			podeljene[p] = poruke[p].split(",");
+		}
+		objekat = Stubovi.uredjaj(podeljene[0][2]).getObjekti();
+		for (int p = 0; p < poruke.length; p++) {
+			if (protokol.neonObrada(podeljene[p], poruke[p], objekat) == null) {
+				throw new IllegalStateException("Poruka nije obrađena: " + poruke[p]);
+			}
+		}
+	}
+
+	@TearDown
+	public void zavrsi() {
+		server.stop();
+	}
+
+	private int sledeci() {
+		int p = i;
+		i = p + 1 == poruke.length ? 0 : p + 1;
+		return p;
+	}
+
+	@Benchmark
+	public Javljanja neonObrada() {
+		int p = sledeci();
+		return protokol.neonObrada(podeljene[p], poruke[p], objekat);
+	}
+
+	@Benchmark
+	public Javljanja podelaIObrada() {
+		int p = sledeci();
+		return protokol.neonObrada(poruke[p].split(","), poruke[p], objekat);
+	}
+}
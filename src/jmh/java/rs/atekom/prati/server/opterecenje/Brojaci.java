@@ -0,0 +1,27 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Бројачи уређаја једног протокола, са стране генератора. */
+final class Brojaci {
+
+	final String protokol;
+	final int port;
+	final AtomicInteger povezanih = new AtomicInteger();
+	final LongAdder konekcija = new LongAdder();
+	final LongAdder neuspelihVeza = new LongAdder();
+	final LongAdder prekida = new LongAdder();
+	final LongAdder olujnihPrekida = new LongAdder();
+	final LongAdder bezOdgovora = new LongAdder();
+	final LongAdder okvira = new LongAdder();
+	final LongAdder zapisa = new LongAdder();
+	final LongAdder bajtova = new LongAdder();
+	final Latencije ack = new Latencije();
+	int uredjaja;
+
+	Brojaci(String protokol, int port) {
+		this.protokol = protokol;
+		this.port = port;
+	}
+}
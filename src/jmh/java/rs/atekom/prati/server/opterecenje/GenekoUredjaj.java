@@ -0,0 +1,53 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import rs.atekom.prati.server.Okviri;
+
+/**
+ * GENEKO уређај: FOX оквири из {@code okviri/geneko.txt} са својим IMEI-јем и
+ * текућим временом (UTC), завршени са {@code </fox>}. GENEKO не шаље ACK.
+ */
+final class GenekoUredjaj extends Uredjaj {
+
+	private static final long PRVI_IMEI = 353_201_360_000_000L;
+
+	private static final List<String> REDOVNI = Okviri.ucitaj("geneko", "redovno");
+	private static final List<String> ALARMI = Okviri.ucitaj("geneko", "alarm");
+
+	private final String imei;
+	private int sledeci;
+
+	GenekoUredjaj(int redniBroj, Podesavanja podesavanja, Brojaci brojaci, Kontrola kontrola) {
+		super(redniBroj, podesavanja, brojaci, kontrola);
+		imei = Long.toString(PRVI_IMEI + redniBroj);
+		sledeci = random.nextInt(REDOVNI.size());
+	}
+
+	@Override
+	protected int zapisaPoSlanju() {
+		return 20;
+	}
+
+	@Override
+	protected void posalji(long[] vremena, boolean josIma) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (long vreme : vremena) {
+			String uzorak = random.nextDouble() < podesavanja.alarmiUdeo
+					? ALARMI.get(random.nextInt(ALARMI.size())) : REDOVNI.get(sledeci++ % REDOVNI.size());
+			// <fox> " IMEI " x " подаци
+			String[] delovi = uzorak.split("\"", -1);
+			String[] polja = delovi[3].split(",", -1);
+			Instant trenutak = Instant.ofEpochMilli(vreme);
+			polja[2] = NeonUredjaj.DATUM.format(trenutak);
+			polja[3] = NeonUredjaj.VREME.format(trenutak);
+			sb.append(delovi[0]).append('"').append(imei).append('"').append(delovi[2]).append('"')
+					.append(String.join(",", polja)).append("</fox>");
+		}
+		pisi(sb.toString().getBytes(StandardCharsets.US_ASCII));
+		poslato(vremena.length, vremena.length);
+	}
+}
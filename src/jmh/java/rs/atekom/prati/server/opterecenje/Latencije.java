@@ -0,0 +1,61 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Узорци кашњења ACK-а за перцентиле. До {@link #NAJVISE} узорака чува све, а
+ * после тога насумичан узорак исте величине (reservoir), па перцентили остају
+ * непристрасни и за дуга мерења.
+ */
+final class Latencije {
+
+	static final int NAJVISE = 1 << 20;
+
+	private final Random random = new Random(17);
+	private long[] uzorci = new long[1024];
+	private int n;
+	private long ukupno;
+	private long najduze;
+
+	synchronized void zabelezi(long nanos) {
+		ukupno++;
+		najduze = Math.max(najduze, nanos);
+		if (n < NAJVISE) {
+			if (n == uzorci.length) {
+				uzorci = Arrays.copyOf(uzorci, Math.min(NAJVISE, n * 2));
+			}
+			uzorci[n++] = nanos;
+		} else {
+			long mesto = (long) (random.nextDouble() * ukupno);
+			if (mesto < NAJVISE) {
+				uzorci[(int) mesto] = nanos;
+			}
+		}
+	}
+
+	synchronized long getBroj() {
+		return ukupno;
+	}
+
+	/** Перцентили у милисекундама; {@code p} од 0 до 100. */
+	String perc(double... p) {
+		long[] kopija;
+		long max;
+		synchronized (this) {
+			kopija = Arrays.copyOf(uzorci, n);
+			max = najduze;
+		}
+		if (kopija.length == 0) {
+			return "-";
+		}
+		Arrays.sort(kopija);
+		StringBuilder sb = new StringBuilder();
+		for (double procenat : p) {
+			int i = (int) Math.ceil(procenat / 100.0 * kopija.length) - 1;
+			sb.append(String.format("p%s=%.2f ", procenat % 1 == 0 ? String.valueOf((int) procenat) : String.valueOf(procenat),
+					kopija[Math.max(0, Math.min(kopija.length - 1, i))] / 1e6));
+		}
+		return sb.append(String.format("max=%.2f ms", max / 1e6)).toString();
+	}
+}
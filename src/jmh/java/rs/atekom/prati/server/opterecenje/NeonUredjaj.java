@@ -0,0 +1,55 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import rs.atekom.prati.server.Okviri;
+
+/**
+ * NEON уређај: ORIS поруке из {@code okviri/neon.txt} са својим IMEI-јем и
+ * текућим временом (UTC), завршене са '>'. NEON не шаље ACK.
+ */
+final class NeonUredjaj extends Uredjaj {
+
+	static final DateTimeFormatter DATUM = DateTimeFormatter.ofPattern("ddMMyy").withZone(ZoneOffset.UTC);
+	static final DateTimeFormatter VREME = DateTimeFormatter.ofPattern("HHmmss").withZone(ZoneOffset.UTC);
+	private static final long PRVI_IMEI = 353_201_350_000_000L;
+
+	private static final List<String> REDOVNE = Okviri.ucitaj("neon", "redovno");
+	private static final List<String> ALARMI = Okviri.ucitaj("neon", "alarm");
+
+	private final String imei;
+	private int sledeca;
+
+	NeonUredjaj(int redniBroj, Podesavanja podesavanja, Brojaci brojaci, Kontrola kontrola) {
+		super(redniBroj, podesavanja, brojaci, kontrola);
+		imei = Long.toString(PRVI_IMEI + redniBroj);
+		sledeca = random.nextInt(REDOVNE.size());
+	}
+
+	@Override
+	protected int zapisaPoSlanju() {
+		return 20;
+	}
+
+	@Override
+	protected void posalji(long[] vremena, boolean josIma) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (long vreme : vremena) {
+			String uzorak = random.nextDouble() < podesavanja.alarmiUdeo
+					? ALARMI.get(random.nextInt(ALARMI.size())) : REDOVNE.get(sledeca++ % REDOVNE.size());
+			String[] polja = uzorak.split(",", -1);
+			Instant trenutak = Instant.ofEpochMilli(vreme);
+			polja[2] = imei;
+			polja[6] = DATUM.format(trenutak);
+			polja[7] = VREME.format(trenutak);
+			sb.append(String.join(",", polja)).append('>');
+		}
+		pisi(sb.toString().getBytes(StandardCharsets.US_ASCII));
+		poslato(vremena.length, vremena.length);
+	}
+}
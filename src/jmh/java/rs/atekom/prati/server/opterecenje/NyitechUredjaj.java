@@ -0,0 +1,77 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import rs.atekom.prati.server.Okviri;
+
+/**
+ * NYITECH уређај: пријава (1001) са ACK-ом после повезивања, па редовна
+ * јављања (2001) из {@code okviri/nyitech.txt} са текућим временом (UTC).
+ *
+ * <p>NyitechThread чита највише један бафер и не спаја оквир подељен између
+ * два читања, па уређај, као и прави, шаље један оквир по слању.</p>
+ */
+final class NyitechUredjaj extends Uredjaj {
+
+	/** Два одговора по 0x17 бајтова на пријаву. */
+	static final int DUZINA_ACK_PRIJAVE = 2 * 0x17;
+	private static final long PAUZA_OKVIRA_MS = 5;
+
+	private static final List<String> JAVLJANJA = Okviri.ucitaj("nyitech", "2001");
+
+	private final String uredjajHex;
+	private int sledece;
+
+	NyitechUredjaj(int redniBroj, Podesavanja podesavanja, Brojaci brojaci, Kontrola kontrola) {
+		super(redniBroj, podesavanja, brojaci, kontrola);
+		uredjajHex = hex(String.format("NT%010d", redniBroj).getBytes(StandardCharsets.US_ASCII));
+		sledece = random.nextInt(JAVLJANJA.size());
+	}
+
+	@Override
+	protected void prijava() throws IOException {
+		long pocetak = System.nanoTime();
+		pisi(okvir("0110", "00"));
+		citajAck(DUZINA_ACK_PRIJAVE, pocetak);
+	}
+
+	@Override
+	protected int zapisaPoSlanju() {
+		return 1;
+	}
+
+	@Override
+	protected void posalji(long[] vremena, boolean josIma) throws IOException {
+		for (long vreme : vremena) {
+			ZonedDateTime t = Instant.ofEpochMilli(vreme).atZone(ZoneOffset.UTC);
+			String datum = String.format("%02X%02X%02X%02X%02X%02X", t.getDayOfMonth(), t.getMonthValue(),
+					t.getYear() % 100, t.getHour(), t.getMinute(), t.getSecond());
+			String podaci = JAVLJANJA.get(sledece++ % JAVLJANJA.size());
+			pisi(okvir("0120", datum + podaci.substring(12)));
+			poslato(1, 1);
+			if (josIma) {
+				spavaj(PAUZA_OKVIRA_MS);
+			}
+		}
+	}
+
+	/** 4040 + дужина (LE) + уређај + догађај (LE) + подаци + CRC + 0D0A; сервер CRC не проверава. */
+	private byte[] okvir(String dogadjaj, String podaci) {
+		String telo = uredjajHex + dogadjaj + podaci + "0000" + "0D0A";
+		int duzina = 4 + telo.length() / 2;
+		return Okviri.bajtovi("4040" + String.format("%02X%02X", duzina & 0xFF, duzina >> 8) + telo);
+	}
+
+	private static String hex(byte[] niz) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : niz) {
+			sb.append(String.format("%02X", b));
+		}
+		return sb.toString();
+	}
+}
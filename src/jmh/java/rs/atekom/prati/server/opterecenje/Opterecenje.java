@@ -0,0 +1,208 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import rs.atekom.prati.server.ConnectionExecutors;
+import rs.atekom.prati.server.NyitechServer;
+import rs.atekom.prati.server.OpstiServer;
+import rs.atekom.prati.server.ServerMode;
+import rs.atekom.prati.server.Stubovi;
+import rs.atekom.prati.server.lifecycle.ServerManager;
+import rs.atekom.prati.server.metrike.MetrikeProtokola;
+
+/**
+ * Генератор оптерећења TCP сервера: флота симулираних RUPTELA, NEON, GENEKO и
+ * NYITECH уређаја над оквирима из {@code src/jmh/resources/okviri}.
+ *
+ * <p>Уређаји се јављају на {@code perioda}, део њих почиње са заостатком,
+ * у олуји део флоте губи везу и враћа се истовремено са гомилом записа, а
+ * спори уређаји шаљу у комадима и касно читају ACK. Мери се кашњење ACK-а
+ * (RUPTELA пакет, NYITECH пријава) у перцентилима и пропусност - оквири и
+ * записи у секунди са стране уређаја, а у локалном режиму и бројачи сервера
+ * ({@link MetrikeProtokola}) и уписи у лажну базу ({@link Stubovi}).</p>
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=rs.atekom.prati.server.opterecenje.Opterecenje \
+ *     -Djmh.args="ruptela=3000 neon=500 rezim=NIO trajanje=300"
+ * </pre>
+ *
+ * <p>Са {@code lokalno=false} гађа се већ покренута инстанца на {@code adresa}
+ * (портови као у производњи).</p>
+ */
+public final class Opterecenje {
+
+	private final Podesavanja podesavanja;
+	private final Uredjaj.Kontrola kontrola = new Uredjaj.Kontrola();
+	private final List<Brojaci> protokoli = new ArrayList<>();
+	private long pocetak;
+	private long prethodniTrenutak;
+	private long prethodnoZapisa;
+	private long prethodnoUpisa;
+
+	private Opterecenje(Podesavanja podesavanja) {
+		this.podesavanja = podesavanja;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Opterecenje(Podesavanja.iz(args)).pokreni();
+		System.exit(0);
+	}
+
+	private void pokreni() throws InterruptedException {
+		Brojaci ruptela = protokol("RUPTELA", 9040, podesavanja.ruptela);
+		Brojaci neon = protokol("NEON", 9000, podesavanja.neon);
+		Brojaci geneko = protokol("GENEKO", 9030, podesavanja.geneko);
+		Brojaci nyitech = protokol("NYITECH", 9010, podesavanja.nyitech);
+		if (protokoli.isEmpty()) {
+			throw new IllegalArgumentException("Nijedan uređaj - zadati ruptela=, neon=, geneko= ili nyitech=");
+		}
+		ServerManager menadzer = podesavanja.lokalno ? lokalniServeri() : null;
+
+		ExecutorService uredjaji = ConnectionExecutors.newPerConnectionExecutor("OPTERECENJE");
+		for (int i = 0; i < podesavanja.ruptela; i++) {
+			uredjaji.execute(new RuptelaUredjaj(i, podesavanja, ruptela, kontrola));
+		}
+		for (int i = 0; i < podesavanja.neon; i++) {
+			uredjaji.execute(new NeonUredjaj(i, podesavanja, neon, kontrola));
+		}
+		for (int i = 0; i < podesavanja.geneko; i++) {
+			uredjaji.execute(new GenekoUredjaj(i, podesavanja, geneko, kontrola));
+		}
+		for (int i = 0; i < podesavanja.nyitech; i++) {
+			uredjaji.execute(new NyitechUredjaj(i, podesavanja, nyitech, kontrola));
+		}
+		pocetak = System.currentTimeMillis();
+		prethodniTrenutak = pocetak;
+
+		ScheduledExecutorService raspored = Executors.newSingleThreadScheduledExecutor();
+		raspored.scheduleAtFixedRate(this::izvestaj, podesavanja.izvestajMs, podesavanja.izvestajMs, TimeUnit.MILLISECONDS);
+		if (podesavanja.olujaPosleMs > 0) {
+			Runnable oluja = () -> {
+				System.out.printf("[%4ds] oluja - %.0f%% uređaja gubi vezu na %d s%n", proteklo() / 1000,
+						podesavanja.olujaUdeo * 100, TimeUnit.MILLISECONDS.toSeconds(podesavanja.olujaPauzaMs));
+				kontrola.oluja();
+			};
+			if (podesavanja.olujaSvakihMs > 0) {
+				raspored.scheduleAtFixedRate(oluja, podesavanja.olujaPosleMs, podesavanja.olujaSvakihMs, TimeUnit.MILLISECONDS);
+			} else {
+				raspored.schedule(oluja, podesavanja.olujaPosleMs, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		Thread.sleep(podesavanja.trajanjeMs);
+		long trajanje = proteklo();
+		raspored.shutdownNow();
+		kontrola.zavrsi();
+		uredjaji.shutdownNow();
+		uredjaji.awaitTermination(10, TimeUnit.SECONDS);
+		zavrsniIzvestaj(trajanje);
+		if (menadzer != null) {
+			menadzer.stopAll();
+		}
+	}
+
+	private Brojaci protokol(String naziv, int port, int uredjaja) {
+		Brojaci brojaci = new Brojaci(naziv, port);
+		brojaci.uredjaja = uredjaja;
+		if (uredjaja > 0) {
+			protokoli.add(brojaci);
+		}
+		return brojaci;
+	}
+
+	/** Сервери као у Servis.contextInitialized, само за протоколе са уређајима. */
+	private ServerManager lokalniServeri() throws InterruptedException {
+		Stubovi.pripremi();
+		Stubovi.kasnjenjeUpisa(podesavanja.upisMikros);
+		ServerManager menadzer = new ServerManager();
+		for (Brojaci brojaci : protokoli) {
+			int port = brojaci.port;
+			if (!podesavanja.rezim.isEmpty()) {
+				System.setProperty("prati.server." + port + ".mode", podesavanja.rezim);
+			}
+			ServerMode rezim = ServerMode.zaPort(port);
+			Runnable server;
+			switch (brojaci.protokol) {
+			case "NYITECH":
+				server = new NyitechServer(port, 20, rezim);
+				break;
+			case "NEON":
+				server = new OpstiServer(port, 100, rezim);
+				break;
+			case "GENEKO":
+				server = new OpstiServer(port, 20, rezim);
+				break;
+			default:
+				server = new OpstiServer(port, 200, rezim);
+				break;
+			}
+			menadzer.registerServer(brojaci.protokol, server, port);
+			System.out.printf("Lokalni %s server na %d (%s)%n", brojaci.protokol, port, rezim);
+		}
+		menadzer.startAll();
+		// ServerSocket се отвара у нити сервера
+		Thread.sleep(1000);
+		return menadzer;
+	}
+
+	private long proteklo() {
+		return System.currentTimeMillis() - pocetak;
+	}
+
+	private void izvestaj() {
+		long sada = System.currentTimeMillis();
+		double sekundi = Math.max(1, sada - prethodniTrenutak) / 1000.0;
+		prethodniTrenutak = sada;
+		long zapisa = 0;
+		StringBuilder sb = new StringBuilder(String.format("[%4ds]", proteklo() / 1000));
+		for (Brojaci b : protokoli) {
+			long z = b.zapisa.sum();
+			zapisa += z;
+			sb.append(String.format(" %s %d/%d", b.protokol, b.povezanih.get(), b.uredjaja));
+		}
+		sb.append(String.format(" | zapisa/s %.0f", (zapisa - prethodnoZapisa) / sekundi));
+		prethodnoZapisa = zapisa;
+		if (podesavanja.lokalno) {
+			long upisa = Stubovi.getUpisa();
+			sb.append(String.format(" | upisa/s %.0f", (upisa - prethodnoUpisa) / sekundi));
+			prethodnoUpisa = upisa;
+		}
+		for (Brojaci b : protokoli) {
+			if (b.ack.getBroj() > 0) {
+				sb.append(" | ").append(b.protokol).append(" ack ").append(b.ack.perc(50, 99));
+			}
+		}
+		System.out.println(sb);
+	}
+
+	private void zavrsniIzvestaj(long trajanjeMs) {
+		double sekundi = trajanjeMs / 1000.0;
+		System.out.println();
+		System.out.printf("Trajanje %.0f s, perioda %d s, spori %.0f%%, zaostatak %.0f%% x %d zapisa%n", sekundi,
+				TimeUnit.MILLISECONDS.toSeconds(podesavanja.periodaMs), podesavanja.sporiUdeo * 100,
+				podesavanja.zaostatakUdeo * 100, podesavanja.zaostatakZapisa);
+		for (Brojaci b : protokoli) {
+			System.out.printf("%-8s uređaja=%d, konekcija=%d, neuspelih=%d, prekida=%d, olujnih=%d, bez ACK=%d%n",
+					b.protokol, b.uredjaja, b.konekcija.sum(), b.neuspelihVeza.sum(), b.prekida.sum(),
+					b.olujnihPrekida.sum(), b.bezOdgovora.sum());
+			System.out.printf("         poslato okvira=%d (%.1f/s), zapisa=%d (%.1f/s), %.1f KB/s%n",
+					b.okvira.sum(), b.okvira.sum() / sekundi, b.zapisa.sum(), b.zapisa.sum() / sekundi,
+					b.bajtova.sum() / 1024.0 / sekundi);
+			if (b.ack.getBroj() > 0) {
+				System.out.printf("         ACK (%d): %s%n", b.ack.getBroj(), b.ack.perc(50, 90, 99, 99.9));
+			}
+			MetrikeProtokola server = MetrikeProtokola.akoPostoji(b.protokol);
+			if (podesavanja.lokalno && server != null) {
+				System.out.printf("         server: %s%n", server.sazetak());
+			}
+		}
+		if (podesavanja.lokalno) {
+			System.out.printf("Upisa u bazu (stub): %d (%.1f/s)%n", Stubovi.getUpisa(), Stubovi.getUpisa() / sekundi);
+		}
+	}
+}
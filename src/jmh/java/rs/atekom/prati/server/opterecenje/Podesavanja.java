@@ -0,0 +1,121 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подешавања генератора оптерећења, из аргумената облика {@code kljuc=vrednost}.
+ * Непознат кључ је грешка, да опечатак не би тихо променио тест.
+ */
+final class Podesavanja {
+
+	private static final Map<String, String> PODRAZUMEVANO = new HashMap<>();
+
+	static {
+		// број уређаја по протоколу
+		PODRAZUMEVANO.put("ruptela", "500");
+		PODRAZUMEVANO.put("neon", "200");
+		PODRAZUMEVANO.put("geneko", "50");
+		PODRAZUMEVANO.put("nyitech", "20");
+		// lokalno=true - сервери у истом процесу над лажним сервисима (Stubovi)
+		PODRAZUMEVANO.put("lokalno", "true");
+		PODRAZUMEVANO.put("adresa", "localhost");
+		// режим локалних сервера (BLOCKING, NIO, VIRTUAL); празно - prati.server.<port>.mode
+		PODRAZUMEVANO.put("rezim", "");
+		// трајање упису у лажну базу, микросекунде
+		PODRAZUMEVANO.put("upis.us", "0");
+		// секунде
+		PODRAZUMEVANO.put("trajanje", "120");
+		PODRAZUMEVANO.put("perioda", "30");
+		PODRAZUMEVANO.put("rampa", "10");
+		PODRAZUMEVANO.put("izvestaj", "10");
+		PODRAZUMEVANO.put("ack.timeout", "30");
+		// мешавина оквира
+		PODRAZUMEVANO.put("alarmi.udeo", "0.02");
+		PODRAZUMEVANO.put("prosireni.udeo", "0.1");
+		// заостатак на почетку (уређај је био ван покривања)
+		PODRAZUMEVANO.put("zaostatak.udeo", "0.1");
+		PODRAZUMEVANO.put("zaostatak.zapisa", "120");
+		// олуја поновних повезивања: после oluja.posle s, понавља се на oluja.svakih s (0 - једном)
+		PODRAZUMEVANO.put("oluja.posle", "60");
+		PODRAZUMEVANO.put("oluja.svakih", "0");
+		PODRAZUMEVANO.put("oluja.udeo", "0.5");
+		PODRAZUMEVANO.put("oluja.pauza", "20");
+		// спори уређаји - шаљу у комадима и касно читају ACK
+		PODRAZUMEVANO.put("spori.udeo", "0.02");
+		PODRAZUMEVANO.put("spori.ms", "2000");
+	}
+
+	final int ruptela;
+	final int neon;
+	final int geneko;
+	final int nyitech;
+	final boolean lokalno;
+	final String adresa;
+	final String rezim;
+	final long upisMikros;
+	final long trajanjeMs;
+	final long periodaMs;
+	final long rampaMs;
+	final long izvestajMs;
+	final int ackTimeoutMs;
+	final double alarmiUdeo;
+	final double prosireniUdeo;
+	final double zaostatakUdeo;
+	final int zaostatakZapisa;
+	final long olujaPosleMs;
+	final long olujaSvakihMs;
+	final double olujaUdeo;
+	final long olujaPauzaMs;
+	final double sporiUdeo;
+	final long sporiMs;
+
+	private Podesavanja(Map<String, String> v) {
+		ruptela = Integer.parseInt(v.get("ruptela"));
+		neon = Integer.parseInt(v.get("neon"));
+		geneko = Integer.parseInt(v.get("geneko"));
+		nyitech = Integer.parseInt(v.get("nyitech"));
+		lokalno = Boolean.parseBoolean(v.get("lokalno"));
+		adresa = v.get("adresa");
+		rezim = v.get("rezim").trim().toUpperCase();
+		upisMikros = Long.parseLong(v.get("upis.us"));
+		trajanjeMs = sekunde(v, "trajanje");
+		periodaMs = sekunde(v, "perioda");
+		rampaMs = sekunde(v, "rampa");
+		izvestajMs = sekunde(v, "izvestaj");
+		ackTimeoutMs = (int) sekunde(v, "ack.timeout");
+		alarmiUdeo = Double.parseDouble(v.get("alarmi.udeo"));
+		prosireniUdeo = Double.parseDouble(v.get("prosireni.udeo"));
+		zaostatakUdeo = Double.parseDouble(v.get("zaostatak.udeo"));
+		zaostatakZapisa = Integer.parseInt(v.get("zaostatak.zapisa"));
+		olujaPosleMs = sekunde(v, "oluja.posle");
+		olujaSvakihMs = sekunde(v, "oluja.svakih");
+		olujaUdeo = Double.parseDouble(v.get("oluja.udeo"));
+		olujaPauzaMs = sekunde(v, "oluja.pauza");
+		sporiUdeo = Double.parseDouble(v.get("spori.udeo"));
+		sporiMs = Long.parseLong(v.get("spori.ms"));
+		if (periodaMs <= 0 || trajanjeMs <= 0 || izvestajMs <= 0) {
+			throw new IllegalArgumentException("perioda, trajanje i izvestaj moraju biti veći od 0");
+		}
+	}
+
+	static Podesavanja iz(String[] argumenti) {
+		Map<String, String> vrednosti = new HashMap<>(PODRAZUMEVANO);
+		for (String argument : argumenti) {
+			int jednako = argument.indexOf('=');
+			String kljuc = jednako < 0 ? argument : argument.substring(0, jednako);
+			if (jednako < 0 || !PODRAZUMEVANO.containsKey(kljuc)) {
+				throw new IllegalArgumentException("Nepoznat argument '" + argument + "', dozvoljeni: "
+						+ new TreeSet<>(PODRAZUMEVANO.keySet()));
+			}
+			vrednosti.put(kljuc, argument.substring(jednako + 1));
+		}
+		return new Podesavanja(vrednosti);
+	}
+
+	private static long sekunde(Map<String, String> v, String kljuc) {
+		return TimeUnit.SECONDS.toMillis(Long.parseLong(v.get(kljuc)));
+	}
+}
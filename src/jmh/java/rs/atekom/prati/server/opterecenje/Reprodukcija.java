@@ -0,0 +1,113 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import rs.atekom.prati.server.OpstiServer;
+import rs.atekom.prati.server.ServerMode;
+import rs.atekom.prati.server.Stubovi;
+import rs.atekom.prati.server.dnevnik.ReprodukcijaDnevnika;
+import rs.atekom.prati.server.dnevnik.StanjeReprodukcije;
+import rs.atekom.prati.server.metrike.MetrikeProtokola;
+
+/**
+ * Снимљени производни саобраћај из дневника оквира ({@code prati.dnevnik.dir})
+ * кроз сесије и обраду јављања у истом процесу, над лажним сервисима
+ * ({@link Stubovi}) - без базе и без мреже. Мери се пропусност и трајање
+ * обраде оквира, темпом пријема или убрзано.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=rs.atekom.prati.server.opterecenje.Reprodukcija \
+ *     -Djmh.args="dnevnik=/var/prati/dnevnik brzina=10 niti=8"
+ * </pre>
+ */
+public final class Reprodukcija {
+
+	private static final Map<String, String> PODRAZUMEVANO = new HashMap<>();
+
+	static {
+		PODRAZUMEVANO.put("dnevnik", "");
+		// 0 - без паузе, 1 - темпом пријема, N - N пута брже
+		PODRAZUMEVANO.put("brzina", "0");
+		PODRAZUMEVANO.put("niti", "4");
+		// локално време, нпр. 2026-01-31T08:00; празно - цео дневник
+		PODRAZUMEVANO.put("od", "");
+		PODRAZUMEVANO.put("do", "");
+		// IMEI-ји са зарезима; празно - сви уређаји
+		PODRAZUMEVANO.put("imei", "");
+		// трајање упису у лажну базу, микросекунде
+		PODRAZUMEVANO.put("upis.us", "0");
+	}
+
+	private Reprodukcija() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> v = new HashMap<>(PODRAZUMEVANO);
+		for (String argument : args) {
+			int jednako = argument.indexOf('=');
+			String kljuc = jednako < 0 ? argument : argument.substring(0, jednako);
+			if (jednako < 0 || !PODRAZUMEVANO.containsKey(kljuc)) {
+				throw new IllegalArgumentException("Nepoznat argument '" + argument + "', dozvoljeni: "
+						+ new TreeSet<>(PODRAZUMEVANO.keySet()));
+			}
+			v.put(kljuc, argument.substring(jednako + 1));
+		}
+		if (v.get("dnevnik").isEmpty()) {
+			throw new IllegalArgumentException("dnevnik=<direktorijum> je obavezan");
+		}
+		Set<String> imei = new HashSet<>();
+		for (String kod : v.get("imei").split(",")) {
+			if (!kod.trim().isEmpty()) {
+				imei.add(kod.trim());
+			}
+		}
+
+		Stubovi.pripremi();
+		Stubovi.kasnjenjeUpisa(Long.parseLong(v.get("upis.us")));
+		// сервери се не покрећу - служе само као извор сесија
+		Map<String, OpstiServer> serveri = new HashMap<>();
+		serveri.put("NEON", new OpstiServer(9000, 1, ServerMode.BLOCKING));
+		serveri.put("GENEKO", new OpstiServer(9030, 1, ServerMode.BLOCKING));
+		serveri.put("RUPTELA", new OpstiServer(9040, 1, ServerMode.BLOCKING));
+
+		long od = vreme(v.get("od"), Long.MIN_VALUE);
+		long doVremena = vreme(v.get("do"), Long.MAX_VALUE);
+		// лажна база нема уписаних јављања - свако јављање иде кроз целу обраду
+		StanjeReprodukcije stanje = new StanjeReprodukcije(od, doVremena, (objekat, vreme) -> null, objekat -> null);
+		ReprodukcijaDnevnika reprodukcija = new ReprodukcijaDnevnika(Paths.get(v.get("dnevnik")), protokol -> {
+					OpstiServer server = serveri.get(protokol);
+					return server == null ? null : server.sesijaZaReprodukciju(stanje);
+				}, od, doVremena,
+				imei.isEmpty() ? kod -> true : imei::contains,
+				Double.parseDouble(v.get("brzina")), Integer.parseInt(v.get("niti")), 1_000);
+
+		long pocetak = System.nanoTime();
+		long obradjeno = reprodukcija.izvrsi();
+		double sekundi = Math.max(1e-3, (System.nanoTime() - pocetak) / 1e9);
+
+		System.out.println();
+		System.out.printf("Trajanje %.1f s, obrađeno okvira %d (%.1f/s)%n", sekundi, obradjeno, obradjeno / sekundi);
+		System.out.printf("Reprodukcija: %s%n", reprodukcija.sazetak());
+		for (String protokol : Arrays.asList("NEON", "GENEKO", "RUPTELA")) {
+			MetrikeProtokola metrike = MetrikeProtokola.akoPostoji(protokol);
+			if (metrike != null) {
+				System.out.printf("%-8s %s%n", protokol, metrike.sazetak());
+			}
+		}
+		System.out.printf("Upisa u bazu (stub): %d (%.1f/s)%n", Stubovi.getUpisa(), Stubovi.getUpisa() / sekundi);
+		System.exit(0);
+	}
+
+	private static long vreme(String vrednost, long podrazumevano) {
+		return vrednost.trim().isEmpty() ? podrazumevano
+				: LocalDateTime.parse(vrednost.trim()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}
@@ -0,0 +1,85 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rs.atekom.prati.server.Okviri;
+
+/**
+ * RUPTELA уређај: записи из {@code okviri/ruptela.txt} са текућим временом,
+ * пакети до {@link #NAJVECI_PAKET} бајтова са CRC-ом, ACK после сваког пакета.
+ * Део пакета (prosireni.udeo) иде командом 0x44.
+ */
+final class RuptelaUredjaj extends Uredjaj {
+
+	/** Payload без поља дужине и CRC-а, као RuptelaOpstiThread.MAX_PACKET_LENGTH. */
+	static final int NAJVECI_PAKET = 1024;
+	static final int DUZINA_ACK = 6;
+	private static final int ZAGLAVLJE = 8 + 3;
+	private static final long PRVI_IMEI = 352_093_080_000_000L;
+
+	private static final List<byte[]> STANDARDNI = zapisi("standard");
+	private static final List<byte[]> PROSIRENI = zapisi("extended");
+
+	private final long imei;
+	private int sledeci;
+
+	RuptelaUredjaj(int redniBroj, Podesavanja podesavanja, Brojaci brojaci, Kontrola kontrola) {
+		super(redniBroj, podesavanja, brojaci, kontrola);
+		imei = PRVI_IMEI + redniBroj;
+		sledeci = random.nextInt(STANDARDNI.size());
+	}
+
+	private static List<byte[]> zapisi(String vrsta) {
+		List<byte[]> lista = new ArrayList<>();
+		for (String hex : Okviri.ucitaj("ruptela", vrsta)) {
+			lista.add(Okviri.bajtovi(hex));
+		}
+		return lista;
+	}
+
+	@Override
+	protected int zapisaPoSlanju() {
+		return 20;
+	}
+
+	@Override
+	protected void posalji(long[] vremena, boolean josIma) throws IOException {
+		boolean prosireni = random.nextDouble() < podesavanja.prosireniUdeo;
+		List<byte[]> uzorci = prosireni ? PROSIRENI : STANDARDNI;
+		ByteArrayOutputStream zapisi = new ByteArrayOutputStream();
+		int uPaketu = 0;
+		for (int i = 0; i < vremena.length; i++) {
+			byte[] zapis = uzorci.get(sledeci++ % uzorci.size()).clone();
+			ByteBuffer.wrap(zapis).putInt((int) TimeUnit.MILLISECONDS.toSeconds(vremena[i]));
+			if (uPaketu > 0 && ZAGLAVLJE + zapisi.size() + zapis.length > NAJVECI_PAKET) {
+				paket(prosireni, true, uPaketu, zapisi.toByteArray());
+				zapisi.reset();
+				uPaketu = 0;
+			}
+			zapisi.write(zapis);
+			uPaketu++;
+		}
+		paket(prosireni, josIma, uPaketu, zapisi.toByteArray());
+	}
+
+	private void paket(boolean prosireni, boolean josIma, int brojZapisa, byte[] zapisi) throws IOException {
+		int duzina = ZAGLAVLJE + zapisi.length;
+		ByteBuffer paket = ByteBuffer.allocate(2 + duzina + 2);
+		paket.putShort((short) duzina);
+		paket.putLong(imei);
+		paket.put((byte) (prosireni ? 0x44 : 0x01));
+		paket.put((byte) (josIma ? 1 : 0));
+		paket.put((byte) brojZapisa);
+		paket.put(zapisi);
+		paket.putShort((short) Okviri.crc16Kermit(paket.array(), 2, duzina));
+		long pocetak = System.nanoTime();
+		pisi(paket.array());
+		poslato(1, brojZapisa);
+		citajAck(DUZINA_ACK, pocetak);
+	}
+}
@@ -0,0 +1,254 @@
+package rs.atekom.prati.server.opterecenje;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Један симулирани уређај: повезује се, јавља на {@code perioda}, после прекида
+ * шаље заостатак, у олуји губи везу и враћа се заједно са осталима.
+ *
+ * <p>Спор уређај (лоша веза) шаље оквире у комадима и ACK чита тек после
+ * {@code spori.ms}; његова кашњења не улазе у перцентиле.</p>
+ */
+abstract class Uredjaj implements Runnable {
+
+	private static final int KOMAD_SPOROG = 64;
+	private static final long PAUZA_KOMADA_MS = 50;
+
+	/** Заједнички сигнали свим уређајима - крај мерења и олуја. */
+	static final class Kontrola {
+
+		private volatile boolean kraj;
+		private volatile CountDownLatch signal = new CountDownLatch(1);
+
+		boolean isKraj() {
+			return kraj;
+		}
+
+		CountDownLatch signal() {
+			return signal;
+		}
+
+		synchronized void oluja() {
+			CountDownLatch stari = signal;
+			signal = new CountDownLatch(1);
+			stari.countDown();
+		}
+
+		synchronized void zavrsi() {
+			kraj = true;
+			signal.countDown();
+		}
+	}
+
+	protected final int redniBroj;
+	protected final Podesavanja podesavanja;
+	protected final Brojaci brojaci;
+	protected final Random random;
+	protected final boolean spor;
+	private final Kontrola kontrola;
+
+	private Socket socket;
+	private DataInputStream ulaz;
+	private OutputStream izlaz;
+	private int zaostatak;
+	private long sledece;
+
+	Uredjaj(int redniBroj, Podesavanja podesavanja, Brojaci brojaci, Kontrola kontrola) {
+		this.redniBroj = redniBroj;
+		this.podesavanja = podesavanja;
+		this.brojaci = brojaci;
+		this.kontrola = kontrola;
+		this.random = new Random(31L * brojaci.port + redniBroj);
+		this.spor = random.nextDouble() < podesavanja.sporiUdeo;
+	}
+
+	/** Највише записа у једном слању заостатка. */
+	protected abstract int zapisaPoSlanju();
+
+	/**
+	 * Шаље записе са датим временима (ms); {@code josIma} - заостатак се наставља.
+	 * Броји оквире и записе и чека ACK где га протокол има.
+	 */
+	protected abstract void posalji(long[] vremena, boolean josIma) throws IOException;
+
+	/** Пријава после повезивања, ако је протокол има. */
+	protected void prijava() throws IOException {
+	}
+
+	@Override
+	public void run() {
+		try {
+			spavaj(podesavanja.rampaMs > 0 ? (long) (random.nextDouble() * podesavanja.rampaMs) : 0);
+			if (random.nextDouble() < podesavanja.zaostatakUdeo) {
+				zaostatak = podesavanja.zaostatakZapisa;
+			}
+			sledece = System.currentTimeMillis();
+			while (!kontrola.isKraj()) {
+				if (socket == null && !povezi()) {
+					spavaj(1000 + random.nextInt(4000));
+					continue;
+				}
+				if (zaostatak > 0) {
+					posaljiZaostatak();
+					continue;
+				}
+				CountDownLatch signal = kontrola.signal();
+				long cekanje = sledece - System.currentTimeMillis();
+				if (cekanje > 0 && signal.await(cekanje, TimeUnit.MILLISECONDS)) {
+					if (!kontrola.isKraj() && random.nextDouble() < podesavanja.olujaUdeo) {
+						oluja();
+					}
+					continue;
+				}
+				sledece += podesavanja.periodaMs;
+				salji(new long[] { System.currentTimeMillis() }, false);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			zatvori();
+		}
+	}
+
+	private boolean povezi() {
+		Socket novi = new Socket();
+		try {
+			novi.setTcpNoDelay(true);
+			novi.connect(new InetSocketAddress(podesavanja.adresa, brojaci.port), 5000);
+			novi.setSoTimeout(podesavanja.ackTimeoutMs);
+			socket = novi;
+			ulaz = new DataInputStream(novi.getInputStream());
+			izlaz = novi.getOutputStream();
+			brojaci.konekcija.increment();
+			brojaci.povezanih.incrementAndGet();
+			prijava();
+			return true;
+		} catch (IOException e) {
+			brojaci.neuspelihVeza.increment();
+			if (socket != null) {
+				zatvori();
+			} else {
+				try {
+					novi.close();
+				} catch (IOException ignored) {
+				}
+			}
+			return false;
+		}
+	}
+
+	private void zatvori() {
+		if (socket == null) {
+			return;
+		}
+		try {
+			socket.close();
+		} catch (IOException ignored) {
+		}
+		socket = null;
+		brojaci.povezanih.decrementAndGet();
+	}
+
+	/** Слање; ако пукне, записи остају у заостатку за следећу везу. */
+	private boolean salji(long[] vremena, boolean josIma) {
+		try {
+			posalji(vremena, josIma);
+			return true;
+		} catch (IOException e) {
+			if (!kontrola.isKraj()) {
+				brojaci.prekida.increment();
+			}
+			zatvori();
+			zaostatak += vremena.length;
+			return false;
+		}
+	}
+
+	/** Записи из времена ван покривања, најстарији први, један период размака. */
+	private void posaljiZaostatak() {
+		int ukupno = zaostatak;
+		zaostatak = 0;
+		long sada = System.currentTimeMillis();
+		for (int poslato = 0; poslato < ukupno && !kontrola.isKraj(); ) {
+			int n = Math.min(zapisaPoSlanju(), ukupno - poslato);
+			long[] vremena = new long[n];
+			for (int i = 0; i < n; i++) {
+				vremena[i] = sada - (long) (ukupno - poslato - i) * podesavanja.periodaMs;
+			}
+			if (!salji(vremena, poslato + n < ukupno)) {
+				zaostatak += ukupno - poslato - n;
+				return;
+			}
+			poslato += n;
+		}
+		sledece = System.currentTimeMillis() + podesavanja.periodaMs;
+	}
+
+	/** Губитак покривања - веза пада, а јављања се гомилају до повратка. */
+	private void oluja() throws InterruptedException {
+		brojaci.olujnihPrekida.increment();
+		zatvori();
+		long pauza = podesavanja.olujaPauzaMs + random.nextInt(500);
+		long povratak = System.currentTimeMillis() + pauza;
+		long preostalo;
+		while ((preostalo = povratak - System.currentTimeMillis()) > 0 && !kontrola.isKraj()) {
+			kontrola.signal().await(preostalo, TimeUnit.MILLISECONDS);
+		}
+		zaostatak += (int) (pauza / podesavanja.periodaMs);
+	}
+
+	/** Уписује оквир(е); спор уређај шаље у комадима. */
+	protected final void pisi(byte[] niz) throws IOException {
+		if (!spor) {
+			izlaz.write(niz);
+		} else {
+			for (int od = 0; od < niz.length; od += KOMAD_SPOROG) {
+				izlaz.write(niz, od, Math.min(KOMAD_SPOROG, niz.length - od));
+				izlaz.flush();
+				spavaj(PAUZA_KOMADA_MS);
+			}
+		}
+		izlaz.flush();
+		brojaci.bajtova.add(niz.length);
+	}
+
+	/** Чита ACK дате дужине; кашњење се мери од {@code pocetakNanos} (пре слања). */
+	protected final void citajAck(int duzina, long pocetakNanos) throws IOException {
+		if (spor) {
+			spavaj(podesavanja.sporiMs);
+		}
+		try {
+			ulaz.readFully(new byte[duzina]);
+		} catch (SocketTimeoutException e) {
+			brojaci.bezOdgovora.increment();
+			throw e;
+		}
+		if (!spor) {
+			brojaci.ack.zabelezi(System.nanoTime() - pocetakNanos);
+		}
+	}
+
+	protected final void poslato(int okvira, int zapisa) {
+		brojaci.okvira.add(okvira);
+		brojaci.zapisa.add(zapisa);
+	}
+
+	protected static void spavaj(long ms) {
+		if (ms <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
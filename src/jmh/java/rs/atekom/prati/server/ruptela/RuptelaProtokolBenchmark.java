@@ -0,0 +1,110 @@
+package rs.atekom.prati.server.ruptela;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.JavljanjeObd;
+import rs.atekom.prati.server.Okviri;
+import rs.atekom.prati.server.Stubovi;
+
+/**
+ * Парсирање RUPTELA записа: hex путања ({@code vratiJavljanje/vratiExtended(int, Objekti, String)})
+ * према бинарној над бафером пакета, коју користи RuptelaOpstiThread.
+ *
+ * <p>Сваки позив обрађује следећи запис из {@code okviri/ruptela.txt}, у круг.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuptelaProtokolBenchmark {
+
+	private RuptelaProtokol protokol;
+	private Objekti objekat;
+
+	private String[] standardHex;
+	private ByteBuffer[] standard;
+	private int[] krajStandard;
+	private String extendedHex;
+	private ByteBuffer extended;
+	private int krajExtended;
+
+	private int i;
+
+	@Setup
+	public void pripremi() {
+		Stubovi.pripremi();
+		protokol = new RuptelaProtokol();
+		objekat = Stubovi.uredjaj("RUPTELA-BENCH").getObjekti();
+
+		List<String> zapisi = Okviri.ucitaj("ruptela", "standard");
+		standardHex = zapisi.toArray(new String[0]);
+		standard = new ByteBuffer[zapisi.size()];
+		krajStandard = new int[zapisi.size()];
+		for (int z = 0; z < standard.length; z++) {
+			byte[] bajtovi = Okviri.bajtovi(standardHex[z]);
+			standard[z] = ByteBuffer.wrap(bajtovi);
+			krajStandard[z] = RuptelaProtokol.krajZapisa(standard[z], 0, bajtovi.length, false);
+			if (krajStandard[z] != bajtovi.length) {
+				throw new IllegalStateException("Nepotpun standard zapis " + z + ": " + krajStandard[z]);
+			}
+		}
+
+		extendedHex = Okviri.ucitaj("ruptela", "extended").get(0);
+		byte[] bajtovi = Okviri.bajtovi(extendedHex);
+		extended = ByteBuffer.wrap(bajtovi);
+		krajExtended = RuptelaProtokol.krajZapisa(extended, 0, bajtovi.length, true);
+		if (krajExtended != bajtovi.length) {
+			throw new IllegalStateException("Nepotpun extended zapis: " + krajExtended);
+		}
+	}
+
+	private int sledeci() {
+		int z = i;
+		i = z + 1 == standard.length ? 0 : z + 1;
+		return z;
+	}
+
+	@Benchmark
+	public JavljanjeObd standardHex() {
+		return protokol.vratiJavljanje(0, objekat, standardHex[sledeci()]);
+	}
+
+	@Benchmark
+	public JavljanjeObd standardBinarno() {
+		int z = sledeci();
+		return protokol.vratiJavljanje(objekat, standard[z], 0, krajStandard[z]);
+	}
+
+	/** Само налажење краја записа, као при подели пакета. */
+	@Benchmark
+	public int standardKrajZapisa() {
+		int z = sledeci();
+		return RuptelaProtokol.krajZapisa(standard[z], 0, krajStandard[z], false);
+	}
+
+	@Benchmark
+	public JavljanjeObd extendedHex() {
+		return protokol.vratiExtended(0, objekat, extendedHex);
+	}
+
+	@Benchmark
+	public JavljanjeObd extendedBinarno() {
+		return protokol.vratiExtended(objekat, extended, 0, krajExtended);
+	}
+}
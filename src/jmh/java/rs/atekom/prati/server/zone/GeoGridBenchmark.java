@@ -0,0 +1,84 @@
+package rs.atekom.prati.server.zone;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rs.atekom.prati.server.zone.GeoGridTest.Krug;
+
+/**
+ * Улазак у зону за једну тачку: линеарни пролаз кроз све зоне (као раније
+ * у handleUlazakUZonu) према {@link GeoGrid} кандидатима.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoGridBenchmark {
+
+	private static final int TACAKA = 65_536;
+
+	@Param({"50", "500", "2000"})
+	public int brojZona;
+
+	private List<Krug> zone;
+	private GeoGrid<Krug> grid;
+	private double[] lat;
+	private double[] lon;
+	private int i;
+
+	@Setup
+	public void pripremi() {
+		Random rnd = new Random(7);
+		zone = GeoGridTest.nasumicneZone(rnd, brojZona);
+		grid = GeoGridTest.indeks(zone);
+		lat = new double[TACAKA];
+		lon = new double[TACAKA];
+		for (int t = 0; t < TACAKA; t++) {
+			lat[t] = 42.2 + rnd.nextDouble() * 4;
+			lon[t] = 19.0 + rnd.nextDouble() * 4;
+		}
+	}
+
+	private int sledeca() {
+		int t = i;
+		i = (t + 1) & (TACAKA - 1);
+		return t;
+	}
+
+	@Benchmark
+	public Krug linearno() {
+		int t = sledeca();
+		for (Krug k : zone) {
+			if (k.sadrzi(lat[t], lon[t])) {
+				return k;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public Krug indeks() {
+		int t = sledeca();
+		for (Krug k : grid.kandidati(lat[t], lon[t])) {
+			if (k.sadrzi(lat[t], lon[t])) {
+				return k;
+			}
+		}
+		return null;
+	}
+}
@@ -1,41 +1,248 @@
 package rs.atekom.prati;
 
 import java.io.Serializable;
-import java.util.LinkedList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import pratiBaza.tabele.Javljanja;
 
+/**
+ * Слање јављања свим отвореним корисничким интерфејсима.
+ *
+ * <p>Сваки слушалац има своје ограничено сандуче, а испоруку ради пул нити
+ * ({@code -Dprati.broadcast.niti}), највише један задатак по слушаоцу у исто
+ * време, тако да спор UI не задржава остале. {@link #broadcast} не закључава
+ * регистар и не чека на UI - нити конекција само убаце поруку у сандучиће.</p>
+ *
+ * <p>Обична јављања (без аларма или са шифром "0") спајају се по објекту: ако
+ * UI још није преузео претходну позицију возила, она се замењује новијом.
+ * Аларми се никад не спајају ни не одбацују. Када се сандуче напуни
+ * ({@code -Dprati.broadcast.sanduce}), одбацује се најстарија позиција.</p>
+ */
 public class Broadcaster implements Serializable {
     /**
 	 * slanje poruka
 	 */
 	private static final long serialVersionUID = 1L;
-	static ExecutorService execService = Executors.newSingleThreadExecutor();
-	
+	private static final Logger logger = LoggerFactory.getLogger(Broadcaster.class);
+
+	private static final int KAPACITET_SANDUCETA = Integer.getInteger("prati.broadcast.sanduce", 1_000);
+	private static final int NITI = Integer.getInteger("prati.broadcast.niti",
+			Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+	private static final AtomicInteger brojacNiti = new AtomicInteger();
+	// један задатак по сандучету у реду, па је ред ограничен бројем слушалаца
+	static final ThreadPoolExecutor execService = new ThreadPoolExecutor(NITI, NITI,
+			60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread t = new Thread(r, "broadcast-" + brojacNiti.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+	static {
+		execService.allowCoreThreadTimeOut(true);
+	}
+
     public interface BroadcastListener {
         void receiveBroadcast(Javljanja message);
+
+        /**
+         * Испорука више порука одједном, у редоследу пријема.
+         * Подразумевано се свака прослеђује појединачно.
+         */
+        default void receiveBroadcast(List<Javljanja> messages) {
+        	for (Javljanja message : messages) {
+        		receiveBroadcast(message);
+        	}
+        }
     }
 
-    private static LinkedList<BroadcastListener> listeners = new LinkedList<BroadcastListener>();
+    private static final ConcurrentMap<BroadcastListener, Sanduce> listeners = new ConcurrentHashMap<>();
+
+    private static final AtomicLong primljeno = new AtomicLong();
+    private static final AtomicLong isporuceno = new AtomicLong();
+    private static final AtomicLong spojeno = new AtomicLong();
+    private static final AtomicLong odbaceno = new AtomicLong();
+    private static final AtomicLong gresaka = new AtomicLong();
 
-    public static synchronized void register(BroadcastListener listener) {
-    	listeners.add(listener);
+    public static void register(BroadcastListener listener) {
+    	listeners.putIfAbsent(listener, new Sanduce(listener));
     	}
-    
-    public static synchronized void unregister(BroadcastListener listener) {
-        listeners.remove(listener);
+
+    public static void unregister(BroadcastListener listener) {
+        Sanduce sanduce = listeners.remove(listener);
+        if (sanduce != null) {
+        	sanduce.odjavi();
+        }
+        }
+
+    public static void broadcast(final Javljanja message) {
+    	if (message == null) {
+    		return;
+    	}
+    	primljeno.incrementAndGet();
+        for (Sanduce sanduce : listeners.values()) {
+        	sanduce.dodaj(message);
         }
+    }
 
-    public static synchronized void broadcast(final Javljanja message) {
-        for (final BroadcastListener listener: listeners){
-        	execService.submit(new Runnable() {
-        		@Override
-                public void run() {
-                    listener.receiveBroadcast(message);
-                }
-            });
-        };
+    public static int getBrojSlusalaca() {
+    	return listeners.size();
+    }
+
+    /** Поруке које чекају испоруку, збир по свим сандучићима. */
+    public static int getNaCekanju() {
+    	int ukupno = 0;
+    	for (Sanduce sanduce : listeners.values()) {
+    		ukupno += sanduce.velicina();
+    	}
+    	return ukupno;
+    }
+
+    public static long getPrimljeno() {
+    	return primljeno.get();
+    }
+
+    public static long getIsporuceno() {
+    	return isporuceno.get();
+    }
+
+    public static long getSpojeno() {
+    	return spojeno.get();
+    }
+
+    public static long getOdbaceno() {
+    	return odbaceno.get();
+    }
+
+    public static long getGresaka() {
+    	return gresaka.get();
+    }
+
+    public static String stanje() {
+    	return String.format("slušalaca=%d, čeka=%d, primljeno=%d, isporučeno=%d, spojeno=%d, odbačeno=%d, grešaka=%d",
+    			getBrojSlusalaca(), getNaCekanju(), getPrimljeno(), getIsporuceno(), getSpojeno(), getOdbaceno(), getGresaka());
+    }
+
+    /** Да ли се јављање сме заменити новијим јављањем истог објекта. */
+    static boolean spojivo(Javljanja message) {
+    	return message.getObjekti() != null && message.getObjekti().getId() != null
+    			&& (message.getSistemAlarmi() == null || "0".equals(message.getSistemAlarmi().getSifra()));
+    }
+
+    /**
+     * Сандуче једног слушаоца: позиције се држе по објекту (кључ је id објекта),
+     * аларми под јединственим кључем, у редоследу првог пријема.
+     */
+    private static final class Sanduce {
+
+    	private final BroadcastListener listener;
+    	private final LinkedHashMap<Object, Javljanja> poruke = new LinkedHashMap<>();
+    	private boolean zakazano;
+    	private volatile boolean aktivno = true;
+
+    	Sanduce(BroadcastListener listener) {
+    		this.listener = listener;
+    	}
+
+    	void dodaj(Javljanja message) {
+    		synchronized (this) {
+    			if (!aktivno) {
+    				return;
+    			}
+    			if (spojivo(message)) {
+    				Long kljuc = message.getObjekti().getId();
+    				Javljanja prethodna = poruke.get(kljuc);
+    				if (prethodna != null) {
+    					spojeno.incrementAndGet();
+    					if (prethodna.getDatumVreme() == null || message.getDatumVreme() == null
+    							|| !message.getDatumVreme().before(prethodna.getDatumVreme())) {
+    						poruke.put(kljuc, message);
+    					}
+    					return;
+    				}
+    				poruke.put(kljuc, message);
+    			} else {
+    				poruke.put(new Object(), message);
+    			}
+    			if (poruke.size() > KAPACITET_SANDUCETA) {
+    				odbaciNajstarijuPoziciju();
+    			}
+    			if (zakazano) {
+    				return;
+    			}
+    			zakazano = true;
+    		}
+    		zakazi();
+    	}
+
+    	/** Аларм се не одбацује - ако у сандучету има само аларма, оно остаје веће. */
+    	private void odbaciNajstarijuPoziciju() {
+    		Iterator<Object> kljucevi = poruke.keySet().iterator();
+    		while (kljucevi.hasNext()) {
+    			if (kljucevi.next() instanceof Long) {
+    				kljucevi.remove();
+    				odbaceno.incrementAndGet();
+    				return;
+    			}
+    		}
+    	}
+
+    	private void zakazi() {
+    		try {
+    			execService.execute(this::isprazni);
+    		} catch (RejectedExecutionException e) {
+    			synchronized (this) {
+    				zakazano = false;
+    			}
+    		}
+    	}
+
+    	private void isprazni() {
+    		List<Javljanja> paket;
+    		synchronized (this) {
+    			paket = new ArrayList<>(poruke.values());
+    			poruke.clear();
+    		}
+    		if (!paket.isEmpty() && aktivno) {
+    			try {
+    				listener.receiveBroadcast(paket);
+    				isporuceno.addAndGet(paket.size());
+    			} catch (RuntimeException e) {
+    				gresaka.incrementAndGet();
+    				logger.debug("Broadcast: isporuka {} poruka nije uspela: {}", paket.size(), e.toString());
+    			}
+    		}
+    		synchronized (this) {
+    			if (poruke.isEmpty() || !aktivno) {
+    				zakazano = false;
+    				return;
+    			}
+    		}
+    		// стигло је још порука - ново заказивање, да и остали слушаоци дођу на ред
+    		zakazi();
+    	}
+
+    	void odjavi() {
+    		synchronized (this) {
+    			aktivno = false;
+    			poruke.clear();
+    		}
+    	}
+
+    	synchronized int velicina() {
+    		return poruke.size();
+    	}
     }
 }
@@ -3,7 +3,15 @@ package rs.atekom.prati;
 import java.io.File;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.servlet.ServletException;
@@ -17,7 +25,9 @@ import com.vaadin.annotations.Theme;
 import com.vaadin.annotations.Title;
 import com.vaadin.annotations.VaadinServletConfiguration;
 import com.vaadin.annotations.Viewport;
+import com.vaadin.data.provider.DataProvider;
 import com.vaadin.data.provider.GridSortOrder;
+import com.vaadin.data.provider.ListDataProvider;
 import com.vaadin.data.provider.Query;
 import com.vaadin.event.UIEvents.PollListener;
 import com.vaadin.icons.VaadinIcons;
@@ -81,13 +91,20 @@ public class Prati extends UI implements BroadcastListener{
 	public Organizacije organizacija;
 	public Grupe grupa;
 	public ArrayList<Objekti> objekti;
-	public ArrayList<Objekti> sviObjekti;
-	public ArrayList<AlarmiKorisnik> alarmiKorisnika;
+	/** Заједничке листе из {@code Servis.flota} - не мењају се. */
+	public List<Objekti> sviObjekti;
+	public List<AlarmiKorisnik> alarmiKorisnika;
 	public Grid<JavljanjaPoslednja> poslednjaJavljanja;
 	public Grid<Javljanja> javljanjaAlarmi;
 	private ArrayList<Javljanja> javljanjaAlarmiNiz;
+	private final Map<Long, JavljanjaPoslednja> poslednjaPoObjektuIndeks = new HashMap<Long, JavljanjaPoslednja>();
+	private DataProvider<JavljanjaPoslednja, ?> indeksiraniProvider;
+	private final Set<Long> vidljiviObjektiIndeks = new HashSet<Long>();
+	private List<Objekti> indeksiraniObjekti;
 	public boolean centriranje;
 	public boolean sortiranje;
+	/** Повећава се при свакој измени позиција у табели; Gmap по њој прескаче освежавање. */
+	public long verzijaPozicija;
 	public PracenjeView pracenjeView;
 	public int brojRuta;
 	public static SistemSesije sesija;
@@ -100,8 +117,8 @@ public class Prati extends UI implements BroadcastListener{
 		PratiEventBus.register(this);
 		addStyleName("v-font");
 		objekti = new ArrayList<Objekti>();
-		sviObjekti = new ArrayList<Objekti>();
-		alarmiKorisnika = new ArrayList<AlarmiKorisnik>();
+		sviObjekti = Collections.emptyList();
+		alarmiKorisnika = Collections.emptyList();
 		centriranje = true;
 		sortiranje = false;
 		brojRuta = 0;
@@ -225,14 +242,7 @@ public class Prati extends UI implements BroadcastListener{
 			Servis.sistemSesijaServis.unesiSesiju(sesija);
 			//Servis.sistemSesijaServis.izmeniSesiju(sesija);
 			
-			if(korisnik.isAdmin() || korisnik.getSistemPretplatnici().isSistem()) {
-				sviObjekti = new ArrayList<Objekti>();
-				sviObjekti.addAll(Servis.objekatServis.vratiSveObjekte(korisnik, true));
-			}else {
-				ArrayList<Grupe> grupe = new ArrayList<Grupe>();
-				grupe.addAll(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik));
-				sviObjekti = Servis.grupeObjekatServis.nadjiSveObjektePoGrupama(grupe);
-			}
+			sviObjekti = Servis.flota.objekti(korisnik);
 		}else {
 			showNotification(new Notification("Пријава није успела, покушајте поново или контактирајте администратора!", Notification.Type.HUMANIZED_MESSAGE));
 		}
@@ -383,54 +393,21 @@ public class Prati extends UI implements BroadcastListener{
 
     @Override
 	public void receiveBroadcast(final Javljanja message) {
+		receiveBroadcast(Collections.singletonList(message));
+	}
+
+    /**
+     * Пакет јављања из Broadcaster-а обрађује се у једном access(), па се
+     * табеле освежавају и шаљу прегледачу једном по пакету. Док је UI заузет,
+     * нове позиције истог возила се спајају у његовом сандучету.
+     */
+    @Override
+	public void receiveBroadcast(final List<Javljanja> messages) {
 		try {
 			this.access(new Runnable() {
 				@Override
 				public void run() {
-					//System.out.println("prolaz..." + message.getDatumVreme());
-					if(sadrziObjekat(sviObjekti, message.getObjekti().getId())) {
-						//tabela alarmi
-						if(message.getSistemAlarmi() != null && message.getSistemAlarmi().isPrikaz()) {
-							if(javljanjaAlarmiNiz.size() > 99) {
-								javljanjaAlarmiNiz.remove(javljanjaAlarmiNiz.get(0));
-							}
-								javljanjaAlarmiNiz.add(message);
-								javljanjaAlarmi.setItems(javljanjaAlarmiNiz);
-								javljanjaAlarmi.setSortOrder(GridSortOrder.desc(javljanjaAlarmi.getColumn("datumVreme")));
-						}
-						
-						//tabela javljanja
-						for(JavljanjaPoslednja javljanje : poslednjaJavljanja.getDataProvider().fetch(new Query<>()).collect(Collectors.toList())) {
-							if(javljanje.getDatumVreme().before(message.getDatumVreme()) && message.getObjekti().getId().equals(javljanje.getObjekti().getId())) {
-								javljanje.setDatumVreme(message.getDatumVreme());
-								javljanje.setBrzina(message.getBrzina());
-								javljanje.setKontakt(message.isKontakt());
-								javljanje.setLat(message.getLat());
-								javljanje.setLon(message.getLon());
-								javljanje.setPravac(message.getPravac());
-								poslednjaJavljanja.getDataProvider().refreshItem(javljanje);
-								if(sortiranje)
-									poslednjaJavljanja.setSortOrder(GridSortOrder.desc(poslednjaJavljanja.getColumn("datumVreme")));
-								break;
-							}
-						}
-						
-						//obavestenja
-						//if(pracenjeView != null) {}
-						if(message.getSistemAlarmi() != null && alarmiKorisnika != null && !alarmiKorisnika.isEmpty()) {
-							for(AlarmiKorisnik alarmKorisnik : alarmiKorisnika) {
-								if(message.getSistemAlarmi().getId().equals(alarmKorisnik.getSistemAlarm().getId()) && 
-										message.getObjekti().getId().equals(alarmKorisnik.getObjekti().getId())) {
-									pokaziObavestenje(message);
-									break;
-								}
-							}
-						}
-					
-						if(message.getSistemAlarmi() != null && message.getSistemAlarmi().isAktivan() && message.getSistemAlarmi().isAlarmiranje()) {
-							pokreniAlarm(message);
-						}
-					}
+					obradiJavljanja(messages);
 				}
 			});	
 		}catch (NullPointerException e) {
@@ -438,6 +415,103 @@ public class Prati extends UI implements BroadcastListener{
 		}
 	}
     
+    private void obradiJavljanja(List<Javljanja> messages) {
+		Set<Long> vidljivi = vidljiviObjekti();
+		Map<Long, JavljanjaPoslednja> poObjektu = poslednjaPoObjektu();
+		Set<JavljanjaPoslednja> izmenjena = new LinkedHashSet<JavljanjaPoslednja>();
+		boolean noviAlarmi = false;
+		for(Javljanja message : messages) {
+			if(message.getObjekti() == null || !vidljivi.contains(message.getObjekti().getId())) {
+				continue;
+			}
+			//tabela alarmi
+			if(message.getSistemAlarmi() != null && message.getSistemAlarmi().isPrikaz()) {
+				if(javljanjaAlarmiNiz.size() > 99) {
+					javljanjaAlarmiNiz.remove(0);
+				}
+				javljanjaAlarmiNiz.add(message);
+				noviAlarmi = true;
+			}
+			
+			//tabela javljanja
+			JavljanjaPoslednja javljanje = poObjektu.get(message.getObjekti().getId());
+			if(javljanje != null && javljanje.getDatumVreme() != null && message.getDatumVreme() != null
+					&& javljanje.getDatumVreme().before(message.getDatumVreme())) {
+				javljanje.setDatumVreme(message.getDatumVreme());
+				javljanje.setBrzina(message.getBrzina());
+				javljanje.setKontakt(message.isKontakt());
+				javljanje.setLat(message.getLat());
+				javljanje.setLon(message.getLon());
+				javljanje.setPravac(message.getPravac());
+				izmenjena.add(javljanje);
+			}
+			
+			//obavestenja
+			if(message.getSistemAlarmi() != null && alarmiKorisnika != null && !alarmiKorisnika.isEmpty()) {
+				for(AlarmiKorisnik alarmKorisnik : alarmiKorisnika) {
+					if(message.getSistemAlarmi().getId().equals(alarmKorisnik.getSistemAlarm().getId()) && 
+							message.getObjekti().getId().equals(alarmKorisnik.getObjekti().getId())) {
+						pokaziObavestenje(message);
+						break;
+					}
+				}
+			}
+		
+			if(message.getSistemAlarmi() != null && message.getSistemAlarmi().isAktivan() && message.getSistemAlarmi().isAlarmiranje()) {
+				pokreniAlarm(message);
+			}
+		}
+		
+		if(noviAlarmi) {
+			javljanjaAlarmi.setItems(javljanjaAlarmiNiz);
+			javljanjaAlarmi.setSortOrder(GridSortOrder.desc(javljanjaAlarmi.getColumn("datumVreme")));
+		}
+		if(!izmenjena.isEmpty()) {
+			verzijaPozicija++;
+			for(JavljanjaPoslednja javljanje : izmenjena) {
+				poslednjaJavljanja.getDataProvider().refreshItem(javljanje);
+			}
+			if(sortiranje)
+				poslednjaJavljanja.setSortOrder(GridSortOrder.desc(poslednjaJavljanja.getColumn("datumVreme")));
+		}
+    }
+    
+    /**
+     * Индекс редова табеле по објекту; поново се гради само када табела
+     * добије нове ставке (setItems мења DataProvider).
+     */
+    private Map<Long, JavljanjaPoslednja> poslednjaPoObjektu() {
+    	DataProvider<JavljanjaPoslednja, ?> provider = poslednjaJavljanja.getDataProvider();
+    	if(provider != indeksiraniProvider) {
+    		poslednjaPoObjektuIndeks.clear();
+    		Collection<JavljanjaPoslednja> stavke = provider instanceof ListDataProvider
+    				? ((ListDataProvider<JavljanjaPoslednja>) provider).getItems()
+    				: provider.fetch(new Query<>()).collect(Collectors.toList());
+    		for(JavljanjaPoslednja javljanje : stavke) {
+    			if(javljanje.getObjekti() != null) {
+    				poslednjaPoObjektuIndeks.put(javljanje.getObjekti().getId(), javljanje);
+    			}
+    		}
+    		indeksiraniProvider = provider;
+    	}
+    	return poslednjaPoObjektuIndeks;
+    }
+    
+    /** Скуп id објеката корисника; гради се поново када се sviObjekti промени. */
+    private Set<Long> vidljiviObjekti() {
+    	if(sviObjekti == null) {
+    		return Collections.emptySet();
+    	}
+    	if(sviObjekti != indeksiraniObjekti || sviObjekti.size() != vidljiviObjektiIndeks.size()) {
+    		vidljiviObjektiIndeks.clear();
+    		for(Objekti objekat : sviObjekti) {
+    			vidljiviObjektiIndeks.add(objekat.getId());
+    		}
+    		indeksiraniObjekti = sviObjekti;
+    	}
+    	return vidljiviObjektiIndeks;
+    }
+    
     public boolean sadrziObjekat(ArrayList<Objekti> list, Long id){
     	return list.stream().filter(o -> o.getId().equals(id)).findFirst().isPresent();
     }
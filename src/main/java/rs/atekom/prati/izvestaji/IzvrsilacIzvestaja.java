@@ -0,0 +1,328 @@
+package rs.atekom.prati.izvestaji;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Извршавање упита за извештаје ван нити захтева.
+ *
+ * <ul>
+ *   <li>ограничени пул и ред - пун ред одбија нови посао уместо да гомила нити;</li>
+ *   <li>посао јавља напредак и може се отказати ({@link Posao#otkazi()});</li>
+ *   <li>резултати за затворене периоде (крај пре почетка посла) чувају се у
+ *   LRU/TTL кешу по типу извештаја, објектима, периоду и параметрима, па се
+ *   поновљени извештај враћа одмах.</li>
+ * </ul>
+ *
+ * <p>Слушалац се позива из радне нити (или из позиваоца, кад је резултат у кешу);
+ * UI га сам пребацује у своју нит.</p>
+ */
+public class IzvrsilacIzvestaja {
+
+	private static final Logger logger = LoggerFactory.getLogger(IzvrsilacIzvestaja.class);
+
+	private final ThreadPoolExecutor pool;
+	private final Map<Kljuc, Stavka> kes;
+	private final long ttlMs;
+
+	private final AtomicLong pokrenuto = new AtomicLong();
+	private final AtomicLong izKesa = new AtomicLong();
+	private final AtomicLong zavrseno = new AtomicLong();
+	private final AtomicLong otkazano = new AtomicLong();
+	private final AtomicLong neuspesno = new AtomicLong();
+	private final AtomicLong odbijeno = new AtomicLong();
+
+	/** Упит извештаја; дужи упити јављају напредак и прекидају се кад је посао отказан. */
+	@FunctionalInterface
+	public interface Upit<T> {
+		T izvrsi(Napredak napredak) throws Exception;
+	}
+
+	/** Исход посла; тачно један од {@code gotovo}, {@code greska}, {@code otkazano}. */
+	public interface Slusalac<T> {
+		default void napredak(int uradjeno, int ukupno) {
+		}
+
+		void gotovo(T rezultat);
+
+		void greska(Throwable greska);
+
+		default void otkazano() {
+		}
+	}
+
+	/**
+	 * Кључ кеша. Период се кешира само ако је затворен - крај периода пре
+	 * тренутка кад је посао покренут.
+	 */
+	public static final class Kljuc {
+		private final String tip;
+		private final List<Long> objekti;
+		private final long od;
+		private final long doo;
+		private final String parametri;
+
+		public Kljuc(String tip, Collection<Objekti> objekti, Date od, Date doo, Object... parametri) {
+			this.tip = tip;
+			List<Long> ids = new ArrayList<Long>(objekti.size());
+			for(Objekti objekat : objekti) {
+				ids.add(objekat.getId());
+			}
+			Collections.sort(ids, (a, b) -> Long.compare(a == null ? 0 : a, b == null ? 0 : b));
+			this.objekti = ids;
+			this.od = od == null ? 0 : od.getTime();
+			this.doo = doo == null ? 0 : doo.getTime();
+			this.parametri = Arrays.toString(parametri);
+		}
+
+		boolean isZatvoren(long sada) {
+			return doo != 0 && doo < sada;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof Kljuc)) {
+				return false;
+			}
+			Kljuc k = (Kljuc) o;
+			return od == k.od && doo == k.doo && tip.equals(k.tip) && objekti.equals(k.objekti) && parametri.equals(k.parametri);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(tip, objekti, od, doo, parametri);
+		}
+
+		@Override
+		public String toString() {
+			return tip + " " + objekti.size() + " objekata";
+		}
+	}
+
+	/** Посао у току; отказивање прекида упит при следећој провери напретка. */
+	public static final class Posao implements Napredak {
+		private volatile boolean otkazan;
+		private volatile Future<?> future;
+		private final Slusalac<?> slusalac;
+
+		Posao(Slusalac<?> slusalac) {
+			this.slusalac = slusalac;
+		}
+
+		public void otkazi() {
+			otkazan = true;
+			Future<?> f = future;
+			if(f != null) {
+				f.cancel(true);
+			}
+		}
+
+		@Override
+		public boolean isOtkazan() {
+			return otkazan;
+		}
+
+		@Override
+		public void javi(int uradjeno, int ukupno) {
+			if(otkazan) {
+				throw new CancellationException();
+			}
+			slusalac.napredak(uradjeno, ukupno);
+		}
+	}
+
+	private static final class Stavka {
+		final Object rezultat;
+		final long istice;
+
+		Stavka(Object rezultat, long istice) {
+			this.rezultat = rezultat;
+			this.istice = istice;
+		}
+	}
+
+	/**
+	 * @param niti          број радних нити
+	 * @param kapacitetReda највише послова који чекају на нит
+	 * @param kapacitetKesa највише резултата у кешу (LRU)
+	 * @param ttlMs         колико дуго резултат важи
+	 */
+	public IzvrsilacIzvestaja(int niti, int kapacitetReda, int kapacitetKesa, long ttlMs) {
+		this.ttlMs = ttlMs;
+		this.kes = new LinkedHashMap<Kljuc, Stavka>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Kljuc, Stavka> najstariji) {
+				return size() > kapacitetKesa;
+			}
+		};
+		AtomicInteger brojac = new AtomicInteger();
+		this.pool = new ThreadPoolExecutor(niti, niti, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(kapacitetReda),
+				r -> {
+					Thread t = new Thread(r, "izvestaj-" + brojac.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		this.pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Покреће посао или враћа резултат из кеша.
+	 *
+	 * @throws RejectedExecutionException ако је ред пун или је извршилац затворен
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Posao pokreni(Kljuc kljuc, Upit<T> upit, Slusalac<T> slusalac) {
+		Posao posao = new Posao(slusalac);
+		long sada = System.currentTimeMillis();
+		Stavka stavka = izKesa(kljuc, sada);
+		if(stavka != null) {
+			izKesa.incrementAndGet();
+			slusalac.gotovo((T) stavka.rezultat);
+			return posao;
+		}
+		boolean zatvoren = kljuc.isZatvoren(sada);
+		try {
+			posao.future = pool.submit(() -> izvrsi(kljuc, zatvoren, upit, slusalac, posao));
+		}catch (RejectedExecutionException e) {
+			odbijeno.incrementAndGet();
+			logger.warn("Izveštaj {} odbijen, u redu čeka {}", kljuc, pool.getQueue().size());
+			throw e;
+		}
+		pokrenuto.incrementAndGet();
+		return posao;
+	}
+
+	private <T> void izvrsi(Kljuc kljuc, boolean zatvoren, Upit<T> upit, Slusalac<T> slusalac, Posao posao) {
+		if(posao.isOtkazan()) {
+			otkazano.incrementAndGet();
+			slusalac.otkazano();
+			return;
+		}
+		long pocetak = System.nanoTime();
+		T rezultat;
+		try {
+			rezultat = upit.izvrsi(posao);
+		}catch (CancellationException | InterruptedException e) {
+			otkazano.incrementAndGet();
+			slusalac.otkazano();
+			return;
+		}catch (Exception | LinkageError e) {
+			if(posao.isOtkazan()) {
+				otkazano.incrementAndGet();
+				slusalac.otkazano();
+				return;
+			}
+			neuspesno.incrementAndGet();
+			logger.error("Izveštaj {} nije uspeo", kljuc, e);
+			slusalac.greska(e);
+			return;
+		}
+		if(posao.isOtkazan()) {
+			otkazano.incrementAndGet();
+			slusalac.otkazano();
+			return;
+		}
+		if(zatvoren && rezultat != null) {
+			synchronized (kes) {
+				kes.put(kljuc, new Stavka(rezultat, System.currentTimeMillis() + ttlMs));
+			}
+		}
+		zavrseno.incrementAndGet();
+		logger.debug("Izveštaj {} završen za {}ms", kljuc, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pocetak));
+		slusalac.gotovo(rezultat);
+	}
+
+	private Stavka izKesa(Kljuc kljuc, long sada) {
+		synchronized (kes) {
+			Stavka s = kes.get(kljuc);
+			if(s != null && s.istice < sada) {
+				kes.remove(kljuc);
+				return null;
+			}
+			return s;
+		}
+	}
+
+	/** Празни кеш (нпр. после исправке података). */
+	public void ocistiKes() {
+		synchronized (kes) {
+			kes.clear();
+		}
+	}
+
+	/** Зауставља пул; послови у току се прекидају. */
+	public void zatvori() {
+		pool.shutdownNow();
+		try {
+			pool.awaitTermination(5, TimeUnit.SECONDS);
+		}catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// БРОЈАЧИ
+	// ════════════════════════════════════════════════════════════
+
+	public int getUToku() {
+		return pool.getActiveCount();
+	}
+
+	public int getURedu() {
+		return pool.getQueue().size();
+	}
+
+	public long getPokrenuto() {
+		return pokrenuto.get();
+	}
+
+	public long getIzKesa() {
+		return izKesa.get();
+	}
+
+	public long getZavrseno() {
+		return zavrseno.get();
+	}
+
+	public long getOtkazano() {
+		return otkazano.get();
+	}
+
+	public long getNeuspesno() {
+		return neuspesno.get();
+	}
+
+	public long getOdbijeno() {
+		return odbijeno.get();
+	}
+
+	public String stanje() {
+		return String.format("u toku=%d, u redu=%d, pokrenuto=%d, iz keša=%d, završeno=%d, otkazano=%d, neuspešno=%d, odbijeno=%d",
+				getUToku(), getURedu(), getPokrenuto(), getIzKesa(), getZavrseno(), getOtkazano(), getNeuspesno(), getOdbijeno());
+	}
+}
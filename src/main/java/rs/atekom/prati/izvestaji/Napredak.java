@@ -0,0 +1,24 @@
+package rs.atekom.prati.izvestaji;
+
+/**
+ * Напредак посла извештаја: дужи упити јављају колико је урађено и проверавају
+ * да ли је посао отказан.
+ */
+public interface Napredak {
+
+	/** Ништа не прати и никад није отказан. */
+	Napredak NISTA = new Napredak() {
+		@Override
+		public void javi(int uradjeno, int ukupno) {
+		}
+
+		@Override
+		public boolean isOtkazan() {
+			return false;
+		}
+	};
+
+	void javi(int uradjeno, int ukupno);
+
+	boolean isOtkazan();
+}
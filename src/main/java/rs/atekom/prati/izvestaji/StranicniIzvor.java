@@ -0,0 +1,126 @@
+package rs.atekom.prati.izvestaji;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRAbstractBeanDataSource;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Извор података за извештај који у меморији држи само једну страницу.
+ *
+ * <p>Страница је резултат једног упита (нпр. група објеката); следећа се учитава
+ * тек кад Jasper потроши претходну, а потрошена се пушта. Месечни извештај за
+ * велику групу возила тако заузима меморију једне странице, а не целог
+ * резултата. Извор се може премотати ({@link #moveFirst()}) - странице се тада
+ * поново учитавају.</p>
+ */
+public class StranicniIzvor<T> extends JRAbstractBeanDataSource {
+
+	/** Учитавање странице по редном броју. */
+	@FunctionalInterface
+	public interface Stranica<T> {
+		List<? extends T> ucitaj(int rb);
+	}
+
+	private final int brojStranica;
+	private final Stranica<T> stranica;
+	private int sledeca;
+	private Iterator<? extends T> tekuca = Collections.emptyIterator();
+	private T red;
+	private long brojRedova;
+
+	public StranicniIzvor(int brojStranica, Stranica<T> stranica) {
+		super(false);
+		this.brojStranica = brojStranica;
+		this.stranica = stranica;
+	}
+
+	/**
+	 * Странице по групама од највише {@code velicina} објеката; {@code upit}
+	 * добија једну групу. За {@code velicina} 1 то је упит по објекту.
+	 */
+	public static <T> StranicniIzvor<T> poObjektima(List<Objekti> objekti, int velicina, Function<ArrayList<Objekti>, List<? extends T>> upit) {
+		int n = objekti.size();
+		int korak = Math.max(1, velicina);
+		return new StranicniIzvor<T>((n + korak - 1) / korak, rb -> {
+			ArrayList<Objekti> grupa = new ArrayList<Objekti>(objekti.subList(rb * korak, Math.min(n, (rb + 1) * korak)));
+			return upit.apply(grupa);
+		});
+	}
+
+	/**
+	 * Следећи ред; {@code null} на крају. Исти пролаз као Jasper, за преглед
+	 * или обраду ван извештаја.
+	 */
+	public T sledeci() {
+		while(!tekuca.hasNext()) {
+			if(sledeca >= brojStranica) {
+				return null;
+			}
+			List<? extends T> lista = stranica.ucitaj(sledeca++);
+			tekuca = lista != null ? lista.iterator() : Collections.<T>emptyIterator();
+		}
+		brojRedova++;
+		return tekuca.next();
+	}
+
+	/** Првих {@code najvise} редова, од почетка извора. */
+	public List<T> prvih(int najvise) {
+		return prvih(najvise, Napredak.NISTA);
+	}
+
+	/**
+	 * Првих {@code najvise} редова; после сваке учитане странице јавља број
+	 * учитаних од укупно страница.
+	 *
+	 * @throws CancellationException ако је посао отказан
+	 */
+	public List<T> prvih(int najvise, Napredak napredak) {
+		moveFirst();
+		List<T> rezultat = new ArrayList<T>();
+		int strana = 0;
+		T t;
+		while(rezultat.size() < najvise && (t = sledeci()) != null) {
+			rezultat.add(t);
+			if(sledeca != strana) {
+				strana = sledeca;
+				if(napredak.isOtkazan()) {
+					throw new CancellationException();
+				}
+				napredak.javi(strana, brojStranica);
+			}
+		}
+		return rezultat;
+	}
+
+	/** Број редова прочитаних од последњег премотавања. */
+	public long getBrojRedova() {
+		return brojRedova;
+	}
+
+	@Override
+	public boolean next() throws JRException {
+		red = sledeci();
+		return red != null;
+	}
+
+	@Override
+	public Object getFieldValue(JRField field) throws JRException {
+		return getFieldValue(red, field);
+	}
+
+	@Override
+	public void moveFirst() {
+		sledeca = 0;
+		tekuca = Collections.emptyIterator();
+		red = null;
+		brojRedova = 0;
+	}
+}
@@ -0,0 +1,198 @@
+package rs.atekom.prati.izvestaji;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.server.FileDownloader;
+import com.vaadin.server.SerializableSupplier;
+import com.vaadin.server.StreamResource;
+import com.vaadin.ui.Button;
+
+import ar.com.fdvs.dj.core.DynamicJasperHelper;
+import ar.com.fdvs.dj.core.layout.ClassicLayoutManager;
+import ar.com.fdvs.dj.domain.DynamicReport;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRDocxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+
+/**
+ * Преузимање извештаја без целог резултата у сесији.
+ *
+ * <p>Подаци долазе из {@link StranicniIzvor}-а који се прави тек на клик, попуњене
+ * странице Jasper одлаже у swap датотеку ({@code -Dprati.izvestaj.stranica}
+ * страница остаје у меморији), а извезена датотека се пише на диск и брише
+ * кад се пренос заврши. Извештаји над групом објеката читају по
+ * {@code -Dprati.izvestaj.grupa} објеката у упиту. У сесији остаје само
+ * преглед од првих {@code -Dprati.izvestaj.pregled} редова.</p>
+ */
+public class TokIzvestaja implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(TokIzvestaja.class);
+
+	/** Највише редова у прегледу на екрану. */
+	public static final int PREGLED = Integer.getInteger("prati.izvestaj.pregled", 2_000);
+	/** Број објеката по упиту за извештаје над групом објеката. */
+	public static final int GRUPA = Integer.getInteger("prati.izvestaj.grupa", 20);
+	private static final int STRANICA_U_MEMORIJI = Integer.getInteger("prati.izvestaj.stranica", 50);
+
+	public enum Format {
+		PDF("pdf", "application/pdf"),
+		DOCX("doc", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+		XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+		private final String ekstenzija;
+		private final String mime;
+
+		Format(String ekstenzija, String mime) {
+			this.ekstenzija = ekstenzija;
+			this.mime = mime;
+		}
+	}
+
+	private final SerializableSupplier<DynamicReport> izvestaj;
+	private final SerializableSupplier<StranicniIzvor<?>> izvor;
+	private transient DynamicReport napravljen;
+	private boolean skracen;
+
+	/**
+	 * @param izvestaj изглед извештаја, прави се једном
+	 * @param izvor    нов извор података за сваки извоз
+	 */
+	public TokIzvestaja(SerializableSupplier<DynamicReport> izvestaj, SerializableSupplier<StranicniIzvor<?>> izvor) {
+		this.izvestaj = izvestaj;
+		this.izvor = izvor;
+	}
+
+	/** Првих {@link #PREGLED} редова за приказ на екрану. */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> pregled() {
+		return pregled(ucitajPregled((StranicniIzvor<T>) izvor.get(), Napredak.NISTA));
+	}
+
+	/** Преглед већ учитан ван нити захтева ({@link #ucitajPregled}). */
+	public <T> List<T> pregled(Pregled<T> pregled) {
+		skracen = pregled.skracen;
+		return pregled.redovi;
+	}
+
+	/**
+	 * Учитава првих {@link #PREGLED} редова извора уз јављање напретка, за
+	 * {@link IzvrsilacIzvestaja}.
+	 */
+	public static <T> Pregled<T> ucitajPregled(StranicniIzvor<T> izvor, Napredak napredak) {
+		List<T> lista = izvor.prvih(PREGLED + 1, napredak);
+		boolean skracen = lista.size() > PREGLED;
+		return new Pregled<T>(skracen ? new ArrayList<T>(lista.subList(0, PREGLED)) : lista, skracen);
+	}
+
+	/** Редови прегледа и да ли је извештај дужи од прегледа. */
+	public static final class Pregled<T> implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final List<T> redovi;
+		private final boolean skracen;
+
+		Pregled(List<T> redovi, boolean skracen) {
+			this.redovi = redovi;
+			this.skracen = skracen;
+		}
+	}
+
+	/** Да ли преглед не садржи све редове извештаја. */
+	public boolean isSkracen() {
+		return skracen;
+	}
+
+	/** Клик на дугме преузима извештај у задатом формату. */
+	public void preuzimanje(Button dugme, String naziv, Format format) {
+		StreamResource resurs = new StreamResource(() -> izvezi(format), naziv + "." + format.ekstenzija);
+		resurs.setMIMEType(format.mime);
+		resurs.setCacheTime(0);
+		new FileDownloader(resurs).extend(dugme);
+	}
+
+	private InputStream izvezi(Format format) {
+		File datoteka = null;
+		try {
+			datoteka = File.createTempFile("izvestaj", "." + format.ekstenzija);
+			try(OutputStream izlaz = new FileOutputStream(datoteka)) {
+				izvezi(format, izlaz);
+			}
+			File obrisati = datoteka;
+			return new FileInputStream(datoteka) {
+				@Override
+				public void close() throws IOException {
+					super.close();
+					obrisati.delete();
+				}
+			};
+		}catch (Exception e) {
+			logger.error("izvoz izvestaja {} nije uspeo", format, e);
+			if(datoteka != null) {
+				datoteka.delete();
+			}
+			return null;
+		}
+	}
+
+	private void izvezi(Format format, OutputStream izlaz) throws JRException {
+		JRSwapFileVirtualizer virtualizer = new JRSwapFileVirtualizer(STRANICA_U_MEMORIJI,
+				new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 64), true);
+		try {
+			Map<String, Object> parametri = new HashMap<String, Object>();
+			parametri.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+			JasperPrint print = DynamicJasperHelper.generateJasperPrint(vratiIzvestaj(), new ClassicLayoutManager(), izvor.get(), parametri);
+			virtualizer.setReadOnly(true);
+			SimpleExporterInput ulaz = new SimpleExporterInput(print);
+			SimpleOutputStreamExporterOutput izlazJasper = new SimpleOutputStreamExporterOutput(izlaz);
+			switch (format) {
+			case DOCX:
+				JRDocxExporter docx = new JRDocxExporter();
+				docx.setExporterInput(ulaz);
+				docx.setExporterOutput(izlazJasper);
+				docx.exportReport();
+				break;
+			case XLSX:
+				JRXlsxExporter xlsx = new JRXlsxExporter();
+				xlsx.setExporterInput(ulaz);
+				xlsx.setExporterOutput(izlazJasper);
+				xlsx.exportReport();
+				break;
+			default:
+				JRPdfExporter pdf = new JRPdfExporter();
+				pdf.setExporterInput(ulaz);
+				pdf.setExporterOutput(izlazJasper);
+				pdf.exportReport();
+				break;
+			}
+		}finally {
+			virtualizer.cleanup();
+		}
+	}
+
+	private synchronized DynamicReport vratiIzvestaj() {
+		if(napravljen == null) {
+			napravljen = izvestaj.get();
+		}
+		return napravljen;
+	}
+}
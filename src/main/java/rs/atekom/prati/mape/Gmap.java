@@ -3,6 +3,11 @@ package rs.atekom.prati.mape;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 import com.google.maps.GeoApiContext;
 import com.google.maps.GeocodingApi;
 import com.google.maps.model.GeocodingResult;
@@ -42,6 +47,8 @@ public class Gmap extends GoogleMap{
     private GoogleMapMarker klikMarker;
     private MarkerClickListener markerListener;
     public Registration pollListener;//za uklanjanje listenera
+    private final Map<Long, GoogleMapMarker> markeriObjekata = new HashMap<Long, GoogleMapMarker>();
+    private long poslednjaVerzija = -1;
     
 	public Gmap(String apKey, String clientId, String language) {
 		super(apKey, clientId, language);
@@ -63,26 +70,99 @@ public class Gmap extends GoogleMap{
 		centriraj();
 	}
 	
+	/**
+	 * Маркери изабраних објеката. Постојећи маркер се мења на месту и само
+	 * ако се позиција, опис или иконица променила; маркери објеката који
+	 * више нису изабрани се уклањају.
+	 */
 	public void dodavanjeMarkera() {
-		clearMarkers();
 		lat.clear();
 		lon.clear();
+		Set<Long> prikazani = new HashSet<Long>();
+		boolean izmena = false;
 		if(!Prati.getCurrent().objekti.isEmpty()){
 			for(JavljanjaPoslednja javljanje: Prati.getCurrent().poslednjaJavljanja.getSelectedItems()){
-			    if(javljanje != null){
-					GoogleMapMarker gMarker = new GoogleMapMarker(podesiCaption(javljanje), new LatLon(javljanje.getLat(), javljanje.getLon()), false);
-					gMarker.setAnimationEnabled(false);
-					gMarker.setIconUrl(ikonica.icon(javljanje));
+			    if(javljanje != null && javljanje.getObjekti() != null){
+			    	Long id = javljanje.getObjekti().getId();
+			    	prikazani.add(id);
+			    	izmena |= postaviMarker(id, javljanje);
 					lat.add(javljanje.getLat());
 					lon.add(javljanje.getLon());
-					addMarker(gMarker);
 				}
 			 }
 		}
+		Iterator<Map.Entry<Long, GoogleMapMarker>> postojeci = markeriObjekata.entrySet().iterator();
+		while(postojeci.hasNext()) {
+			Map.Entry<Long, GoogleMapMarker> marker = postojeci.next();
+			if(!prikazani.contains(marker.getKey())) {
+				postojeci.remove();
+				super.removeMarker(marker.getValue());
+			}
+		}
+		if(izmena)
+			markAsDirty();
+		poslednjaVerzija = Prati.getCurrent().verzijaPozicija;
 		if(Prati.getCurrent().centriranje)
 			centriraj();
 	}
 	
+	private boolean postaviMarker(Long id, JavljanjaPoslednja javljanje) {
+		String caption = podesiCaption(javljanje);
+		String ikona = ikonica.icon(javljanje);
+		GoogleMapMarker gMarker = markeriObjekata.get(id);
+		if(gMarker == null) {
+			gMarker = new GoogleMapMarker(caption, new LatLon(javljanje.getLat(), javljanje.getLon()), false);
+			gMarker.setAnimationEnabled(false);
+			gMarker.setIconUrl(ikona);
+			markeriObjekata.put(id, gMarker);
+			addMarker(gMarker);
+			return false;
+		}
+		LatLon pozicija = gMarker.getPosition();
+		if(pozicija != null && pozicija.getLat() == javljanje.getLat() && pozicija.getLon() == javljanje.getLon()
+				&& caption.equals(gMarker.getCaption()) && ikona.equals(gMarker.getIconUrl())) {
+			return false;
+		}
+		gMarker.setPosition(new LatLon(javljanje.getLat(), javljanje.getLon()));
+		gMarker.setCaption(caption);
+		gMarker.setIconUrl(ikona);
+		return true;
+	}
+	
+	/** Да ли од последњег цртања има нових јављања или се избор објеката променио. */
+	private boolean imaPromena() {
+		Prati prati = Prati.getCurrent();
+		if(prati.verzijaPozicija != poslednjaVerzija) {
+			return true;
+		}
+		int izabrano = 0;
+		if(!prati.objekti.isEmpty()) {
+			for(JavljanjaPoslednja javljanje : prati.poslednjaJavljanja.getSelectedItems()) {
+				if(javljanje != null && javljanje.getObjekti() != null) {
+					if(!markeriObjekata.containsKey(javljanje.getObjekti().getId())) {
+						return true;
+					}
+					izabrano++;
+				}
+			}
+		}
+		return izabrano != markeriObjekata.size();
+	}
+	
+	@Override
+	public void clearMarkers() {
+		super.clearMarkers();
+		if(markeriObjekata != null) // позива се и из конструктора GoogleMap-а
+			markeriObjekata.clear();
+	}
+	
+	@Override
+	public void removeMarker(GoogleMapMarker marker) {
+		super.removeMarker(marker);
+		if(markeriObjekata != null)
+			markeriObjekata.values().remove(marker);
+	}
+	
 	public void ukloniMarkere() {
 		clearMarkers();
 		centriraj();
@@ -94,7 +174,9 @@ public class Gmap extends GoogleMap{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void poll(PollEvent event) {
-				dodavanjeMarkera();
+				// без нових јављања и без промене избора нема шта да се шаље прегледачу
+				if(imaPromena())
+					dodavanjeMarkera();
 				}
 		};
 		pollListener = Prati.getCurrent().addPollListener(Prati.getCurrent().osvezavanjeMarkera);
@@ -0,0 +1,203 @@
+package rs.atekom.prati.mape;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Упрошћавање трасе за приказ историје на мапи.
+ *
+ * <ul>
+ *   <li>{@link #uprosti} - Douglas–Peucker са толеранцијом у метрима; обавезне
+ *   тачке (аларми, почетак/крај стајања) се увек задржавају и деле трасу на
+ *   делове који се упрошћавају засебно;</li>
+ *   <li>{@link #grupisi} - груписање маркера по ћелијама мреже, обавезне тачке
+ *   остају појединачни маркери;</li>
+ *   <li>{@link #metaraPoPikselu}, {@link #procenaZuma} - толеранција према
+ *   нивоу зумирања мапе.</li>
+ * </ul>
+ */
+public final class UproscavanjeTrase {
+
+	private static final double METARA_PO_STEPENU_SIRINE = 110_540.0;
+	private static final double METARA_PO_STEPENU_DUZINE = 111_320.0;
+	/** Метара по пикселу на екватору за зум 0 (Web Mercator, плочице од 256 px). */
+	private static final double METARA_PO_PIKSELU_ZUM0 = 156_543.03392;
+	static final int MAX_ZUM = 21;
+
+	private UproscavanjeTrase() {
+	}
+
+	/** Метара по пикселу мапе на датом зуму и географској ширини. */
+	public static double metaraPoPikselu(int zum, double lat) {
+		return METARA_PO_PIKSELU_ZUM0 * Math.cos(Math.toRadians(lat)) / Math.pow(2, zum);
+	}
+
+	/**
+	 * Највећи зум на коме правоугаоник стаје у мапу датих димензија -
+	 * процена онога што ће fitToBounds изабрати у прегледачу.
+	 */
+	public static int procenaZuma(double minLat, double maxLat, double minLon, double maxLon, int sirinaPx, int visinaPx) {
+		double sredina = (minLat + maxLat) / 2;
+		double sirinaM = Math.max(1, (maxLon - minLon) * METARA_PO_STEPENU_DUZINE * Math.cos(Math.toRadians(sredina)));
+		double visinaM = Math.max(1, (maxLat - minLat) * METARA_PO_STEPENU_SIRINE);
+		for (int zum = MAX_ZUM; zum > 0; zum--) {
+			double mpp = metaraPoPikselu(zum, sredina);
+			if (sirinaM / mpp <= sirinaPx && visinaM / mpp <= visinaPx) {
+				return zum;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Douglas–Peucker над тачкама трасе.
+	 *
+	 * @param obavezne   тачке које се не смеју избацити; може бити null
+	 * @param tolerancija највеће одступање у метрима
+	 * @return растући индекси задржаних тачака; прва и последња су увек ту
+	 */
+	public static int[] uprosti(double[] lat, double[] lon, boolean[] obavezne, double tolerancija) {
+		int n = lat.length;
+		if (n <= 2) {
+			return niz(n);
+		}
+		double cos = Math.cos(Math.toRadians(lat[0]));
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = lon[i] * METARA_PO_STEPENU_DUZINE * cos;
+			y[i] = lat[i] * METARA_PO_STEPENU_SIRINE;
+		}
+		boolean[] zadrzi = new boolean[n];
+		zadrzi[0] = true;
+		zadrzi[n - 1] = true;
+		int pocetak = 0;
+		for (int i = 1; i < n; i++) {
+			if (i == n - 1 || (obavezne != null && obavezne[i])) {
+				zadrzi[i] = true;
+				deo(x, y, pocetak, i, tolerancija * tolerancija, zadrzi);
+				pocetak = i;
+			}
+		}
+		int broj = 0;
+		for (boolean z : zadrzi) {
+			if (z) {
+				broj++;
+			}
+		}
+		int[] rezultat = new int[broj];
+		for (int i = 0, j = 0; i < n; i++) {
+			if (zadrzi[i]) {
+				rezultat[j++] = i;
+			}
+		}
+		return rezultat;
+	}
+
+	/**
+	 * Као {@link #uprosti(double[], double[], boolean[], double)}, али удвостручује
+	 * толеранцију док резултат не падне на {@code najvise} тачака (или док
+	 * остану само обавезне).
+	 */
+	public static int[] uprosti(double[] lat, double[] lon, boolean[] obavezne, double tolerancija, int najvise) {
+		double t = Math.max(tolerancija, 0.1);
+		int[] rezultat = uprosti(lat, lon, obavezne, t);
+		for (int pokusaj = 0; rezultat.length > najvise && pokusaj < 30; pokusaj++) {
+			t *= 2;
+			int[] sledeci = uprosti(lat, lon, obavezne, t);
+			if (sledeci.length == rezultat.length) {
+				break;
+			}
+			rezultat = sledeci;
+		}
+		return rezultat;
+	}
+
+	/** Итеративни Douglas–Peucker за део [od, do] - без рекурзије, за дуге трасе. */
+	private static void deo(double[] x, double[] y, int od, int doo, double tolerancija2, boolean[] zadrzi) {
+		Deque<int[]> stek = new ArrayDeque<>();
+		stek.push(new int[] { od, doo });
+		while (!stek.isEmpty()) {
+			int[] d = stek.pop();
+			int a = d[0];
+			int b = d[1];
+			if (b - a < 2) {
+				continue;
+			}
+			double dx = x[b] - x[a];
+			double dy = y[b] - y[a];
+			double duzina2 = dx * dx + dy * dy;
+			double najvece = -1;
+			int indeks = -1;
+			for (int i = a + 1; i < b; i++) {
+				double r2 = rastojanje2(x[i], y[i], x[a], y[a], dx, dy, duzina2);
+				if (r2 > najvece) {
+					najvece = r2;
+					indeks = i;
+				}
+			}
+			if (najvece > tolerancija2) {
+				zadrzi[indeks] = true;
+				stek.push(new int[] { a, indeks });
+				stek.push(new int[] { indeks, b });
+			}
+		}
+	}
+
+	/** Квадрат растојања тачке од дужи (a, a + d). */
+	private static double rastojanje2(double px, double py, double ax, double ay, double dx, double dy, double duzina2) {
+		double t = duzina2 == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / duzina2;
+		t = Math.max(0, Math.min(1, t));
+		double ex = px - (ax + t * dx);
+		double ey = py - (ay + t * dy);
+		return ex * ex + ey * ey;
+	}
+
+	/**
+	 * Групише тачке по ћелијама квадратне мреже странице {@code celija} метара.
+	 * Обавезне тачке су увек засебне групе. Групе су поређане по првој тачки,
+	 * а тачке у групи по индексу.
+	 *
+	 * @param indeksi тачке које се групишу; null значи све
+	 */
+	public static List<int[]> grupisi(double[] lat, double[] lon, int[] indeksi, boolean[] obavezne, double celija) {
+		int n = indeksi != null ? indeksi.length : lat.length;
+		double cos = n > 0 ? Math.cos(Math.toRadians(lat[indeksi != null ? indeksi[0] : 0])) : 1;
+		double celijaLat = celija / METARA_PO_STEPENU_SIRINE;
+		double celijaLon = celija / (METARA_PO_STEPENU_DUZINE * Math.max(cos, 1e-6));
+		Map<Object, List<Integer>> grupe = new LinkedHashMap<>();
+		for (int k = 0; k < n; k++) {
+			int i = indeksi != null ? indeksi[k] : k;
+			Object kljuc;
+			if (obavezne != null && obavezne[i]) {
+				kljuc = new Object();
+			} else {
+				long red = (long) Math.floor(lat[i] / celijaLat);
+				long kol = (long) Math.floor(lon[i] / celijaLon);
+				kljuc = (red << 32) ^ (kol & 0xffffffffL);
+			}
+			grupe.computeIfAbsent(kljuc, g -> new ArrayList<>()).add(i);
+		}
+		List<int[]> rezultat = new ArrayList<>(grupe.size());
+		for (List<Integer> grupa : grupe.values()) {
+			int[] g = new int[grupa.size()];
+			for (int j = 0; j < g.length; j++) {
+				g[j] = grupa.get(j);
+			}
+			rezultat.add(g);
+		}
+		return rezultat;
+	}
+
+	private static int[] niz(int n) {
+		int[] rezultat = new int[n];
+		for (int i = 0; i < n; i++) {
+			rezultat[i] = i;
+		}
+		return rezultat;
+	}
+}
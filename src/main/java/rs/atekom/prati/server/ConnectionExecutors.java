@@ -0,0 +1,117 @@
+package rs.atekom.prati.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Пулови за нити које опслужују TCP конекције уређаја.
+ *
+ * <p>У {@link ServerMode#VIRTUAL} режиму свака прихваћена конекција добија
+ * сопствену виртуелну нит ({@code Executors.newVirtualThreadPerTaskExecutor()}).
+ * Пројекат се компајлира за Java 11, па се метода тражи рефлексијом - на JVM
+ * старијем од 21 користи се неограничени пул daemon нити, што и даље уклања
+ * фиксни лимит од {@code poolSize} конекција.</p>
+ */
+public final class ConnectionExecutors {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConnectionExecutors.class);
+
+	private static final Method VIRTUAL_FACTORY = pronadjiVirtualFactory();
+
+	private ConnectionExecutors() {
+	}
+
+	/**
+	 * @param mode режим сервера
+	 * @param poolSize величина фиксног пула (BLOCKING/NIO)
+	 * @param server име сервера за имена нити
+	 * @return пул за задатке конекција
+	 */
+	public static ExecutorService zaRezim(ServerMode mode, int poolSize, String server) {
+		if (mode == ServerMode.VIRTUAL) {
+			return newPerConnectionExecutor(server);
+		}
+		return Executors.newFixedThreadPool(poolSize);
+	}
+
+	/**
+	 * Пул са по једном нити за сваки задатак - виртуелном ако је JVM подржава.
+	 */
+	public static ExecutorService newPerConnectionExecutor(String server) {
+		if (VIRTUAL_FACTORY != null) {
+			try {
+				return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				logger.warn("{}: virtuelne niti nisu dostupne ({}), koristim platformske", server, e.getMessage());
+			}
+		}
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ConnectionThreadFactory(server));
+	}
+
+	/**
+	 * @return да ли JVM подржава виртуелне нити
+	 */
+	public static boolean virtualThreadsAvailable() {
+		return VIRTUAL_FACTORY != null;
+	}
+
+	/**
+	 * Омотава задатак конекције тако да бројач живих конекција прати
+	 * њено трајање, без обзира на то како се задатак заврши.
+	 */
+	public static Runnable counted(Runnable task, AtomicInteger active) {
+		return () -> {
+			active.incrementAndGet();
+			try {
+				task.run();
+			} finally {
+				active.decrementAndGet();
+			}
+		};
+	}
+
+	/**
+	 * Број нити које тренутно раде у пулу, или -1 ако пул то не открива
+	 * (виртуелне нити немају фиксни пул).
+	 */
+	public static int activeThreads(ExecutorService pool) {
+		if (pool instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) pool).getActiveCount();
+		}
+		return -1;
+	}
+
+	private static Method pronadjiVirtualFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static final class ConnectionThreadFactory implements ThreadFactory {
+		private final String server;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		ConnectionThreadFactory(String server) {
+			this.server = server;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, server + "-conn-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
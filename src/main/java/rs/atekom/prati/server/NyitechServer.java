@@ -7,14 +7,14 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.server.lifecycle.ConnectionAware;
 import rs.atekom.prati.view.komponente.Izvrsavanje;
 
-public class NyitechServer implements Runnable{
+public class NyitechServer implements Runnable, ConnectionAware{
 
 	private final int listeningPort;
 	private ServerSocket serverSocket;
@@ -23,14 +23,24 @@ public class NyitechServer implements Runnable{
 	private boolean isStopped = false;
 	private int rb = 1;
 	private int poolSize;
+	private final ServerMode mode;
+	private final AtomicInteger activeConnections = new AtomicInteger(0);
 	public SistemAlarmi prekoracenjeBrzine, stajanje, istakanje, izlazak, ulazak;
 	public Izvrsavanje izvrsavanje;
 	
 	public NyitechServer(int port, int poolSizeS) {
+		this(port, poolSizeS, ServerMode.BLOCKING);
+	}
+	
+	/**
+	 * @param mode BLOCKING или VIRTUAL - NIO није подржан за NYITECH протокол
+	 */
+	public NyitechServer(int port, int poolSizeS, ServerMode mode) {
+		this.mode = mode == ServerMode.NIO ? ServerMode.BLOCKING : mode;
 		clientSockets = new ArrayList<Socket>();
 		listeningPort = port;
 		poolSize = poolSizeS;
-		pool = Executors.newFixedThreadPool(poolSize);
+		pool = ConnectionExecutors.zaRezim(this.mode, poolSize, "NYITECH");
 		prekoracenjeBrzine = Servis.sistemAlarmServis.nadjiAlarmPoSifri("6013");
 		stajanje = Servis.sistemAlarmServis.nadjiAlarmPoSifri("1095");
 		istakanje = Servis.sistemAlarmServis.nadjiAlarmPoSifri("1111");
@@ -48,7 +58,8 @@ public class NyitechServer implements Runnable{
 		       while (!isStopped()) {
 		    	   Socket soket = null;
 	        	   try {
-	        		   if(clientSockets.size() >= (poolSize - 2)){
+	        		   // у VIRTUAL режиму нема фиксног пула који би се попунио
+	        		   if(mode != ServerMode.VIRTUAL && clientSockets.size() >= (poolSize - 2)){
 	        			   clientSockets.get(0).getInputStream().close();
 	        			   clientSockets.get(0).getOutputStream().close();
 	        			   clientSockets.get(0).close();
@@ -57,10 +68,10 @@ public class NyitechServer implements Runnable{
 	        			   }
 	        		   soket = serverSocket.accept();
 	        		   clientSockets.add(soket);
-	        		   pool.submit(new NyitechThread(queue, this));
+	        		   pool.submit(ConnectionExecutors.counted(new NyitechThread(queue, this), activeConnections));
 	        		   queue.put(soket); 
 	        		   if(rb == 1 || rb % 1000 == 0)
-	        			   System.out.println("NYITECH " + rb + " STARTOVAN" + " od " + ((ThreadPoolExecutor) pool).getActiveCount() + " " + getVreme());
+	        			   System.out.println("NYITECH " + rb + " STARTOVAN" + " od " + activeConnections.get() + " " + getVreme());
 	        		   rb++;
 	        		   } catch (Throwable e) {
 	        			   if (isStopped()) {
@@ -90,6 +101,16 @@ public class NyitechServer implements Runnable{
 	    	   }
 	       }
 
+	@Override
+	public int getActiveConnectionCount() {
+		return activeConnections.get();
+	}
+	
+	@Override
+	public String getConnectionMode() {
+		return mode.name();
+	}
+
 	private synchronized boolean isStopped() {
 		return this.isStopped;
 	}
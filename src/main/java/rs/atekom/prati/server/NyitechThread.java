@@ -17,6 +17,7 @@ import pratiBaza.tabele.Obd;
 import pratiBaza.tabele.ObjekatZone;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.Zone;
+import rs.atekom.prati.server.persist.Zapisivac;
 
 public class NyitechThread implements Runnable{
 
@@ -115,7 +116,7 @@ public class NyitechThread implements Runnable{
 								upisObracun(par.javljanje, poslednje);
 								}
 							if(par.obd != null)
-								Servis.obdServis.unesiObd(par.obd);
+								Zapisivac.upisiObd(par.obd);
 							}
 						break;
 				            
@@ -131,7 +132,7 @@ public class NyitechThread implements Runnable{
 								
 								}
 							if(par.obd != null)
-								Servis.obdServis.unesiObd(par.obd);
+								Zapisivac.upisiObd(par.obd);
 							}
 						break;
 	                         
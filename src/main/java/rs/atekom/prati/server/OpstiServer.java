@@ -7,9 +7,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
@@ -18,16 +16,21 @@ import org.springframework.stereotype.Service;
 
 import pratiBaza.tabele.Javljanja;
 import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.server.dnevnik.StanjeReprodukcije;
 import rs.atekom.prati.server.geneko.GenekoOpstiThread;
+import rs.atekom.prati.server.lifecycle.ConnectionAware;
+import rs.atekom.prati.server.metrike.MetrikeProtokola;
 import rs.atekom.prati.server.geneko.GenekoProtokol;
 import rs.atekom.prati.server.neon.NeonOpstiThread;
 import rs.atekom.prati.server.neon.NeonProtokol;
+import rs.atekom.prati.server.nio.FrameDecoder;
+import rs.atekom.prati.server.nio.NioIngestEngine;
 import rs.atekom.prati.server.ruptela.RuptelaOpstiThread;
 import rs.atekom.prati.server.ruptela.RuptelaProtokol;
 import rs.atekom.prati.view.komponente.Izvrsavanje;
 
 @Service
-public class OpstiServer implements Runnable {
+public class OpstiServer implements Runnable, ConnectionAware {
 
 	// ДОДАЈТЕ LOGGER
 	private static final Logger logger = LoggerFactory.getLogger(OpstiServer.class);
@@ -37,8 +40,12 @@ public class OpstiServer implements Runnable {
 	private final ExecutorService pool;
 	private final ConcurrentHashMap<String, Socket> clientSockets;
 	private final AtomicInteger connectionCounter;
+	// Број нити које тренутно опслужују конекцију (BLOCKING/VIRTUAL)
+	private final AtomicInteger activeConnections = new AtomicInteger(0);
 	private boolean isStopped = false;
 	private int poolSize;
+	private final ServerMode mode;
+	private volatile NioIngestEngine nioEngine;
 	
 	public SistemAlarmi prekoracenjeBrzine, stajanje, istakanje, izlazak, ulazak, redovno;
 	public NeonProtokol nProtokol;
@@ -46,14 +53,26 @@ public class OpstiServer implements Runnable {
 	public GenekoProtokol gProtokol;
 	public Izvrsavanje izvrsavanje;
 	private String server;
+	private final MetrikeProtokola metrike;
 	
 	public OpstiServer(int port, int poolSizeS) {
+		this(port, poolSizeS, ServerMode.BLOCKING);
+	}
+	
+	/**
+	 * @param port порт сервера (9000 NEON, 9030 GENEKO, 9040 RUPTELA)
+	 * @param poolSizeS у BLOCKING режиму број истовремених конекција,
+	 *                  у NIO режиму број нити које обрађују оквире,
+	 *                  у VIRTUAL режиму се не користи
+	 * @param mode начин опслуживања конекција
+	 */
+	public OpstiServer(int port, int poolSizeS, ServerMode mode) {
+		this.mode = mode;
 		clientSockets = new ConcurrentHashMap<>();
 		connectionCounter = new AtomicInteger(0);
 		
 		listeningPort = port;
 		poolSize = poolSizeS;
-		pool = Executors.newFixedThreadPool(poolSize);
 		
 		switch (listeningPort) {
 		case 9000: 
@@ -90,12 +109,20 @@ public class OpstiServer implements Runnable {
 		}
 		
 		izvrsavanje = new Izvrsavanje();
+		metrike = MetrikeProtokola.za(server);
 		
-		logger.info("OpstiServer [{}] inicijalizovan na portu {}", server, port);
+		pool = ConnectionExecutors.zaRezim(mode, poolSize, server);
+		
+		logger.info("OpstiServer [{}] inicijalizovan na portu {} (režim {})", server, port, mode);
 	}
 	
 	@Override
 	public void run() {
+		if (mode == ServerMode.NIO) {
+			runNio();
+			return;
+		}
+		
 		LinkedBlockingQueue<Socket> queue = new LinkedBlockingQueue<>();
 		logger.info(" Pokretanje {} TCP servera...", server);
 		
@@ -112,6 +139,7 @@ public class OpstiServer implements Runnable {
 					
 					// Генеришемо јединствени ID за конекцију
 					int connectionId = connectionCounter.incrementAndGet();
+					metrike.konekcija();
 					String clientId = server + "-" + connectionId;
 					
 					// Thread-safe додавање у мапу
@@ -119,13 +147,13 @@ public class OpstiServer implements Runnable {
 					
 					switch (listeningPort) {
 					case 9000: 
-						pool.submit(new NeonOpstiThread(queue, this));
+						pool.submit(ConnectionExecutors.counted(new NeonOpstiThread(queue, this), activeConnections));
 						break;
 					case 9030: 
-						pool.submit(new GenekoOpstiThread(queue, this));
+						pool.submit(ConnectionExecutors.counted(new GenekoOpstiThread(queue, this), activeConnections));
 						break;
 					case 9040: 
-						pool.submit(new RuptelaOpstiThread(queue, this));
+						pool.submit(ConnectionExecutors.counted(new RuptelaOpstiThread(queue, this), activeConnections));
 						break;
 					default:
 						break;
@@ -136,9 +164,9 @@ public class OpstiServer implements Runnable {
 					// Логовање на сваку 1000-ту конекцију
 					if(connectionId == 1 || connectionId % 1000 == 0) {
 						logger.info("═══════════════════════════════════════════════════");
-						logger.info("{} | Konekcija #{} | Aktivnih thread-ova: {} | Ukupno klijenata: {} | {}", 
+						logger.info("{} | Konekcija #{} | Aktivnih konekcija: {} | Ukupno klijenata: {} | {}", 
 						            server, connectionId, 
-						            ((ThreadPoolExecutor) pool).getActiveCount(),
+						            activeConnections.get(),
 						            clientSockets.size(),
 						            getVreme());
 						logger.info("═══════════════════════════════════════════════════");
@@ -167,6 +195,64 @@ public class OpstiServer implements Runnable {
 		}
 	}
 
+	/**
+	 * NIO режим: selector нити држе све конекције, а пул обрађује
+	 * само оквире који су стигли - неактивни уређаји не заузимају нит.
+	 */
+	private void runNio() {
+		int loops = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+		NioIngestEngine engine = new NioIngestEngine(server, listeningPort, loops, 
+				OpstiThread.SOCKET_READ_TIMEOUT_MS, this::kreirajSesiju, this::kreirajDekoder, pool);
+		synchronized (this) {
+			if (isStopped) {
+				return;
+			}
+			nioEngine = engine;
+		}
+		engine.run();
+	}
+	
+	private OpstiThread kreirajSesiju() {
+		metrike.konekcija();
+		return novaSesija();
+	}
+	
+	/**
+	 * Сесија за поновну обраду оквира из дневника: исти декодер и обрада као
+	 * за конекцију, али са стањем репродукције, без уписа у дневник и без
+	 * мејла, приказа и геокодирања аларма.
+	 */
+	public OpstiThread sesijaZaReprodukciju(StanjeReprodukcije stanje) {
+		OpstiThread sesija = novaSesija();
+		sesija.setReprodukcija(stanje);
+		return sesija;
+	}
+	
+	private OpstiThread novaSesija() {
+		switch (listeningPort) {
+		case 9000: 
+			return new NeonOpstiThread(null, this);
+		case 9030: 
+			return new GenekoOpstiThread(null, this);
+		case 9040: 
+			return new RuptelaOpstiThread(null, this);
+		default:
+			throw new IllegalStateException("Sesija nije podržana za port " + listeningPort);
+		}
+	}
+	
+	private FrameDecoder kreirajDekoder() {
+		switch (listeningPort) {
+		case 9000: 
+			return NeonOpstiThread.frameDecoder();
+		case 9030: 
+			return GenekoOpstiThread.frameDecoder();
+		case 9040: 
+			return RuptelaOpstiThread.frameDecoder();
+		default:
+			throw new IllegalStateException("NIO režim nije podržan za port " + listeningPort);
+		}
+	}
 	
 	private synchronized boolean isStopped() {
 		return this.isStopped;
@@ -179,6 +265,10 @@ public class OpstiServer implements Runnable {
 		
 		isStopped = true;
 		
+		if (nioEngine != null) {
+			nioEngine.stop();
+		}
+		
 		// Затварамо све client socket-е
 		int clientCount = clientSockets.size();
 		if (clientCount > 0) {
@@ -291,9 +381,29 @@ public class OpstiServer implements Runnable {
 	 * Враћа број активних клијената
 	 */
 	public int getActiveClientCount() {
+		if (nioEngine != null) {
+			return nioEngine.getActiveConnections();
+		}
 		return clientSockets.size();
 	}
 	
+	/**
+	 * Број живих конекција: у NIO режиму отворени канали, иначе нити
+	 * (фиксне или виртуелне) које тренутно извршавају сесију уређаја.
+	 */
+	@Override
+	public int getActiveConnectionCount() {
+		if (nioEngine != null) {
+			return nioEngine.getActiveConnections();
+		}
+		return activeConnections.get();
+	}
+	
+	@Override
+	public String getConnectionMode() {
+		return mode.name();
+	}
+	
 	/**
 	 * Проверава да ли клијент постоји
 	 */
@@ -301,6 +411,15 @@ public class OpstiServer implements Runnable {
 		return clientSockets.containsKey(clientId);
 	}
     
+    /** Метрике пријема за протокол овог сервера. */
+    public MetrikeProtokola getMetrike() {
+        return metrike;
+    }
+    
+    public ServerMode getMode() {
+    	return mode;
+    }
+    
     public String getVreme() {
     	return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
     }
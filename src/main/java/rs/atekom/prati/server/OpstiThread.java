@@ -5,12 +5,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Objects;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.slf4j.Logger;
@@ -25,8 +27,15 @@ import pratiBaza.tabele.ObjekatZone;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.Uredjaji;
 import pratiBaza.tabele.Zone;
+import rs.atekom.prati.server.dnevnik.DnevnikOkvira;
+import rs.atekom.prati.server.dnevnik.StanjeReprodukcije;
+import rs.atekom.prati.server.metrike.MetrikeProtokola;
+import rs.atekom.prati.server.nio.FrameHandler;
+import rs.atekom.prati.server.persist.Zapisivac;
+import rs.atekom.prati.server.stanje.StanjeObjekta;
+import rs.atekom.prati.server.zone.ZoneIndeks.ZoneObjekta;
 
-public abstract class OpstiThread implements Runnable {
+public abstract class OpstiThread implements Runnable, FrameHandler {
 
 	// ДОДАЈТЕ LOGGER
 	private static final Logger logger = LoggerFactory.getLogger(OpstiThread.class);
@@ -45,34 +54,36 @@ public abstract class OpstiThread implements Runnable {
 	protected InputStream input;
 	protected OutputStream out;
 	protected volatile boolean isStopped = false; // volatile за visibility
-	protected boolean prekoracenje = false;
 	protected byte[] data;
 	// Legacy ACK (radio u produkciji) za Ruptela uređaje.
 	// Format: 00 02 64 01 13 BC
 	protected static final byte[] odg = {(byte)0x00, (byte)0x02, (byte)0x64, (byte)0x01, (byte)0x13, (byte)0xBC};
 	protected int offset;
 	protected OpstiServer server;
-	protected ArrayList<ObjekatZone> objekatZone;
 	protected ArrayList<AlarmiKorisnik> alarmiKorisnici;
 	protected String testDate;
 	protected DateFormat formatter;
 	protected Date date;
 	protected JavljanjeObd javljanjeObd;
-	protected Obd obdStop;
-	protected Javljanja javljanjeTrenutno, javljanjeStop;
+	protected Javljanja javljanjeTrenutno;
 	protected Objekti objekat;
 	protected Uredjaji uredjaj;
 	protected String ulaz;
-	protected boolean zaustavljeno;
-	protected boolean gorivo;
 	protected String kodUredjaja;
-	protected int brojIspodNivoa;
 	protected Date pocetak;
 	protected String test;
-	protected JavljanjaPoslednja poslednje;
+	/**
+	 * Стање објекта (позиција, зона, стајање, брзина) - живо из {@link Servis#stanjeObjekata},
+	 * а при репродукцији из {@link StanjeReprodukcije}.
+	 */
+	protected StanjeObjekta stanje;
+	/** Метрике пријема протокола ({@link OpstiServer#getMetrike()}). */
+	protected final MetrikeProtokola metrike;
 	
 	// НОВИ: Tracking connection ID-а
 	private String clientId;
+	// Сесија поновне обраде из дневника - сопствено стање, без поновног уписа оквира; null за конекцију
+	private StanjeReprodukcije reprodukcija;
 	
 	public OpstiThread(LinkedBlockingQueue<Socket> queue, OpstiServer srv) {
 		// Default (био 10) 5 минута
@@ -83,10 +94,19 @@ public abstract class OpstiThread implements Runnable {
 	
 	// НОВИ: Constructor са customizable timeout-ом
 	public OpstiThread(LinkedBlockingQueue<Socket> queue, OpstiServer srv, int timeoutMs) {
+		this(queue, srv, timeoutMs, srv.getMetrike());
+	}
+	
+	/**
+	 * Нит са задатим метрикама; тестови без правог сервера их праве сами
+	 * ({@link MetrikeProtokola#za(String)}).
+	 */
+	protected OpstiThread(LinkedBlockingQueue<Socket> queue, OpstiServer srv, int timeoutMs, MetrikeProtokola metrike) {
 		
 		socketQueue = queue;
 		server = srv;
 		connectionTimeoutMs = timeoutMs;
+		this.metrike = Objects.requireNonNull(metrike, "metrike");
 		
 		data = new byte[1024];
 		testDate = "01/07/2019 00:00:00";
@@ -99,9 +119,6 @@ public abstract class OpstiThread implements Runnable {
 		}
 		
 		pocetak = new Date();
-		zaustavljeno = false;
-		gorivo = false;
-		brojIspodNivoa = 0;
 		test = "test 0";
 	}
 	
@@ -128,11 +145,56 @@ public abstract class OpstiThread implements Runnable {
 	@Override
 	public abstract void run(); // Implementiraju child klase
 	
+	/**
+	 * NIO режим: сесија нема сопствени socket, ACK иде кроз канал конекције.
+	 */
+	@Override
+	public void attach(String clientId, OutputStream out) {
+		this.clientId = clientId;
+		this.out = out;
+		logger.debug("Sesija [{}] povezana na NIO kanal", clientId);
+	}
+	
+	/**
+	 * NIO режим: обрада једног комплетног оквира (без граничника/уоквирења).
+	 * 
+	 * @return false ако везу треба затворити
+	 */
+	@Override
+	public abstract boolean handleFrame(byte[] frame); // Implementiraju child klase
+	
+	/**
+	 * Сирови оквир у {@link Servis#dnevnikOkvira} пре ACK-а. Када се врати
+	 * true, оквир је на диску и уређају се може одмах потврдити, без чекања
+	 * обраде и уписа у базу.
+	 * 
+	 * @param okvir бајтови оквира од {@code position} до {@code limit}
+	 * @param vremePrijema тренутак пријема ({@link System#currentTimeMillis()})
+	 * @return false ако дневник није укључен, уређај још није познат, сесија је
+	 *         репродукција или упис није успео
+	 */
+	protected boolean zapisiUDnevnik(String protokol, ByteBuffer okvir, long vremePrijema) {
+		DnevnikOkvira dnevnik = Servis.dnevnikOkvira;
+		if (dnevnik == null || reprodukcija != null || kodUredjaja == null || kodUredjaja.isEmpty()) {
+			return false;
+		}
+		return dnevnik.zapisi(protokol, kodUredjaja, vremePrijema, okvir);
+	}
+	
+	/**
+	 * Сесија која оквире добија из дневника ({@link rs.atekom.prati.server.dnevnik.ReprodukcijaDnevnika}),
+	 * а не са мреже: стање објеката из {@code reprodukcija}, већ уписана јављања
+	 * се прескачу, а аларми се само уписују - без мејла, приказа и геокодирања.
+	 */
+	public void setReprodukcija(StanjeReprodukcije reprodukcija) {
+		this.reprodukcija = reprodukcija;
+	}
+	
 	/**
 	 * REFAKTORISANO: Pronalazi i postavlja uređaj sa error handling-om
 	 */
 	public void pronadjiPostavi(String kodUredjaja) {
-		poslednje = null;
+		stanje = null;
 		
 		// Validacija input parametra
 		if (kodUredjaja == null || kodUredjaja.isEmpty()) {
@@ -158,16 +220,18 @@ public abstract class OpstiThread implements Runnable {
 			}
 			
 			// Učitavanje zona i alarma
-			objekatZone = Servis.zonaObjekatServis.nadjiZoneObjektePoObjektu(objekat);
+			ZoneObjekta zone = Servis.zoneIndeks.zaObjekat(objekat);
 			alarmiKorisnici = new ArrayList<>();
 			alarmiKorisnici.addAll(Servis.alarmKorisnikServis.nadjiSveAlarmeKorisnikePoObjektu(objekat));
 			
-			// Učitavanje poslednjeg javljanja
-			poslednje = Servis.javljanjePoslednjeServis.nadjiJavljanjaPoslednjaPoObjektu(objekat);
+			// Stanje objekta iz keša - baza se čita samo ako objekat još nije učitan;
+			// reprodukcija ima svoje stanje, da ne pomera živo
+			stanje = reprodukcija != null ? reprodukcija.zaObjekat(objekat) : Servis.stanjeObjekata.zaObjekat(objekat);
+			JavljanjaPoslednja poslednje = stanje.getPoslednje();
 			
-			// Provera starog stajanja
+			// Provera starog stajanja - samo prva konekcija; kasnije nastavljamo zatečeno stanje
 			boolean vremeStarijeOdStajanja = false;
-			if (poslednje != null) {
+			if (stanje.preuzmi() && poslednje != null) {
 				long vreme = pocetak.getTime() - poslednje.getDatumVreme().getTime();
 				if (objekat.getVremeStajanja() > 0 && (vreme / 1000 > objekat.getVremeStajanja())) {
 					vremeStarijeOdStajanja = true;
@@ -177,19 +241,18 @@ public abstract class OpstiThread implements Runnable {
 				if (poslednje.getBrzina() < 6 
 						&& !poslednje.getSistemAlarmi().getSifra().equals("1095") 
 						&& !vremeStarijeOdStajanja) {
-					javljanjeStop = new Javljanja();
+					Javljanja javljanjeStop = new Javljanja();
 					javljanjeStop.setDatumVreme(poslednje.getDatumVreme());
-					obdStop = Servis.obdServis.nadjiObdPoslednji(objekat, null);
+					stanje.zaustavljen(javljanjeStop, Servis.obdServis.nadjiObdPoslednji(objekat, null));
 				} else {
-					javljanjeStop = null;
-					obdStop = null;
+					stanje.zaustavljen(null, null);
 				}
 			}
 			
 			logger.debug("Uređaj '{}' uspešno učitan: objekat={}, zona={}, alarmi={}", 
 			             kodUredjaja, 
 			             objekat != null ? objekat.getOznaka() : "null",
-			             objekatZone != null ? objekatZone.size() : 0,
+			             zone.getSve().size(),
 			             alarmiKorisnici != null ? alarmiKorisnici.size() : 0);
 			
 		} catch (Exception e) {
@@ -206,10 +269,15 @@ public abstract class OpstiThread implements Runnable {
 			logger.warn("Primljeno null javljanje za obradu, preskačem. Ulaz: {}", ulaz);
 			return;
 		}
+		if (stanje == null) {
+			logger.warn("Uređaj '{}' nema učitano stanje objekta, preskačem javljanje", kodUredjaja);
+			return;
+		}
+		metrike.zapis();
 		
 		try {
 			test = "ulaz";
-			JavljanjaPoslednja poslednje = Servis.javljanjePoslednjeServis.nadjiJavljanjaPoslednjaPoObjektu(objekat);
+			JavljanjaPoslednja poslednje = stanje.getPoslednje();
 			
 			boolean mladje = true;
 			if (poslednje != null) {
@@ -239,6 +307,17 @@ public abstract class OpstiThread implements Runnable {
 			    return;
 			}
 			
+			// Reprodukcija: već upisano javljanje samo pomera stanje reprodukcije
+			if (reprodukcija != null) {
+				Javljanja upisano = reprodukcija.upisano(objekat, javljanjeTrenutno.getDatumVreme());
+				if (upisano != null) {
+					if (mladje) {
+						stanje.azuriraj(upisano);
+					}
+					return;
+				}
+			}
+			
 			// Obračun kilometraže
 			test = "obračun";
 			obracunKilometraze(javljanjeTrenutno, poslednje, mladje);
@@ -261,17 +340,27 @@ public abstract class OpstiThread implements Runnable {
 			
 			// Alarm: Zone
 			test = "zona";
-			handleAlarmZone(javljanjeTrenutno, mladje);
+			handleAlarmZone(javljanjeTrenutno, poslednje, mladje);
+			
+			// Novo poslednje javljanje ostaje u memoriji za sledeći zapis
+			if (mladje) {
+				stanje.azuriraj(javljanjeTrenutno);
+			}
 			
 			// Finalna obrada alarma
 			test = "izvrsavanje";
-			server.izvrsavanje.obradaAlarma(javljanjeTrenutno, alarmiKorisnici);
+			obradaAlarma(javljanjeTrenutno);
 			
 		} catch (Exception e) {
 			logger.error("Greška pri obradi javljanja (faza: {})", test, e);
 		}
 	}
 	
+	/** Upis i obaveštenja alarma; reprodukcija samo upisuje. */
+	private void obradaAlarma(Javljanja javljanje) {
+		server.izvrsavanje.obradaAlarma(javljanje, alarmiKorisnici, reprodukcija != null);
+	}
+	
 	/**
 	 * IZDVOJENO: Obračun kilometraže
 	 */
@@ -293,15 +382,10 @@ public abstract class OpstiThread implements Runnable {
 	 */
 	private void handleStopCondition(Javljanja trenutno, Obd obdTrenutni) {
 		if (trenutno.getBrzina() > 5) {
-			javljanjeStop = null;
-			obdStop = null;
-			zaustavljeno = false;
-			gorivo = false;
-			brojIspodNivoa = 0;
+			stanje.pokrenut();
 		} else {
-			if (javljanjeStop == null) {
-				javljanjeStop = trenutno;
-				obdStop = obdTrenutni;
+			if (stanje.getJavljanjeStop() == null) {
+				stanje.zaustavljen(trenutno, obdTrenutni);
 			}
 		}
 	}
@@ -310,15 +394,16 @@ public abstract class OpstiThread implements Runnable {
 	 * IZDVOJENO: Alarm stajanje
 	 */
 	private void handleAlarmStajanje(Javljanja trenutno, boolean mladje) {
-		if (javljanjeStop != null && !zaustavljeno && mladje) {
+		Javljanja javljanjeStop = stanje.getJavljanjeStop();
+		if (javljanjeStop != null && !stanje.isZaustavljeno() && mladje) {
 			long vreme = trenutno.getDatumVreme().getTime() - javljanjeStop.getDatumVreme().getTime();
 			
 			if (objekat.getVremeStajanja() > 0 && (vreme > (objekat.getVremeStajanja() * 60 * 1000))) {
 				if (!trenutno.getSistemAlarmi().getSifra().equals("0")) {
-					server.izvrsavanje.obradaAlarma(trenutno, alarmiKorisnici);
+					obradaAlarma(trenutno);
 				}
 				server.postaviAlarmStajanje(trenutno);
-				zaustavljeno = true;
+				stanje.setZaustavljeno(true);
 				
 				logger.debug("Alarm STAJANJE aktiviran za objekat: {} (trajanje: {}ms)", 
 				             objekat.getOznaka(), vreme);
@@ -331,11 +416,11 @@ public abstract class OpstiThread implements Runnable {
 	 */
 	private void handleAlarmPrekoracenjeBrzine(Javljanja trenutno, boolean mladje) {
 		if (objekat.getPrekoracenjeBrzine() != 0 && mladje) {
-			if (trenutno.getBrzina() > objekat.getPrekoracenjeBrzine() && !prekoracenje) {
-				prekoracenje = true;
+			if (trenutno.getBrzina() > objekat.getPrekoracenjeBrzine() && !stanje.isPrekoracenje()) {
+				stanje.setPrekoracenje(true);
 				
 				if (!trenutno.getSistemAlarmi().getSifra().equals("0")) {
-					server.izvrsavanje.obradaAlarma(trenutno, alarmiKorisnici);
+					obradaAlarma(trenutno);
 				}
 				server.postaviAlarmPrekoracenjeBrzine(trenutno);
 				
@@ -349,7 +434,7 @@ public abstract class OpstiThread implements Runnable {
 				logger.info("Alarm PREKORAČENJE BRZINE: objekat={}, brzina={}km/h, limit={}km/h", 
 				            objekat.getOznaka(), trenutno.getBrzina(), objekat.getPrekoracenjeBrzine());
 			} else {
-				prekoracenje = false;
+				stanje.setPrekoracenje(false);
 			}
 		}
 	}
@@ -359,28 +444,23 @@ public abstract class OpstiThread implements Runnable {
 	 */
 	private void handleAlarmGorivo(Javljanja trenutno, Obd obdTrenutni, boolean mladje) {
 		if (obdTrenutni == null || !mladje || trenutno.getBrzina() >= 6) {
-			gorivo = false;
+			stanje.setGorivo(false);
 			return;
 		}
 		
 		try {
-			JavljanjaMirovanja poslednjeSaBrzinom = 
-				Servis.javljanjeMirovanjeServis.nadjiJavljanjaMirovanjaPoObjektu(objekat);
-			
-			if (!gorivo && poslednjeSaBrzinom != null) {
-				ArrayList<Obd> poslednjiObdUMirovanju = Servis.obdServis.nadjiObdPoslednjaStajanja(
-					objekat, new Timestamp(poslednjeSaBrzinom.getDatumVreme().getTime())
-				);
+			if (!stanje.isGorivo()) {
+				Obd obdUMirovanju = obdNaPocetkuMirovanja();
 				
-				if (poslednjiObdUMirovanju != null && poslednjiObdUMirovanju.size() > 0) {
-					float razlika = poslednjiObdUMirovanju.get(0).getNivoGoriva() - obdTrenutni.getNivoGoriva();
+				if (obdUMirovanju != null) {
+					float razlika = obdUMirovanju.getNivoGoriva() - obdTrenutni.getNivoGoriva();
 					
 					if (razlika > 3) {
 						if (!trenutno.getSistemAlarmi().getSifra().equals("0")) {
-							server.izvrsavanje.obradaAlarma(trenutno, alarmiKorisnici);
+							obradaAlarma(trenutno);
 						}
 						server.postaviAlarmIstakanje(trenutno);
-						gorivo = true;
+						stanje.setGorivo(true);
 						
 						logger.info("Alarm ISTAKANJE GORIVA: objekat={}, razlika={}%", 
 						            objekat.getOznaka(), razlika);
@@ -389,18 +469,50 @@ public abstract class OpstiThread implements Runnable {
 			}
 			
 			// Snimanje OBD podataka
-			Servis.obdServis.unesiObd(obdTrenutni);
+			Zapisivac.upisiObd(obdTrenutni);
 			
 		} catch (Exception e) {
 			logger.error("Greška pri obradi alarma goriva", e);
 		}
 	}
 	
+	/**
+	 * OBD sa početka tekućeg mirovanja: iz stanja objekta, a iz baze samo ako ga
+	 * stanje nema (npr. mirovanje je počelo bez OBD zapisa).
+	 */
+	private Obd obdNaPocetkuMirovanja() {
+		if (stanje.getObdStop() != null) {
+			return stanje.getObdStop();
+		}
+		if (reprodukcija != null) {
+			// mirovanje iz baze je živo, ne iz perioda reprodukcije
+			return null;
+		}
+		JavljanjaMirovanja poslednjeSaBrzinom = 
+			Servis.javljanjeMirovanjeServis.nadjiJavljanjaMirovanjaPoObjektu(objekat);
+		if (poslednjeSaBrzinom == null) {
+			return null;
+		}
+		ArrayList<Obd> poslednjiObdUMirovanju = Servis.obdServis.nadjiObdPoslednjaStajanja(
+			objekat, new Timestamp(poslednjeSaBrzinom.getDatumVreme().getTime())
+		);
+		if (poslednjiObdUMirovanju == null || poslednjiObdUMirovanju.isEmpty()) {
+			return null;
+		}
+		Obd obd = poslednjiObdUMirovanju.get(0);
+		stanje.zaustavljen(stanje.getJavljanjeStop(), obd);
+		return obd;
+	}
+	
 	/**
 	 * IZDVOJENO: Alarm zone (ulazak/izlazak)
 	 */
-	private void handleAlarmZone(Javljanja trenutno, boolean mladje) {
-		if (!mladje || objekatZone == null || objekatZone.isEmpty()) {
+	private void handleAlarmZone(Javljanja trenutno, JavljanjaPoslednja poslednje, boolean mladje) {
+		if (!mladje) {
+			return;
+		}
+		ZoneObjekta zone = Servis.zoneIndeks.zaObjekat(objekat);
+		if (zone.isEmpty()) {
 			return;
 		}
 		
@@ -408,22 +520,19 @@ public abstract class OpstiThread implements Runnable {
 		
 		if (zonaPoslednja == null) {
 			// Provera ulaska u zonu
-			handleUlazakUZonu(trenutno);
+			handleUlazakUZonu(trenutno, zone);
 		} else {
 			// Provera izlaska iz zone
-			handleIzlazakIzZone(trenutno, zonaPoslednja);
+			handleIzlazakIzZone(trenutno, zonaPoslednja, zone);
 		}
 	}
 	
 	/**
-	 * IZDVOJENO: Ulazak u zonu
+	 * IZDVOJENO: Ulazak u zonu - tačno rastojanje se računa samo za zone
+	 * iz ćelije indeksa u kojoj je tačka (samo aktivne zone sa alarmom)
 	 */
-	private void handleUlazakUZonu(Javljanja trenutno) {
-		for (ObjekatZone objekatZona : objekatZone) {
-			if (!objekatZona.isAktivan() || !objekatZona.isIzlaz()) {
-				continue;
-			}
-			
+	private void handleUlazakUZonu(Javljanja trenutno, ZoneObjekta zone) {
+		for (ObjekatZone objekatZona : zone.kandidati(trenutno.getLat(), trenutno.getLon())) {
 			double rastojanje = Servis.obracun.rastojanjeKoordinate(
 				trenutno, 
 				objekatZona.getZone().getLat(), 
@@ -434,7 +543,7 @@ public abstract class OpstiThread implements Runnable {
 				trenutno.setZona(objekatZona.getZone());
 				
 				if (!trenutno.getSistemAlarmi().getSifra().equals("0")) {
-					server.izvrsavanje.obradaAlarma(trenutno, alarmiKorisnici);
+					obradaAlarma(trenutno);
 				}
 				server.postaviAlarmUlazakUZonu(trenutno);
 				trenutno.setEventData(objekatZona.getZone().getNaziv());
@@ -449,21 +558,23 @@ public abstract class OpstiThread implements Runnable {
 	/**
 	 * IZDVOJENO: Izlazak iz zone
 	 */
-	private void handleIzlazakIzZone(Javljanja trenutno, Zone zonaPoslednja) {
+	private void handleIzlazakIzZone(Javljanja trenutno, Zone zonaPoslednja, ZoneObjekta zone) {
 		trenutno.setZona(zonaPoslednja);
 		
-		ObjekatZone objZona = Servis.zonaObjekatServis.nadjiObjekatZonuPoZoniObjektu(objekat, zonaPoslednja);
+		ObjekatZone objZona = zone.poZoni(zonaPoslednja.getId());
 		
 		if (objZona != null && objZona.isAktivan() && objZona.isIzlaz()) {
+			// geometrija iz indeksa - prati izmene zone bez ponovnog povezivanja
+			Zone zona = objZona.getZone();
 			double rastojanje = Servis.obracun.rastojanjeKoordinate(
 				trenutno, 
-				zonaPoslednja.getLat(), 
-				zonaPoslednja.getLon()
+				zona.getLat(), 
+				zona.getLon()
 			);
 			
-			if (rastojanje > zonaPoslednja.getPrecnik()) {
+			if (rastojanje > zona.getPrecnik()) {
 				if (!trenutno.getSistemAlarmi().getSifra().equals("0")) {
-					server.izvrsavanje.obradaAlarma(trenutno, alarmiKorisnici);
+					obradaAlarma(trenutno);
 				}
 				server.postaviAlarmIzlazakIzZone(trenutno);
 				trenutno.setEventData(zonaPoslednja.getNaziv());
@@ -542,11 +653,18 @@ public abstract class OpstiThread implements Runnable {
 	 * Усклађено са референци кодом из Ruptela програма
 	 */
 	protected static int calculateCrc16Kermit(byte[] data) {
+		return calculateCrc16Kermit(data, 0, data.length);
+	}
+	
+	/**
+	 * CRC-16 Kermit над делом низа, без копирања.
+	 */
+	protected static int calculateCrc16Kermit(byte[] data, int off, int len) {
 		int crc = 0x0000;
 		int polynomial = 0x8408; // CRC-16 Kermit полином (reversed)
 		
-		for (byte b : data) {
-			crc ^= (b & 0xFF);
+		for (int j = off; j < off + len; j++) {
+			crc ^= (data[j] & 0xFF);
 			for (int i = 0; i < 8; i++) {
 				boolean carry = (crc & 0x0001) != 0;
 				crc >>>= 1;
@@ -0,0 +1,42 @@
+package rs.atekom.prati.server;
+
+/**
+ * Начин на који {@link OpstiServer}, {@link NyitechServer} и
+ * {@link rs.atekom.prati.server.updated.OpstiServerUpdate} опслужују прихваћене TCP конекције.
+ *
+ * <p>Бира се по порту у {@link Servis#contextInitialized} преко системског
+ * својства {@code prati.server.<port>.mode}; подразумевано је {@link #BLOCKING}.</p>
+ */
+public enum ServerMode {
+
+	/** Класичан режим - једна нит из фиксног пула по конекцији. */
+	BLOCKING,
+
+	/** Неблокирајући режим - мали број selector нити мултиплексира све конекције. */
+	NIO,
+
+	/**
+	 * Блокирајући код сесије, али свака конекција добија сопствену виртуелну нит
+	 * уместо места у фиксном пулу - видети {@link ConnectionExecutors}.
+	 */
+	VIRTUAL;
+
+	/**
+	 * Чита режим за дати порт из системског својства, нпр.
+	 * {@code -Dprati.server.9040.mode=NIO}.
+	 *
+	 * @param port порт сервера
+	 * @return конфигурисани режим или {@link #BLOCKING} ако није задат/није исправан
+	 */
+	public static ServerMode zaPort(int port) {
+		String vrednost = System.getProperty("prati.server." + port + ".mode");
+		if (vrednost == null || vrednost.trim().isEmpty()) {
+			return BLOCKING;
+		}
+		try {
+			return ServerMode.valueOf(vrednost.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return BLOCKING;
+		}
+	}
+}
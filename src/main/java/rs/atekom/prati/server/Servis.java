@@ -1,5 +1,16 @@
 package rs.atekom.prati.server;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.annotation.WebListener;
@@ -53,11 +64,31 @@ import pratiBaza.servis.VozilaSaobracajne2Servis;
 import pratiBaza.servis.VozilaSaobracajneServis;
 import pratiBaza.servis.ObjekatZoneServis;
 import pratiBaza.servis.ZoneServis;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.Organizacije;
+import pratiBaza.tabele.SistemPretplatnici;
 import rs.atekom.prati.ApplicationContextProvider;
+import rs.atekom.prati.Broadcaster;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rs.atekom.prati.server.lifecycle.ServerManager;
+import rs.atekom.prati.server.persist.Zapisivac;
+import rs.atekom.prati.server.stanje.StanjeObjekata;
+import rs.atekom.prati.server.zone.ZoneIndeks;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
+import rs.atekom.prati.server.flota.Flota;
+import rs.atekom.prati.server.flota.IzvorBaze;
+import rs.atekom.prati.server.dnevnik.DnevnikOkvira;
+import rs.atekom.prati.server.dnevnik.ReprodukcijaDnevnika;
+import rs.atekom.prati.server.dnevnik.StanjeReprodukcije;
+import rs.atekom.prati.server.geokod.GeokodiranjeServis;
+import rs.atekom.prati.server.geokod.NominatimGeokoder;
+import rs.atekom.prati.server.posta.AlarmPosiljalac;
+import rs.atekom.prati.server.posta.PostaRed;
+import rs.atekom.prati.server.metrike.Metrike;
+import rs.atekom.prati.server.zbir.Zbirovi;
 
 @WebListener
 public class Servis implements ServletContextListener{
@@ -118,6 +149,26 @@ public class Servis implements ServletContextListener{
 	private static NominatimReverseGeocodingJAPI nominatim;
 	public static Obracuni obracun;
 	public static Mail posta;
+	/** Живо стање објеката (последња позиција, зона, стајање) за обраду јављања без читања базе. */
+	public static StanjeObjekata stanjeObjekata;
+	/** Индекс зона по објекту за аларме уласка/изласка; поништава се при измени зона. */
+	public static ZoneIndeks zoneIndeks;
+	/** Шифарници (организације, групе, партнери, горива, објекти) по претплатнику за комбо листе и пријаву. */
+	public static Sifarnici sifarnici;
+	/** Заједнички снимак флоте по претплатнику (објекти, групе, последња јављања) за сесије праћења. */
+	public static Flota flota;
+	/** Дневник сирових оквира пре ACK-а; null ако није укључен ({@code -Dprati.dnevnik.dir}). */
+	public static DnevnikOkvira dnevnikOkvira;
+	/** Поновна обрада оквира из дневника по покретању; null ако није задата ({@code -Dprati.reprodukcija.od}). */
+	public static ReprodukcijaDnevnika reprodukcija;
+	/** Асинхроно геокодирање адреса аларма, ван нити конекција. */
+	public static GeokodiranjeServis geokodiranje;
+	/** Ред аларм мејлова са збирним порукама и понављањем. */
+	public static PostaRed alarmPosta;
+	/** Дневни и сатни збирови по објекту (км, брзине, гориво, радно време) за таблу и извештаје. */
+	public static Zbirovi zbirovi;
+	/** Припрема тежих извештаја ван нити захтева, са кешом за затворене периоде. */
+	public static IzvrsilacIzvestaja izvrsilacIzvestaja;
 
 	// ═══════════════════════════════════════════════════════════
 	// НОВИ ПРИСТУП - ServerManager
@@ -221,9 +272,71 @@ public class Servis implements ServletContextListener{
 	        obracun = new Obracuni();
 	        posta = new Mail(sistemServis.vratiSistem().getEmailServer(), String.valueOf(sistemServis.vratiSistem().getEmailServerPort()), 
 	                sistemServis.vratiSistem().getEmailKorisnik(), sistemServis.vratiSistem().getEmailLozinka());
+	        // -Dprati.posta.niti / .kapacitet / .prozor.s / .pokusaja / .pauza.ms
+	        alarmPosta = new PostaRed(new AlarmPosiljalac(posta),
+	                Integer.getInteger("prati.posta.niti", 2),
+	                Integer.getInteger("prati.posta.kapacitet", 5_000),
+	                TimeUnit.SECONDS.toMillis(Integer.getInteger("prati.posta.prozor.s", 60)),
+	                Integer.getInteger("prati.posta.pokusaja", 4),
+	                Integer.getInteger("prati.posta.pauza.ms", 5_000));
 	        
 	        logger.info("Спољни сервиси конфигурисани");
 	        
+	        // -Dprati.zbir.dana / .sati.dana - збирови се пуне при уносу, па пре сервера
+	        zbirovi = new Zbirovi(Integer.getInteger("prati.zbir.dana", 62), Integer.getInteger("prati.zbir.sati.dana", 3));
+	        
+	        // Јављања и OBD се уписују у пакетима, ван нити конекција
+	        Zapisivac.pokreni();
+	        
+	        // -Dprati.dnevnik.dir / .segment.mb / .segmenata - сирови оквири на диску пре ACK-а;
+	        // без директоријума дневник се не води и ACK иде после обраде;
+	        // сегмент се брише тек кад Zapisivac упише све његове оквире
+	        String dnevnikDir = System.getProperty("prati.dnevnik.dir");
+	        if (dnevnikDir != null && !dnevnikDir.trim().isEmpty()) {
+	            try {
+	                dnevnikOkvira = new DnevnikOkvira(Paths.get(dnevnikDir.trim()),
+	                        Integer.getInteger("prati.dnevnik.segment.mb", 64) * 1024 * 1024,
+	                        Integer.getInteger("prati.dnevnik.segmenata", 32),
+	                        Zapisivac::upisanoDo);
+	            } catch (IOException | RuntimeException e) {
+	                logger.error("Дневник оквира није отворен ({}), ACK иде после обраде: {}", dnevnikDir, e.getMessage());
+	            }
+	        }
+	        
+	        // Последње позиције у меморији - пуне се пре него што уређаји почну да се јављају
+	        stanjeObjekata = new StanjeObjekata(javljanjePoslednjeServis::nadjiJavljanjaPoslednjaPoObjektu);
+	        zagrejStanjeObjekata();
+	        zoneIndeks = new ZoneIndeks(zonaObjekatServis::nadjiZoneObjektePoObjektu);
+	        
+	        // -Dprati.sifarnici.ttl.s / .kes - поништавају се и при сваком уносу/измени из апликације
+	        sifarnici = new Sifarnici(TimeUnit.SECONDS.toMillis(Integer.getInteger("prati.sifarnici.ttl.s", 300)),
+	                Integer.getInteger("prati.sifarnici.kes", 500));
+	        // -Dprati.flota.osvezavanje.s - снимак флоте се поништава и при измени објеката и група
+	        flota = new Flota(new IzvorBaze(), TimeUnit.SECONDS.toMillis(Integer.getInteger("prati.flota.osvezavanje.s", 300)));
+	        sifarnici.dodajSlusaoca((vrsta, pretplatnik) -> {
+	            if (vrsta == Sifarnici.Vrsta.OBJEKTI || vrsta == Sifarnici.Vrsta.GRUPE) {
+	                flota.ponisti(pretplatnik);
+	            }
+	        });
+	        
+	        // -Dprati.geokod.niti / .red / .kes / .ttl.min / .decimale
+	        geokodiranje = new GeokodiranjeServis(new NominatimGeokoder(),
+	                Integer.getInteger("prati.geokod.niti", 2),
+	                Integer.getInteger("prati.geokod.red", 500),
+	                Integer.getInteger("prati.geokod.kes", 10_000),
+	                TimeUnit.MINUTES.toMillis(Integer.getInteger("prati.geokod.ttl.min", 24 * 60)),
+	                Integer.getInteger("prati.geokod.decimale", 4));
+	        
+	        // -Dprati.izvestaj.niti / .red / .kes / .kes.min
+	        izvrsilacIzvestaja = new IzvrsilacIzvestaja(
+	                Integer.getInteger("prati.izvestaj.niti", 2),
+	                Integer.getInteger("prati.izvestaj.red", 20),
+	                Integer.getInteger("prati.izvestaj.kes", 50),
+	                TimeUnit.MINUTES.toMillis(Integer.getInteger("prati.izvestaj.kes.min", 30)));
+	        
+	        // Дубине редова и бројачи сервиса на /metrics
+	        registrujMetrike();
+	        
 	        // ───────────────────────────────────────────────────────
 	        // ШАГ 4: НОВА ЛОГИКА - Креирање и покретање TCP сервера
 	        // ───────────────────────────────────────────────────────
@@ -231,12 +344,22 @@ public class Servis implements ServletContextListener{
 	        
 	        // Креирамо ServerManager
 	        serverManager = new ServerManager();
+	        // репродукција се зауставља пре пражњења уписа, сесије се праве тек по покретању сервера
+	        pripremiReprodukciju();
+	        serverManager.addStopListener(Zapisivac::zaustavi);
+	        if (dnevnikOkvira != null) {
+	            serverManager.addStopListener(dnevnikOkvira::zatvori);
+	        }
+	        serverManager.addStopListener(geokodiranje::zatvori);
+	        serverManager.addStopListener(alarmPosta::zatvori);
+	        serverManager.addStopListener(izvrsilacIzvestaja::zatvori);
 	        
 	        // Креирамо серверске инстанце
-	        neonServer = new OpstiServer(9000, 100);      // 76 активних (2021-01-08)
-	        nyitechServer = new NyitechServer(9010, 20);  // 7 активних (застарео)
-	        genekoServer = new OpstiServer(9030, 20);     // 12 активних
-	        ruptelaServer = new OpstiServer(9040, 200);   // 58 активних, растући!
+	        // Режим по порту: -Dprati.server.<port>.mode=NIO (подразумевано BLOCKING)
+	        neonServer = new OpstiServer(9000, 100, ServerMode.zaPort(9000));      // 76 активних (2021-01-08)
+	        nyitechServer = new NyitechServer(9010, 20, ServerMode.zaPort(9010));  // 7 активних (застарео)
+	        genekoServer = new OpstiServer(9030, 20, ServerMode.zaPort(9030));     // 12 активних
+	        ruptelaServer = new OpstiServer(9040, 200, ServerMode.zaPort(9040));   // 58 активних, растући!
 	        
 	        // Региструјемо серверe у менаџеру
 	        serverManager.registerServer("NEON", neonServer, 9000);
@@ -247,6 +370,10 @@ public class Servis implements ServletContextListener{
 	        // Покрећемо све серверe одједном
 	        serverManager.startAll();
 	        
+	        if (reprodukcija != null) {
+	            reprodukcija.pokreni();
+	        }
+	        
 	        logger.info("  TCP сервери покренути");
 	        
 	        logger.info("═══════════════════════════════════════════════════════════");
@@ -295,6 +422,116 @@ public class Servis implements ServletContextListener{
 	    }
 	}
 
+    /**
+     * Оквири из дневника за период, кроз исте протоколске сесије као са мреже -
+     * после испада базе или за поновни обрачун стања. Репродукција има своје
+     * стање објеката, прескаче већ уписана јављања и не шаље мејл, приказ ни
+     * геокодирање.
+     * 
+     * <p>-Dprati.reprodukcija.od / .do (локално, {@code 2026-01-31T08:00}; без краја - до
+     * покретања, да се не понове оквири који управо стижу у исти дневник),
+     * .dir (подразумевано prati.dnevnik.dir), .brzina (0 - без паузе, 1 - темпом пријема),
+     * .niti, .imei (листа са зарезима, празно - сви).</p>
+     */
+    private void pripremiReprodukciju() {
+        String od = System.getProperty("prati.reprodukcija.od");
+        if (od == null || od.trim().isEmpty()) {
+            return;
+        }
+        String dir = System.getProperty("prati.reprodukcija.dir", System.getProperty("prati.dnevnik.dir"));
+        if (dir == null || dir.trim().isEmpty()) {
+            logger.error("Репродукција није покренута: није задат дневник (prati.reprodukcija.dir)");
+            return;
+        }
+        String doVremena = System.getProperty("prati.reprodukcija.do");
+        Set<String> imei = new HashSet<>();
+        for (String kod : System.getProperty("prati.reprodukcija.imei", "").split(",")) {
+            if (!kod.trim().isEmpty()) {
+                imei.add(kod.trim());
+            }
+        }
+        StanjeReprodukcije stanje;
+        try {
+            long pocetak = LocalDateTime.parse(od.trim()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long kraj = doVremena == null || doVremena.trim().isEmpty() ? System.currentTimeMillis()
+                    : LocalDateTime.parse(doVremena.trim()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            stanje = new StanjeReprodukcije(pocetak, kraj,
+                    (objekat, vreme) -> javljanjeServis.vratiJavljanjeObjektaDoIliOd(objekat, new Timestamp(vreme.getTime()), true),
+                    objekat -> javljanjeServis.vratiJavljanjaObjektaOdDo(objekat, new Timestamp(pocetak), new Timestamp(kraj)));
+            reprodukcija = new ReprodukcijaDnevnika(Paths.get(dir.trim()), protokol -> {
+                        switch (protokol) {
+                        case "NEON":
+                            return neonServer.sesijaZaReprodukciju(stanje);
+                        case "GENEKO":
+                            return genekoServer.sesijaZaReprodukciju(stanje);
+                        case "RUPTELA":
+                            return ruptelaServer.sesijaZaReprodukciju(stanje);
+                        default:
+                            return null;
+                        }
+                    }, pocetak, kraj, imei.isEmpty() ? kod -> true : imei::contains,
+                    Double.parseDouble(System.getProperty("prati.reprodukcija.brzina", "0")),
+                    Integer.getInteger("prati.reprodukcija.niti", 4), 1_000);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            logger.error("Репродукција није покренута - неисправна подешавања: {}", e.getMessage());
+            return;
+        }
+        serverManager.addStopListener(reprodukcija::zaustavi);
+        Metrike.brojacIz("prati_reprodukcija_okvira_ukupno", "Okviri ponovo obrađeni iz dnevnika", () -> reprodukcija.getObradjeno());
+        Metrike.brojacIz("prati_reprodukcija_greske_ukupno", "Okviri iz dnevnika čija obrada nije uspela", () -> reprodukcija.getGresaka());
+        Metrike.brojacIz("prati_reprodukcija_preskoceno_ukupno", "Javljanja iz dnevnika koja su već bila upisana", () -> stanje.getPreskoceno());
+        logger.info("Репродукција дневника {} од {} до {} ({})", dir, od, doVremena != null ? doVremena : "покретања",
+                imei.isEmpty() ? "сви уређаји" : imei.size() + " уређаја");
+    }
+
+    /**
+     * Учитава последња јављања свих објеката активних претплатника у {@link #stanjeObjekata}.
+     * Грешка није критична - објекти који недостају учитавају се при првом јављању.
+     */
+    private void zagrejStanjeObjekata() {
+        try {
+            for (SistemPretplatnici pretplatnik : sistemPretplatnikServis.nadjiSveAktivnePretplatnike()) {
+                ArrayList<Objekti> objekti = new ArrayList<>(objekatServis.vratiSveObjekte(pretplatnik, (Organizacije) null));
+                if (!objekti.isEmpty()) {
+                    stanjeObjekata.zagrej(javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(objekti));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Стање објеката није загрејано, учитава се по потреби: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Мерачи над постојећим бројачима сервиса; читају се тек при очитавању
+     * {@code /metrics}, па на пријем не утичу.
+     */
+    private static void registrujMetrike() {
+        Metrike.merac("prati_geokod_u_toku", "Geokodiranja koja čekaju ili se izvršavaju", () -> geokodiranje.getUToku());
+        Metrike.merac("prati_geokod_kes", "Adrese u kešu geokodiranja", () -> geokodiranje.getVelicinaKesa());
+        Metrike.brojacIz("prati_geokod_odbijeno_ukupno", "Geokodiranja odbijena zbog punog reda", () -> geokodiranje.getOdbijeno());
+        Metrike.merac("prati_posta_na_cekanju", "Alarm poruke koje čekaju kraj prozora", () -> alarmPosta.getNaCekanju());
+        Metrike.merac("prati_posta_u_ponavljanju", "Mejlovi koji čekaju ponovno slanje", () -> alarmPosta.getUPonavljanju());
+        Metrike.brojacIz("prati_posta_neuspesno_ukupno", "Mejlovi koji nisu poslati", () -> alarmPosta.getNeuspesno());
+        Metrike.merac("prati_ui_slusaoci", "Otvorene sesije koje primaju javljanja", Broadcaster::getBrojSlusalaca);
+        Metrike.merac("prati_ui_na_cekanju", "Poruke koje čekaju isporuku sesijama", Broadcaster::getNaCekanju);
+        Metrike.merac("prati_zbirovi_objekata", "Objekti sa dnevnim/satnim zbirovima", () -> zbirovi.getBrojObjekata());
+        Metrike.merac("prati_izvestaji_u_toku", "Izveštaji koji se pripremaju", () -> izvrsilacIzvestaja.getUToku());
+        Metrike.merac("prati_izvestaji_u_redu", "Izveštaji koji čekaju nit", () -> izvrsilacIzvestaja.getURedu());
+        Metrike.merac("prati_sifarnici_liste", "Liste šifarnika u kešu", () -> sifarnici.getVelicina());
+        Metrike.brojacIz("prati_sifarnici_pogodaka_ukupno", "Šifarnici vraćeni iz keša", () -> sifarnici.getPogodaka());
+        Metrike.brojacIz("prati_sifarnici_promasaja_ukupno", "Šifarnici učitani iz baze", () -> sifarnici.getPromasaja());
+        Metrike.merac("prati_flota_snimaka", "Pretplatnici sa snimkom flote", () -> flota.getBrojSnimaka());
+        Metrike.brojacIz("prati_flota_izgradnji_ukupno", "Izgrađeni snimci flote", () -> flota.getIzgradnji());
+        if (dnevnikOkvira != null) {
+            Metrike.brojacIz("prati_dnevnik_okvira_ukupno", "Okviri upisani u dnevnik", () -> dnevnikOkvira.getZapisa());
+            Metrike.brojacIz("prati_dnevnik_bajtova_ukupno", "Bajtovi upisani u dnevnik okvira", () -> dnevnikOkvira.getBajtova());
+            Metrike.brojacIz("prati_dnevnik_fsync_ukupno", "Grupni fsync-ovi dnevnika okvira", () -> dnevnikOkvira.getFsyncova());
+            Metrike.brojacIz("prati_dnevnik_greske_ukupno", "Okviri koji nisu upisani u dnevnik", () -> dnevnikOkvira.getGresaka());
+            Metrike.merac("prati_dnevnik_zadrzano", "Segmenti preko limita čiji okviri još nisu upisani u bazu", () -> dnevnikOkvira.getZadrzanih());
+            Metrike.brojacIz("prati_dnevnik_neupisano_obrisano_ukupno", "Segmenti obrisani pre potvrde upisa u bazu", () -> dnevnikOkvira.getObrisanoNeupisanih());
+        }
+    }
+
     public static synchronized GeoApiContext ensureGContext() {
         if (gContext == null) {
             String key = (apiGoogle != null) ? apiGoogle : 
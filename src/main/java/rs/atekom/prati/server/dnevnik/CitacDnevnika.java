@@ -0,0 +1,169 @@
+package rs.atekom.prati.server.dnevnik;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Читање сегмената {@link DnevnikOkvira} редом уписа. Сегмент се чита до
+ * прве нуле (крај уписаног) или до оштећеног записа (прекинут упис при
+ * паду), па се може читати и сегмент у који се још уписује.
+ */
+public final class CitacDnevnika {
+
+	private static final Logger logger = LoggerFactory.getLogger(CitacDnevnika.class);
+
+	private CitacDnevnika() {
+	}
+
+	/** Сегменти дневника од најстаријег ка најновијем. */
+	public static List<Path> segmenti(Path direktorijum) throws IOException {
+		if (!Files.isDirectory(direktorijum)) {
+			return Collections.emptyList();
+		}
+		List<Path> segmenti = new ArrayList<>();
+		try (Stream<Path> fajlovi = Files.list(direktorijum)) {
+			fajlovi.filter(CitacDnevnika::jeSegment).forEach(segmenti::add);
+		}
+		segmenti.sort((a, b) -> Long.compare(DnevnikOkvira.broj(a), DnevnikOkvira.broj(b)));
+		return segmenti;
+	}
+
+	/**
+	 * Сви оквири свих сегмената, редом уписа.
+	 *
+	 * @return број прочитаних оквира
+	 */
+	public static long citaj(Path direktorijum, Consumer<OkvirDnevnika> prijem) throws IOException {
+		return citajDok(direktorijum, okvir -> {
+			prijem.accept(okvir);
+			return true;
+		});
+	}
+
+	/**
+	 * Оквири свих сегмената, редом уписа, док {@code prijem} враћа true.
+	 *
+	 * @return број оквира предатих {@code prijem}-у
+	 */
+	public static long citajDok(Path direktorijum, Predicate<OkvirDnevnika> prijem) throws IOException {
+		long[] procitano = new long[1];
+		for (Path segment : segmenti(direktorijum)) {
+			if (!citaj(segment, prijem, procitano)) {
+				break;
+			}
+		}
+		return procitano[0];
+	}
+
+	/**
+	 * Оквири једног сегмента до краја уписаног дела.
+	 *
+	 * @return број прочитаних оквира
+	 */
+	public static int citajSegment(Path segment, Consumer<OkvirDnevnika> prijem) throws IOException {
+		long[] procitano = new long[1];
+		citaj(segment, okvir -> {
+			prijem.accept(okvir);
+			return true;
+		}, procitano);
+		return (int) procitano[0];
+	}
+
+	/** @return false ако је {@code prijem} прекинуо читање */
+	private static boolean citaj(Path segment, Predicate<OkvirDnevnika> prijem, long[] procitano) throws IOException {
+		MappedByteBuffer mapa;
+		try (FileChannel kanal = FileChannel.open(segment, StandardOpenOption.READ)) {
+			mapa = kanal.map(FileChannel.MapMode.READ_ONLY, 0, kanal.size());
+		}
+		if (mapa.remaining() < DnevnikOkvira.ZAGLAVLJE_SEGMENTA || mapa.getInt() != DnevnikOkvira.MAGIC) {
+			logger.warn("Dnevnik okvira: {} nije segment dnevnika, preskače se", segment.getFileName());
+			return true;
+		}
+		CRC32 crc = new CRC32();
+		while (mapa.remaining() >= DnevnikOkvira.ZAGLAVLJE_ZAPISA) {
+			int pocetak = mapa.position();
+			int telo = mapa.getInt(pocetak);
+			if (telo == 0) {
+				break;
+			}
+			if (telo < 10 || telo > mapa.remaining() - DnevnikOkvira.ZAGLAVLJE_ZAPISA) {
+				logger.warn("Dnevnik okvira: {} - neispravna dužina zapisa {} na poziciji {}", segment.getFileName(), telo, pocetak);
+				break;
+			}
+			ByteBuffer zapis = mapa.duplicate();
+			zapis.position(pocetak + DnevnikOkvira.ZAGLAVLJE_ZAPISA).limit(pocetak + DnevnikOkvira.ZAGLAVLJE_ZAPISA + telo);
+			crc.reset();
+			crc.update(zapis.duplicate());
+			if ((int) crc.getValue() != mapa.getInt(pocetak + 4)) {
+				logger.warn("Dnevnik okvira: {} - oštećen zapis na poziciji {}, ostatak segmenta se preskače", segment.getFileName(), pocetak);
+				break;
+			}
+			OkvirDnevnika okvir = procitaj(zapis);
+			if (okvir == null) {
+				logger.warn("Dnevnik okvira: {} - neispravno zaglavlje zapisa na poziciji {}", segment.getFileName(), pocetak);
+				break;
+			}
+			procitano[0]++;
+			if (!prijem.test(okvir)) {
+				return false;
+			}
+			mapa.position(pocetak + DnevnikOkvira.ZAGLAVLJE_ZAPISA + telo);
+		}
+		return true;
+	}
+
+	private static OkvirDnevnika procitaj(ByteBuffer telo) {
+		long vreme = telo.getLong();
+		String protokol = niz(telo);
+		String imei = protokol == null ? null : niz(telo);
+		if (imei == null) {
+			return null;
+		}
+		byte[] podaci = new byte[telo.remaining()];
+		telo.get(podaci);
+		return new OkvirDnevnika(protokol, imei, vreme, podaci);
+	}
+
+	private static String niz(ByteBuffer telo) {
+		if (!telo.hasRemaining()) {
+			return null;
+		}
+		int duzina = telo.get() & 0xFF;
+		if (telo.remaining() < duzina) {
+			return null;
+		}
+		byte[] bajtovi = new byte[duzina];
+		telo.get(bajtovi);
+		return new String(bajtovi, StandardCharsets.US_ASCII);
+	}
+
+	private static boolean jeSegment(Path putanja) {
+		String naziv = putanja.getFileName().toString();
+		if (!naziv.startsWith(DnevnikOkvira.PREFIKS) || !naziv.endsWith(DnevnikOkvira.SUFIKS)
+				|| naziv.length() == DnevnikOkvira.PREFIKS.length() + DnevnikOkvira.SUFIKS.length()) {
+			return false;
+		}
+		for (int i = DnevnikOkvira.PREFIKS.length(); i < naziv.length() - DnevnikOkvira.SUFIKS.length(); i++) {
+			if (!Character.isDigit(naziv.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,472 @@
+package rs.atekom.prati.server.dnevnik;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.atekom.prati.server.metrike.Metrike;
+import rs.atekom.prati.server.metrike.Metrike.Histogram;
+
+/**
+ * Дневник сирових оквира (append-only): сваки оквир се са IMEI-јем,
+ * протоколом и тренутком пријема уписује у меморијски мапиран сегмент
+ * и чека fsync пре него што уређај добије ACK. Уређај брише податак тек
+ * после ACK-а, па оквир који је стигао до дневника не може да се изгуби
+ * ни када обрада или упис у базу не успе.
+ *
+ * <p><b>Групни fsync:</b> нити конекција уписују под кратком бравом и
+ * чекају да њихов запис постане трајан; једна нит ради {@code force()} за
+ * све што је до тада уписано, остале то користе без сопственог fsync-а.</p>
+ *
+ * <p><b>Сегменти:</b> фајлови {@code okviri-<број>.seg} сталне величине.
+ * Пун сегмент се синхронизује и затвара, отвара се следећи, а најстарији
+ * преко {@code najviseSegmenata} се бришу. При сваком покретању се отвара
+ * нови сегмент, па се постојећи записи никад не преписују.</p>
+ *
+ * <p><b>Граница уписа:</b> сегмент се брише тек кад су сви његови оквири
+ * обрађени и уписани у базу. Граница је тренутак пријема пре ког то важи;
+ * током рада се рачуна из {@code upisanoDo} (write-behind упис, умањено за
+ * {@link #OBRADA_MS}), а чува се у фајлу {@code upisano} при свакој ротацији
+ * и при затварању, па важи и после поновног покретања. Сегменти претходног
+ * покретања се мере само сачуваном границом. Сегмент иза границе се задржава
+ * до {@code 2 * najviseSegmenata}; преко тога се ипак брише, уз грешку у логу
+ * и бројач {@link #getObrisanoNeupisanih()}. Време последњег оквира у
+ * сегменту је време измене фајла - fsync после сваке групе уписа га одржава.</p>
+ *
+ * <p><b>Мапирање:</b> {@code MappedByteBuffer} затвореног сегмента JDK ослобађа
+ * тек када га покупи GC, а дотле обрисан фајл заузима место на диску. Зато се
+ * мапирања ротираних сегмената ослобађају изричито, у нити која следећа ради
+ * fsync - тада их сигурно нико више не користи.</p>
+ *
+ * <p>Формат сегмента: {@code MAGIC}, па записи {@code [дужина тела][CRC32 тела][тело]},
+ * тело је {@code [време пријема][протокол][IMEI][оквир]}. Празан простор
+ * иза последњег записа су нуле ({@link CitacDnevnika}).</p>
+ */
+public class DnevnikOkvira {
+
+	private static final Logger logger = LoggerFactory.getLogger(DnevnikOkvira.class);
+
+	static final int MAGIC = 0x50524431; // "PRD1"
+	static final int ZAGLAVLJE_SEGMENTA = 4;
+	static final int ZAGLAVLJE_ZAPISA = 8;
+	static final String PREFIKS = "okviri-";
+	static final String SUFIKS = ".seg";
+	static final String UPISANO = "upisano";
+	/** Најдуже од пријема оквира до предаје његових редова у ред уписа. */
+	static final long OBRADA_MS = 60_000;
+
+	private final Path direktorijum;
+	private final int velicinaSegmenta;
+	private final int najviseSegmenata;
+	/** Граница write-behind уписа; null - сегменти се бришу само по броју. */
+	private final LongSupplier upisanoDo;
+	private final Path granicaUpisa;
+	/** Граница учитана при покретању - једина која важи за сегменте претходног покретања. */
+	private final long prethodnaGranica;
+	private final long prviSegment;
+	private final CRC32 crc = new CRC32();
+	/** Само једна нит ради fsync; закључава се пре {@code this}. */
+	private final Object sinhronizacija = new Object();
+	private final AtomicLong trajno = new AtomicLong();
+	private final AtomicLong bajtova = new AtomicLong();
+	private final AtomicLong fsyncova = new AtomicLong();
+	private final AtomicLong gresaka = new AtomicLong();
+	private final AtomicLong obrisanoNeupisanih = new AtomicLong();
+	private volatile int zadrzanih;
+	private final Histogram fsync;
+
+	private Segment segment;
+	/** Ротирани сегменти чије мапирање чека ослобађање; под {@code this}. */
+	private final List<Segment> zaOslobadjanje = new ArrayList<>();
+	private long brojSegmenta;
+	private long upisano;
+	private boolean zatvoren;
+
+	/**
+	 * @param direktorijum     где су сегменти; прави се ако не постоји
+	 * @param velicinaSegmenta величина једног сегмента у бајтовима
+	 * @param najviseSegmenata колико се сегмената чува на диску
+	 */
+	public DnevnikOkvira(Path direktorijum, int velicinaSegmenta, int najviseSegmenata) throws IOException {
+		this(direktorijum, velicinaSegmenta, najviseSegmenata, null);
+	}
+
+	/**
+	 * @param upisanoDo тренутак пре ког је све предато упису у базу уписано
+	 *                  ({@code Zapisivac::upisanoDo}); null - брише се само по броју
+	 */
+	public DnevnikOkvira(Path direktorijum, int velicinaSegmenta, int najviseSegmenata, LongSupplier upisanoDo) throws IOException {
+		if (velicinaSegmenta < 4096 || najviseSegmenata < 1) {
+			throw new IllegalArgumentException("velicinaSegmenta mora biti bar 4096, najviseSegmenata pozitivan");
+		}
+		this.direktorijum = direktorijum;
+		this.velicinaSegmenta = velicinaSegmenta;
+		this.najviseSegmenata = najviseSegmenata;
+		this.upisanoDo = upisanoDo;
+		Files.createDirectories(direktorijum);
+		this.granicaUpisa = direktorijum.resolve(UPISANO);
+		this.prethodnaGranica = ucitajGranicu();
+		List<Path> zateceni = CitacDnevnika.segmenti(direktorijum);
+		brojSegmenta = zateceni.isEmpty() ? 0 : broj(zateceni.get(zateceni.size() - 1));
+		segment = otvori(++brojSegmenta);
+		prviSegment = brojSegmenta;
+		obrisiStare(granica(false));
+		this.fsync = Metrike.histogram("prati_dnevnik_fsync_sekunde", "Trajanje fsync-a dnevnika okvira");
+		logger.info("Dnevnik okvira {}: segment {} ({} KB), zatečeno segmenata {}",
+				direktorijum, segment.putanja.getFileName(), velicinaSegmenta / 1024, zateceni.size());
+	}
+
+	/**
+	 * Упис оквира и чекање да постане трајан. Позива се пре ACK-а.
+	 *
+	 * @param okvir бајтови од {@code position} до {@code limit}; бафер се не мења
+	 * @return false ако упис није успео - ACK тада иде после обраде, као без дневника
+	 */
+	public boolean zapisi(String protokol, String imei, long vremePrijema, ByteBuffer okvir) {
+		try {
+			sacekajTrajno(dodaj(protokol, imei, vremePrijema, okvir));
+			return true;
+		} catch (IOException | RuntimeException e) {
+			gresaka.incrementAndGet();
+			logger.warn("Dnevnik okvira: okvir {} {} nije upisan: {}", protokol, imei, e.toString());
+			return false;
+		}
+	}
+
+	/**
+	 * Упис без чекања fsync-а.
+	 *
+	 * @return редни број записа за {@link #sacekajTrajno(long)}
+	 */
+	public synchronized long dodaj(String protokol, String imei, long vremePrijema, ByteBuffer okvir) throws IOException {
+		if (zatvoren) {
+			throw new IOException("dnevnik je zatvoren");
+		}
+		byte[] p = protokol.getBytes(StandardCharsets.US_ASCII);
+		byte[] i = imei.getBytes(StandardCharsets.US_ASCII);
+		if (p.length > 255 || i.length > 255) {
+			throw new IllegalArgumentException("protokol i IMEI najviše 255 znakova");
+		}
+		int telo = 8 + 1 + p.length + 1 + i.length + okvir.remaining();
+		int ukupno = ZAGLAVLJE_ZAPISA + telo;
+		if (ZAGLAVLJE_SEGMENTA + ukupno > velicinaSegmenta) {
+			throw new IllegalArgumentException("okvir od " + okvir.remaining() + " bajtova je veći od segmenta");
+		}
+		if (segment.mapa.remaining() < ukupno) {
+			rotiraj();
+		}
+		MappedByteBuffer mapa = segment.mapa;
+		int pocetak = mapa.position();
+		mapa.position(pocetak + ZAGLAVLJE_ZAPISA);
+		mapa.putLong(vremePrijema);
+		mapa.put((byte) p.length).put(p);
+		mapa.put((byte) i.length).put(i);
+		mapa.put(okvir.duplicate());
+
+		ByteBuffer upisanoTelo = mapa.duplicate();
+		upisanoTelo.position(pocetak + ZAGLAVLJE_ZAPISA).limit(pocetak + ukupno);
+		crc.reset();
+		crc.update(upisanoTelo);
+		// дужина последња - читач стаје на нули или на погрешном CRC-у
+		mapa.putInt(pocetak + 4, (int) crc.getValue());
+		mapa.putInt(pocetak, telo);
+		bajtova.addAndGet(ukupno);
+		return ++upisano;
+	}
+
+	/**
+	 * Враћа се када је запис {@code redniBroj} на диску. Ако fsync већ ради
+	 * друга нит, чека се њен крај; следећи fsync покрива све што је до тада
+	 * уписано.
+	 */
+	public void sacekajTrajno(long redniBroj) {
+		if (trajno.get() >= redniBroj) {
+			return;
+		}
+		synchronized (sinhronizacija) {
+			if (trajno.get() >= redniBroj) {
+				return;
+			}
+			MappedByteBuffer mapa;
+			long doKog;
+			List<Segment> ranije;
+			synchronized (this) {
+				mapa = segment.mapa;
+				doKog = upisano;
+				ranije = preuzmiZaOslobadjanje();
+			}
+			// претходни власник браве је завршио force() - ротирана мапирања више нико не користи
+			ranije.forEach(Segment::oslobodi);
+			long pocetak = System.nanoTime();
+			mapa.force();
+			fsync.od(pocetak);
+			fsyncova.incrementAndGet();
+			potvrdi(doKog);
+		}
+	}
+
+	/**
+	 * Синхронизује и затвара текући сегмент; позива се пошто сервери и упис
+	 * у базу стану, па је граница уписа тада тренутак затварања.
+	 */
+	public void zatvori() {
+		synchronized (sinhronizacija) {
+			synchronized (this) {
+				if (zatvoren) {
+					return;
+				}
+				zatvoren = true;
+				segment.mapa.force();
+				potvrdi(upisano);
+				segment.zatvori();
+				preuzmiZaOslobadjanje().forEach(Segment::oslobodi);
+				segment.oslobodi();
+				if (upisanoDo != null) {
+					granica(true);
+				}
+			}
+		}
+		logger.info("Dnevnik okvira zatvoren: zapisa={}, bajtova={}, fsync={}, grešaka={}",
+				getZapisa(), getBajtova(), getFsyncova(), getGresaka());
+	}
+
+	public synchronized long getZapisa() {
+		return upisano;
+	}
+
+	public long getBajtova() {
+		return bajtova.get();
+	}
+
+	public long getFsyncova() {
+		return fsyncova.get();
+	}
+
+	public long getGresaka() {
+		return gresaka.get();
+	}
+
+	/** Сегменти обрисани преко {@code 2 * najviseSegmenata} иако им оквири нису потврђено уписани. */
+	public long getObrisanoNeupisanih() {
+		return obrisanoNeupisanih.get();
+	}
+
+	/** Сегменти преко {@code najviseSegmenata} задржани јер им оквири још нису уписани. */
+	public int getZadrzanih() {
+		return zadrzanih;
+	}
+
+	public Path getDirektorijum() {
+		return direktorijum;
+	}
+
+	/** Пун сегмент мора бити трајан пре него што записи у следећем постану трајни. */
+	private void rotiraj() throws IOException {
+		Segment stari = segment;
+		stari.mapa.force();
+		potvrdi(upisano);
+		stari.zatvori();
+		zaOslobadjanje.add(stari);
+		segment = otvori(++brojSegmenta);
+		logger.debug("Dnevnik okvira: novi segment {}", segment.putanja.getFileName());
+		obrisiStare(granica(false));
+	}
+
+	private List<Segment> preuzmiZaOslobadjanje() {
+		if (zaOslobadjanje.isEmpty()) {
+			return List.of();
+		}
+		List<Segment> ranije = new ArrayList<>(zaOslobadjanje);
+		zaOslobadjanje.clear();
+		return ranije;
+	}
+
+	private void potvrdi(long doKog) {
+		trajno.accumulateAndGet(doKog, Math::max);
+	}
+
+	private Segment otvori(long broj) throws IOException {
+		Path putanja = direktorijum.resolve(String.format("%s%020d%s", PREFIKS, broj, SUFIKS));
+		FileChannel kanal = FileChannel.open(putanja, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			MappedByteBuffer mapa = kanal.map(FileChannel.MapMode.READ_WRITE, 0, velicinaSegmenta);
+			mapa.putInt(MAGIC);
+			return new Segment(putanja, kanal, mapa);
+		} catch (IOException | RuntimeException e) {
+			kanal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Брише најстарије сегменте преко {@code najviseSegmenata}, али само оне
+	 * чији су оквири уписани; иначе их задржава до {@code 2 * najviseSegmenata}.
+	 *
+	 * @param granica граница уписа за сегменте овог покретања
+	 */
+	private void obrisiStare(long granica) {
+		try {
+			List<Path> segmenti = CitacDnevnika.segmenti(direktorijum);
+			int visak = segmenti.size() - najviseSegmenata;
+			int zadrzano = 0;
+			for (int i = 0; i < visak; i++) {
+				Path stari = segmenti.get(i);
+				if (stari.equals(segment.putanja)) {
+					continue;
+				}
+				if (!upisan(stari, granica)) {
+					if (segmenti.size() - i <= 2 * najviseSegmenata) {
+						zadrzano = visak - i;
+						break;
+					}
+					obrisanoNeupisanih.incrementAndGet();
+					logger.error("Dnevnik okvira: segment {} se briše (preko {} segmenata) iako njegovi okviri nisu potvrđeno upisani u bazu",
+							stari.getFileName(), 2 * najviseSegmenata);
+				}
+				Files.deleteIfExists(stari);
+				logger.info("Dnevnik okvira: obrisan stari segment {}", stari.getFileName());
+			}
+			if (zadrzano > 0 && zadrzano != zadrzanih) {
+				logger.warn("Dnevnik okvira: zadržano {} segmenata preko {} - okviri još nisu upisani u bazu",
+						zadrzano, najviseSegmenata);
+			}
+			zadrzanih = zadrzano;
+		} catch (IOException e) {
+			logger.warn("Dnevnik okvira: stari segmenti nisu obrisani: {}", e.getMessage());
+		}
+	}
+
+	private boolean upisan(Path stari, long granica) throws IOException {
+		if (upisanoDo == null) {
+			return true;
+		}
+		long poslednji;
+		try {
+			poslednji = Files.getLastModifiedTime(stari).toMillis();
+		} catch (NoSuchFileException e) {
+			return true;
+		}
+		return poslednji < (broj(stari) < prviSegment ? prethodnaGranica : granica);
+	}
+
+	/**
+	 * Граница уписа за сегменте овог покретања; чува се у фајлу, али не изнад
+	 * учитане док има сегмената претходног покретања које она не покрива.
+	 *
+	 * @param zatvaranje упис и обрада су стали - нема оквира у обради
+	 */
+	private long granica(boolean zatvaranje) {
+		if (upisanoDo == null) {
+			return Long.MAX_VALUE;
+		}
+		long granica = upisanoDo.getAsLong() - (zatvaranje ? 0 : OBRADA_MS);
+		long cuva = granica;
+		try {
+			for (Path stari : CitacDnevnika.segmenti(direktorijum)) {
+				if (broj(stari) < prviSegment && !upisan(stari, granica)) {
+					cuva = prethodnaGranica;
+					break;
+				}
+			}
+		} catch (IOException e) {
+			cuva = prethodnaGranica;
+		}
+		sacuvajGranicu(Math.max(prethodnaGranica, cuva));
+		return granica;
+	}
+
+	private long ucitajGranicu() {
+		try {
+			return Long.parseLong(new String(Files.readAllBytes(granicaUpisa), StandardCharsets.US_ASCII).trim());
+		} catch (NoSuchFileException e) {
+			return Long.MIN_VALUE;
+		} catch (IOException | NumberFormatException e) {
+			logger.warn("Dnevnik okvira: granica upisa nije pročitana ({}), stari segmenti se brišu tek preko limita", e.toString());
+			return Long.MIN_VALUE;
+		}
+	}
+
+	private void sacuvajGranicu(long granica) {
+		Path privremeni = direktorijum.resolve(UPISANO + ".tmp");
+		try {
+			Files.write(privremeni, Long.toString(granica).getBytes(StandardCharsets.US_ASCII));
+			Files.move(privremeni, granicaUpisa, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("Dnevnik okvira: granica upisa nije sačuvana: {}", e.getMessage());
+		}
+	}
+
+	static long broj(Path segment) {
+		String naziv = segment.getFileName().toString();
+		return Long.parseLong(naziv.substring(PREFIKS.length(), naziv.length() - SUFIKS.length()));
+	}
+
+	private static final class Segment {
+		final Path putanja;
+		final FileChannel kanal;
+		final MappedByteBuffer mapa;
+
+		Segment(Path putanja, FileChannel kanal, MappedByteBuffer mapa) {
+			this.putanja = putanja;
+			this.kanal = kanal;
+			this.mapa = mapa;
+		}
+
+		void zatvori() {
+			try {
+				kanal.close();
+			} catch (IOException e) {
+				logger.warn("Dnevnik okvira: segment {} nije zatvoren: {}", putanja.getFileName(), e.getMessage());
+			}
+		}
+
+		/** Ослобађа мапирање; после овога се {@code mapa} не сме користити. */
+		void oslobodi() {
+			if (OSLOBODI == null) {
+				return;
+			}
+			try {
+				OSLOBODI.invoke(UNSAFE, mapa);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				logger.debug("Dnevnik okvira: mapiranje {} nije oslobođeno: {}", putanja.getFileName(), e.toString());
+			}
+		}
+	}
+
+	private static final Object UNSAFE;
+	/** {@code Unsafe.invokeCleaner(ByteBuffer)}; null - мапирање ослобађа GC. */
+	private static final Method OSLOBODI;
+
+	static {
+		Object unsafe = null;
+		Method oslobodi = null;
+		try {
+			Class<?> klasa = Class.forName("sun.misc.Unsafe");
+			Field polje = klasa.getDeclaredField("theUnsafe");
+			polje.setAccessible(true);
+			unsafe = polje.get(null);
+			oslobodi = klasa.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.info("Dnevnik okvira: mapirani segmenti se oslobađaju tek kroz GC ({})", e.toString());
+		}
+		UNSAFE = unsafe;
+		OSLOBODI = oslobodi;
+	}
+}
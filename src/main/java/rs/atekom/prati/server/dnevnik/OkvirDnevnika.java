@@ -0,0 +1,37 @@
+package rs.atekom.prati.server.dnevnik;
+
+/**
+ * Један сирови оквир из дневника: протокол, код уређаја (IMEI), тренутак
+ * пријема и бајтови оквира какви су стигли са везе.
+ */
+public final class OkvirDnevnika {
+
+	private final String protokol;
+	private final String imei;
+	private final long vremePrijema;
+	private final byte[] podaci;
+
+	public OkvirDnevnika(String protokol, String imei, long vremePrijema, byte[] podaci) {
+		this.protokol = protokol;
+		this.imei = imei;
+		this.vremePrijema = vremePrijema;
+		this.podaci = podaci;
+	}
+
+	public String getProtokol() {
+		return protokol;
+	}
+
+	public String getImei() {
+		return imei;
+	}
+
+	/** Тренутак пријема у милисекундама ({@link System#currentTimeMillis()}). */
+	public long getVremePrijema() {
+		return vremePrijema;
+	}
+
+	public byte[] getPodaci() {
+		return podaci;
+	}
+}
@@ -0,0 +1,314 @@
+package rs.atekom.prati.server.dnevnik;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.atekom.prati.server.metrike.Metrike;
+import rs.atekom.prati.server.metrike.Metrike.Histogram;
+import rs.atekom.prati.server.nio.FrameHandler;
+
+/**
+ * Поновна обрада оквира из {@link DnevnikOkvira}: оквири из задатог периода
+ * иду кроз исте протоколске сесије као са мреже ({@link FrameHandler} -
+ * декодер, {@code OpstiThread.obradaJavljanja}, упис), па се може
+ * надокнадити испад базе, поново израчунати стање (километража, зоне,
+ * стајања) за период или пустити снимљено оптерећење ван производње.
+ *
+ * <p><b>Редослед:</b> сваки уређај ({@code протокол + IMEI}) увек иде у исту
+ * траку, са једном сесијом и једном нити, па се његови оквири обрађују
+ * редом пријема; различити уређаји се обрађују паралелно у {@code niti} трака.
+ * ACK-ови сесија се одбацују.</p>
+ *
+ * <p><b>Брзина:</b> {@code 0} - што брже може; {@code 1} - темпом пријема;
+ * {@code N} - N пута брже. Трака која касни успорава читање ({@code kapacitetTrake}).</p>
+ *
+ * <p><b>Сесије:</b> сесије протокола раде над {@link StanjeReprodukcije}, а не
+ * над живим стањем објеката; јављање које је већ уписано се прескаче, а
+ * аларми се само уписују - без мејла, приказа и геокодирања.</p>
+ */
+public class ReprodukcijaDnevnika {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReprodukcijaDnevnika.class);
+
+	private static final OkvirDnevnika KRAJ = new OkvirDnevnika("", "", 0, new byte[0]);
+	private static final long ZATVARANJE_MS = 20_000;
+
+	private final Path direktorijum;
+	private final Function<String, ? extends FrameHandler> sesije;
+	private final long pocetak;
+	private final long kraj;
+	private final Predicate<String> uredjaji;
+	private final double brzina;
+	private final Traka[] trake;
+	private final Histogram obrada;
+
+	private final AtomicLong procitano = new AtomicLong();
+	private final AtomicLong predato = new AtomicLong();
+	private final AtomicLong obradjeno = new AtomicLong();
+	private final AtomicLong odbaceno = new AtomicLong();
+	private final AtomicLong gresaka = new AtomicLong();
+
+	private volatile boolean zaustavljeno;
+	private volatile boolean zavrseno;
+	private Thread citac;
+
+	/**
+	 * @param direktorijum   сегменти дневника
+	 * @param sesije         нова сесија за протокол оквира; {@code null} - протокол се прескаче
+	 * @param pocetak        први тренутак пријема (ms, укључен)
+	 * @param kraj           последњи тренутак пријема (ms, искључен)
+	 * @param uredjaji       који IMEI-ји се обрађују
+	 * @param brzina         0 - без паузе, иначе колико пута брже од пријема
+	 * @param niti           број трака
+	 * @param kapacitetTrake оквира који чекају у једној траци
+	 */
+	public ReprodukcijaDnevnika(Path direktorijum, Function<String, ? extends FrameHandler> sesije, long pocetak, long kraj,
+			Predicate<String> uredjaji, double brzina, int niti, int kapacitetTrake) {
+		if (niti < 1 || kapacitetTrake < 1 || brzina < 0) {
+			throw new IllegalArgumentException("niti i kapacitetTrake moraju biti pozitivni, brzina ne može biti negativna");
+		}
+		this.direktorijum = direktorijum;
+		this.sesije = sesije;
+		this.pocetak = pocetak;
+		this.kraj = kraj;
+		this.uredjaji = uredjaji;
+		this.brzina = brzina;
+		this.trake = new Traka[niti];
+		for (int i = 0; i < niti; i++) {
+			trake[i] = new Traka(i, kapacitetTrake);
+		}
+		this.obrada = Metrike.histogram("prati_reprodukcija_obrada_sekunde", "Obrada jednog okvira pri reprodukciji dnevnika");
+	}
+
+	/** Покреће репродукцију у позадини; {@link #zaustavi()} је прекида. */
+	public synchronized void pokreni() {
+		if (citac != null) {
+			return;
+		}
+		citac = new Thread(() -> {
+			try {
+				izvrsi();
+			} catch (IOException e) {
+				logger.error("Reprodukcija dnevnika {}: greška čitanja: {}", direktorijum, e.getMessage());
+			}
+		}, "reprodukcija");
+		citac.setDaemon(true);
+		citac.start();
+	}
+
+	/**
+	 * Репродукција у нити позиваоца; враћа се када су сви оквири обрађени.
+	 *
+	 * @return број обрађених оквира
+	 */
+	public long izvrsi() throws IOException {
+		long pocetakNanos = System.nanoTime();
+		logger.info("Reprodukcija dnevnika {}: period {} - {}, brzina {}, traka {}", direktorijum, pocetak, kraj,
+				brzina == 0 ? "max" : brzina, trake.length);
+		for (Traka traka : trake) {
+			traka.nit.start();
+		}
+		long[] prvi = {-1, 0};
+		try {
+			CitacDnevnika.citajDok(direktorijum, okvir -> {
+				procitano.incrementAndGet();
+				if (okvir.getVremePrijema() < pocetak || okvir.getVremePrijema() >= kraj || !uredjaji.test(okvir.getImei())) {
+					return !zaustavljeno;
+				}
+				try {
+					sacekaj(okvir, prvi);
+					traka(okvir).red.put(okvir);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					zaustavljeno = true;
+				}
+				if (zaustavljeno) {
+					return false;
+				}
+				predato.incrementAndGet();
+				return true;
+			});
+		} finally {
+			zavrsi();
+		}
+		logger.info("Reprodukcija dnevnika {}{}: {} za {} ms", direktorijum, zaustavljeno ? " prekinuta" : " završena",
+				sazetak(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pocetakNanos));
+		return obradjeno.get();
+	}
+
+	/** Прекида читање; оквири који чекају у тракама се одбацују. */
+	public void zaustavi() {
+		zaustavljeno = true;
+		Thread nit;
+		synchronized (this) {
+			nit = citac;
+		}
+		if (nit != null && nit.isAlive()) {
+			nit.interrupt();
+			try {
+				nit.join(ZATVARANJE_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public boolean isZavrseno() {
+		return zavrseno;
+	}
+
+	/** Прочитани оквири, укључујући и оне ван периода. */
+	public long getProcitano() {
+		return procitano.get();
+	}
+
+	public long getPredato() {
+		return predato.get();
+	}
+
+	public long getObradjeno() {
+		return obradjeno.get();
+	}
+
+	/** Оквири протокола за које нема сесије. */
+	public long getOdbaceno() {
+		return odbaceno.get();
+	}
+
+	public long getGresaka() {
+		return gresaka.get();
+	}
+
+	public Histogram getObrada() {
+		return obrada;
+	}
+
+	public String sazetak() {
+		return String.format("pročitano=%d, predato=%d, obrađeno=%d, odbačeno=%d, grešaka=%d, obrada ms (prosek/max)=%.2f/%.2f",
+				getProcitano(), getPredato(), getObradjeno(), getOdbaceno(), getGresaka(), obrada.getProsekMs(), obrada.getNajduzeMs());
+	}
+
+	/** Пауза до тренутка пријема оквира, сведеног на {@code brzina}. */
+	private void sacekaj(OkvirDnevnika okvir, long[] prvi) throws InterruptedException {
+		if (brzina == 0) {
+			return;
+		}
+		if (prvi[0] < 0) {
+			prvi[0] = okvir.getVremePrijema();
+			prvi[1] = System.nanoTime();
+			return;
+		}
+		long cilj = prvi[1] + (long) (TimeUnit.MILLISECONDS.toNanos(okvir.getVremePrijema() - prvi[0]) / brzina);
+		long cekanje = cilj - System.nanoTime();
+		if (cekanje > 0) {
+			TimeUnit.NANOSECONDS.sleep(cekanje);
+		}
+	}
+
+	private Traka traka(OkvirDnevnika okvir) {
+		return trake[Math.floorMod(kljuc(okvir).hashCode(), trake.length)];
+	}
+
+	private void zavrsi() {
+		for (Traka traka : trake) {
+			boolean predat = false;
+			while (!predat) {
+				try {
+					traka.red.put(KRAJ);
+					predat = true;
+				} catch (InterruptedException e) {
+					// трака се празни (зауставља се), место ће се ослободити
+					zaustavljeno = true;
+				}
+			}
+		}
+		for (Traka traka : trake) {
+			try {
+				traka.nit.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		zavrseno = true;
+	}
+
+	private static String kljuc(OkvirDnevnika okvir) {
+		return okvir.getProtokol() + ":" + okvir.getImei();
+	}
+
+	/** Једна нит и сесије уређаја који јој припадају. */
+	private final class Traka {
+		final BlockingQueue<OkvirDnevnika> red;
+		final Thread nit;
+		final Map<String, FrameHandler> otvorene = new HashMap<>();
+
+		Traka(int broj, int kapacitet) {
+			this.red = new ArrayBlockingQueue<>(kapacitet);
+			this.nit = new Thread(this::petlja, "reprodukcija-" + broj);
+			this.nit.setDaemon(true);
+		}
+
+		private void petlja() {
+			try {
+				while (true) {
+					OkvirDnevnika okvir = red.take();
+					if (okvir == KRAJ) {
+						break;
+					}
+					if (!zaustavljeno) {
+						obradi(okvir);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				for (FrameHandler sesija : otvorene.values()) {
+					sesija.stop();
+				}
+				otvorene.clear();
+			}
+		}
+
+		private void obradi(OkvirDnevnika okvir) {
+			String kljuc = kljuc(okvir);
+			FrameHandler sesija = otvorene.get(kljuc);
+			if (sesija == null) {
+				sesija = sesije.apply(okvir.getProtokol());
+				if (sesija == null) {
+					odbaceno.incrementAndGet();
+					return;
+				}
+				sesija.attach("REPRODUKCIJA-" + kljuc, OutputStream.nullOutputStream());
+				otvorene.put(kljuc, sesija);
+			}
+			long pocetakNanos = System.nanoTime();
+			try {
+				if (!sesija.handleFrame(okvir.getPodaci())) {
+					// сесија би затворила везу - следећи оквир уређаја почиње нову, као после поновног повезивања
+					otvorene.remove(kljuc);
+					sesija.stop();
+				}
+				obradjeno.incrementAndGet();
+			} catch (RuntimeException e) {
+				gresaka.incrementAndGet();
+				logger.warn("Reprodukcija dnevnika: greška obrade okvira {} ({}): {}", kljuc, okvir.getVremePrijema(), e.toString());
+				otvorene.remove(kljuc);
+				sesija.stop();
+			}
+			obrada.od(pocetakNanos);
+		}
+	}
+}
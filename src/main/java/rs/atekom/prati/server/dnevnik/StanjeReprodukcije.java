@@ -0,0 +1,127 @@
+package rs.atekom.prati.server.dnevnik;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.stanje.StanjeObjekta;
+
+/**
+ * Стање објеката за {@link ReprodukcijaDnevnika}, одвојено од живог
+ * ({@code Servis.stanjeObjekata}): репродукција периода из прошлости не сме
+ * да помери последњу позицију, стајање ни аларме сесија које управо примају
+ * јављања са мреже.
+ *
+ * <p>Стање објекта почиње од последњег јављања у бази пре почетка периода.
+ * Јављање које је већ уписано (исти објекат и исто време) се не обрађује
+ * поново - само помера стање репродукције, па се километража наставља од
+ * уписане. Уписана јављања периода се читају једном по објекту; јављање
+ * ван периода (уређај шаље заостале податке) проверава се појединачно.</p>
+ */
+public class StanjeReprodukcije {
+
+	private static final Logger logger = LoggerFactory.getLogger(StanjeReprodukcije.class);
+
+	private final long pocetak;
+	private final long kraj;
+	private final BiFunction<Objekti, Date, Javljanja> poslednjeDo;
+	private final Function<Objekti, List<Javljanja>> uPeriodu;
+	private final ConcurrentMap<Long, StanjeObjekta> stanja = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, Map<Long, Javljanja>> upisana = new ConcurrentHashMap<>();
+	private final AtomicLong preskoceno = new AtomicLong();
+
+	/**
+	 * @param pocetak     први тренутак периода (ms, укључен)
+	 * @param kraj        последњи тренутак периода (ms, искључен)
+	 * @param poslednjeDo последње уписано јављање објекта у задато време или пре њега
+	 * @param uPeriodu    уписана јављања објекта у периоду
+	 */
+	public StanjeReprodukcije(long pocetak, long kraj, BiFunction<Objekti, Date, Javljanja> poslednjeDo,
+			Function<Objekti, List<Javljanja>> uPeriodu) {
+		this.pocetak = pocetak;
+		this.kraj = kraj;
+		this.poslednjeDo = poslednjeDo;
+		this.uPeriodu = uPeriodu;
+	}
+
+	/**
+	 * Стање објекта за репродукцију; прво се прави од последњег јављања пре
+	 * периода (база се чита ван закључавања мапе). Стање је већ преузето, па
+	 * сесија не поставља почетно стајање као прва жива конекција.
+	 */
+	public StanjeObjekta zaObjekat(Objekti objekat) {
+		Long id = objekat.getId();
+		StanjeObjekta stanje = stanja.get(id);
+		if (stanje != null) {
+			return stanje;
+		}
+		StanjeObjekta novo = new StanjeObjekta(objekat, null);
+		novo.preuzmi();
+		Javljanja prethodno = poslednjeDo.apply(objekat, new Date(pocetak));
+		if (prethodno != null) {
+			novo.azuriraj(prethodno);
+			if (prethodno.getBrzina() < 6) {
+				novo.zaustavljen(prethodno, null);
+			}
+		}
+		StanjeObjekta postojece = stanja.putIfAbsent(id, novo);
+		return postojece != null ? postojece : novo;
+	}
+
+	/**
+	 * Већ уписано јављање објекта у задато време.
+	 *
+	 * @return null ако таквог реда нема - јављање се обрађује и уписује
+	 */
+	public Javljanja upisano(Objekti objekat, Date datumVreme) {
+		long vreme = datumVreme.getTime();
+		Javljanja postojece;
+		if (vreme >= pocetak && vreme < kraj) {
+			Map<Long, Javljanja> period = upisana.get(objekat.getId());
+			if (period == null) {
+				// грешка читања се не памти - без провере би се период уписао двапут
+				period = ucitaj(objekat);
+				Map<Long, Javljanja> ranije = upisana.putIfAbsent(objekat.getId(), period);
+				period = ranije != null ? ranije : period;
+			}
+			postojece = period.get(vreme);
+		} else {
+			Javljanja poslednje = poslednjeDo.apply(objekat, datumVreme);
+			postojece = poslednje != null && poslednje.getDatumVreme().getTime() == vreme ? poslednje : null;
+		}
+		if (postojece != null) {
+			preskoceno.incrementAndGet();
+		}
+		return postojece;
+	}
+
+	/** Јављања која нису обрађена јер су већ била уписана. */
+	public long getPreskoceno() {
+		return preskoceno.get();
+	}
+
+	private Map<Long, Javljanja> ucitaj(Objekti objekat) {
+		List<Javljanja> lista = uPeriodu.apply(objekat);
+		if (lista == null || lista.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<Long, Javljanja> poVremenu = new HashMap<>(lista.size() * 2);
+		for (Javljanja javljanje : lista) {
+			poVremenu.putIfAbsent(javljanje.getDatumVreme().getTime(), javljanje);
+		}
+		logger.debug("Reprodukcija: objekat {} ima {} upisanih javljanja u periodu", objekat.getOznaka(), poVremenu.size());
+		return poVremenu;
+	}
+}
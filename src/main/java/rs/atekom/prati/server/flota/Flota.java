@@ -0,0 +1,273 @@
+package rs.atekom.prati.server.flota;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.AlarmiKorisnik;
+import pratiBaza.tabele.Grupe;
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Korisnici;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.SistemPretplatnici;
+
+/**
+ * Заједничка флота по претплатнику за праћење: уместо да свака сесија учита
+ * своје копије објеката, група и последњих јављања, сесије истог претплатника
+ * деле један {@link SnimakFlote} и из њега бирају објекте по својим групама.
+ *
+ * <p>Снимак се гради при првом захтеву, освежава после {@code osvezavanjeMs}
+ * (док га једна сесија гради, остале добијају претходни) и поништава при
+ * измени објеката, група и аларма корисника. Системски корисници виде све
+ * претплатнике и читају као и до сада ({@link Izvor#objektiKorisnika}).</p>
+ *
+ * <p>Редови табеле последњих јављања су мале копије по сесији, јер их UI мења
+ * при сваком јављању; позиција се узима из живог стања сервера, а објекат је
+ * заједничка инстанца из снимка.</p>
+ */
+public class Flota {
+
+	private static final Logger logger = LoggerFactory.getLogger(Flota.class);
+
+	/** Читање из базе и живог стања; у тестовима се замењује. */
+	public interface Izvor {
+
+		/** Сви објекти претплатника. */
+		Collection<Objekti> objekti(SistemPretplatnici pretplatnik);
+
+		Collection<JavljanjaPoslednja> poslednja(List<Objekti> objekti);
+
+		Collection<Objekti> clanoviGrupe(Grupe grupa);
+
+		Collection<Grupe> grupeKorisnika(Korisnici korisnik);
+
+		Collection<AlarmiKorisnik> alarmiKorisnika(Korisnici korisnik);
+
+		/** Објекти системског корисника, ван снимака. */
+		Collection<Objekti> objektiKorisnika(Korisnici korisnik);
+
+		/** Последња позиција из живог стања сервера или null. */
+		JavljanjaPoslednja zivo(Long objekatId);
+	}
+
+	private final ConcurrentMap<Long, Drzac> drzaci = new ConcurrentHashMap<>();
+	private final Izvor izvor;
+	private final long osvezavanjeMs;
+	private final AtomicLong izgradnji = new AtomicLong();
+
+	/**
+	 * @param osvezavanjeMs после колико се снимак гради поново
+	 */
+	public Flota(Izvor izvor, long osvezavanjeMs) {
+		this.izvor = izvor;
+		this.osvezavanjeMs = osvezavanjeMs;
+	}
+
+	/** Снимак претплатника; null за системског претплатника или без претплатника. */
+	public SnimakFlote snimak(SistemPretplatnici pretplatnik) {
+		if (pretplatnik == null || pretplatnik.isSistem() || pretplatnik.getId() == null) {
+			return null;
+		}
+		Drzac drzac = drzaci.computeIfAbsent(pretplatnik.getId(), id -> new Drzac());
+		SnimakFlote snimak = drzac.snimak;
+		if (snimak != null && !zastareo(snimak)) {
+			return snimak;
+		}
+		if (snimak != null) {
+			// друга сесија већ гради нови снимак - до тада важи постојећи
+			if (!drzac.brava.tryLock()) {
+				return snimak;
+			}
+		} else {
+			drzac.brava.lock();
+		}
+		try {
+			snimak = drzac.snimak;
+			if (snimak != null && !zastareo(snimak)) {
+				return snimak;
+			}
+			long generacija = drzac.generacija.get();
+			SnimakFlote novi;
+			try {
+				novi = SnimakFlote.izgradi(pretplatnik.getId(), izvor.objekti(pretplatnik), izvor::poslednja, System.currentTimeMillis());
+			} catch (RuntimeException e) {
+				if (snimak == null) {
+					throw e;
+				}
+				logger.warn("Flota {}: greška osvežavanja, ostaje prethodni snimak: {}", pretplatnik.getNaziv(), e.getMessage());
+				return snimak;
+			}
+			izgradnji.incrementAndGet();
+			logger.debug("Flota {}: snimak sa {} objekata", pretplatnik.getNaziv(), novi.getObjekti().size());
+			// поништено током изградње - снимак се враћа, али се не памти
+			if (drzac.generacija.get() == generacija) {
+				drzac.snimak = novi;
+			}
+			return novi;
+		} finally {
+			drzac.brava.unlock();
+		}
+	}
+
+	/**
+	 * Објекти које корисник прати: администратор - сви објекти претплатника
+	 * (или његове организације), остали - објекти из њихових група.
+	 * Листа је заједничка и не сме се мењати.
+	 */
+	public List<Objekti> objekti(Korisnici korisnik) {
+		SnimakFlote snimak = korisnik.isSistem() ? null : snimak(korisnik.getSistemPretplatnici());
+		if (snimak == null) {
+			return Collections.unmodifiableList(lista(izvor.objektiKorisnika(korisnik)));
+		}
+		if (korisnik.isAdmin() && korisnik.getOrganizacija() == null) {
+			return snimak.getObjekti();
+		}
+		return snimak.korisnik(korisnik.getId(), () -> {
+			if (korisnik.isAdmin()) {
+				Long organizacija = korisnik.getOrganizacija().getId();
+				List<Objekti> objekti = new ArrayList<>();
+				for (Objekti objekat : snimak.getObjekti()) {
+					if (objekat.getOrganizacija() != null && organizacija.equals(objekat.getOrganizacija().getId())) {
+						objekti.add(objekat);
+					}
+				}
+				return objekti;
+			}
+			Set<Objekti> objekti = new LinkedHashSet<>();
+			for (Grupe grupa : lista(izvor.grupeKorisnika(korisnik))) {
+				objekti.addAll(objektiGrupe(snimak, grupa));
+			}
+			return objekti;
+		});
+	}
+
+	/** Објекти групе; листа је заједничка и не сме се мењати. */
+	public List<Objekti> objektiGrupe(Grupe grupa) {
+		SnimakFlote snimak = snimak(grupa.getSistemPretplatnici());
+		if (snimak == null) {
+			return Collections.unmodifiableList(lista(izvor.clanoviGrupe(grupa)));
+		}
+		return objektiGrupe(snimak, grupa);
+	}
+
+	/** Аларми о којима се корисник обавештава; листа је заједничка. */
+	public List<AlarmiKorisnik> alarmi(Korisnici korisnik) {
+		SnimakFlote snimak = korisnik.isSistem() ? null : snimak(korisnik.getSistemPretplatnici());
+		if (snimak == null) {
+			return Collections.unmodifiableList(lista(izvor.alarmiKorisnika(korisnik)));
+		}
+		return snimak.alarmi(korisnik.getId(), () -> izvor.alarmiKorisnika(korisnik));
+	}
+
+	/**
+	 * Нови редови последњих јављања за табелу једне сесије. Позиција је из
+	 * живог стања, или из снимка ако се објекат од изградње није јавио; из
+	 * базе се читају само објекти ван снимака.
+	 */
+	public ArrayList<JavljanjaPoslednja> poslednja(Collection<Objekti> objekti) {
+		ArrayList<JavljanjaPoslednja> redovi = new ArrayList<>();
+		List<Objekti> vanSnimka = new ArrayList<>();
+		for (Objekti objekat : objekti) {
+			if (objekat == null || objekat.getId() == null) {
+				continue;
+			}
+			SnimakFlote snimak = snimak(objekat.getSistemPretplatnici());
+			Objekti zajednicki = snimak == null ? null : snimak.objekat(objekat.getId());
+			JavljanjaPoslednja poslednje = izvor.zivo(objekat.getId());
+			if (poslednje == null && zajednicki != null) {
+				poslednje = snimak.poslednje(objekat.getId());
+			}
+			if (poslednje != null) {
+				redovi.add(kopija(poslednje, zajednicki != null ? zajednicki : objekat));
+			} else if (zajednicki == null) {
+				vanSnimka.add(objekat);
+			}
+		}
+		if (!vanSnimka.isEmpty()) {
+			redovi.addAll(lista(izvor.poslednja(vanSnimka)));
+		}
+		return redovi;
+	}
+
+	/** Измењени објекти, групе или аларми корисника претплатника. */
+	public void ponisti(SistemPretplatnici pretplatnik) {
+		if (pretplatnik == null || pretplatnik.getId() == null || pretplatnik.isSistem()) {
+			ponistiSve();
+		} else {
+			ponisti(pretplatnik.getId());
+		}
+	}
+
+	public void ponisti(long pretplatnikId) {
+		Drzac drzac = drzaci.get(pretplatnikId);
+		if (drzac != null) {
+			drzac.generacija.incrementAndGet();
+			drzac.snimak = null;
+		}
+	}
+
+	public void ponistiSve() {
+		for (Long pretplatnikId : drzaci.keySet()) {
+			ponisti(pretplatnikId);
+		}
+	}
+
+	public int getBrojSnimaka() {
+		int broj = 0;
+		for (Drzac drzac : drzaci.values()) {
+			if (drzac.snimak != null) {
+				broj++;
+			}
+		}
+		return broj;
+	}
+
+	public long getIzgradnji() {
+		return izgradnji.get();
+	}
+
+	private List<Objekti> objektiGrupe(SnimakFlote snimak, Grupe grupa) {
+		return snimak.grupa(grupa.getId(), () -> izvor.clanoviGrupe(grupa));
+	}
+
+	private boolean zastareo(SnimakFlote snimak) {
+		return System.currentTimeMillis() - snimak.getNapravljen() >= osvezavanjeMs;
+	}
+
+	private static <T> List<T> lista(Collection<T> kolekcija) {
+		return kolekcija == null ? new ArrayList<T>() : new ArrayList<T>(kolekcija);
+	}
+
+	/** Копија за сесију - UI мења позицију на месту при сваком јављању. */
+	static JavljanjaPoslednja kopija(JavljanjaPoslednja izvor, Objekti objekat) {
+		JavljanjaPoslednja red = new JavljanjaPoslednja();
+		red.setId(izvor.getId());
+		red.setObjekti(objekat);
+		red.setDatumVreme(izvor.getDatumVreme());
+		red.setLat(izvor.getLat());
+		red.setLon(izvor.getLon());
+		red.setBrzina(izvor.getBrzina());
+		red.setKontakt(izvor.isKontakt());
+		red.setPravac(izvor.getPravac());
+		red.setVirtualOdo(izvor.getVirtualOdo());
+		red.setZona(izvor.getZona());
+		red.setSistemAlarmi(izvor.getSistemAlarmi());
+		return red;
+	}
+
+	private static final class Drzac {
+		final ReentrantLock brava = new ReentrantLock();
+		final AtomicLong generacija = new AtomicLong();
+		volatile SnimakFlote snimak;
+	}
+}
@@ -0,0 +1,58 @@
+package rs.atekom.prati.server.flota;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import pratiBaza.tabele.AlarmiKorisnik;
+import pratiBaza.tabele.Grupe;
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Korisnici;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.Organizacije;
+import pratiBaza.tabele.SistemPretplatnici;
+import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.stanje.StanjeObjekta;
+
+/** {@link Flota.Izvor} над сервисима базе и живим стањем објеката. */
+public class IzvorBaze implements Flota.Izvor {
+
+	@Override
+	public Collection<Objekti> objekti(SistemPretplatnici pretplatnik) {
+		return Servis.objekatServis.vratiSveObjekte(pretplatnik, (Organizacije) null);
+	}
+
+	@Override
+	public Collection<JavljanjaPoslednja> poslednja(List<Objekti> objekti) {
+		return Servis.javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(new ArrayList<Objekti>(objekti));
+	}
+
+	@Override
+	public Collection<Objekti> clanoviGrupe(Grupe grupa) {
+		return Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(grupa);
+	}
+
+	@Override
+	public Collection<Grupe> grupeKorisnika(Korisnici korisnik) {
+		return Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik);
+	}
+
+	@Override
+	public Collection<AlarmiKorisnik> alarmiKorisnika(Korisnici korisnik) {
+		return Servis.alarmKorisnikServis.vratiAlarmePoKorisniku(korisnik, true, false, true);
+	}
+
+	@Override
+	public Collection<Objekti> objektiKorisnika(Korisnici korisnik) {
+		if (korisnik.isAdmin() || korisnik.getSistemPretplatnici().isSistem()) {
+			return Servis.sifarnici.objekti(korisnik);
+		}
+		return Servis.sifarnici.objektiPoGrupama(korisnik);
+	}
+
+	@Override
+	public JavljanjaPoslednja zivo(Long objekatId) {
+		StanjeObjekta stanje = Servis.stanjeObjekata.akoPostoji(objekatId);
+		return stanje == null ? null : stanje.getPoslednje();
+	}
+}
@@ -0,0 +1,146 @@
+package rs.atekom.prati.server.flota;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import pratiBaza.tabele.AlarmiKorisnik;
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Непроменљив снимак флоте једног претплатника: активни објекти, последња
+ * јављања у тренутку изградње и чланство група.
+ *
+ * <p>Све сесије претплатника деле исте {@link Objekti} инстанце. Чланство
+ * група, објекти видљиви кориснику и његови аларми се учитавају при првом
+ * захтеву и памте као непроменљиве листе до следеће изградње снимка.</p>
+ */
+public final class SnimakFlote {
+
+	private final long pretplatnikId;
+	private final long napravljen;
+	private final List<Objekti> objekti;
+	private final Map<Long, Objekti> poId;
+	private final Map<Long, JavljanjaPoslednja> poslednja;
+	private final ConcurrentMap<Long, List<Objekti>> grupe = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, List<Objekti>> korisnici = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, List<AlarmiKorisnik>> alarmi = new ConcurrentHashMap<>();
+
+	private SnimakFlote(long pretplatnikId, List<Objekti> objekti, Map<Long, Objekti> poId,
+			Collection<JavljanjaPoslednja> poslednja, long napravljen) {
+		this.pretplatnikId = pretplatnikId;
+		this.napravljen = napravljen;
+		this.objekti = Collections.unmodifiableList(objekti);
+		this.poId = poId;
+		this.poslednja = new HashMap<>();
+		if (poslednja != null) {
+			for (JavljanjaPoslednja javljanje : poslednja) {
+				Objekti objekat = javljanje == null || javljanje.getObjekti() == null ? null : poId.get(javljanje.getObjekti().getId());
+				if (objekat != null) {
+					// јављање је из друге Hibernate сесије - везује се за заједничку инстанцу
+					javljanje.setObjekti(objekat);
+					this.poslednja.put(objekat.getId(), javljanje);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Снимак активних, неизбрисаних објеката; последња јављања се читају
+	 * само за њих ({@code poslednja}).
+	 */
+	static SnimakFlote izgradi(long pretplatnikId, Collection<Objekti> objekti,
+			Function<List<Objekti>, ? extends Collection<JavljanjaPoslednja>> poslednja, long napravljen) {
+		List<Objekti> aktivni = new ArrayList<>();
+		Map<Long, Objekti> poId = new HashMap<>();
+		if (objekti != null) {
+			for (Objekti objekat : objekti) {
+				if (objekat != null && objekat.getId() != null && objekat.isAktivan() && !objekat.isIzbrisan()
+						&& poId.putIfAbsent(objekat.getId(), objekat) == null) {
+					aktivni.add(objekat);
+				}
+			}
+		}
+		return new SnimakFlote(pretplatnikId, aktivni, poId, aktivni.isEmpty() ? null : poslednja.apply(aktivni), napravljen);
+	}
+
+	public long getPretplatnikId() {
+		return pretplatnikId;
+	}
+
+	public long getNapravljen() {
+		return napravljen;
+	}
+
+	/** Сви активни објекти претплатника, у редоследу из базе. */
+	public List<Objekti> getObjekti() {
+		return objekti;
+	}
+
+	/** Заједничка инстанца објекта или null ако објекат није у снимку. */
+	public Objekti objekat(Long id) {
+		return id == null ? null : poId.get(id);
+	}
+
+	/** Последње јављање објекта у тренутку изградње снимка. */
+	JavljanjaPoslednja poslednje(Long id) {
+		return id == null ? null : poslednja.get(id);
+	}
+
+	/**
+	 * Објекти групе из снимка; чланство се чита једном ({@code clanovi}).
+	 * Објекти којих нема у снимку (неактивни, избрисани) се прескачу.
+	 */
+	List<Objekti> grupa(Long grupaId, Supplier<? extends Collection<Objekti>> clanovi) {
+		return zapamti(grupe, grupaId, () -> izSnimka(clanovi.get()));
+	}
+
+	/** Објекти које корисник види; листа се прави једном по кориснику. */
+	List<Objekti> korisnik(Long korisnikId, Supplier<? extends Collection<Objekti>> vidljivi) {
+		return zapamti(korisnici, korisnikId, () -> izSnimka(vidljivi.get()));
+	}
+
+	/** Аларми о којима се корисник обавештава у праћењу. */
+	List<AlarmiKorisnik> alarmi(Long korisnikId, Supplier<? extends Collection<AlarmiKorisnik>> alarmiKorisnika) {
+		return zapamti(alarmi, korisnikId, () -> {
+			Collection<AlarmiKorisnik> lista = alarmiKorisnika.get();
+			return lista == null ? Collections.<AlarmiKorisnik>emptyList() : Collections.unmodifiableList(new ArrayList<>(lista));
+		});
+	}
+
+	/** Читање иде ван мапе; ако две сесије читају истовремено, памти се прва листа. */
+	private static <T> List<T> zapamti(ConcurrentMap<Long, List<T>> mapa, Long kljuc, Supplier<List<T>> ucitavanje) {
+		List<T> lista = mapa.get(kljuc);
+		if (lista == null) {
+			lista = ucitavanje.get();
+			List<T> postojeca = mapa.putIfAbsent(kljuc, lista);
+			return postojeca != null ? postojeca : lista;
+		}
+		return lista;
+	}
+
+	/** Листа заједничких инстанци за дате објекте, без дупликата. */
+	List<Objekti> izSnimka(Collection<Objekti> izBaze) {
+		if (izBaze == null || izBaze.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Set<Objekti> lista = new LinkedHashSet<>();
+		for (Objekti objekat : izBaze) {
+			Objekti zajednicki = objekat == null ? null : poId.get(objekat.getId());
+			if (zajednicki != null) {
+				lista.add(zajednicki);
+			}
+		}
+		return Collections.unmodifiableList(new ArrayList<>(lista));
+	}
+}
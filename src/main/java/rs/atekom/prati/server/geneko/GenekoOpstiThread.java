@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -13,6 +14,9 @@ import org.slf4j.LoggerFactory;
 import pratiBaza.tabele.Javljanja;
 import rs.atekom.prati.server.OpstiServer;
 import rs.atekom.prati.server.OpstiThread;
+import rs.atekom.prati.server.nio.DelimiterFrameDecoder;
+import rs.atekom.prati.server.nio.FrameAccumulator;
+import rs.atekom.prati.server.nio.FrameDecoder;
 
 /**
  * Handler thread for Geneko TCP devices.
@@ -26,10 +30,9 @@ public class GenekoOpstiThread extends OpstiThread {
     private static final Logger logger = LoggerFactory.getLogger(GenekoOpstiThread.class);
 
     private static final String FOX_FRAME_START = "<fox>";
-    private static final String FOX_FRAME_END = "</fox>";
+    public static final String FOX_FRAME_END = "</fox>";
     private static final int MAX_INVALID_FRAME_ATTEMPTS = 3;
 
-    private String[] frames;
     private String[] tokens;
     private int invalidFrameAttempts;
 
@@ -55,16 +58,17 @@ public class GenekoOpstiThread extends OpstiThread {
             logger.info("GENEKO [{}]: obrada započeta", clientId);
 
             int bytesRead;
+            FrameAccumulator accumulator = new FrameAccumulator(frameDecoder(), FrameAccumulator.DEFAULT_CAPACITY);
 
             while (!isStopped() && !localSocket.isClosed()) {
-                bytesRead = readFromSocket(clientId);
+                bytesRead = readFromSocket(clientId, accumulator);
 
                 if (bytesRead <= 0) {
                     logger.debug("GENEKO [{}]: kraj stream-a ({} bajtova)", clientId, bytesRead);
                     break;
                 }
 
-                processPayload(clientId, bytesRead);
+                processPayload(clientId, bytesRead, accumulator);
 
                 if (Thread.currentThread().isInterrupted()) {
                     logger.info("GENEKO [{}]: thread prekinut", clientId);
@@ -99,10 +103,10 @@ public class GenekoOpstiThread extends OpstiThread {
         }
     }
 
-    private int readFromSocket(String clientId) throws IOException {
+    private int readFromSocket(String clientId, FrameAccumulator accumulator) throws IOException {
         int bytesRead;
         try {
-            bytesRead = input.read(data, 0, data.length);
+            bytesRead = accumulator.readFrom(input);
         } catch (SocketTimeoutException e) {
             throw e;
         } catch (IOException e) {
@@ -112,81 +116,101 @@ public class GenekoOpstiThread extends OpstiThread {
         return bytesRead;
     }
 
-    private void processPayload(String clientId, int bytesRead) {
-        ulaz = new String(data, 0, bytesRead, StandardCharsets.UTF_8);
-        
-        logger.debug("GENEKO [{}]: Примљен пакет ({} бајтова), садржај (првих 200 карактера): {}", 
-                    clientId, bytesRead, 
-                    ulaz.length() > 200 ? ulaz.substring(0, 200) + "..." : ulaz);
-        
-        frames = ulaz.split(FOX_FRAME_END);
-        
-        logger.debug("GENEKO [{}]: Парсирано {} FOX frame-ова", clientId, frames.length);
-
-        // Провера да ли је последњи frame комплетан (завршава се са '</fox>')
-        // Ако не завршава са '</fox>', то значи да је сечен на граници буфера
-        boolean poslednjiKompletan = ulaz.endsWith(FOX_FRAME_END);
-        
-        // Обрађујемо све frame-ове осим последњег ако није комплетан
-        int krajIndeksa = poslednjiKompletan ? frames.length : frames.length - 1;
-        
-        if (!poslednjiKompletan && frames.length > 0 && frames[frames.length - 1].length() > 0) {
-            logger.debug("GENEKO [{}]: Детектован некомплетан FOX frame на крају пакета ({} карактера), чека се следећи пакет", 
-                        clientId, frames[frames.length - 1].length());
+    private void processPayload(String clientId, int bytesRead, FrameAccumulator accumulator) {
+        logger.debug("GENEKO [{}]: Примљен пакет ({} бајтова, у баферу {})", 
+                    clientId, bytesRead, accumulator.buffered());
+
+        // Комплетни frame-ови (до '</fox>') се обрађују одмах, а некомплетан
+        // frame на крају остаје у баферу и допуњује се следећим читањем
+        ByteBuffer frame;
+        int brojFrameova = 0;
+        while ((frame = accumulator.nextFrame()) != null) {
+            ulaz = FrameAccumulator.text(frame, StandardCharsets.UTF_8);
+            brojFrameova++;
+            logger.debug("GENEKO [{}]: Обрада frame #{}: '{}'", clientId, brojFrameova, ulaz);
+            if (!processFrame(clientId, ulaz)) {
+                return;
+            }
         }
 
-        for (int i = 0; i < krajIndeksa; i++) {
-            String frame = frames[i];
-            
-            logger.debug("GENEKO [{}]: Обрада frame #{}: '{}'", clientId, i + 1, frame);
-            
-            if (!frame.startsWith(FOX_FRAME_START)) {
-                String preview = frame.length() > 20 ? frame.substring(0, 20) : frame;
-                logger.warn("GENEKO [{}]: Неисправан FOX frame (не почиње са '<fox>'), почетак: '{}'", 
-                            clientId, preview);
-                invalidFrameAttempts++;
-                if (invalidFrameAttempts >= MAX_INVALID_FRAME_ATTEMPTS) {
-                    logger.error("GENEKO [{}]: Превише неважећих frame-ова ({}), прекидам везу", 
-                                clientId, invalidFrameAttempts);
-                    stop();
-                    return;
-                }
-                continue;
-            }
+        if (accumulator.buffered() > 0) {
+            logger.debug("GENEKO [{}]: Некомплетан FOX frame на крају пакета ({} бајтова), чека се следећи пакет", 
+                        clientId, accumulator.buffered());
+        }
+    }
 
-            tokens = frame.split("\"");
+    /**
+     * Декодер FOX frame-ова (граничник '</fox>') - исти за блокирајући и NIO режим.
+     */
+    public static FrameDecoder frameDecoder() {
+        return new DelimiterFrameDecoder(FOX_FRAME_END, DelimiterFrameDecoder.MAX_TEXT_FRAME_LENGTH);
+    }
 
-            logger.debug("GENEKO [{}]: FOX frame парсиран: tokens.length={}", clientId, tokens.length);
+    /**
+     * NIO режим: оквир је један FOX frame без завршног '</fox>'.
+     */
+    @Override
+    public boolean handleFrame(byte[] frame) {
+        ulaz = new String(frame, StandardCharsets.UTF_8);
+        return processFrame(getClientId(), ulaz);
+    }
 
-            if (tokens.length < 4) {
-                logger.warn("GENEKO [{}]: Недовољно поља у FOX frame-у (потребно најмање 4, пронађено {}): '{}'", 
-                            clientId, tokens.length, frame);
-                continue;
+    /**
+     * Обрада једног FOX frame-а (без '</fox>'). Заједничко за блокирајући и NIO режим.
+     *
+     * @return false ако је веза прекинута због превише неважећих frame-ова
+     */
+    private boolean processFrame(String clientId, String frame) {
+        metrike.okvir();
+        if (!frame.startsWith(FOX_FRAME_START)) {
+            String preview = frame.length() > 20 ? frame.substring(0, 20) : frame;
+            logger.warn("GENEKO [{}]: Неисправан FOX frame (не почиње са '<fox>'), почетак: '{}'", 
+                        clientId, preview);
+            invalidFrameAttempts++;
+            metrike.greskaParsiranja();
+            if (invalidFrameAttempts >= MAX_INVALID_FRAME_ATTEMPTS) {
+                logger.error("GENEKO [{}]: Превише неважећих frame-ова ({}), прекидам везу", 
+                            clientId, invalidFrameAttempts);
+                stop();
+                return false;
             }
+            return true;
+        }
 
-            if (uredjaj == null) {
-                kodUredjaja = tokens[1];
-                logger.debug("GENEKO [{}]: Покушај проналажења уређаја '{}'", clientId, kodUredjaja);
-                pronadjiPostavi(kodUredjaja);
-                logger.debug("GENEKO [{}]: Уређај пронађен: uredjaj={}, objekat={}", 
-                            clientId, uredjaj != null ? uredjaj.getKod() : "null", 
-                            objekat != null ? objekat.getOznaka() : "null");
-            }
+        tokens = frame.split("\"");
 
-            if (objekat == null) {
-                logger.warn("GENEKO [{}]: Objekat је null, не могу обрадити. uredjaj={}, kodUredjaja={}, frame: '{}'", 
-                            clientId, uredjaj != null ? uredjaj.getKod() : "null", 
-                            kodUredjaja, frame);
-                continue;
-            }
+        logger.debug("GENEKO [{}]: FOX frame парсиран: tokens.length={}", clientId, tokens.length);
 
-            logger.debug("GENEKO [{}]: Позивање genekoObrada() са podaci='{}'", clientId, tokens[3]);
-            Javljanja trenutno = server.gProtokol.genekoObrada(tokens[3], objekat);
-            logger.debug("GENEKO [{}]: genekoObrada() завршена: javljanje={}", 
-                        clientId, trenutno != null ? "OK" : "NULL");
-            
-            obradaJavljanja(trenutno, null);
-            logger.debug("GENEKO [{}]: obradaJavljanja() завршена успешно", clientId);
+        if (tokens.length < 4) {
+            logger.warn("GENEKO [{}]: Недовољно поља у FOX frame-у (потребно најмање 4, пронађено {}): '{}'", 
+                        clientId, tokens.length, frame);
+            metrike.greskaParsiranja();
+            return true;
         }
+
+        if (uredjaj == null) {
+            kodUredjaja = tokens[1];
+            logger.debug("GENEKO [{}]: Покушај проналажења уређаја '{}'", clientId, kodUredjaja);
+            pronadjiPostavi(kodUredjaja);
+            logger.debug("GENEKO [{}]: Уређај пронађен: uredjaj={}, objekat={}", 
+                        clientId, uredjaj != null ? uredjaj.getKod() : "null", 
+                        objekat != null ? objekat.getOznaka() : "null");
+        }
+
+        if (objekat == null) {
+            logger.warn("GENEKO [{}]: Objekat је null, не могу обрадити. uredjaj={}, kodUredjaja={}, frame: '{}'", 
+                        clientId, uredjaj != null ? uredjaj.getKod() : "null", 
+                        kodUredjaja, frame);
+            return true;
+        }
+
+        logger.debug("GENEKO [{}]: Позивање genekoObrada() са podaci='{}'", clientId, tokens[3]);
+        Javljanja trenutno = server.gProtokol.genekoObrada(tokens[3], objekat);
+        logger.debug("GENEKO [{}]: genekoObrada() завршена: javljanje={}", 
+                    clientId, trenutno != null ? "OK" : "NULL");
+        
+        obradaJavljanja(trenutno, null);
+        logger.debug("GENEKO [{}]: obradaJavljanja() завршена успешно", clientId);
+        return true;
     }
 }
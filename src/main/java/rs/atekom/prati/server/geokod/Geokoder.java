@@ -0,0 +1,15 @@
+package rs.atekom.prati.server.geokod;
+
+/**
+ * Reverse geocoding једне тачке - блокирајући позив, извршава га
+ * искључиво радни пул {@link GeokodiranjeServis}.
+ */
+@FunctionalInterface
+public interface Geokoder {
+
+	/**
+	 * @return адреса или празан стринг ако адреса није пронађена
+	 * @throws Exception грешка HTTP позива или парсирања
+	 */
+	String adresa(double lat, double lon) throws Exception;
+}
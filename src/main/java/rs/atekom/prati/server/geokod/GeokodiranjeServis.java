@@ -0,0 +1,209 @@
+package rs.atekom.prati.server.geokod;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Асинхрони reverse geocoding за адресе аларма.
+ *
+ * <ul>
+ *   <li>ограничени радни пул и ред - HTTP позиви никад не иду у нит конекције;</li>
+ *   <li>LRU/TTL кеш по координатама заокруженим на {@code decimale} места
+ *   (4 децимале ≈ 11 m), тако да поновљени аларми на истом месту не зову сервис;</li>
+ *   <li>спајање захтева - истовремени упити за исту ћелију деле један позив.</li>
+ * </ul>
+ *
+ * <p>Неуспешни позиви и празне адресе се не кеширају. Када је ред пун, захтев
+ * се одмах завршава празном адресом.</p>
+ */
+public class GeokodiranjeServis {
+
+	private static final Logger logger = LoggerFactory.getLogger(GeokodiranjeServis.class);
+
+	private final Geokoder geokoder;
+	private final ThreadPoolExecutor pool;
+	private final ConcurrentMap<Long, CompletableFuture<String>> uToku = new ConcurrentHashMap<>();
+	private final Map<Long, Stavka> kes;
+	private final long ttlMs;
+	private final double razmera;
+
+	private final AtomicLong pogodaka = new AtomicLong();
+	private final AtomicLong promasaja = new AtomicLong();
+	private final AtomicLong spojeno = new AtomicLong();
+	private final AtomicLong gresaka = new AtomicLong();
+	private final AtomicLong odbijeno = new AtomicLong();
+
+	private static final class Stavka {
+		final String adresa;
+		final long istice;
+
+		Stavka(String adresa, long istice) {
+			this.adresa = adresa;
+			this.istice = istice;
+		}
+	}
+
+	/**
+	 * @param geokoder       блокирајући позив ка сервису
+	 * @param niti           број радних нити
+	 * @param kapacitetReda  највише захтева који чекају на нит
+	 * @param kapacitetKesa  највише адреса у кешу (LRU)
+	 * @param ttlMs          колико дуго адреса важи
+	 * @param decimale       број децимала на које се заокружују координате
+	 */
+	public GeokodiranjeServis(Geokoder geokoder, int niti, int kapacitetReda, int kapacitetKesa, long ttlMs,
+			int decimale) {
+		this.geokoder = geokoder;
+		this.ttlMs = ttlMs;
+		this.razmera = Math.pow(10, decimale);
+		this.kes = new LinkedHashMap<Long, Stavka>(256, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Stavka> najstariji) {
+				return size() > kapacitetKesa;
+			}
+		};
+		AtomicInteger brojac = new AtomicInteger();
+		this.pool = new ThreadPoolExecutor(niti, niti, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(kapacitetReda),
+				r -> {
+					Thread t = new Thread(r, "geokod-" + brojac.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		this.pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Адреса из кеша, без чекања; null ако је нема или је истекла.
+	 */
+	public String izKesa(double lat, double lon) {
+		long kljuc = kljuc(lat, lon);
+		synchronized (kes) {
+			Stavka s = kes.get(kljuc);
+			if (s == null) {
+				return null;
+			}
+			if (s.istice < System.currentTimeMillis()) {
+				kes.remove(kljuc);
+				return null;
+			}
+			return s.adresa;
+		}
+	}
+
+	/**
+	 * Адреса за тачку. Из кеша се враћа већ завршен future; иначе се позив
+	 * заказује у радни пул или се придружује позиву који је већ у току.
+	 * Future се никад не завршава изузетком - грешка даје празну адресу.
+	 */
+	public CompletableFuture<String> adresa(double lat, double lon) {
+		String izKesa = izKesa(lat, lon);
+		if (izKesa != null) {
+			pogodaka.incrementAndGet();
+			return CompletableFuture.completedFuture(izKesa);
+		}
+		long kljuc = kljuc(lat, lon);
+		CompletableFuture<String> novi = new CompletableFuture<>();
+		CompletableFuture<String> postojeci = uToku.putIfAbsent(kljuc, novi);
+		if (postojeci != null) {
+			spojeno.incrementAndGet();
+			return postojeci;
+		}
+		promasaja.incrementAndGet();
+		try {
+			pool.execute(() -> pozovi(kljuc, lat, lon, novi));
+		} catch (RejectedExecutionException e) {
+			odbijeno.incrementAndGet();
+			logger.debug("Geokodiranje: red pun, adresa preskočena ({}, {})", lat, lon);
+			zavrsi(kljuc, novi, "");
+		}
+		return novi;
+	}
+
+	private void pozovi(long kljuc, double lat, double lon, CompletableFuture<String> rezultat) {
+		String adresa = "";
+		try {
+			String a = geokoder.adresa(lat, lon);
+			if (a != null && !a.trim().isEmpty()) {
+				adresa = a.trim();
+				synchronized (kes) {
+					kes.put(kljuc, new Stavka(adresa, System.currentTimeMillis() + ttlMs));
+				}
+			}
+		} catch (Exception e) {
+			gresaka.incrementAndGet();
+			logger.warn("Geokodiranje ({}, {}) nije uspelo: {}", lat, lon, e.getMessage());
+		}
+		zavrsi(kljuc, rezultat, adresa);
+	}
+
+	private void zavrsi(long kljuc, CompletableFuture<String> rezultat, String adresa) {
+		uToku.remove(kljuc, rezultat);
+		rezultat.complete(adresa);
+	}
+
+	private long kljuc(double lat, double lon) {
+		long la = Math.round(lat * razmera);
+		long lo = Math.round(lon * razmera);
+		return (la << 32) ^ (lo & 0xffffffffL);
+	}
+
+	public void zatvori() {
+		logger.info("Geokodiranje zaustavljeno: {}", stanje());
+		pool.shutdownNow();
+		uToku.values().forEach(f -> f.complete(""));
+		uToku.clear();
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// БРОЈАЧИ
+	// ════════════════════════════════════════════════════════════
+
+	public long getPogodaka() {
+		return pogodaka.get();
+	}
+
+	public long getPromasaja() {
+		return promasaja.get();
+	}
+
+	public long getSpojeno() {
+		return spojeno.get();
+	}
+
+	public long getGresaka() {
+		return gresaka.get();
+	}
+
+	public long getOdbijeno() {
+		return odbijeno.get();
+	}
+
+	public int getUToku() {
+		return uToku.size();
+	}
+
+	public int getVelicinaKesa() {
+		synchronized (kes) {
+			return kes.size();
+		}
+	}
+
+	public String stanje() {
+		return String.format("keš=%d, pogodaka=%d, promašaja=%d, spojeno=%d, grešaka=%d, odbijeno=%d, u toku=%d",
+				getVelicinaKesa(), getPogodaka(), getPromasaja(), getSpojeno(), getGresaka(), getOdbijeno(), getUToku());
+	}
+}
@@ -0,0 +1,34 @@
+package rs.atekom.prati.server.geokod;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.atekom.prati.server.Address;
+import rs.atekom.prati.server.Servis;
+
+/**
+ * Подразумевани {@link Geokoder}: Nominatim JSON ({@link Servis#ensureNominatimJson()}),
+ * а ако он не врати адресу - {@link Servis#ensureNClient()}.
+ */
+public class NominatimGeokoder implements Geokoder {
+
+	private static final Logger logger = LoggerFactory.getLogger(NominatimGeokoder.class);
+
+	@Override
+	public String adresa(double lat, double lon) {
+		String adresa = "";
+		try {
+			Address a = Servis.ensureNominatimJson().getAdress(lat, lon);
+			if (a != null && a.getDisplayName() != null) {
+				adresa = a.getDisplayName();
+			}
+		} catch (Exception e) {
+			logger.debug("Nominatim JSON ({}, {}): {}", lat, lon, e.getMessage());
+		}
+		if (adresa.isEmpty()) {
+			String b = Servis.ensureNClient().getAddress(lat, lon);
+			adresa = b != null ? b : "";
+		}
+		return adresa;
+	}
+}
@@ -0,0 +1,21 @@
+package rs.atekom.prati.server.lifecycle;
+
+/**
+ * Сервер који зна колико уређаја је тренутно повезано.
+ *
+ * <p>{@link ServerManager#getServerStatus()} ове податке уписује у
+ * {@link ServerManager.ServerInfo}; сервери који не имплементирају интерфејс
+ * пријављују -1.</p>
+ */
+public interface ConnectionAware {
+
+	/**
+	 * @return број живих конекција (нити/канала који тренутно опслужују уређај)
+	 */
+	int getActiveConnectionCount();
+
+	/**
+	 * @return назив режима опслуживања конекција (BLOCKING, NIO, VIRTUAL)
+	 */
+	String getConnectionMode();
+}
@@ -8,6 +8,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import rs.atekom.prati.server.metrike.MetrikeProtokola;
+
 /**
  * Централизовани менаџер за управљање животним циклусом свих сервера.
  * 
@@ -63,6 +65,12 @@ public class ServerManager {
      */
     private final AtomicBoolean running;
     
+    /**
+     * Задаци који се извршавају пошто сви сервери стану (нпр. упис
+     * јављања која још чекају у write-behind реду).
+     */
+    private final List<Runnable> stopListeners = new CopyOnWriteArrayList<>();
+    
     /**
      * Креира нови ServerManager у неактивном стању.
      */
@@ -98,6 +106,19 @@ public class ServerManager {
         logger.info("Регистрован сервер: {} на порту {}", name, port);
     }
     
+    /**
+     * Региструје задатак који {@link #stopAll()} извршава пошто се сервери зауставе,
+     * редом регистровања. Користи се за пражњење бафера који пуне нити конекција.
+     * 
+     * @param listener задатак за извршавање при заустављању
+     */
+    public void addStopListener(Runnable listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener не може бити null");
+        }
+        stopListeners.add(listener);
+    }
+    
     /**
      * Покреће све регистроване серверe истовремено.
      * 
@@ -156,6 +177,7 @@ public class ServerManager {
      *   <li><b>Сигнализација:</b> Шаље stop() сигнал свим серверима</li>
      *   <li><b>Graceful чекање:</b> Чека до 30 секунди да се заврше</li>
      *   <li><b>Форсирано гашење:</b> АкоTimeout истекне, форсира shutdownNow()</li>
+     *   <li><b>Пражњење:</b> Извршава задатке из {@link #addStopListener(Runnable)}</li>
      * </ol>
      * 
      * <p>Thread-safe и може се позвати више пута без проблема.</p>
@@ -228,21 +250,52 @@ public class ServerManager {
             logger.error("Shutdown процес прекинут", e);
             serverExecutor.shutdownNow();
             Thread.currentThread().interrupt();
+        } finally {
+            // ФАЗА 4: Сервери више не производе записе - празнимо бафере
+            runStopListeners();
+        }
+    }
+    
+    private void runStopListeners() {
+        for (Runnable listener : stopListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error("Грешка у задатку заустављања: {}", e.getMessage(), e);
+            }
         }
     }
     
     /**
      * Враћа тренутни статус свих регистрованих сервера.
      * 
+     * <p>За сервере који имплементирају {@link ConnectionAware} уписује се и број
+     * живих конекција и режим (нпр. VIRTUAL); за остале је број -1.</p>
+     * 
      * @return Непроменљива листа информација о серверима
      */
     public List<ServerInfo> getServerStatus() {
         List<ServerInfo> statusList = new ArrayList<>();
         for (ServerInstance instance : serverInstances) {
+            int activeConnections = -1;
+            String mode = null;
+            if (instance.server instanceof ConnectionAware) {
+                ConnectionAware aware = (ConnectionAware) instance.server;
+                try {
+                    activeConnections = aware.getActiveConnectionCount();
+                    mode = aware.getConnectionMode();
+                } catch (RuntimeException e) {
+                    logger.warn("Грешка при читању конекција за {}: {}", instance.name, e.getMessage());
+                }
+            }
+            MetrikeProtokola metrike = MetrikeProtokola.akoPostoji(instance.name);
             statusList.add(new ServerInfo(
                 instance.name,
                 instance.port,
-                instance.status
+                instance.status,
+                activeConnections,
+                mode,
+                metrike != null ? metrike.sazetak() : null
             ));
         }
         return statusList;
@@ -316,17 +369,37 @@ public class ServerManager {
         public final String name;
         public final int port;
         public final ServerStatus status;
+        /** Број живих конекција, -1 ако сервер то не пријављује */
+        public final int activeConnections;
+        /** Режим опслуживања конекција, null ако није познат */
+        public final String mode;
+        /** Збир метрика пријема протокола (оквири, грешке, ACK), null ако их нема */
+        public final String metrike;
         
         ServerInfo(String name, int port, ServerStatus status) {
+            this(name, port, status, -1, null, null);
+        }
+        
+        ServerInfo(String name, int port, ServerStatus status, int activeConnections, String mode, String metrike) {
             this.name = name;
             this.port = port;
             this.status = status;
+            this.activeConnections = activeConnections;
+            this.mode = mode;
+            this.metrike = metrike;
         }
         
         @Override
         public String toString() {
-            return String.format("Server [име=%s, порт=%d, статус=%s]", 
-                name, port, status);
+            String osnovno;
+            if (activeConnections < 0) {
+                osnovno = String.format("Server [име=%s, порт=%d, статус=%s", 
+                    name, port, status);
+            } else {
+                osnovno = String.format("Server [име=%s, порт=%d, статус=%s, режим=%s, конекције=%d", 
+                    name, port, status, mode, activeConnections);
+            }
+            return metrike == null ? osnovno + "]" : osnovno + ", " + metrike + "]";
         }
     }
     
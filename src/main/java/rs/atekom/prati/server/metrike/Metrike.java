@@ -0,0 +1,246 @@
+package rs.atekom.prati.server.metrike;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Регистар метрика сервера: бројачи, мерачи и хистограми кашњења.
+ *
+ * <p>Метрика се тражи по називу и ознакама (паровима кључ/вредност) и прави
+ * при првом позиву, па је позиваоци држе у пољу и на врућој путањи само
+ * увећавају - без мапе и без закључавања ({@link LongAdder}). Мерачи читају
+ * постојеће бројаче сервиса (дубине редова и сл.) тек при очитавању.</p>
+ *
+ * <p>{@link #prometheus(Writer)} исписује све у текстуалном Prometheus формату
+ * за {@link MetrikeServlet}.</p>
+ */
+public final class Metrike {
+
+	/** Горње границе корпи хистограма у милисекундама. */
+	static final long[] GRANICE_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000};
+
+	private static final ConcurrentMap<String, Porodica> porodice = new ConcurrentHashMap<>();
+
+	private Metrike() {
+	}
+
+	public static Brojac brojac(String naziv, String opis, String... oznake) {
+		return (Brojac) porodica(naziv, opis, "counter").metrika(oznake, Brojac::new);
+	}
+
+	public static Histogram histogram(String naziv, String opis, String... oznake) {
+		return (Histogram) porodica(naziv, opis, "histogram").metrika(oznake, Histogram::new);
+	}
+
+	/** Мерач који при очитавању позива {@code vrednost}; поновна регистрација замењује претходни. */
+	public static void merac(String naziv, String opis, Supplier<? extends Number> vrednost, String... oznake) {
+		porodica(naziv, opis, "gauge").metrike.put(oznake(oznake), new Merac(vrednost));
+	}
+
+	/** Бројач који се не увећава овде него чита постојећи збир (нпр. бројаче реда). */
+	public static void brojacIz(String naziv, String opis, Supplier<? extends Number> vrednost, String... oznake) {
+		porodica(naziv, opis, "counter").metrike.put(oznake(oznake), new Merac(vrednost));
+	}
+
+	/** Све метрике у текстуалном Prometheus формату (верзија 0.0.4). */
+	public static void prometheus(Writer izlaz) throws IOException {
+		for(Map.Entry<String, Porodica> e : new TreeMap<>(porodice).entrySet()) {
+			e.getValue().ispisi(e.getKey(), izlaz);
+		}
+	}
+
+	public static String prometheus() {
+		StringWriter izlaz = new StringWriter();
+		try {
+			prometheus(izlaz);
+		}catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return izlaz.toString();
+	}
+
+	private static Porodica porodica(String naziv, String opis, String tip) {
+		Porodica p = porodice.computeIfAbsent(naziv, n -> new Porodica(opis, tip));
+		if(!p.tip.equals(tip)) {
+			throw new IllegalArgumentException("Metrika " + naziv + " je već registrovana kao " + p.tip);
+		}
+		return p;
+	}
+
+	private static String oznake(String[] parovi) {
+		if(parovi.length % 2 != 0) {
+			throw new IllegalArgumentException("Oznake se zadaju u parovima ključ/vrednost");
+		}
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < parovi.length; i += 2) {
+			if(sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(parovi[i]).append("=\"");
+			String v = parovi[i + 1] == null ? "" : parovi[i + 1];
+			sb.append(v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+		}
+		return sb.toString();
+	}
+
+	private static String broj(double v) {
+		if(v == Math.rint(v) && !Double.isInfinite(v) && Math.abs(v) < 1e15) {
+			return Long.toString((long) v);
+		}
+		return String.format(Locale.ROOT, "%s", v);
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// ВРСТЕ МЕТРИКА
+	// ════════════════════════════════════════════════════════════
+
+	private interface Metrika {
+		void ispisi(String naziv, String oznake, Writer izlaz) throws IOException;
+	}
+
+	/** Бројач који само расте. */
+	public static final class Brojac implements Metrika {
+		private final LongAdder vrednost = new LongAdder();
+
+		public void povecaj() {
+			vrednost.increment();
+		}
+
+		public void povecaj(long za) {
+			vrednost.add(za);
+		}
+
+		public long get() {
+			return vrednost.sum();
+		}
+
+		@Override
+		public void ispisi(String naziv, String oznake, Writer izlaz) throws IOException {
+			izlaz.write(naziv + zagrade(oznake) + " " + get() + "\n");
+		}
+	}
+
+	/**
+	 * Хистограм трајања са сталним корпама ({@link #GRANICE_MS}); исписује се у
+	 * секундама, по Prometheus конвенцији.
+	 */
+	public static final class Histogram implements Metrika {
+		private final LongAdder[] korpe = new LongAdder[GRANICE_MS.length + 1];
+		private final LongAdder zbirNanos = new LongAdder();
+		private final AtomicLong najduzeNanos = new AtomicLong();
+
+		Histogram() {
+			for(int i = 0; i < korpe.length; i++) {
+				korpe[i] = new LongAdder();
+			}
+		}
+
+		public void zabelezi(long nanos) {
+			if(nanos < 0) {
+				nanos = 0;
+			}
+			long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+			int i = 0;
+			while(i < GRANICE_MS.length && ms >= GRANICE_MS[i]) {
+				i++;
+			}
+			korpe[i].increment();
+			zbirNanos.add(nanos);
+			najduzeNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		/** Бележи трајање од {@code pocetakNanos} ({@link System#nanoTime()}) до сада. */
+		public void od(long pocetakNanos) {
+			zabelezi(System.nanoTime() - pocetakNanos);
+		}
+
+		public long getBroj() {
+			long n = 0;
+			for(LongAdder k : korpe) {
+				n += k.sum();
+			}
+			return n;
+		}
+
+		public double getProsekMs() {
+			long n = getBroj();
+			return n == 0 ? 0 : zbirNanos.sum() / 1_000_000.0 / n;
+		}
+
+		public double getNajduzeMs() {
+			return najduzeNanos.get() / 1_000_000.0;
+		}
+
+		@Override
+		public void ispisi(String naziv, String oznake, Writer izlaz) throws IOException {
+			String prefiks = oznake.isEmpty() ? "" : oznake + ",";
+			long kumulativno = 0;
+			for(int i = 0; i < GRANICE_MS.length; i++) {
+				kumulativno += korpe[i].sum();
+				izlaz.write(naziv + "_bucket{" + prefiks + "le=\"" + broj(GRANICE_MS[i] / 1000.0) + "\"} " + kumulativno + "\n");
+			}
+			kumulativno += korpe[GRANICE_MS.length].sum();
+			izlaz.write(naziv + "_bucket{" + prefiks + "le=\"+Inf\"} " + kumulativno + "\n");
+			izlaz.write(naziv + "_sum" + zagrade(oznake) + " " + broj(zbirNanos.sum() / 1e9) + "\n");
+			izlaz.write(naziv + "_count" + zagrade(oznake) + " " + kumulativno + "\n");
+		}
+	}
+
+	private static final class Merac implements Metrika {
+		private final Supplier<? extends Number> vrednost;
+
+		Merac(Supplier<? extends Number> vrednost) {
+			this.vrednost = vrednost;
+		}
+
+		@Override
+		public void ispisi(String naziv, String oznake, Writer izlaz) throws IOException {
+			Number v;
+			try {
+				v = vrednost.get();
+			}catch (RuntimeException e) {
+				v = null;
+			}
+			if(v != null) {
+				izlaz.write(naziv + zagrade(oznake) + " " + broj(v.doubleValue()) + "\n");
+			}
+		}
+	}
+
+	private static String zagrade(String oznake) {
+		return oznake.isEmpty() ? "" : "{" + oznake + "}";
+	}
+
+	private static final class Porodica {
+		final String opis;
+		final String tip;
+		final ConcurrentMap<String, Metrika> metrike = new ConcurrentHashMap<>();
+
+		Porodica(String opis, String tip) {
+			this.opis = opis;
+			this.tip = tip;
+		}
+
+		Metrika metrika(String[] parovi, Supplier<Metrika> nova) {
+			return metrike.computeIfAbsent(oznake(parovi), o -> nova.get());
+		}
+
+		void ispisi(String naziv, Writer izlaz) throws IOException {
+			izlaz.write("# HELP " + naziv + " " + opis + "\n");
+			izlaz.write("# TYPE " + naziv + " " + tip + "\n");
+			for(Map.Entry<String, Metrika> e : new TreeMap<>(metrike).entrySet()) {
+				e.getValue().ispisi(naziv, e.getKey(), izlaz);
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package rs.atekom.prati.server.metrike;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import rs.atekom.prati.server.metrike.Metrike.Brojac;
+import rs.atekom.prati.server.metrike.Metrike.Histogram;
+
+/**
+ * Метрике пријема за један протокол (NEON, GENEKO, RUPTELA...): конекције,
+ * оквири, записи, грешке парсирања, CRC грешке и кашњење ACK-а.
+ *
+ * <p>Сервер је прави једном, а нити конекција само увећавају бројаче.</p>
+ */
+public final class MetrikeProtokola {
+
+	private static final ConcurrentMap<String, MetrikeProtokola> protokoli = new ConcurrentHashMap<>();
+
+	private final Brojac konekcije;
+	private final Brojac okviri;
+	private final Brojac zapisi;
+	private final Brojac greskeParsiranja;
+	private final Brojac crcGreske;
+	private final Histogram ack;
+
+	private MetrikeProtokola(String protokol) {
+		konekcije = Metrike.brojac("prati_konekcije_ukupno", "Prihvaćene konekcije uređaja", "protokol", protokol);
+		okviri = Metrike.brojac("prati_okviri_ukupno", "Primljeni okviri (paketi/poruke)", "protokol", protokol);
+		zapisi = Metrike.brojac("prati_zapisi_ukupno", "Javljanja predata obradi", "protokol", protokol);
+		greskeParsiranja = Metrike.brojac("prati_greske_parsiranja_ukupno", "Neispravni ili neobrađeni okviri", "protokol", protokol);
+		crcGreske = Metrike.brojac("prati_crc_greske_ukupno", "Okviri sa pogrešnim CRC-om", "protokol", protokol);
+		ack = Metrike.histogram("prati_ack_latencija_sekunde", "Vreme od prijema okvira do slanja ACK-a", "protokol", protokol);
+	}
+
+	/** Метрике протокола; исти назив враћа исту инстанцу. */
+	public static MetrikeProtokola za(String protokol) {
+		return protokoli.computeIfAbsent(protokol, MetrikeProtokola::new);
+	}
+
+	/** Метрике протокола ако их је неки сервер већ направио, иначе {@code null}. */
+	public static MetrikeProtokola akoPostoji(String protokol) {
+		return protokoli.get(protokol);
+	}
+
+	public void konekcija() {
+		konekcije.povecaj();
+	}
+
+	public void okvir() {
+		okviri.povecaj();
+	}
+
+	public void zapis() {
+		zapisi.povecaj();
+	}
+
+	public void greskaParsiranja() {
+		greskeParsiranja.povecaj();
+	}
+
+	public void crcGreska() {
+		crcGreske.povecaj();
+	}
+
+	/** ACK је послат; {@code pocetakNanos} је тренутак пријема оквира. */
+	public void ack(long pocetakNanos) {
+		ack.od(pocetakNanos);
+	}
+
+	public String sazetak() {
+		return String.format("konekcija=%d, okvira=%d, zapisa=%d, grešaka=%d, crc=%d, ack ms (prosek/max)=%.1f/%.1f",
+				konekcije.get(), okviri.get(), zapisi.get(), greskeParsiranja.get(), crcGreske.get(),
+				ack.getProsekMs(), ack.getNajduzeMs());
+	}
+}
@@ -0,0 +1,72 @@
+package rs.atekom.prati.server.metrike;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * {@code GET /metrics} - све метрике из {@link Metrike} у Prometheus формату.
+ *
+ * <p>Подразумевано одговара само локалним захтевима; дозвољене адресе се
+ * задају са {@code -Dprati.metrike.adrese=127.0.0.1,10.0.0.5} (или {@code *}).</p>
+ *
+ * <p>Иза обратног проксија (nginx, Apache) {@code getRemoteAddr()} је адреса
+ * проксија, па би листа адреса пропустила сваки спољни захтев. Зато се без
+ * токена одбија сваки захтев са {@code X-Forwarded-For} или {@code Forwarded}
+ * заглављем. Кад метрике треба да иду кроз прокси, задаје се
+ * {@code -Dprati.metrike.token=...} и захтев мора да носи
+ * {@code Authorization: Bearer <токен>}; листа адреса и тада важи.</p>
+ */
+@WebServlet(urlPatterns = "/metrics", name = "MetrikeServlet")
+public class MetrikeServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+	private static final Set<String> ADRESE = new HashSet<>(Arrays.asList(
+			System.getProperty("prati.metrike.adrese", "127.0.0.1,0:0:0:0:0:0:0:1,::1").split("\\s*,\\s*")));
+	private static final byte[] TOKEN = token(System.getProperty("prati.metrike.token"));
+
+	@Override
+	protected void doGet(HttpServletRequest zahtev, HttpServletResponse odgovor) throws IOException {
+		if(!ADRESE.contains("*") && !ADRESE.contains(zahtev.getRemoteAddr())) {
+			odgovor.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		if(TOKEN == null) {
+			if(zahtev.getHeader("X-Forwarded-For") != null || zahtev.getHeader("Forwarded") != null) {
+				// стигао кроз прокси - адреса клијента није провером потврђена
+				odgovor.sendError(HttpServletResponse.SC_FORBIDDEN);
+				return;
+			}
+		}else if(!MessageDigest.isEqual(TOKEN, token(zahtev.getHeader("Authorization")))) {
+			odgovor.setHeader("WWW-Authenticate", "Bearer");
+			odgovor.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			return;
+		}
+		odgovor.setContentType("text/plain; version=0.0.4; charset=utf-8");
+		odgovor.setHeader("Cache-Control", "no-cache");
+		try(Writer izlaz = odgovor.getWriter()) {
+			Metrike.prometheus(izlaz);
+		}
+	}
+
+	/** Токен без префикса {@code Bearer}; null ако није задат. */
+	private static byte[] token(String vrednost) {
+		if(vrednost == null) {
+			return null;
+		}
+		String token = vrednost.trim();
+		if(token.regionMatches(true, 0, "Bearer ", 0, 7)) {
+			token = token.substring(7).trim();
+		}
+		return token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+	}
+}
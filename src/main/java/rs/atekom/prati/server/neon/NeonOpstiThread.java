@@ -3,6 +3,8 @@ package rs.atekom.prati.server.neon;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.slf4j.Logger;
@@ -10,6 +12,9 @@ import org.slf4j.LoggerFactory;
 
 import rs.atekom.prati.server.OpstiServer;
 import rs.atekom.prati.server.OpstiThread;
+import rs.atekom.prati.server.nio.DelimiterFrameDecoder;
+import rs.atekom.prati.server.nio.FrameAccumulator;
+import rs.atekom.prati.server.nio.FrameDecoder;
 
 /**
  * NEON protocol handler thread.
@@ -30,10 +35,13 @@ public class NeonOpstiThread extends OpstiThread {
 	// ДОДАТ: Константе за лакше разумевање кода
 	private static final String PROTOCOL_PREFIX_ORIS = "<oris";
 	private static final String PROTOCOL_PREFIX_HASH_ORIS = "#<oris";
-	private static final String MESSAGE_DELIMITER = ">";
+	public static final String MESSAGE_DELIMITER = ">";
 	private static final int MAX_FAILED_ATTEMPTS = 3;
 	
-	private String[] niz, da;
+	// Исход обраде једне поруке
+	private enum Ishod { NASTAVI, PREKINI_PAKET, ZATVORI_VEZU }
+	
+	private String[] da;
 	private int brojPromasaja;
 	
 	public NeonOpstiThread(LinkedBlockingQueue<Socket> queue, OpstiServer srv) {
@@ -60,6 +68,7 @@ public class NeonOpstiThread extends OpstiThread {
 			
 			int br = 0;
 			int totalPackets = 0;
+			FrameAccumulator akumulator = new FrameAccumulator(frameDecoder(), FrameAccumulator.DEFAULT_CAPACITY);
 			
 			// ═══════════════════════════════════════════════════════════
 			// ГЛАВНА ПЕТЉА - ОБРАДА ПОДАТАКА (НЕПРОМЕЊЕНО!)
@@ -67,141 +76,40 @@ public class NeonOpstiThread extends OpstiThread {
 			
 			while (!isStopped() && !socket.isClosed()) {
 				
-				// Čitanje podataka sa socket-a
-				br = input.read(data, 0, data.length);
+				// Čitanje podataka sa socket-a u bafer konekcije
+				br = akumulator.readFrom(input);
 				
 				if (br <= 0) {
 					logger.debug("NEON [{}]: Kraj stream-a (pročitano {} bajtova)", clientId, br);
 					break;
 				}
 				
-				ulaz = new String(data, 0, br);
 				totalPackets++;
 				
 				// DEBUG logging за дијагностику
-				logger.debug("NEON [{}]: Примљен пакет #{} ({} бајтова), садржај (првих 200 карактера): {}", 
-				            clientId, totalPackets, br, 
-				            ulaz.length() > 200 ? ulaz.substring(0, 200) + "..." : ulaz);
+				logger.debug("NEON [{}]: Примљен пакет #{} ({} бајтова, у баферу {})", 
+				            clientId, totalPackets, br, akumulator.buffered());
 				
 				// ═══════════════════════════════════════════════════════════
 				// ПАРСИРАЊЕ ПАКЕТА - ОРИГИНАЛНА ЛОГИКА (НЕПРОМЕЊЕНО!)
 				// ═══════════════════════════════════════════════════════════
 				
-				niz = ulaz.split(MESSAGE_DELIMITER);
-				
-				// Провера да ли је последња порука комплетна (завршава се са '>')
-				// Ако не завршава са '>', то значи да је сечена на граници буфера
-				boolean poslednjaKompletna = ulaz.endsWith(MESSAGE_DELIMITER);
-				
-				// Обрађујемо све елементе осим последњег ако није комплетна
-				int krajIndeksa = poslednjaKompletna ? niz.length : niz.length - 1;
+				// Поруке до '>' се обрађују одмах, а некомплетна порука на крају
+				// остаје у баферу и допуњује се следећим читањем
 				boolean closeConnection = false;
+				ByteBuffer okvir;
 				
-				if (!poslednjaKompletna && niz.length > 0 && niz[niz.length - 1].length() > 0) {
-					logger.debug("NEON [{}]: Детектована некомплетна порука на крају пакета ({} карактера), чека се следећи пакет", 
-					            clientId, niz[niz.length - 1].length());
-				}
-				
-				for (int i = 0; i < krajIndeksa; i++) {
-					
-					// Provera da li je validan ORIS protokol
-					if (niz[i].startsWith(PROTOCOL_PREFIX_ORIS) || niz[i].startsWith(PROTOCOL_PREFIX_HASH_ORIS)) {
-						
-						da = niz[i].split(",");
-						
-						// Провера да ли порука има довољно поља (потребно најмање 3 за IMEI на позицији 2)
-						if (da.length < 3) {
-							logger.warn("NEON [{}]: Недостатак поља у поруци (потребно најмање 3, пронађено {}): '{}'", 
-							            clientId, da.length, niz[i]);
-							brojPromasaja++;
-							if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
-								logger.error("NEON [{}]: Превише неважећих порука ({}), прекидам везу", 
-								             clientId, brojPromasaja);
-								break;
-							}
-							continue; // Прескочи ову поруку
-						}
-						
-						// Pronalaženje uređaja (prvi put)
-						if (uredjaj == null) {
-							try {
-								kodUredjaja = da[2];
-								logger.debug("NEON [{}]: Покушај проналажења уређаја '{}' (порука: '{}')", 
-								            clientId, kodUredjaja, niz[i]);
-								pronadjiPostavi(kodUredjaja);
-								logger.debug("NEON [{}]: Уређај пронађен: uredjaj={}, objekat={}", 
-								            clientId, uredjaj != null ? uredjaj.getKod() : "null", 
-								            objekat != null ? objekat.getOznaka() : "null");
-							} catch (ArrayIndexOutOfBoundsException e) {
-								logger.warn("NEON [{}]: Грешка приступа IMEI-ју (da[2]), da.length={}, порука: '{}'", 
-								            clientId, da.length, niz[i], e);
-								brojPromasaja++;
-								if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
-									logger.error("NEON [{}]: Превише грешака, прекидам везу", clientId);
-									break;
-								}
-								continue;
-							}
-						}
-						
-						// ═══════════════════════════════════════════════════════════
-						// ОБРАДА ЈАВЉАЊА - ОРИГИНАЛНА ЛОГИКА (НЕПРОМЕЊЕНО!)
-						// ═══════════════════════════════════════════════════════════
-						
-						if (objekat != null) {
-							try {
-								// ПОЗИВ PROTOCOL HANDLER-А (без измена!)
-								javljanjeTrenutno = server.nProtokol.neonObrada(da, ulaz, objekat);
-								
-								logger.debug("NEON [{}]: Javljanje обрађено: javljanjeTrenutno={}, порука: '{}'", 
-								            clientId, javljanjeTrenutno != null ? "OK" : "NULL", niz[i]);
-								
-								// ПОЗИВ OBRADE JAVLJANJA (без измена!)
-								obradaJavljanja(javljanjeTrenutno, null);
-								
-								logger.debug("NEON [{}]: obradaJavljanja() завршена успешно", clientId);
-								
-								// Reset brojača promašaja nakon uspešne obrade
-								brojPromasaja = 0;
-								
-							} catch (Exception e) {
-								logger.warn("NEON [{}]: Грешка при обради javljanja, порука: '{}', грешка: {}", 
-								            clientId, niz[i], e.getMessage(), e);
-								brojPromasaja++;
-								
-								if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
-									logger.warn("NEON [{}]: Превише грешака ({}), прекидам везу", clientId, brojPromasaja);
-									break;
-								}
-							}
-							
-						} else {
-							logger.warn("NEON [{}]: Objekat је null, не могу обрадити. uredjaj={}, kodUredjaja={}, порука: '{}'", 
-							            clientId, uredjaj != null ? uredjaj.getKod() : "null", 
-							            kodUredjaja, niz[i]);
-							brojPromasaja++;
-							
-							if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
-								logger.warn("NEON [{}]: Превише неуспешних покушаја, прекидам везу", clientId);
-								break;
-							}
-						}
-						
-					} else {
-						// Nevažeći format poruke
-						if (!niz[i].equals("#")) {
-							String preview = niz[i].length() > 20 ? niz[i].substring(0, 20) : niz[i];
-							logger.warn("NEON [{}]: Nevažeći format (očekivan ORIS), početak poruke: '{}'", 
-							            clientId, preview);
-							brojPromasaja++;
-							
-							if (brojPromasaja >= MAX_FAILED_ATTEMPTS) {
-								logger.error("NEON [{}]: Previše nevažećih poruka ({}), prekidam vezu", 
-								             clientId, brojPromasaja);
-								closeConnection = true;
-								break;
-							}
-						}
+				while ((okvir = akumulator.nextFrame()) != null) {
+					ulaz = FrameAccumulator.text(okvir, Charset.defaultCharset());
+					Ishod ishod = obradiPoruku(clientId, ulaz);
+					if (ishod == Ishod.ZATVORI_VEZU) {
+						closeConnection = true;
+						break;
+					}
+					if (ishod == Ishod.PREKINI_PAKET) {
+						// Остатак пакета се одбацује, као и раније
+						akumulator.clear();
+						break;
 					}
 				}
 				
@@ -209,6 +117,11 @@ public class NeonOpstiThread extends OpstiThread {
 					break;
 				}
 				
+				if (akumulator.buffered() > 0) {
+					logger.debug("NEON [{}]: Некомплетна порука на крају пакета ({} бајтова), чека се следећи пакет", 
+					            clientId, akumulator.buffered());
+				}
+				
 				// ═══════════════════════════════════════════════════════════
 				// ПРОВЕРА INTERRUPT СИГНАЛА
 				// ═══════════════════════════════════════════════════════════
@@ -260,4 +173,137 @@ public class NeonOpstiThread extends OpstiThread {
 			}
 		}
 	}
+
+	/**
+	 * Декодер NEON порука (граничник '>') - исти за блокирајући и NIO режим.
+	 */
+	public static FrameDecoder frameDecoder() {
+		return new DelimiterFrameDecoder(MESSAGE_DELIMITER, DelimiterFrameDecoder.MAX_TEXT_FRAME_LENGTH);
+	}
+	
+	/**
+	 * NIO режим: оквир је једна порука без граничника '>'.
+	 *
+	 * <p>Оквири су већ раздвојени и границе TCP пакета се не памте, па се
+	 * {@code PREKINI_PAKET} не може свести на одбацивање остатка пакета као у
+	 * блокирајућем режиму - после превише неважећих порука веза се затвара, а
+	 * оквири који чекају обраду се одбацују са њом.</p>
+	 */
+	@Override
+	public boolean handleFrame(byte[] frame) {
+		ulaz = new String(frame);
+		return obradiPoruku(getClientId(), ulaz) == Ishod.NASTAVI;
+	}
+	
+	/**
+	 * Обрада једне ORIS поруке (без граничника '>').
+	 * Заједничко за блокирајући и NIO режим.
+	 */
+	private Ishod obradiPoruku(String clientId, String poruka) {
+		metrike.okvir();
+		// Provera da li je validan ORIS protokol
+		if (poruka.startsWith(PROTOCOL_PREFIX_ORIS) || poruka.startsWith(PROTOCOL_PREFIX_HASH_ORIS)) {
+			
+			da = poruka.split(",");
+			
+			// Провера да ли порука има довољно поља (потребно најмање 3 за IMEI на позицији 2)
+			if (da.length < 3) {
+				logger.warn("NEON [{}]: Недостатак поља у поруци (потребно најмање 3, пронађено {}): '{}'", 
+				            clientId, da.length, poruka);
+				brojPromasaja++;
+				metrike.greskaParsiranja();
+				if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
+					logger.error("NEON [{}]: Превише неважећих порука ({}), прекидам везу", 
+					             clientId, brojPromasaja);
+					return Ishod.PREKINI_PAKET;
+				}
+				return Ishod.NASTAVI; // Прескочи ову поруку
+			}
+			
+			// Pronalaženje uređaja (prvi put)
+			if (uredjaj == null) {
+				try {
+					kodUredjaja = da[2];
+					logger.debug("NEON [{}]: Покушај проналажења уређаја '{}' (порука: '{}')", 
+					            clientId, kodUredjaja, poruka);
+					pronadjiPostavi(kodUredjaja);
+					logger.debug("NEON [{}]: Уређај пронађен: uredjaj={}, objekat={}", 
+					            clientId, uredjaj != null ? uredjaj.getKod() : "null", 
+					            objekat != null ? objekat.getOznaka() : "null");
+				} catch (ArrayIndexOutOfBoundsException e) {
+					logger.warn("NEON [{}]: Грешка приступа IMEI-ју (da[2]), da.length={}, порука: '{}'", 
+					            clientId, da.length, poruka, e);
+					brojPromasaja++;
+					metrike.greskaParsiranja();
+					if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
+						logger.error("NEON [{}]: Превише грешака, прекидам везу", clientId);
+						return Ishod.PREKINI_PAKET;
+					}
+					return Ishod.NASTAVI;
+				}
+			}
+			
+			// ═══════════════════════════════════════════════════════════
+			// ОБРАДА ЈАВЉАЊА - ОРИГИНАЛНА ЛОГИКА (НЕПРОМЕЊЕНО!)
+			// ═══════════════════════════════════════════════════════════
+			
+			if (objekat != null) {
+				try {
+					// ПОЗИВ PROTOCOL HANDLER-А (без измена!)
+					javljanjeTrenutno = server.nProtokol.neonObrada(da, ulaz, objekat);
+					
+					logger.debug("NEON [{}]: Javljanje обрађено: javljanjeTrenutno={}, порука: '{}'", 
+					            clientId, javljanjeTrenutno != null ? "OK" : "NULL", poruka);
+					
+					// ПОЗИВ OBRADE JAVLJANJA (без измена!)
+					obradaJavljanja(javljanjeTrenutno, null);
+					
+					logger.debug("NEON [{}]: obradaJavljanja() завршена успешно", clientId);
+					
+					// Reset brojača promašaja nakon uspešne obrade
+					brojPromasaja = 0;
+					
+				} catch (Exception e) {
+					logger.warn("NEON [{}]: Грешка при обради javljanja, порука: '{}', грешка: {}", 
+					            clientId, poruka, e.getMessage(), e);
+					brojPromasaja++;
+					metrike.greskaParsiranja();
+					
+					if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
+						logger.warn("NEON [{}]: Превише грешака ({}), прекидам везу", clientId, brojPromasaja);
+						return Ishod.PREKINI_PAKET;
+					}
+				}
+				
+			} else {
+				logger.warn("NEON [{}]: Objekat је null, не могу обрадити. uredjaj={}, kodUredjaja={}, порука: '{}'", 
+				            clientId, uredjaj != null ? uredjaj.getKod() : "null", 
+				            kodUredjaja, poruka);
+				brojPromasaja++;
+				metrike.greskaParsiranja();
+				
+				if (brojPromasaja > MAX_FAILED_ATTEMPTS) {
+					logger.warn("NEON [{}]: Превише неуспешних покушаја, прекидам везу", clientId);
+					return Ishod.PREKINI_PAKET;
+				}
+			}
+			
+		} else {
+			// Nevažeći format poruke
+			if (!poruka.equals("#")) {
+				String preview = poruka.length() > 20 ? poruka.substring(0, 20) : poruka;
+				logger.warn("NEON [{}]: Nevažeći format (očekivan ORIS), početak poruke: '{}'", 
+				            clientId, preview);
+				brojPromasaja++;
+				metrike.greskaParsiranja();
+				
+				if (brojPromasaja >= MAX_FAILED_ATTEMPTS) {
+					logger.error("NEON [{}]: Previše nevažećih poruka ({}), prekidam vezu", 
+					             clientId, brojPromasaja);
+					return Ishod.ZATVORI_VEZU;
+				}
+			}
+		}
+		return Ishod.NASTAVI;
+	}
 }
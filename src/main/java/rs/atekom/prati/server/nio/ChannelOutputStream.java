@@ -0,0 +1,40 @@
+package rs.atekom.prati.server.nio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link OutputStream} преко кога протоколске сесије шаљу ACK у NIO режиму.
+ *
+ * <p>Упис не блокира - бајтови се стављају у ред конекције, а event-loop
+ * их шаље у канал. {@link #close()} затвара целу конекцију, исто као
+ * затварање socket stream-а у блокирајућем режиму.</p>
+ */
+class ChannelOutputStream extends OutputStream {
+
+	private final NioConnection connection;
+
+	ChannelOutputStream(NioConnection connection) {
+		this.connection = connection;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		connection.send(b, off, len);
+	}
+
+	@Override
+	public void flush() {
+		// упис се већ шаље event-loop-у
+	}
+
+	@Override
+	public void close() {
+		connection.close();
+	}
+}
@@ -0,0 +1,57 @@
+package rs.atekom.prati.server.nio;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Текстуални оквири раздвојени граничником (NEON {@code >}, GENEKO {@code </fox>}).
+ *
+ * <p>Граничник се не укључује у оквир, исто као код {@code String.split}
+ * у блокирајућим нитима. Ако се граничник не појави у {@code maxFrameLength}
+ * бајтова, садржај се одбацује да бафер не би растао неограничено.</p>
+ */
+public class DelimiterFrameDecoder implements FrameDecoder {
+
+	/** Максимална дужина текстуалног оквира (NEON/GENEKO) */
+	public static final int MAX_TEXT_FRAME_LENGTH = 4096;
+
+	private final byte[] delimiter;
+	private final int maxFrameLength;
+
+	public DelimiterFrameDecoder(String delimiter, int maxFrameLength) {
+		this.delimiter = delimiter.getBytes(StandardCharsets.US_ASCII);
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	@Override
+	public ByteBuffer nextFrame(ByteBuffer buffer) {
+		if (!buffer.hasRemaining()) {
+			return null;
+		}
+		int start = buffer.position();
+		int end = indexOf(buffer, start, buffer.limit());
+		if (end < 0) {
+			if (buffer.remaining() > maxFrameLength) {
+				buffer.position(buffer.limit() - (delimiter.length - 1));
+			}
+			return null;
+		}
+		ByteBuffer frame = buffer.slice();
+		frame.limit(end - start);
+		buffer.position(end + delimiter.length);
+		return frame;
+	}
+
+	private int indexOf(ByteBuffer buffer, int from, int to) {
+		outer:
+		for (int i = from; i <= to - delimiter.length; i++) {
+			for (int j = 0; j < delimiter.length; j++) {
+				if (buffer.get(i + j) != delimiter[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,130 @@
+package rs.atekom.prati.server.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Улазни бафер једне конекције који сакупља бајтове до комплетних оквира.
+ *
+ * <p>Бафер се алоцира једном по конекцији. Пре сваког читања непотрошени
+ * остатак (почетак некомплетног оквира) се помера на почетак бафера, тако да
+ * се копира само тај остатак, а не сви примљени подаци. Оквири се враћају као
+ * погледи на бафер ({@link #nextFrame()}) и важе до следећег читања.</p>
+ *
+ * <p>Користе га и блокирајуће нити (читање из {@link InputStream}) и NIO
+ * конекције (читање из канала), са истим {@link FrameDecoder}-има.</p>
+ */
+public class FrameAccumulator {
+
+	/** Подразумевана величина бафера по конекцији */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	private final FrameDecoder decoder;
+	private final ByteBuffer buffer;
+	private long droppedBytes;
+
+	public FrameAccumulator(FrameDecoder decoder, int capacity) {
+		this.decoder = decoder;
+		this.buffer = ByteBuffer.allocate(capacity);
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * Блокирајуће читање из стрима у слободан део бафера.
+	 *
+	 * @return број прочитаних бајтова, или -1 на крају стрима
+	 */
+	public int readFrom(InputStream in) throws IOException {
+		int free = prepareForRead();
+		int br = in.read(buffer.array(), buffer.arrayOffset() + buffer.limit(), free);
+		if (br > 0) {
+			buffer.limit(buffer.limit() + br);
+		}
+		return br;
+	}
+
+	/**
+	 * Неблокирајуће читање из канала у слободан део бафера.
+	 *
+	 * @return број прочитаних бајтова (0 ако канал нема података), или -1 на крају стрима
+	 */
+	public int readFrom(ReadableByteChannel channel) throws IOException {
+		prepareForRead();
+		int start = buffer.position();
+		buffer.position(buffer.limit());
+		buffer.limit(buffer.capacity());
+		int br;
+		try {
+			br = channel.read(buffer);
+		} finally {
+			buffer.limit(buffer.position());
+			buffer.position(start);
+		}
+		return br;
+	}
+
+	/**
+	 * @return следећи комплетан оквир (поглед без копирања) или null
+	 */
+	public ByteBuffer nextFrame() {
+		return decoder.nextFrame(buffer);
+	}
+
+	/**
+	 * Копира све комплетне оквире у листу (за обраду у другој нити).
+	 */
+	public void drainTo(List<byte[]> frames) {
+		decoder.decode(buffer, frames);
+	}
+
+	/**
+	 * @return број примљених бајтова који још нису део комплетног оквира
+	 */
+	public int buffered() {
+		return buffer.remaining();
+	}
+
+	/**
+	 * Одбацује све непотрошене бајтове.
+	 */
+	public void clear() {
+		droppedBytes += buffer.remaining();
+		buffer.position(0);
+		buffer.limit(0);
+	}
+
+	/**
+	 * @return укупан број бајтова одбачених због пуног бафера или {@link #clear()}
+	 */
+	public long getDroppedBytes() {
+		return droppedBytes;
+	}
+
+	/**
+	 * Текст оквира без посредног {@code byte[]}.
+	 */
+	public static String text(ByteBuffer frame, Charset charset) {
+		return new String(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining(), charset);
+	}
+
+	/**
+	 * Помера непотрошени остатак на почетак бафера; ако је бафер пун без
+	 * комплетног оквира, садржај је неисправан и одбацује се.
+	 *
+	 * @return број слободних бајтова
+	 */
+	private int prepareForRead() {
+		if (buffer.position() > 0) {
+			buffer.compact();
+			buffer.flip();
+		}
+		if (buffer.limit() == buffer.capacity()) {
+			clear();
+		}
+		return buffer.capacity() - buffer.limit();
+	}
+}
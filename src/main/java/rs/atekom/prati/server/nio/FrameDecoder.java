@@ -0,0 +1,38 @@
+package rs.atekom.prati.server.nio;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Извлачи комплетне оквире протокола из улазног бафера конекције.
+ *
+ * <p>Бафер се предаје у read моду; имплементација помера {@code position}
+ * иза сваког потрошеног оквира, а непотпуни остатак оставља у баферу
+ * за следеће читање.</p>
+ */
+public interface FrameDecoder {
+
+	/**
+	 * Враћа следећи комплетан оквир као поглед ({@code slice}) на исти бафер,
+	 * без копирања. Поглед важи само до следећег читања у бафер.
+	 *
+	 * @param buffer улазни бафер (read мод)
+	 * @return оквир (position 0, limit = дужина оквира) или null ако нема комплетног
+	 */
+	ByteBuffer nextFrame(ByteBuffer buffer);
+
+	/**
+	 * Копира све комплетне оквире - за оквире који се обрађују у другој нити.
+	 *
+	 * @param buffer улазни бафер (read мод)
+	 * @param frames листа у коју се додају комплетни оквири
+	 */
+	default void decode(ByteBuffer buffer, List<byte[]> frames) {
+		ByteBuffer frame;
+		while ((frame = nextFrame(buffer)) != null) {
+			byte[] copy = new byte[frame.remaining()];
+			frame.get(copy);
+			frames.add(copy);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package rs.atekom.prati.server.nio;
+
+import java.io.OutputStream;
+
+/**
+ * Протоколска сесија једне NIO конекције.
+ *
+ * <p>Позива се секвенцијално (никад паралелно за исту конекцију) из радног
+ * пула, тако да имплементација може да држи стање уређаја као и у
+ * блокирајућем режиму.</p>
+ */
+public interface FrameHandler {
+
+	/**
+	 * Повезује сесију са конекцијом пре првог оквира.
+	 *
+	 * @param clientId ознака конекције за логовање
+	 * @param out излаз за ACK одговоре (уписује се асинхроно у канал)
+	 */
+	void attach(String clientId, OutputStream out);
+
+	/**
+	 * Обрађује један комплетан оквир.
+	 *
+	 * @return {@code false} ако конекцију треба затворити
+	 */
+	boolean handleFrame(byte[] frame);
+
+	/** Ослобађа ресурсе сесије; позива се при затварању конекције. */
+	void stop();
+}
@@ -0,0 +1,48 @@
+package rs.atekom.prati.server.nio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Оквири облика {@code length (2B) + payload + CRC-16 (2B)} (RUPTELA).
+ *
+ * <p>Невалидна дужина се третира као у блокирајућем режиму: прескаче се
+ * један бајт и покушава ресинхронизација на следећи пакет.</p>
+ */
+public class LengthPrefixedFrameDecoder implements FrameDecoder {
+
+	private final int maxPayloadLength;
+	private long skippedBytes;
+
+	public LengthPrefixedFrameDecoder(int maxPayloadLength) {
+		this.maxPayloadLength = maxPayloadLength;
+	}
+
+	@Override
+	public ByteBuffer nextFrame(ByteBuffer buffer) {
+		while (buffer.remaining() >= 4) {
+			int start = buffer.position();
+			int length = ((buffer.get(start) & 0xFF) << 8) | (buffer.get(start + 1) & 0xFF);
+			if (length <= 0 || length > maxPayloadLength) {
+				buffer.position(start + 1);
+				skippedBytes++;
+				continue;
+			}
+			int totalLen = 2 + length + 2;
+			if (buffer.remaining() < totalLen) {
+				return null;
+			}
+			ByteBuffer frame = buffer.slice();
+			frame.limit(totalLen);
+			buffer.position(start + totalLen);
+			return frame;
+		}
+		return null;
+	}
+
+	/**
+	 * @return укупан број бајтова прескочених због невалидне дужине
+	 */
+	public long getSkippedBytes() {
+		return skippedBytes;
+	}
+}
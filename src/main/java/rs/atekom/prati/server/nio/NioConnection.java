@@ -0,0 +1,263 @@
+package rs.atekom.prati.server.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Стање једне неблокирајуће конекције: улазни бафер ({@link FrameAccumulator}),
+ * ред оквира за обраду и ред одлазних бајтова.
+ *
+ * <p>Читање и писање у канал ради искључиво event-loop нит. Обрада оквира
+ * (база, аларми) иде у радни пул, али највише један задатак по конекцији
+ * у исто време, тако да сесија види оквире истим редом као у блокирајућем режиму.</p>
+ */
+public class NioConnection {
+
+	private static final Logger logger = LoggerFactory.getLogger(NioConnection.class);
+
+	/** Изнад овог броја необрађених оквира престајемо да читамо са канала. */
+	static final int MAX_PENDING_FRAMES = 256;
+	/** Читање се наставља када ред падне испод ове границе. */
+	static final int RESUME_PENDING_FRAMES = 64;
+
+	private final String clientId;
+	private final SocketChannel channel;
+	private final NioEventLoop loop;
+	private final FrameAccumulator accumulator;
+	private final FrameHandler handler;
+	private final ExecutorService workers;
+	private final Queue<byte[]> frames = new ConcurrentLinkedQueue<>();
+	private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private final AtomicBoolean closing = new AtomicBoolean(false);
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private final List<byte[]> decoded = new ArrayList<>();
+	private SelectionKey key;
+	private volatile long lastRead;
+	private boolean readPaused;
+	private volatile boolean closeWhenDrained;
+
+	NioConnection(String clientId, SocketChannel channel, NioEventLoop loop, FrameDecoder decoder,
+			FrameHandler handler, ExecutorService workers, int bufferSize) {
+		this.clientId = clientId;
+		this.channel = channel;
+		this.loop = loop;
+		this.accumulator = new FrameAccumulator(decoder, bufferSize);
+		this.handler = handler;
+		this.workers = workers;
+		this.lastRead = System.currentTimeMillis();
+		handler.attach(clientId, new ChannelOutputStream(this));
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// EVENT-LOOP СТРАНА
+	// ════════════════════════════════════════════════════════════
+
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	/** Позива event-loop када је канал спреман за читање. */
+	void onReadable() {
+		int br;
+		try {
+			br = accumulator.readFrom(channel);
+		} catch (IOException e) {
+			logger.debug("NIO [{}]: greška čitanja: {}", clientId, e.getMessage());
+			closeNow();
+			return;
+		}
+		if (br < 0) {
+			logger.debug("NIO [{}]: kraj stream-a", clientId);
+			closeWhenDrained();
+			return;
+		}
+		if (br == 0) {
+			return;
+		}
+		lastRead = System.currentTimeMillis();
+
+		accumulator.drainTo(decoded);
+
+		if (!decoded.isEmpty()) {
+			frames.addAll(decoded);
+			int ukupno = pending.addAndGet(decoded.size());
+			decoded.clear();
+			if (ukupno > MAX_PENDING_FRAMES) {
+				pauseReading();
+			}
+			schedule();
+		}
+	}
+
+	/** Позива event-loop када је канал спреман за писање. */
+	void onWritable() {
+		flushWrites();
+	}
+
+	void flushWrites() {
+		if (closed.get()) {
+			return;
+		}
+		try {
+			ByteBuffer buf;
+			while ((buf = writes.peek()) != null) {
+				channel.write(buf);
+				if (buf.hasRemaining()) {
+					interest(SelectionKey.OP_WRITE, true);
+					return;
+				}
+				writes.poll();
+			}
+			interest(SelectionKey.OP_WRITE, false);
+		} catch (IOException e) {
+			logger.debug("NIO [{}]: greška pisanja: {}", clientId, e.getMessage());
+			closeNow();
+		}
+	}
+
+	private void pauseReading() {
+		if (!readPaused) {
+			readPaused = true;
+			interest(SelectionKey.OP_READ, false);
+			logger.debug("NIO [{}]: čitanje pauzirano ({} okvira čeka obradu)", clientId, pending.get());
+		}
+	}
+
+	private void resumeReading() {
+		if (readPaused && !closing.get()) {
+			readPaused = false;
+			interest(SelectionKey.OP_READ, true);
+		}
+	}
+
+	private void interest(int op, boolean on) {
+		if (key == null || !key.isValid()) {
+			return;
+		}
+		int ops = key.interestOps();
+		key.interestOps(on ? (ops | op) : (ops & ~op));
+	}
+
+	boolean isIdle(long now, long idleTimeoutMs) {
+		return !readPaused && !closeWhenDrained && now - lastRead > idleTimeoutMs;
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// РАДНИ ПУЛ
+	// ════════════════════════════════════════════════════════════
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				workers.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				close();
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			byte[] frame;
+			while (!closing.get() && (frame = frames.poll()) != null) {
+				int preostalo = pending.decrementAndGet();
+				if (preostalo == RESUME_PENDING_FRAMES) {
+					loop.execute(this::resumeReading);
+				}
+				if (!handler.handleFrame(frame)) {
+					close();
+					return;
+				}
+			}
+		} catch (Throwable e) {
+			logger.error("NIO [{}]: neočekivana greška obrade okvira", clientId, e);
+			close();
+			return;
+		} finally {
+			scheduled.set(false);
+		}
+		if (!frames.isEmpty() && !closing.get()) {
+			schedule();
+		} else if (closeWhenDrained) {
+			close();
+		}
+	}
+
+	/**
+	 * Уређај је затворио своју страну - оквири који су већ примљени се
+	 * обрађују до краја, па се тек онда затвара конекција.
+	 */
+	private void closeWhenDrained() {
+		closeWhenDrained = true;
+		interest(SelectionKey.OP_READ, false);
+		if (pending.get() == 0 && !scheduled.get()) {
+			close();
+		}
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// ПИСАЊЕ И ЗАТВАРАЊЕ (позива се из било које нити)
+	// ════════════════════════════════════════════════════════════
+
+	void send(byte[] bytes, int off, int len) throws IOException {
+		if (closing.get()) {
+			throw new IOException("Konekcija " + clientId + " je zatvorena");
+		}
+		byte[] copy = new byte[len];
+		System.arraycopy(bytes, off, copy, 0, len);
+		writes.add(ByteBuffer.wrap(copy));
+		loop.execute(this::flushWrites);
+	}
+
+	/**
+	 * Тражи затварање конекције. Затварање се извршава у event-loop нити,
+	 * после већ заказаних уписа, тако да ACK послат пре затварања стигне до уређаја.
+	 */
+	public void close() {
+		if (closing.compareAndSet(false, true)) {
+			loop.execute(this::closeNow);
+		}
+	}
+
+	/** Тренутно затварање - позива се само из event-loop нити. */
+	void closeNow() {
+		closing.set(true);
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.debug("NIO [{}]: greška zatvaranja kanala: {}", clientId, e.getMessage());
+		}
+		frames.clear();
+		writes.clear();
+		loop.connectionClosed(this);
+		handler.stop();
+		logger.debug("NIO [{}]: konekcija zatvorena", clientId);
+	}
+
+	public boolean isClosed() {
+		return closing.get();
+	}
+
+	public String getClientId() {
+		return clientId;
+	}
+}
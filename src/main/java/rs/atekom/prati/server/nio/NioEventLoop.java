@@ -0,0 +1,147 @@
+package rs.atekom.prati.server.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Једна selector нит која опслужује подскуп NIO конекција.
+ *
+ * <p>Све операције над {@link SelectionKey} извршавају се у овој нити;
+ * остале нити шаљу задатке преко {@link #execute(Runnable)}.</p>
+ */
+class NioEventLoop implements Runnable {
+
+	private static final Logger logger = LoggerFactory.getLogger(NioEventLoop.class);
+
+	/** Колико често (ms) се проверавају неактивне конекције. */
+	private static final long SELECT_TIMEOUT_MS = 1000;
+
+	private final String name;
+	private final Selector selector;
+	private final NioIngestEngine engine;
+	private final long idleTimeoutMs;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final Set<NioConnection> connections = ConcurrentHashMap.newKeySet();
+	private volatile boolean stopped = false;
+
+	NioEventLoop(String name, NioIngestEngine engine, long idleTimeoutMs) throws IOException {
+		this.name = name;
+		this.engine = engine;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.selector = Selector.open();
+	}
+
+	/** Региструје нову конекцију у овој петљи (позива acceptor нит). */
+	void register(NioConnection connection, SocketChannel channel) {
+		connections.add(connection);
+		execute(() -> {
+			try {
+				SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+				connection.setKey(key);
+			} catch (IOException e) {
+				logger.warn("{}: registracija kanala neuspešna: {}", name, e.getMessage());
+				connection.closeNow();
+			}
+		});
+	}
+
+	void execute(Runnable task) {
+		tasks.add(task);
+		selector.wakeup();
+	}
+
+	void connectionClosed(NioConnection connection) {
+		if (connections.remove(connection)) {
+			engine.connectionClosed();
+		}
+	}
+
+	int getConnectionCount() {
+		return connections.size();
+	}
+
+	void stop() {
+		stopped = true;
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		logger.debug("{}: pokrenut", name);
+		long poslednjaProvera = System.currentTimeMillis();
+		try {
+			while (!stopped) {
+				selector.select(SELECT_TIMEOUT_MS);
+				runTasks();
+
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					NioConnection connection = (NioConnection) key.attachment();
+					if (!key.isValid()) {
+						connection.closeNow();
+						continue;
+					}
+					if (key.isReadable()) {
+						connection.onReadable();
+					}
+					if (key.isValid() && key.isWritable()) {
+						connection.onWritable();
+					}
+				}
+
+				long sada = System.currentTimeMillis();
+				if (sada - poslednjaProvera >= SELECT_TIMEOUT_MS) {
+					poslednjaProvera = sada;
+					closeIdle(sada);
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			if (!stopped) {
+				logger.error("{}: greška selector-a", name, e);
+			}
+		} finally {
+			for (NioConnection connection : connections) {
+				connection.closeNow();
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				logger.debug("{}: greška zatvaranja selector-a: {}", name, e.getMessage());
+			}
+			logger.debug("{}: zaustavljen", name);
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (Throwable e) {
+				logger.error("{}: greška u zadatku petlje", name, e);
+			}
+		}
+	}
+
+	private void closeIdle(long sada) {
+		for (NioConnection connection : connections) {
+			if (connection.isIdle(sada, idleTimeoutMs)) {
+				logger.info("{}: [{}] timeout nakon {}ms neaktivnosti", name, connection.getClientId(), idleTimeoutMs);
+				connection.closeNow();
+			}
+		}
+	}
+}
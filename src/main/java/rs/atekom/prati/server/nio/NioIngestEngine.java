@@ -0,0 +1,154 @@
+package rs.atekom.prati.server.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Неблокирајући TCP пријем за трекере.
+ *
+ * <p>Уместо једне нити по конекцији, неколико {@link NioEventLoop} нити
+ * мултиплексира све конекције, декодира комплетне оквире и предаје их
+ * протоколским сесијама ({@link FrameHandler}) у радном пулу. Нит која
+ * позове {@link #run()} служи као acceptor док се не позове {@link #stop()}.</p>
+ *
+ * @author Atekom
+ */
+public class NioIngestEngine implements Runnable {
+
+	private static final Logger logger = LoggerFactory.getLogger(NioIngestEngine.class);
+
+	/** Величина улазног бафера по конекцији. */
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	private final String server;
+	private final int port;
+	private final int loopCount;
+	private final long idleTimeoutMs;
+	private final Supplier<FrameHandler> handlerFactory;
+	private final Supplier<FrameDecoder> decoderFactory;
+	private final ExecutorService workers;
+	private final AtomicInteger activeConnections = new AtomicInteger();
+	private final AtomicInteger connectionCounter = new AtomicInteger();
+	private volatile boolean stopped = false;
+	private ServerSocketChannel serverChannel;
+	private NioEventLoop[] loops;
+
+	/**
+	 * @param server ознака сервера за логовање (NEON, RUPTELA...)
+	 * @param port порт на коме се слуша
+	 * @param loopCount број selector нити
+	 * @param idleTimeoutMs после колико ms без података се конекција затвара
+	 * @param handlerFactory креира нову протоколску сесију по конекцији
+	 * @param decoderFactory креира декодер оквира по конекцији
+	 * @param workers пул у коме се оквири обрађују (база, аларми)
+	 */
+	public NioIngestEngine(String server, int port, int loopCount, long idleTimeoutMs,
+			Supplier<FrameHandler> handlerFactory, Supplier<FrameDecoder> decoderFactory, ExecutorService workers) {
+		this.server = server;
+		this.port = port;
+		this.loopCount = Math.max(1, loopCount);
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.handlerFactory = handlerFactory;
+		this.decoderFactory = decoderFactory;
+		this.workers = workers;
+	}
+
+	@Override
+	public void run() {
+		try {
+			serverChannel = ServerSocketChannel.open();
+			serverChannel.socket().setReuseAddress(true);
+			serverChannel.bind(new InetSocketAddress(port));
+
+			loops = new NioEventLoop[loopCount];
+			for (int i = 0; i < loopCount; i++) {
+				loops[i] = new NioEventLoop("NIO-" + server + "-" + (i + 1), this, idleTimeoutMs);
+				Thread nit = new Thread(loops[i], "NIO-" + server + "-" + (i + 1));
+				nit.setDaemon(true);
+				nit.start();
+			}
+			logger.info(" {} NIO server sluša na portu {} ({} selector niti)", server, port, loopCount);
+
+			while (!stopped) {
+				SocketChannel channel = serverChannel.accept();
+				accept(channel);
+			}
+		} catch (ClosedChannelException e) {
+			if (!stopped) {
+				logger.error("NIO {}: server kanal neočekivano zatvoren", server, e);
+			}
+		} catch (IOException e) {
+			if (stopped) {
+				logger.info("NIO {}: zaustavljen - prekid accept petlje", server);
+			} else {
+				logger.error("NIO {}: greška na portu {}", server, port, e);
+			}
+		} finally {
+			stopLoops();
+			logger.info("NIO {} napušta run petlju", server);
+		}
+	}
+
+	private void accept(SocketChannel channel) throws IOException {
+		int connectionId = connectionCounter.incrementAndGet();
+		try {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			channel.socket().setKeepAlive(true);
+		} catch (IOException e) {
+			logger.warn("NIO {}: konfiguracija kanala neuspešna: {}", server, e.getMessage());
+			channel.close();
+			return;
+		}
+
+		String clientId = server + "-" + channel.getRemoteAddress();
+		NioEventLoop loop = loops[connectionId % loops.length];
+		NioConnection connection = new NioConnection(clientId, channel, loop, decoderFactory.get(),
+				handlerFactory.get(), workers, READ_BUFFER_SIZE);
+		activeConnections.incrementAndGet();
+		loop.register(connection, channel);
+
+		if (connectionId == 1 || connectionId % 1000 == 0) {
+			logger.info("{} NIO | Konekcija #{} | Aktivnih konekcija: {}", server, connectionId, activeConnections.get());
+		}
+	}
+
+	void connectionClosed() {
+		activeConnections.decrementAndGet();
+	}
+
+	public int getActiveConnections() {
+		return activeConnections.get();
+	}
+
+	public void stop() {
+		stopped = true;
+		try {
+			if (serverChannel != null && serverChannel.isOpen()) {
+				serverChannel.close();
+			}
+		} catch (IOException e) {
+			logger.warn("NIO {}: greška zatvaranja server kanala: {}", server, e.getMessage());
+		}
+		stopLoops();
+	}
+
+	private void stopLoops() {
+		if (loops != null) {
+			for (NioEventLoop loop : loops) {
+				if (loop != null) {
+					loop.stop();
+				}
+			}
+		}
+	}
+}
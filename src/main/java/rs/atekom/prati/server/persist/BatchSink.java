@@ -0,0 +1,22 @@
+package rs.atekom.prati.server.persist;
+
+import java.util.List;
+
+/**
+ * Одредиште у које {@link WriteBehindQueue} уписује накупљене записе.
+ *
+ * <p>Пакет се уписује као целина; ако баци изузетак, ред покушава
+ * да упише записе један по један (нове копије, без стања враћене
+ * трансакције) да би се изоловао неисправан запис.</p>
+ *
+ * @param <T> тип записа (нпр. Javljanja, Obd)
+ */
+@FunctionalInterface
+public interface BatchSink<T> {
+
+	/**
+	 * @param paket непразна листа записа; листа се после позива поново користи
+	 * @throws Exception ако упис пакета није успео
+	 */
+	void upisi(List<T> paket) throws Exception;
+}
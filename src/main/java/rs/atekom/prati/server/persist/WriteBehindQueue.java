@@ -0,0 +1,346 @@
+package rs.atekom.prati.server.persist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.atekom.prati.server.metrike.Metrike;
+import rs.atekom.prati.server.metrike.Metrike.Histogram;
+
+/**
+ * Ограничени write-behind ред: нити конекција само убацују записе,
+ * а једна позадинска нит их уписује у пакетима - када се накупи
+ * {@code velicinaPaketa} записа или када истекне {@code prozorMs}.
+ *
+ * <p><b>Backpressure:</b> када је ред пун, {@link #dodaj} чека док се место
+ * не ослободи (уз упозорење сваких {@code cekanjeMs}). Тиме се читање са
+ * сокета успорава, уместо да се записи губе, да меморија расте без граница
+ * или да запис претекне оне који већ чекају - измена мора доћи после уноса.</p>
+ *
+ * <p>Ако пакет не успе, трансакција је враћена, а записи могу да носе id и
+ * верзију које им је доделила враћена сесија - појединачно се уписује
+ * {@code zaPonovo} копија сваког записа, да исправни записи не падну због
+ * једног неисправног.</p>
+ *
+ * <p>После {@link #zatvori} касни записи се уписују синхроно, али тек пошто
+ * се испразни све што је остало у реду.</p>
+ *
+ * <p>{@link #getUpisanoDo()} је тренутак пре ког је сваки запис који је ушао
+ * у ред уписан; нит уписа га помера кад испразни ред. Када је први запис
+ * одбачен, граница стаје пре њега до поновног покретања - дневник оквира
+ * чува његов оквир за репродукцију.</p>
+ *
+ * @param <T> тип записа
+ */
+public class WriteBehindQueue<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+	private static final long PROVERA_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final String naziv;
+	private final BlockingQueue<T> red;
+	private final BatchSink<T> odrediste;
+	private final UnaryOperator<T> zaPonovo;
+	private final int velicinaPaketa;
+	private final long prozorMs;
+	private final long cekanjeMs;
+	private final Thread upisivac;
+	/** Синхрони упис после затварања иде редом - прво остатак реда, па нови запис. */
+	private final Object sinhroniUpis = new Object();
+	private volatile boolean radi;
+	private volatile long upisanoDo = System.currentTimeMillis();
+	/** Запис је одбачен - {@code upisanoDo} више не напредује. */
+	private volatile boolean odbacen;
+
+	private final AtomicLong primljeno = new AtomicLong();
+	private final AtomicLong upisano = new AtomicLong();
+	private final AtomicLong neuspesno = new AtomicLong();
+	private final AtomicLong sinhrono = new AtomicLong();
+	private final AtomicLong paketa = new AtomicLong();
+	private final AtomicLong ukupnoNanos = new AtomicLong();
+	private volatile long poslednjiNanos;
+	private volatile long najduziNanos;
+	private final Histogram upisBaze;
+
+	/**
+	 * @param naziv          назив за логове и име нити
+	 * @param kapacitet      највећи број записа који чекају упис
+	 * @param velicinaPaketa највећи број записа у једном пакету
+	 * @param prozorMs       најдуже време чекања да се пакет попуни
+	 * @param cekanjeMs      после колико чекања на место у пуном реду се упозорава
+	 * @param odrediste      где се пакети уписују
+	 */
+	public WriteBehindQueue(String naziv, int kapacitet, int velicinaPaketa, long prozorMs, long cekanjeMs,
+			BatchSink<T> odrediste) {
+		this(naziv, kapacitet, velicinaPaketa, prozorMs, cekanjeMs, odrediste, UnaryOperator.identity());
+	}
+
+	/**
+	 * @param zaPonovo запис за појединачни упис после неуспелог пакета - нова
+	 *                 инстанца без id-а и стања враћене сесије
+	 */
+	public WriteBehindQueue(String naziv, int kapacitet, int velicinaPaketa, long prozorMs, long cekanjeMs,
+			BatchSink<T> odrediste, UnaryOperator<T> zaPonovo) {
+		if (kapacitet < 1 || velicinaPaketa < 1) {
+			throw new IllegalArgumentException("kapacitet i velicinaPaketa moraju biti pozitivni");
+		}
+		this.naziv = naziv;
+		this.red = new ArrayBlockingQueue<>(kapacitet);
+		this.velicinaPaketa = velicinaPaketa;
+		this.prozorMs = Math.max(1, prozorMs);
+		this.cekanjeMs = Math.max(0, cekanjeMs);
+		this.odrediste = odrediste;
+		this.zaPonovo = zaPonovo;
+		this.upisivac = new Thread(this::petlja, "upis-" + naziv);
+		this.upisivac.setDaemon(true);
+		this.upisBaze = Metrike.histogram("prati_upis_baza_sekunde", "Trajanje upisa jednog paketa u bazu", "red", naziv);
+	}
+
+	public void pokreni() {
+		radi = true;
+		upisivac.start();
+		Metrike.merac("prati_upis_red", "Zapisi koji čekaju upis u bazu", this::getQueueDepth, "red", naziv);
+		Metrike.brojacIz("prati_upis_primljeno_ukupno", "Zapisi predati redu za upis", this::getPrimljeno, "red", naziv);
+		Metrike.brojacIz("prati_upis_neuspesno_ukupno", "Zapisi odbačeni posle neuspelog upisa", this::getNeuspesno, "red", naziv);
+		logger.info("Write-behind [{}] pokrenut: kapacitet={}, paket={}, prozor={}ms",
+				naziv, red.remainingCapacity(), velicinaPaketa, prozorMs);
+	}
+
+	/**
+	 * Убацује запис у ред. Ако је ред пун, чека на место; после
+	 * {@link #zatvori} уписује синхроно, иза свега што је остало у реду.
+	 */
+	public void dodaj(T zapis) {
+		if (zapis == null) {
+			return;
+		}
+		primljeno.incrementAndGet();
+		boolean prekinut = false;
+		try {
+			while (radi) {
+				try {
+					if (red.offer(zapis, cekanjeMs, TimeUnit.MILLISECONDS)) {
+						if (!radi) {
+							// ред је затворен док смо убацивали - не остављамо запис у реду
+							isprazniSinhrono();
+						}
+						return;
+					}
+					logger.warn("Write-behind [{}]: red pun ({}), čeka se upis", naziv, red.size());
+				} catch (InterruptedException e) {
+					// запис се не сме изгубити нити претећи ред - прекид се враћа по уласку у ред
+					prekinut = true;
+				}
+			}
+			synchronized (sinhroniUpis) {
+				isprazniSinhrono();
+				sinhrono.incrementAndGet();
+				upisi(new ArrayList<>(Collections.singletonList(zapis)));
+			}
+		} finally {
+			if (prekinut) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Зауставља позадинску нит и уписује све што је остало у реду.
+	 *
+	 * @param timeoutMs колико највише чекамо да нит заврши текући пакет
+	 */
+	public void zatvori(long timeoutMs) {
+		if (!radi) {
+			return;
+		}
+		radi = false;
+		try {
+			upisivac.join(timeoutMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (upisivac.isAlive()) {
+			logger.warn("Write-behind [{}]: nit upisa nije završila za {}ms, ostatak ({}) se upisuje sinhrono",
+					naziv, timeoutMs, red.size());
+		}
+		long pre = System.currentTimeMillis();
+		isprazniSinhrono();
+		if (!upisivac.isAlive()) {
+			pomeri(pre);
+		}
+		logger.info("Write-behind [{}] zaustavljen: {}", naziv, stanje());
+	}
+
+	private void isprazniSinhrono() {
+		synchronized (sinhroniUpis) {
+			List<T> ostatak = new ArrayList<>();
+			while (red.drainTo(ostatak, velicinaPaketa) > 0) {
+				upisi(ostatak);
+				ostatak.clear();
+			}
+		}
+	}
+
+	private void petlja() {
+		List<T> paket = new ArrayList<>(velicinaPaketa);
+		while (radi || !red.isEmpty()) {
+			try {
+				// све што је ушло у ред пре овог тренутка је у овом или ранијем пакету, осим ако пакет не буде пун
+				long pre = System.currentTimeMillis();
+				T prvi = red.poll(PROVERA_NANOS, TimeUnit.NANOSECONDS);
+				if (prvi == null) {
+					pomeri(pre);
+					continue;
+				}
+				paket.add(prvi);
+				long rok = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prozorMs);
+				while (paket.size() < velicinaPaketa) {
+					red.drainTo(paket, velicinaPaketa - paket.size());
+					long ostalo = rok - System.nanoTime();
+					if (paket.size() >= velicinaPaketa || ostalo <= 0 || !radi) {
+						break;
+					}
+					// кратко чекање, да затварање не чека цео прозор
+					T sledeci = red.poll(Math.min(ostalo, PROVERA_NANOS), TimeUnit.NANOSECONDS);
+					if (sledeci != null) {
+						paket.add(sledeci);
+					}
+				}
+				if (upisi(paket) && paket.size() < velicinaPaketa) {
+					pomeri(pre);
+				}
+			} catch (InterruptedException e) {
+				if (!paket.isEmpty()) {
+					upisi(paket);
+				}
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Throwable e) {
+				logger.error("Write-behind [{}]: neočekivana greška", naziv, e);
+			} finally {
+				paket.clear();
+			}
+		}
+	}
+
+	/**
+	 * Граница уписа иде напред само док ниједан запис није одбачен: сви записи
+	 * пре ње су уписани, па је одбачени запис ушао у ред после ње.
+	 */
+	private void pomeri(long pre) {
+		if (!odbacen) {
+			upisanoDo = pre;
+		}
+	}
+
+	/** @return false ако је бар један запис одбачен */
+	private boolean upisi(List<T> paket) {
+		if (paket.isEmpty()) {
+			return true;
+		}
+		boolean uspeh = true;
+		long pocetak = System.nanoTime();
+		try {
+			odrediste.upisi(paket);
+			upisano.addAndGet(paket.size());
+		} catch (Exception e) {
+			logger.warn("Write-behind [{}]: upis paketa od {} nije uspeo ({}), upis pojedinačno",
+					naziv, paket.size(), e.getMessage());
+			List<T> jedan = new ArrayList<>(1);
+			for (T zapis : paket) {
+				jedan.add(zaPonovo.apply(zapis));
+				try {
+					odrediste.upisi(jedan);
+					upisano.incrementAndGet();
+				} catch (Exception ex) {
+					neuspesno.incrementAndGet();
+					logger.error("Write-behind [{}]: zapis odbačen: {}", naziv, ex.getMessage());
+					if (!odbacen) {
+						odbacen = true;
+						logger.error("Write-behind [{}]: granica upisa ostaje na {} - dnevnik okvira čuva neupisane okvire",
+								naziv, upisanoDo);
+					}
+					uspeh = false;
+				}
+				jedan.clear();
+			}
+		}
+		long trajanje = System.nanoTime() - pocetak;
+		upisBaze.zabelezi(trajanje);
+		paketa.incrementAndGet();
+		ukupnoNanos.addAndGet(trajanje);
+		poslednjiNanos = trajanje;
+		if (trajanje > najduziNanos) {
+			najduziNanos = trajanje;
+		}
+		return uspeh;
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// БРОЈАЧИ
+	// ════════════════════════════════════════════════════════════
+
+	public String getNaziv() {
+		return naziv;
+	}
+
+	/** Број записа који тренутно чекају упис. */
+	public int getQueueDepth() {
+		return red.size();
+	}
+
+	public long getPrimljeno() {
+		return primljeno.get();
+	}
+
+	public long getUpisano() {
+		return upisano.get();
+	}
+
+	public long getNeuspesno() {
+		return neuspesno.get();
+	}
+
+	/** Број записа уписаних у нити позиваоца (после затварања реда). */
+	public long getSinhrono() {
+		return sinhrono.get();
+	}
+
+	/** Тренутак (ms) пре ког је сваки запис који је ушао у ред уписан; не иде преко одбаченог записа. */
+	public long getUpisanoDo() {
+		return upisanoDo;
+	}
+
+	public long getBrojPaketa() {
+		return paketa.get();
+	}
+
+	public double getPoslednjiPaketMs() {
+		return poslednjiNanos / 1_000_000.0;
+	}
+
+	public double getNajduziPaketMs() {
+		return najduziNanos / 1_000_000.0;
+	}
+
+	public double getProsecanPaketMs() {
+		long n = paketa.get();
+		return n == 0 ? 0 : ukupnoNanos.get() / 1_000_000.0 / n;
+	}
+
+	public String stanje() {
+		return String.format("red=%d, primljeno=%d, upisano=%d, neuspešno=%d, sinhrono=%d, paketa=%d, "
+				+ "paket ms (posl/prosek/max)=%.1f/%.1f/%.1f",
+				getQueueDepth(), getPrimljeno(), getUpisano(), getNeuspesno(), getSinhrono(), getBrojPaketa(),
+				getPoslednjiPaketMs(), getProsecanPaketMs(), getNajduziPaketMs());
+	}
+}
@@ -0,0 +1,297 @@
+package rs.atekom.prati.server.persist;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+import rs.atekom.prati.ApplicationContextProvider;
+import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.zbir.Zbirovi;
+
+/**
+ * Заједнички write-behind упис јављања и OBD записа са свих сервера.
+ *
+ * <p>Пакет се уписује постојећим сервисима ({@code unesiJavljanja}, {@code unesiObd})
+ * унутар једне трансакције {@code txManager}-а, тако да цео пакет иде кроз
+ * једну Hibernate сесију и један commit уместо по један за сваки ред.</p>
+ *
+ * <p>Ако пакет не успе, сваки запис се поново уписује као нова копија - враћена
+ * трансакција је записима већ доделила id и верзију.</p>
+ *
+ * <p>Сваки унет ред се додаје у {@link Servis#zbirovi} (дневни и сатни збирови) једном,
+ * у нити уписа, тек пошто је његов пакет потврђен.</p>
+ *
+ * <p>Док није покренут (нпр. у тестовима), сви позиви уписују синхроно као раније.</p>
+ *
+ * <p>Подешавања (системска својства): {@code prati.upis.kapacitet} (10000),
+ * {@code prati.upis.paket} (200), {@code prati.upis.prozor.ms} (500),
+ * {@code prati.upis.cekanje.ms} (2000).</p>
+ */
+public final class Zapisivac {
+
+	private static final Logger logger = LoggerFactory.getLogger(Zapisivac.class);
+
+	private static final long ZATVARANJE_MS = 20_000;
+
+	private static volatile WriteBehindQueue<ZapisJavljanja> javljanja;
+	private static volatile WriteBehindQueue<Obd> obd;
+
+	private Zapisivac() {
+	}
+
+	/** Покреће оба реда; позива се из {@link Servis#contextInitialized} пре сервера. */
+	public static synchronized void pokreni() {
+		if (javljanja != null) {
+			return;
+		}
+		int kapacitet = Integer.getInteger("prati.upis.kapacitet", 10_000);
+		int paket = Integer.getInteger("prati.upis.paket", 200);
+		long prozor = Long.getLong("prati.upis.prozor.ms", 500L);
+		long cekanje = Long.getLong("prati.upis.cekanje.ms", 2_000L);
+
+		TransactionTemplate transakcija = new TransactionTemplate(
+				ApplicationContextProvider.getApplicationContext().getBean("txManager", PlatformTransactionManager.class));
+
+		WriteBehindQueue<ZapisJavljanja> j = new WriteBehindQueue<>("javljanja", kapacitet, paket, prozor, cekanje,
+				lista -> {
+					uTransakciji(transakcija, () -> lista.forEach(ZapisJavljanja::upisi));
+					lista.forEach(ZapisJavljanja::uZbir);
+				}, ZapisJavljanja::zaPonovo);
+		WriteBehindQueue<Obd> o = new WriteBehindQueue<>("obd", kapacitet, paket, prozor, cekanje,
+				lista -> {
+					uTransakciji(transakcija, () -> lista.forEach(Servis.obdServis::unesiObd));
+					lista.forEach(Zapisivac::uZbir);
+				}, Zapisivac::kopija);
+		j.pokreni();
+		o.pokreni();
+		javljanja = j;
+		obd = o;
+		logger.info("Write-behind upis javljanja i OBD pokrenut");
+	}
+
+	/**
+	 * Уписује све што чека и враћа се на синхрони упис.
+	 * Позива се из {@link rs.atekom.prati.server.lifecycle.ServerManager#stopAll()} пошто сервери стану.
+	 */
+	public static synchronized void zaustavi() {
+		WriteBehindQueue<ZapisJavljanja> j = javljanja;
+		WriteBehindQueue<Obd> o = obd;
+		if (j == null) {
+			return;
+		}
+		j.zatvori(ZATVARANJE_MS);
+		o.zatvori(ZATVARANJE_MS);
+		javljanja = null;
+		obd = null;
+	}
+
+	/**
+	 * Предаје копију јављања за унос. Нит конекције после предаје наставља да
+	 * мења своје јављање (аларми, зона, eventData), а исто јављање може бити
+	 * предато више пута (аларм уређаја, па коначна обрада) - свака предаја је
+	 * засебан ред у стању у ком је предата.
+	 *
+	 * @return предата копија; мења је само нит уписа
+	 */
+	public static Javljanja upisiJavljanje(Javljanja javljanje) {
+		Javljanja kopija = kopija(javljanje);
+		upisi(new ZapisJavljanja(kopija));
+		return kopija;
+	}
+
+	/**
+	 * Измена eventData већ предатог јављања (нпр. адреса стигла после уноса).
+	 * Иде кроз исти ред као унос, па се поље мења и јављање ажурира у нити
+	 * уписа, тек пошто је уписано.
+	 *
+	 * @param javljanje копија коју је вратио {@link #upisiJavljanje}
+	 */
+	public static void izmeniJavljanje(Javljanja javljanje, String eventData) {
+		upisi(new ZapisJavljanja(javljanje, eventData));
+	}
+
+	private static void upisi(ZapisJavljanja zapis) {
+		WriteBehindQueue<ZapisJavljanja> j = javljanja;
+		if (j != null) {
+			j.dodaj(zapis);
+		} else {
+			zapis.upisi();
+			zapis.uZbir();
+		}
+	}
+
+	public static void upisiObd(Obd zapis) {
+		WriteBehindQueue<Obd> o = obd;
+		if (o != null) {
+			o.dodaj(zapis);
+		} else {
+			Servis.obdServis.unesiObd(zapis);
+			uZbir(zapis);
+		}
+	}
+
+	private static void uZbir(Obd zapis) {
+		Zbirovi zbirovi = Servis.zbirovi;
+		if (zbirovi != null) {
+			try {
+				zbirovi.dodaj(zapis);
+			} catch (RuntimeException e) {
+				// ред је већ уписан - грешка збира не сме да покрене поновни упис пакета
+				logger.warn("Zbir OBD zapisa nije ažuriran: {}", e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Тренутак пре ког је свако предато јављање и OBD запис уписан у базу; после
+	 * одбаченог записа не напредује. Док редови нису покренути упис је синхрон,
+	 * па је то садашњи тренутак.
+	 */
+	public static long upisanoDo() {
+		WriteBehindQueue<ZapisJavljanja> j = javljanja;
+		WriteBehindQueue<Obd> o = obd;
+		if (j == null || o == null) {
+			return System.currentTimeMillis();
+		}
+		return Math.min(j.getUpisanoDo(), o.getUpisanoDo());
+	}
+
+	/** Редови за праћење (број записа у реду, трајање пакета); празна листа ако није покренут. */
+	public static List<WriteBehindQueue<?>> redovi() {
+		WriteBehindQueue<ZapisJavljanja> j = javljanja;
+		WriteBehindQueue<Obd> o = obd;
+		if (j == null || o == null) {
+			return List.of();
+		}
+		return List.of(j, o);
+	}
+
+	/** Нови ред са истим подацима - без id-а, да сваки унос буде засебан ред. */
+	private static Javljanja kopija(Javljanja javljanje) {
+		Javljanja k = new Javljanja();
+		k.setObjekti(javljanje.getObjekti());
+		k.setValid(javljanje.isValid());
+		k.setDatumVreme(javljanje.getDatumVreme());
+		k.setLat(javljanje.getLat());
+		k.setLon(javljanje.getLon());
+		k.setVisina(javljanje.getVisina());
+		k.setPravac(javljanje.getPravac());
+		k.setBrzina(javljanje.getBrzina());
+		k.setKontakt(javljanje.isKontakt());
+		k.setIbutton(javljanje.getIbutton());
+		k.setVirtualOdo(javljanje.getVirtualOdo());
+		k.setSistemAlarmi(javljanje.getSistemAlarmi());
+		k.setEventData(javljanje.getEventData());
+		k.setZona(javljanje.getZona());
+		k.setKreirano(javljanje.getKreirano());
+		k.setIzmenjeno(javljanje.getIzmenjeno());
+		return k;
+	}
+
+	/** Нови OBD запис са истим подацима, без id-а. */
+	private static Obd kopija(Obd obd) {
+		Obd k = new Obd();
+		k.setObjekti(obd.getObjekti());
+		k.setDatumVreme(obd.getDatumVreme());
+		k.setRpm(obd.getRpm());
+		k.setTemperatura(obd.getTemperatura());
+		k.setOpterecenje(obd.getOpterecenje());
+		k.setGas(obd.getGas());
+		k.setNivoGoriva(obd.getNivoGoriva());
+		k.setAkumulator(obd.getAkumulator());
+		k.setTripKm(obd.getTripKm());
+		k.setTripGorivo(obd.getTripGorivo());
+		k.setUkupnoVreme(obd.getUkupnoVreme());
+		k.setUkupnoKm(obd.getUkupnoKm());
+		k.setUkupnoGorivo(obd.getUkupnoGorivo());
+		k.setProsecnaPotrosnja(obd.getProsecnaPotrosnja());
+		k.setGreske(obd.getGreske());
+		k.setKreirano(obd.getKreirano());
+		k.setIzmenjeno(obd.getIzmenjeno());
+		return k;
+	}
+
+	/** Унос или измена јављања, редом којим су предати. */
+	private static final class ZapisJavljanja {
+		private final Javljanja javljanje;
+		private final boolean izmena;
+		private final String eventData;
+		/** Јављање које је вратио {@link #upisiJavljanje}, ако се уписује његова копија. */
+		private final Javljanja izvorno;
+		/** id и верзија измењеног јављања пре покушаја у пакету. */
+		private Long idPre;
+		private Integer verzijaPre;
+
+		ZapisJavljanja(Javljanja javljanje) {
+			this(javljanje, false, null, null);
+		}
+
+		ZapisJavljanja(Javljanja javljanje, String eventData) {
+			this(javljanje, true, eventData, null);
+		}
+
+		private ZapisJavljanja(Javljanja javljanje, boolean izmena, String eventData, Javljanja izvorno) {
+			this.javljanje = javljanje;
+			this.izmena = izmena;
+			this.eventData = eventData;
+			this.izvorno = izvorno;
+		}
+
+		void upisi() {
+			if (izmena) {
+				idPre = javljanje.getId();
+				verzijaPre = javljanje.getVersion();
+				javljanje.setEventData(eventData);
+				Servis.javljanjeServis.izmeniJavljanja(javljanje);
+			} else {
+				Servis.javljanjeServis.unesiJavljanja(javljanje);
+				if (izvorno != null) {
+					// измена која чека у реду иде на јављање које је вратио унос
+					izvorno.setId(javljanje.getId());
+					izvorno.setVersion(javljanje.getVersion());
+				}
+			}
+		}
+
+		/**
+		 * Унос после враћеног пакета иде као нова копија. Измена остаје на
+		 * враћеном јављању: ако је поновљени унос испред ње дао нов id, иде на
+		 * њега, иначе се враћа верзија коју је повећала враћена сесија.
+		 */
+		ZapisJavljanja zaPonovo() {
+			if (izmena) {
+				if (idPre != null && idPre.equals(javljanje.getId())) {
+					javljanje.setVersion(verzijaPre);
+				}
+				return this;
+			}
+			Javljanja original = izvorno != null ? izvorno : javljanje;
+			return new ZapisJavljanja(kopija(original), false, null, original);
+		}
+
+		/** Унет ред иде у збирове; измена не мења број ни брзине. */
+		void uZbir() {
+			Zbirovi zbirovi = Servis.zbirovi;
+			if (!izmena && zbirovi != null) {
+				try {
+					zbirovi.dodaj(javljanje);
+				} catch (RuntimeException e) {
+					// ред је већ уписан - грешка збира не сме да покрене поновни упис пакета
+					logger.warn("Zbir javljanja nije ažuriran: {}", e.toString());
+				}
+			}
+		}
+	}
+
+	private static void uTransakciji(TransactionTemplate transakcija, Runnable posao) {
+		transakcija.execute(status -> {
+			posao.run();
+			return null;
+		});
+	}
+}
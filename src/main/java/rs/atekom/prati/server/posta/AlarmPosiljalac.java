@@ -0,0 +1,49 @@
+package rs.atekom.prati.server.posta;
+
+import java.util.List;
+
+import pratiBaza.pomocne.Mail;
+
+/**
+ * {@link Posiljalac} за аларме преко {@link Mail}: једна порука задржава
+ * стари облик мејла, а више порука истом примаоцу иде као збирни мејл.
+ */
+public class AlarmPosiljalac implements Posiljalac {
+
+	private static final String POZDRAV = "Поштовани,";
+	private static final String POTPIS = String.join("\n"
+			, " "
+			, "Порука је аутоматски генерисана, немојте одговарати."
+			, "Атеком доо, www.atekom.rs prati@atekom.rs");
+
+	private final Mail posta;
+
+	public AlarmPosiljalac(Mail posta) {
+		this.posta = posta;
+	}
+
+	@Override
+	public void posalji(String primalac, List<Poruka> poruke) {
+		posta.posaljiMail(primalac, naslov(poruke), tekst(poruke));
+	}
+
+	static String naslov(List<Poruka> poruke) {
+		if (poruke.size() == 1) {
+			return poruke.get(0).getNaslov();
+		}
+		return "Праћење возила - " + poruke.size() + " аларма";
+	}
+
+	static String tekst(List<Poruka> poruke) {
+		StringBuilder sb = new StringBuilder(POZDRAV).append('\n');
+		if (poruke.size() == 1) {
+			sb.append(poruke.get(0).getTekst());
+		} else {
+			sb.append("У претходном периоду активирано је ").append(poruke.size()).append(" аларма:");
+			for (Poruka poruka : poruke) {
+				sb.append("\n\n").append(poruka.getTekst());
+			}
+		}
+		return sb.append('\n').append(POTPIS).toString();
+	}
+}
@@ -0,0 +1,35 @@
+package rs.atekom.prati.server.posta;
+
+/**
+ * Једно обавештење за слање: прималац, наслов и текст ставке
+ * (без поздрава и потписа - њих додаје {@link Posiljalac}).
+ */
+public final class Poruka {
+
+	private final String primalac;
+	private final String naslov;
+	private final String tekst;
+
+	public Poruka(String primalac, String naslov, String tekst) {
+		this.primalac = primalac;
+		this.naslov = naslov;
+		this.tekst = tekst;
+	}
+
+	public String getPrimalac() {
+		return primalac;
+	}
+
+	public String getNaslov() {
+		return naslov;
+	}
+
+	public String getTekst() {
+		return tekst;
+	}
+
+	@Override
+	public String toString() {
+		return primalac + ": " + naslov;
+	}
+}
@@ -0,0 +1,13 @@
+package rs.atekom.prati.server.posta;
+
+import java.util.List;
+
+/**
+ * Слање једног поштанског пакета једном примаоцу. Пакет са више порука
+ * шаље се као један збирни мејл. Изузетак значи да пакет треба поновити.
+ */
+@FunctionalInterface
+public interface Posiljalac {
+
+	void posalji(String primalac, List<Poruka> poruke) throws Exception;
+}
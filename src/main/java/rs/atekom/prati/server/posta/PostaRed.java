@@ -0,0 +1,275 @@
+package rs.atekom.prati.server.posta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Асинхрони ред обавештења: нити конекција само предају поруку,
+ * а слање ради мали пул позадинских нити.
+ *
+ * <ul>
+ *   <li><b>збирне поруке</b> - прва порука примаоцу иде одмах; све што стигне
+ *   у наредних {@code prozorMs} спаја се у један мејл на крају прозора,
+ *   па налет аларма (нпр. улазак/излазак из зона) отвара једну SMTP сесију;</li>
+ *   <li><b>понављање</b> - неуспешан пакет се понавља до {@code maxPokusaja}
+ *   пута, са паузом која се удвостручује;</li>
+ *   <li><b>ограничење</b> - највише {@code kapacitet} порука чека на слање,
+ *   вишак се одбацује уз упозорење у логу.</li>
+ * </ul>
+ */
+public class PostaRed {
+
+	private static final Logger logger = LoggerFactory.getLogger(PostaRed.class);
+
+	private final Posiljalac posiljalac;
+	private final ScheduledThreadPoolExecutor izvrsilac;
+	private final ConcurrentMap<String, Sanduce> sanducici = new ConcurrentHashMap<>();
+	private final int kapacitet;
+	private final long prozorMs;
+	private final int maxPokusaja;
+	private final long pauzaMs;
+	private volatile boolean zatvoren;
+
+	private final AtomicInteger naCekanju = new AtomicInteger();
+	private final AtomicInteger uPonavljanju = new AtomicInteger();
+	private final AtomicLong primljeno = new AtomicLong();
+	private final AtomicLong poslato = new AtomicLong();
+	private final AtomicLong mejlova = new AtomicLong();
+	private final AtomicLong spojeno = new AtomicLong();
+	private final AtomicLong ponovljeno = new AtomicLong();
+	private final AtomicLong neuspesno = new AtomicLong();
+	private final AtomicLong odbaceno = new AtomicLong();
+	private final AtomicLong ukupnoNanos = new AtomicLong();
+	private volatile long najduziNanos;
+
+	/** Поруке једног примаоца које чекају крај прозора. */
+	private static final class Sanduce {
+		final List<Poruka> poruke = new ArrayList<>();
+		long poslednjeSlanje = Long.MIN_VALUE / 2;
+		boolean zakazano;
+	}
+
+	/**
+	 * @param posiljalac  стварно слање
+	 * @param niti        број нити за слање
+	 * @param kapacitet   највише порука које чекају
+	 * @param prozorMs    прозор у коме се поруке истом примаоцу спајају
+	 * @param maxPokusaja највише покушаја по пакету
+	 * @param pauzaMs     пауза пре првог понављања
+	 */
+	public PostaRed(Posiljalac posiljalac, int niti, int kapacitet, long prozorMs, int maxPokusaja, long pauzaMs) {
+		this.posiljalac = posiljalac;
+		this.kapacitet = kapacitet;
+		this.prozorMs = Math.max(0, prozorMs);
+		this.maxPokusaja = Math.max(1, maxPokusaja);
+		this.pauzaMs = Math.max(1, pauzaMs);
+		AtomicInteger brojac = new AtomicInteger();
+		this.izvrsilac = new ScheduledThreadPoolExecutor(Math.max(1, niti), r -> {
+			Thread t = new Thread(r, "posta-" + brojac.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.izvrsilac.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		this.izvrsilac.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Предаје поруку за слање; не блокира.
+	 *
+	 * @return false ако је ред пун или затворен и порука је одбачена
+	 */
+	public boolean dodaj(Poruka poruka) {
+		if (poruka == null || poruka.getPrimalac() == null || poruka.getPrimalac().trim().isEmpty()) {
+			return false;
+		}
+		if (zatvoren) {
+			odbaceno.incrementAndGet();
+			return false;
+		}
+		if (naCekanju.incrementAndGet() > kapacitet) {
+			naCekanju.decrementAndGet();
+			odbaceno.incrementAndGet();
+			logger.warn("Pošta: poruka odbačena ({}), na čekanju={}", poruka, naCekanju.get());
+			return false;
+		}
+		primljeno.incrementAndGet();
+		String primalac = poruka.getPrimalac().trim();
+		Sanduce sanduce = sanducici.computeIfAbsent(primalac, k -> new Sanduce());
+		long odlaganje;
+		synchronized (sanduce) {
+			sanduce.poruke.add(poruka);
+			if (sanduce.zakazano) {
+				return true;
+			}
+			sanduce.zakazano = true;
+			odlaganje = Math.max(0, sanduce.poslednjeSlanje + prozorMs - System.currentTimeMillis());
+		}
+		try {
+			izvrsilac.schedule(() -> isprazni(primalac, sanduce), odlaganje, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// затварање је у току - zatvori() ће испразнити сандуче
+		}
+		return true;
+	}
+
+	private void isprazni(String primalac, Sanduce sanduce) {
+		List<Poruka> paket = preuzmi(sanduce);
+		if (!paket.isEmpty()) {
+			posalji(primalac, paket, 1);
+		}
+	}
+
+	private List<Poruka> preuzmi(Sanduce sanduce) {
+		List<Poruka> paket;
+		synchronized (sanduce) {
+			paket = new ArrayList<>(sanduce.poruke);
+			sanduce.poruke.clear();
+			sanduce.zakazano = false;
+			if (!paket.isEmpty()) {
+				sanduce.poslednjeSlanje = System.currentTimeMillis();
+			}
+		}
+		naCekanju.addAndGet(-paket.size());
+		return paket;
+	}
+
+	private void posalji(String primalac, List<Poruka> paket, int pokusaj) {
+		long pocetak = System.nanoTime();
+		try {
+			posiljalac.posalji(primalac, paket);
+		} catch (Exception e) {
+			if (pokusaj < maxPokusaja && !zatvoren) {
+				long pauza = pauzaMs << Math.min(pokusaj - 1, 16);
+				logger.warn("Pošta za {} ({} poruka) nije poslata, pokušaj {}/{}, ponovo za {}ms: {}",
+						primalac, paket.size(), pokusaj, maxPokusaja, pauza, e.getMessage());
+				try {
+					izvrsilac.schedule(() -> ponovi(primalac, paket, pokusaj + 1), pauza, TimeUnit.MILLISECONDS);
+					ponovljeno.incrementAndGet();
+					uPonavljanju.incrementAndGet();
+					return;
+				} catch (RejectedExecutionException re) {
+					// затворено у међувремену - пада у неуспешне
+				}
+			}
+			neuspesno.addAndGet(paket.size());
+			logger.error("Pošta za {} ({} poruka) nije poslata posle {} pokušaja", primalac, paket.size(), pokusaj, e);
+			return;
+		}
+		long trajanje = System.nanoTime() - pocetak;
+		ukupnoNanos.addAndGet(trajanje);
+		if (trajanje > najduziNanos) {
+			najduziNanos = trajanje;
+		}
+		mejlova.incrementAndGet();
+		poslato.addAndGet(paket.size());
+		spojeno.addAndGet(paket.size() - 1);
+	}
+
+	private void ponovi(String primalac, List<Poruka> paket, int pokusaj) {
+		uPonavljanju.decrementAndGet();
+		posalji(primalac, paket, pokusaj);
+	}
+
+	/**
+	 * Зауставља ред: чека слања у току, а поруке које чекају крај прозора
+	 * шаље одмах, у нити позиваоца, по један покушај. Пакети који чекају
+	 * понављање се одбацују.
+	 */
+	public void zatvori(long timeoutMs) {
+		zatvoren = true;
+		izvrsilac.shutdown();
+		try {
+			if (!izvrsilac.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+				logger.warn("Pošta: slanje u toku nije završeno za {}ms", timeoutMs);
+				izvrsilac.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		sanducici.forEach((primalac, sanduce) -> {
+			List<Poruka> paket = preuzmi(sanduce);
+			if (!paket.isEmpty()) {
+				posalji(primalac, paket, maxPokusaja);
+			}
+		});
+		int izgubljeno = uPonavljanju.getAndSet(0);
+		if (izgubljeno > 0) {
+			logger.warn("Pošta: {} paketa u ponavljanju odbačeno pri zaustavljanju", izgubljeno);
+		}
+		logger.info("Pošta zaustavljena: {}", stanje());
+	}
+
+	public void zatvori() {
+		zatvori(5_000);
+	}
+
+	// ════════════════════════════════════════════════════════════
+	// БРОЈАЧИ
+	// ════════════════════════════════════════════════════════════
+
+	/** Поруке које чекају крај прозора. */
+	public int getNaCekanju() {
+		return naCekanju.get();
+	}
+
+	public int getUPonavljanju() {
+		return uPonavljanju.get();
+	}
+
+	public long getPrimljeno() {
+		return primljeno.get();
+	}
+
+	/** Послате поруке (ставке), укључујући оне у збирним мејловима. */
+	public long getPoslato() {
+		return poslato.get();
+	}
+
+	/** Број послатих мејлова (SMTP слања). */
+	public long getMejlova() {
+		return mejlova.get();
+	}
+
+	/** Поруке уштеђене спајањем у збирне мејлове. */
+	public long getSpojeno() {
+		return spojeno.get();
+	}
+
+	public long getPonovljeno() {
+		return ponovljeno.get();
+	}
+
+	public long getNeuspesno() {
+		return neuspesno.get();
+	}
+
+	public long getOdbaceno() {
+		return odbaceno.get();
+	}
+
+	public double getProsecnoSlanjeMs() {
+		long n = mejlova.get();
+		return n == 0 ? 0 : ukupnoNanos.get() / 1_000_000.0 / n;
+	}
+
+	public double getNajduzeSlanjeMs() {
+		return najduziNanos / 1_000_000.0;
+	}
+
+	public String stanje() {
+		return String.format("čeka=%d, primljeno=%d, poslato=%d u %d mejlova, ponovljeno=%d, neuspešno=%d, "
+				+ "odbačeno=%d, slanje prosečno=%.1fms, najduže=%.1fms",
+				getNaCekanju(), getPrimljeno(), getPoslato(), getMejlova(), getPonovljeno(), getNeuspesno(),
+				getOdbaceno(), getProsecnoSlanjeMs(), getNajduzeSlanjeMs());
+	}
+}
@@ -2,9 +2,9 @@ package rs.atekom.prati.server.ruptela;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
-import java.util.Arrays;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.xml.bind.DatatypeConverter;
@@ -17,6 +17,9 @@ import pratiBaza.tabele.Obd;
 import rs.atekom.prati.server.JavljanjeObd;
 import rs.atekom.prati.server.OpstiServer;
 import rs.atekom.prati.server.OpstiThread;
+import rs.atekom.prati.server.nio.FrameAccumulator;
+import rs.atekom.prati.server.nio.FrameDecoder;
+import rs.atekom.prati.server.nio.LengthPrefixedFrameDecoder;
 
 /**
  * RUPTELA protocol handler thread.
@@ -28,8 +31,10 @@ import rs.atekom.prati.server.OpstiThread;
  *   <li><b>Проширени (0x44)</b> - Extended records са додатним OBD подацима</li>
  * </ul>
  * 
- * <p><b>КРИТИЧНО:</b> ACK одговор се шаље тек након што је податак
- * успешно обрађен и снимљен у базу!</p>
+ * <p><b>КРИТИЧНО:</b> ACK одговор се шаље тек када је податак сачуван - у
+ * {@link rs.atekom.prati.server.dnevnik.DnevnikOkvira дневнику оквира} ако је
+ * укључен (одмах по пријему, пре обраде), иначе после обраде и предаје за упис
+ * у базу. Уређај податак брише тек после ACK-а.</p>
  * 
  * @author Atekom
  * @version 2.0
@@ -43,29 +48,77 @@ public class RuptelaOpstiThread extends OpstiThread {
 	private static final int COMMAND_STANDARD = 0x01;   // Стандардни протокол
 	private static final int COMMAND_EXTENDED = 0x44;   // Проширени протокол (68 decimal)
 	
-	// ДОДАТ: Offset константе за парсирање
-	private static final int OFFSET_IMEI = 16;
-	private static final int OFFSET_COMMAND = 2;
-	private static final int MAX_PACKET_LENGTH = 1024; // payload length (without length field and CRC)
+	// ДОДАТ: Offset константе за парсирање (у бајтовима пакета)
+	private static final int OFFSET_IMEI = 2;   // после packet length (2B)
+	private static final int IMEI_BYTES = 8;
+	// Делови записа за лог, редом по кодовима из RuptelaProtokol.krajZapisa()
+	private static final String[] DELOVI_ZAPISA = {"record header", "brJedan", "brDva", "brCetiri", "brOsam", "ceo record"};
+	public static final int MAX_PACKET_LENGTH = 1024; // payload length (without length field and CRC)
+	
+	// Brojač paketa u NIO režimu (u blokirajućem je lokalna promenljiva u run())
+	private int nioPackets = 0;
+	// Тренутак пријема пакета који се обрађује, за кашњење ACK-а
+	private long prijemNanos;
+	// ACK за пакет који се обрађује је већ послат (оквир је у дневнику)
+	private boolean potvrdjeno;
 
 	public RuptelaOpstiThread(LinkedBlockingQueue<Socket> queue, OpstiServer server) {
 		super(queue, server);
 	}
+	
+	/**
+	 * NIO режим: оквир је комплетан пакет (length + payload + CRC) који је
+	 * већ издвојио {@link rs.atekom.prati.server.nio.LengthPrefixedFrameDecoder}.
+	 */
+	@Override
+	public boolean handleFrame(byte[] frame) {
+		return processPacket(ByteBuffer.wrap(frame), getClientId(), ++nioPackets);
+	}
+	
+	/**
+	 * Декодер RUPTELA пакета - исти за блокирајући и NIO режим.
+	 */
+	public static FrameDecoder frameDecoder() {
+		return new LengthPrefixedFrameDecoder(MAX_PACKET_LENGTH);
+	}
 
 	// ACK is sent after IMEI is recognized to avoid device resends; invalid IMEI ends the connection.
 	private void sendAckSafe(String clientId, String reason) {
+		if (posaljiAck(clientId)) {
+			logger.debug("RUPTELA [{}]: ACK poslat ({})", clientId, reason);
+		}
+	}
+	
+	/**
+	 * ACK за пакет који се обрађује, највише једном по пакету.
+	 * 
+	 * @return false ако слање није успело
+	 */
+	private boolean posaljiAck(String clientId) {
+		if (potvrdjeno) {
+			return true;
+		}
 		try {
 			out.write(odg);
 			out.flush();
-			logger.debug("RUPTELA [{}]: ACK poslat ({})", clientId, reason);
+			metrike.ack(prijemNanos);
+			potvrdjeno = true;
+			return true;
 		} catch (IOException e) {
-			logger.error("RUPTELA [{}]: Greška slanja ACK ({})", clientId, reason, e);
+			logger.error("RUPTELA [{}]: Greška slanja ACK", clientId, e);
+			return false;
 		}
 	}
 	
-	private void logPacketFailure(String clientId, String reason, byte[] packet) {
+	private void logPacketFailure(String clientId, String reason, ByteBuffer packet) {
+		metrike.greskaParsiranja();
 		String imei = kodUredjaja != null ? kodUredjaja : "unknown";
-		String packetHex = packet != null ? DatatypeConverter.printHexBinary(packet) : "null";
+		String packetHex = "null";
+		if (packet != null) {
+			byte[] bytes = new byte[packet.remaining()];
+			packet.duplicate().get(bytes);
+			packetHex = DatatypeConverter.printHexBinary(bytes);
+		}
 		logger.warn("RUPTELA [{}]: Neobrađen paket (imei={}, razlog={}): {}", clientId, imei, reason, packetHex);
 	}
 	
@@ -89,7 +142,7 @@ public class RuptelaOpstiThread extends OpstiThread {
 			
 			int br = 0;
 			int totalPackets = 0;
-			java.io.ByteArrayOutputStream packetBuffer = new java.io.ByteArrayOutputStream();
+			FrameAccumulator akumulator = new FrameAccumulator(frameDecoder(), FrameAccumulator.DEFAULT_CAPACITY);
 			
 			// ═══════════════════════════════════════════════════════════
 			// ГЛАВНА ПЕТЉА - ОБРАДА ПОДАТАКА (НЕПРОМЕЊЕНО!)
@@ -97,35 +150,19 @@ public class RuptelaOpstiThread extends OpstiThread {
 			
 			while (!isStopped() && !socket.isClosed()) {
 				
-				// Читање података са socket-a
-				br = input.read(data, 0, data.length);
+				// Читање података са socket-a директно у бафер конекције
+				br = akumulator.readFrom(input);
 				
 				if (br <= 0) {
 					logger.debug("RUPTELA [{}]: Kraj stream-a (pročitano {} bajtova)", clientId, br);
 					break;
 				}
 				
-				packetBuffer.write(data, 0, br);
-				byte[] bufferBytes = packetBuffer.toByteArray();
-				int consumed = 0;
 				boolean stopRequested = false;
+				ByteBuffer packet;
 				
-				while (bufferBytes.length - consumed >= 4) {
-					int length = ((bufferBytes[consumed] & 0xFF) << 8) | (bufferBytes[consumed + 1] & 0xFF);
-					if (length <= 0 || length > MAX_PACKET_LENGTH) {
-						logger.warn("RUPTELA [{}]: Nevalidna dužina paketa: {}", clientId, length);
-						// Fallback: pomeri se za jedan bajt i pokušaj ponovo da uhvatiš sledeći paket.
-						consumed += 1;
-						continue;
-					}
-					
-					int totalLen = 2 + length + 2; // length (2B) + payload + CRC16 (2B)
-					if (bufferBytes.length - consumed < totalLen) {
-						break; // čekamo ostatak paketa
-					}
-					
-					byte[] packet = Arrays.copyOfRange(bufferBytes, consumed, consumed + totalLen);
-					consumed += totalLen;
+				// Пакети су погледи на бафер - без копирања
+				while ((packet = akumulator.nextFrame()) != null) {
 					totalPackets++;
 					
 					if (!processPacket(packet, clientId, totalPackets)) {
@@ -134,11 +171,6 @@ public class RuptelaOpstiThread extends OpstiThread {
 					}
 				}
 				
-				if (consumed > 0) {
-					packetBuffer.reset();
-					packetBuffer.write(bufferBytes, consumed, bufferBytes.length - consumed);
-				}
-				
 				if (stopRequested) {
 					break;
 				}
@@ -189,164 +221,127 @@ public class RuptelaOpstiThread extends OpstiThread {
 		}
 	}
 
-	private boolean processPacket(byte[] packet, String clientId, int totalPackets) {
+	/**
+	 * @param paket комплетан пакет (length + payload + CRC), position 0; најчешће поглед на бафер конекције
+	 */
+	private boolean processPacket(ByteBuffer paket, String clientId, int totalPackets) {
 		String failureReason = null;
-		if (packet == null || packet.length < 4) {
-			logger.warn("RUPTELA [{}]: Пакет прекратак ({} bajtova)", clientId, packet != null ? packet.length : 0);
-			logPacketFailure(clientId, "paket prekratak", packet);
+		prijemNanos = System.nanoTime();
+		long vremePrijema = System.currentTimeMillis();
+		potvrdjeno = false;
+		metrike.okvir();
+		if (paket == null || paket.remaining() < 4) {
+			logger.warn("RUPTELA [{}]: Пакет прекратак ({} bajtova)", clientId, paket != null ? paket.remaining() : 0);
+			logPacketFailure(clientId, "paket prekratak", paket);
 			return true;
 		}
 
-		byte[] payload = packet.length > 2 ? Arrays.copyOf(packet, packet.length - 2) : packet;
-		if (packet.length >= 4) {
-			int expectedCrc = ((packet[packet.length - 2] & 0xFF) << 8) | (packet[packet.length - 1] & 0xFF);
-			int crcExcludingLength = calculateCrc16Kermit(Arrays.copyOfRange(packet, 2, packet.length - 2));
-			int crcIncludingLength = calculateCrc16Kermit(payload);
-			if (expectedCrc != crcExcludingLength && expectedCrc != crcIncludingLength) {
-				logger.warn("RUPTELA [{}]: CRC mismatch (expected=0x{}, exclLen=0x{}, inclLen=0x{})", clientId,
-				            Integer.toHexString(expectedCrc).toUpperCase(),
-				            Integer.toHexString(crcExcludingLength).toUpperCase(),
-				            Integer.toHexString(crcIncludingLength).toUpperCase());
-			}
+		// Payload = length (2B) + podaci, bez CRC-a; čita se direktno iz bajtova paketa
+		int duzina = paket.limit();
+		int kraj = duzina - 2;
+		int expectedCrc = paket.getShort(kraj) & 0xFFFF;
+		byte[] niz = paket.array();
+		int pocetakNiza = paket.arrayOffset();
+		int crcExcludingLength = calculateCrc16Kermit(niz, pocetakNiza + 2, duzina - 4);
+		int crcIncludingLength = calculateCrc16Kermit(niz, pocetakNiza, kraj);
+		if (expectedCrc != crcExcludingLength && expectedCrc != crcIncludingLength) {
+			metrike.crcGreska();
+			logger.warn("RUPTELA [{}]: CRC mismatch (expected=0x{}, exclLen=0x{}, inclLen=0x{})", clientId,
+			            Integer.toHexString(expectedCrc).toUpperCase(),
+			            Integer.toHexString(crcExcludingLength).toUpperCase(),
+			            Integer.toHexString(crcIncludingLength).toUpperCase());
 		}
-		offset = 0;
 		// If IMEI was already parsed on this connection, always ACK even on partial/invalid data.
 		boolean imeiKnown = kodUredjaja != null && !kodUredjaja.isEmpty();
-		ulaz = DatatypeConverter.printHexBinary(payload);
 
 		// Debug logging (само први 3 и сваки 100-ти пакет)
 		if (totalPackets <= 3 || totalPackets % 100 == 0) {
-			logger.debug("RUPTELA [{}]: Primljen paket #{} ({} bajtova)", clientId, totalPackets, payload.length);
+			logger.debug("RUPTELA [{}]: Primljen paket #{} ({} bajtova)", clientId, totalPackets, kraj);
 		}
 
-		// Провера минималне дужине пакета
-		if (ulaz.length() < 4) {
-			logger.warn("RUPTELA [{}]: Пакет прекратак ({} hex карактера, минимално 4)",
-			            clientId, ulaz.length());
-			if (imeiKnown) {
-				sendAckSafe(clientId, "prekratak paket");
-			}
-			logPacketFailure(clientId, "prekratak paket (hex)", packet);
-			return true;
-		}
-
-		// Прескачемо packet length (2B = 4 hex chars)
-		offset = 4;
+		// Прескачемо packet length (2B)
+		offset = OFFSET_IMEI;
 
 		// Pronalaženje uređaja (prvi put)
 		if (uredjaj == null) {
 			// Провера да ли има довољно података за IMEI
-			if (ulaz.length() < offset + OFFSET_IMEI) {
-				logger.warn("RUPTELA [{}]: Недостатак података за IMEI (потребно {} карактера, доступно {})",
-				            clientId, offset + OFFSET_IMEI, ulaz.length());
-				logPacketFailure(clientId, "nedostatak podataka za IMEI", packet);
+			if (kraj < offset + IMEI_BYTES) {
+				logger.warn("RUPTELA [{}]: Недостатак података за IMEI (потребно {} бајтова, доступно {})",
+				            clientId, offset + IMEI_BYTES, kraj);
+				logPacketFailure(clientId, "nedostatak podataka za IMEI", paket);
 				return false; // Нема валидан IMEI -> прекини конекцију
 			}
 
-			try {
-				Long imei = Long.parseLong(ulaz.substring(offset, offset + OFFSET_IMEI), 16);
-
-				// Валидација IMEI-ја
-				if (imei <= 0 || imei > 999999999999999L) {
-					logger.warn("RUPTELA [{}]: Невалидан IMEI: {}", clientId, imei);
-					logPacketFailure(clientId, "nevalidan IMEI", packet);
-					return false; // Невалидан IMEI -> прекини конекцију
-				}
-
-				kodUredjaja = imei.toString();
-				imeiKnown = true;
+			long imei = paket.getLong(offset);
 
-				logger.debug("RUPTELA [{}]: Pronalaženje uređaja IMEI={}", clientId, kodUredjaja);
-				pronadjiPostavi(kodUredjaja);
-			} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-				logger.error("RUPTELA [{}]: Грешка парсирања IMEI-ја: {}", clientId, e.getMessage());
-				logPacketFailure(clientId, "greska parsiranja IMEI", packet);
+			// Валидација IMEI-ја
+			if (imei <= 0 || imei > 999999999999999L) {
+				logger.warn("RUPTELA [{}]: Невалидан IMEI: {}", clientId, imei);
+				logPacketFailure(clientId, "nevalidan IMEI", paket);
 				return false; // Невалидан IMEI -> прекини конекцију
 			}
+
+			kodUredjaja = Long.toString(imei);
+			imeiKnown = true;
+
+			logger.debug("RUPTELA [{}]: Pronalaženje uređaja IMEI={}", clientId, kodUredjaja);
+			pronadjiPostavi(kodUredjaja);
 		}
 
-		offset += OFFSET_IMEI; // offset = 4 + 16 = 20
+		offset += IMEI_BYTES; // offset = 2 + 8 = 10
+
+		// Оквир трајно у дневнику -> ACK одмах; обрада и упис у базу не задржавају уређај,
+		// а ако не успеју, оквир се може поново обрадити из дневника
+		if (zapisiUDnevnik("RUPTELA", paket.duplicate(), vremePrijema)) {
+			sendAckSafe(clientId, "okvir u dnevniku");
+		}
 
 		// Čitanje komande (command ID)
-		if (ulaz.length() < offset + OFFSET_COMMAND) {
-			logger.warn("RUPTELA [{}]: Недостатак података за команду (потребно {} карактера, доступно {})",
-			            clientId, offset + OFFSET_COMMAND, ulaz.length());
+		if (kraj < offset + 1) {
+			logger.warn("RUPTELA [{}]: Недостатак података за команду (потребно {} бајтова, доступно {})",
+			            clientId, offset + 1, kraj);
 			if (imeiKnown) {
 				sendAckSafe(clientId, "nema dovoljno podataka za komandu");
 			}
-			logPacketFailure(clientId, "nedostatak podataka za komandu", packet);
+			logPacketFailure(clientId, "nedostatak podataka za komandu", paket);
 			return true;
 		}
 
-		int komanda;
-		try {
-			komanda = Integer.parseInt(ulaz.substring(offset, offset + OFFSET_COMMAND), 16);
-		} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-			logger.error("RUPTELA [{}]: Грешка парсирања команде: {}", clientId, e.getMessage());
-			if (imeiKnown) {
-				sendAckSafe(clientId, "greska parsiranja komande");
-			}
-			logPacketFailure(clientId, "greska parsiranja komande", packet);
-			return true;
-		}
+		int komanda = paket.get(offset) & 0xFF;
 
 		logger.trace("RUPTELA [{}]: Komanda={} (0x{})",
 		             clientId, komanda, Integer.toHexString(komanda).toUpperCase());
 
 		if (komanda == COMMAND_STANDARD || komanda == COMMAND_EXTENDED) {
-			if (ulaz.length() < offset + 6) { // Command (2) + Records left (2) + Number of records (2)
-				logger.warn("RUPTELA [{}]: Недостатак података за Records left и Number of records (потребно {} карактера, доступно {})",
-				            clientId, offset + 6, ulaz.length());
+			if (kraj < offset + 3) { // Command (1) + Records left (1) + Number of records (1)
+				logger.warn("RUPTELA [{}]: Недостатак података за Records left и Number of records (потребно {} бајтова, доступно {})",
+				            clientId, offset + 3, kraj);
 				if (imeiKnown) {
 					sendAckSafe(clientId, "nema dovoljno podataka za records left/number of records");
 				}
-				logPacketFailure(clientId, "nedostatak podataka za records left/number of records", packet);
+				logPacketFailure(clientId, "nedostatak podataka za records left/number of records", paket);
 				return true;
 			}
 
-			offset += OFFSET_COMMAND; // Прескочи Command (2 hex chars)
-
-			int recordsLeft = -1;
-			try {
-				recordsLeft = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-			} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-				logger.error("RUPTELA [{}]: Грешка парсирања Records left: {}", clientId, e.getMessage());
-				if (imeiKnown) {
-					sendAckSafe(clientId, "greska parsiranja records left");
-				}
-				logPacketFailure(clientId, "greska parsiranja records left", packet);
-				return true;
-			}
-
-			offset += 2; // Прескочи Records left
-
-			int ukZapisa = -1;
-			try {
-				String numRecordsHex = ulaz.substring(offset, offset + 2);
-				ukZapisa = Integer.parseInt(numRecordsHex, 16);
+			offset += 1; // Прескочи Command
 
-				if (ukZapisa <= 0 || ukZapisa > 255) {
-					logger.warn("RUPTELA [{}]: Невалидан број записа: {} (очекивано 1-255)", clientId, ukZapisa);
-					if (imeiKnown) {
-						sendAckSafe(clientId, "nevalidan broj zapisa");
-					}
-					logPacketFailure(clientId, "nevalidan broj zapisa", packet);
-					return true;
-				}
+			int recordsLeft = paket.get(offset) & 0xFF;
+			offset += 1; // Прескочи Records left
 
-				logger.debug("RUPTELA [{}]: Number of records: {}, Records left: {}",
-				            clientId, ukZapisa, recordsLeft);
-			} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-				logger.error("RUPTELA [{}]: Грешка парсирања Number of records на offset {}: {}",
-				            clientId, offset, e.getMessage());
+			int ukZapisa = paket.get(offset) & 0xFF;
+			if (ukZapisa <= 0) {
+				logger.warn("RUPTELA [{}]: Невалидан број записа: {} (очекивано 1-255)", clientId, ukZapisa);
 				if (imeiKnown) {
-					sendAckSafe(clientId, "greska parsiranja number of records");
+					sendAckSafe(clientId, "nevalidan broj zapisa");
 				}
-				logPacketFailure(clientId, "greska parsiranja number of records", packet);
+				logPacketFailure(clientId, "nevalidan broj zapisa", paket);
 				return true;
 			}
 
-			offset += 2; // Прескочи Number of records
+			logger.debug("RUPTELA [{}]: Number of records: {}, Records left: {}",
+			            clientId, ukZapisa, recordsLeft);
+
+			offset += 1; // Прескочи Number of records
 
 			if (recordsLeft > 0) {
 				logger.debug("RUPTELA [{}]: Records left={} (уређај има још {} записа након овог пакета)",
@@ -365,98 +360,17 @@ public class RuptelaOpstiThread extends OpstiThread {
 
 					while (brZapisa < ukZapisa) {
 						int pocetak = offset;
-						
-						if (ulaz.length() < offset + 46) {
-							logger.warn("RUPTELA [{}]: Недостатак података за record header (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za record header";
-							break;
-						}
-						offset += 46;
-
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brJedan (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brJedan";
-							break;
-						}
-						int brJedan;
-						try {
-							brJedan = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brJedan (запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brJedan";
-							break;
-						}
-						offset += 2;
-						offset += brJedan * 4;
-
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brDva (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brDva";
-							break;
-						}
-						int brDva;
-						try {
-							brDva = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brDva (запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brDva";
-							break;
-						}
-						offset += 2;
-						offset += brDva * 6;
-
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brCetiri (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brCetiri";
-							break;
-						}
-						int brCetiri;
-						try {
-							brCetiri = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brCetiri (запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brCetiri";
+						int krajZapisa = RuptelaProtokol.krajZapisa(paket, pocetak, kraj, false);
+						if (krajZapisa < 0) {
+							logger.warn("RUPTELA [{}]: Недостатак података за {} (запис {}/{})",
+							            clientId, deoZapisa(krajZapisa), brZapisa + 1, ukZapisa);
+							failureReason = "nedostatak podataka za " + deoZapisa(krajZapisa);
 							break;
 						}
-						offset += 2;
-						offset += brCetiri * 10;
+						offset = krajZapisa;
 
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brOsam (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brOsam";
-							break;
-						}
-						int brOsam;
 						try {
-							brOsam = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brOsam (запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brOsam";
-							break;
-						}
-						offset += 2;
-						offset += brOsam * 18;
-
-						if (ulaz.length() < offset) {
-							logger.warn("RUPTELA [{}]: Недостатак података за цео record (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za ceo record";
-							break;
-						}
-
-						try {
-							JavljanjeObd javljanjeObd = server.rProtokol.vratiJavljanje(
-								0, objekat, ulaz.substring(pocetak, offset)
-							);
+							JavljanjeObd javljanjeObd = server.rProtokol.vratiJavljanje(objekat, paket, pocetak, krajZapisa);
 
 							if (javljanjeObd != null && javljanjeObd.getJavljanje() != null) {
 								obradaJavljanja(javljanjeObd.getJavljanje(), javljanjeObd.getObd());
@@ -473,16 +387,12 @@ public class RuptelaOpstiThread extends OpstiThread {
 					}
 
 					if (failureReason != null) {
-						logPacketFailure(clientId, failureReason, packet);
+						logPacketFailure(clientId, failureReason, paket);
 					}
-					try {
-						out.write(odg);
-						out.flush();
-						logger.trace("RUPTELA [{}]: ACK poslat за {} zapisa", clientId, brZapisa);
-					} catch (IOException e) {
-						logger.error("RUPTELA [{}]: Greška slanja ACK", clientId, e);
+					if (!posaljiAck(clientId)) {
 						return false;
 					}
+					logger.trace("RUPTELA [{}]: ACK poslat за {} zapisa", clientId, brZapisa);
 
 				} else {
 					logger.trace("RUPTELA [{}]: Obrada proširenog protokola", clientId);
@@ -492,117 +402,36 @@ public class RuptelaOpstiThread extends OpstiThread {
 					brZapisa = 0;
 
 					while (brZapisa < ukZapisa) {
-						if (ulaz.length() < offset + 12) {
+						if (kraj < offset + 6) {
 							logger.warn("RUPTELA [{}]: Недостатак података за проширени record header (запис {}/{})",
 							            clientId, brZapisa + 1, ukZapisa);
 							failureReason = "nedostatak podataka za prosireni record header";
 							break;
 						}
 
-						int prvi, drugi;
-						try {
-							prvi = Integer.parseInt(ulaz.substring(offset + 10, offset + 11));
-							drugi = Integer.parseInt(ulaz.substring(offset + 11, offset + 12));
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања prvi/drugi (запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
+						// Record extension: виши nibble = редни број, нижи = последњи у низу
+						int recordExt = paket.get(offset + 5) & 0xFF;
+						int prvi = recordExt >> 4;
+						int drugi = recordExt & 0x0F;
+						if (prvi > 9 || drugi > 9) {
+							logger.error("RUPTELA [{}]: Грешка парсирања prvi/drugi (запис {}/{}): 0x{}",
+							            clientId, brZapisa + 1, ukZapisa, Integer.toHexString(recordExt).toUpperCase());
 							failureReason = "greska parsiranja prvi/drugi";
 							break;
 						}
 
 						int pocetak = offset;
-
-						if (ulaz.length() < offset + 50) {
-							logger.warn("RUPTELA [{}]: Недостатак података за проширени record header (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za prosireni record header (50)";
+						int krajZapisa = RuptelaProtokol.krajZapisa(paket, pocetak, kraj, true);
+						if (krajZapisa < 0) {
+							logger.warn("RUPTELA [{}]: Недостатак података за {} (проширени, запис {}/{})",
+							            clientId, deoZapisa(krajZapisa), brZapisa + 1, ukZapisa);
+							failureReason = "nedostatak podataka za " + deoZapisa(krajZapisa) + " (extended)";
 							break;
 						}
-						offset += 50;
+						offset = krajZapisa;
 
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brJedan (проширени, запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brJedan (extended)";
-							break;
-						}
-						int brJedan;
-						try {
-							brJedan = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brJedan (проширени, запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brJedan (extended)";
-							break;
-						}
-						offset += 2;
-						offset += brJedan * 6;
-
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brDva (проширени, запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brDva (extended)";
-							break;
-						}
-						int brDva;
 						try {
-							brDva = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brDva (проширени, запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brDva (extended)";
-							break;
-						}
-						offset += 2;
-						offset += brDva * 8;
-
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brCetiri (проширени, запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brCetiri (extended)";
-							break;
-						}
-						int brCetiri;
-						try {
-							brCetiri = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brCetiri (проширени, запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brCetiri (extended)";
-							break;
-						}
-						offset += 2;
-						offset += brCetiri * 12;
-
-						if (ulaz.length() < offset + 2) {
-							logger.warn("RUPTELA [{}]: Недостатак података за brOsam (проширени, запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za brOsam (extended)";
-							break;
-						}
-						int brOsam;
-						try {
-							brOsam = Integer.parseInt(ulaz.substring(offset, offset + 2), 16);
-						} catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-							logger.error("RUPTELA [{}]: Грешка парсирања brOsam (проширени, запис {}/{}): {}",
-							            clientId, brZapisa + 1, ukZapisa, e.getMessage());
-							failureReason = "greska parsiranja brOsam (extended)";
-							break;
-						}
-						offset += 2;
-						offset += brOsam * 20;
-
-						if (ulaz.length() < offset) {
-							logger.warn("RUPTELA [{}]: Недостатак података за цео проширени record (запис {}/{})",
-							            clientId, brZapisa + 1, ukZapisa);
-							failureReason = "nedostatak podataka za ceo prosireni record";
-							break;
-						}
-
-						try {
-							JavljanjeObd javljanjeObd = server.rProtokol.vratiExtended(
-								0, objekat, ulaz.substring(pocetak, offset)
-							);
+							JavljanjeObd javljanjeObd = server.rProtokol.vratiExtended(objekat, paket, pocetak, krajZapisa);
 
 							if (javljanjeObd != null) {
 								if (drugi <= prvi) {
@@ -615,46 +444,7 @@ public class RuptelaOpstiThread extends OpstiThread {
 											            clientId, brZapisa + 1, ukZapisa);
 										}
 									} else {
-										Obd trenutniObd = javljanjeObd.getObd();
-
-										if (trenutniObd != null && prvoObd != null) {
-											if (trenutniObd.getAkumulator() != 0.0f) {
-												prvoObd.setAkumulator(trenutniObd.getAkumulator());
-											}
-											if (trenutniObd.getGas() != 0.0f) {
-												prvoObd.setGas(trenutniObd.getGas());
-											}
-											if (trenutniObd.getGreske() != null && !trenutniObd.getGreske().isEmpty()) {
-												prvoObd.setGreske(trenutniObd.getGreske());
-											}
-											if (trenutniObd.getNivoGoriva() != 0.0f) {
-												prvoObd.setNivoGoriva(trenutniObd.getNivoGoriva());
-											}
-											if (trenutniObd.getOpterecenje() != 0.0f) {
-												prvoObd.setOpterecenje(trenutniObd.getOpterecenje());
-											}
-											if (trenutniObd.getProsecnaPotrosnja() != 0.0f) {
-												prvoObd.setProsecnaPotrosnja(trenutniObd.getProsecnaPotrosnja());
-											}
-											if (trenutniObd.getRpm() != 0) {
-												prvoObd.setRpm(trenutniObd.getRpm());
-											}
-											if (trenutniObd.getTripGorivo() != 0.0f) {
-												prvoObd.setTripGorivo(trenutniObd.getTripGorivo());
-											}
-											if (trenutniObd.getTripKm() != 0.0f) {
-												prvoObd.setTripKm(trenutniObd.getTripKm());
-											}
-											if (trenutniObd.getUkupnoVreme() != 0.0f) {
-												prvoObd.setUkupnoVreme(trenutniObd.getUkupnoVreme());
-											}
-											if (trenutniObd.getUkupnoGorivo() != 0.0f) {
-												prvoObd.setUkupnoGorivo(trenutniObd.getUkupnoGorivo());
-											}
-											if (trenutniObd.getUkupnoKm() != 0.0f) {
-												prvoObd.setUkupnoKm(trenutniObd.getUkupnoKm());
-											}
-										}
+										spojiObd(prvoObd, javljanjeObd.getObd());
 									}
 								}
 								brZapisa++;
@@ -670,19 +460,15 @@ public class RuptelaOpstiThread extends OpstiThread {
 					}
 
 					if (failureReason != null) {
-						logPacketFailure(clientId, failureReason, packet);
+						logPacketFailure(clientId, failureReason, paket);
 					}
 					if (prvo != null) {
 						obradaJavljanja(prvo, prvoObd);
 
-						try {
-							out.write(odg);
-							out.flush();
-							logger.trace("RUPTELA [{}]: ACK poslat за {} extended zapisa", clientId, brZapisa);
-						} catch (IOException e) {
-							logger.error("RUPTELA [{}]: Greška slanja ACK", clientId, e);
+						if (!posaljiAck(clientId)) {
 							return false;
 						}
+						logger.trace("RUPTELA [{}]: ACK poslat за {} extended zapisa", clientId, brZapisa);
 					} else {
 						logger.warn("RUPTELA [{}]: Нема валидног првог записа за упис (обрађено {}/{} extended записа)",
 						            clientId, brZapisa, ukZapisa);
@@ -697,7 +483,7 @@ public class RuptelaOpstiThread extends OpstiThread {
 				if (imeiKnown) {
 					sendAckSafe(clientId, "objekat nije pronadjen");
 				}
-				logPacketFailure(clientId, "objekat nije pronadjen", packet);
+				logPacketFailure(clientId, "objekat nije pronadjen", paket);
 			}
 		} else {
 			logger.warn("RUPTELA [{}]: Nepoznata komanda: {} (0x{})",
@@ -705,10 +491,63 @@ public class RuptelaOpstiThread extends OpstiThread {
 			if (imeiKnown) {
 				sendAckSafe(clientId, "nepoznata komanda");
 			}
-			logPacketFailure(clientId, "nepoznata komanda", packet);
+			logPacketFailure(clientId, "nepoznata komanda", paket);
 		}
 
 		return true;
 	}
 	
+	/**
+	 * Назив дела записа који недостаје, према коду из {@link RuptelaProtokol#krajZapisa}.
+	 */
+	private static String deoZapisa(int kod) {
+		int indeks = -kod - 1;
+		return indeks >= 0 && indeks < DELOVI_ZAPISA.length ? DELOVI_ZAPISA[indeks] : "zapis";
+	}
+	
+	/**
+	 * Проширени записи истог низа (drugi > 0) допуњују OBD податке првог записа.
+	 */
+	private static void spojiObd(Obd prvoObd, Obd trenutniObd) {
+		if (trenutniObd == null || prvoObd == null) {
+			return;
+		}
+		if (trenutniObd.getAkumulator() != 0.0f) {
+			prvoObd.setAkumulator(trenutniObd.getAkumulator());
+		}
+		if (trenutniObd.getGas() != 0.0f) {
+			prvoObd.setGas(trenutniObd.getGas());
+		}
+		if (trenutniObd.getGreske() != null && !trenutniObd.getGreske().isEmpty()) {
+			prvoObd.setGreske(trenutniObd.getGreske());
+		}
+		if (trenutniObd.getNivoGoriva() != 0.0f) {
+			prvoObd.setNivoGoriva(trenutniObd.getNivoGoriva());
+		}
+		if (trenutniObd.getOpterecenje() != 0.0f) {
+			prvoObd.setOpterecenje(trenutniObd.getOpterecenje());
+		}
+		if (trenutniObd.getProsecnaPotrosnja() != 0.0f) {
+			prvoObd.setProsecnaPotrosnja(trenutniObd.getProsecnaPotrosnja());
+		}
+		if (trenutniObd.getRpm() != 0) {
+			prvoObd.setRpm(trenutniObd.getRpm());
+		}
+		if (trenutniObd.getTripGorivo() != 0.0f) {
+			prvoObd.setTripGorivo(trenutniObd.getTripGorivo());
+		}
+		if (trenutniObd.getTripKm() != 0.0f) {
+			prvoObd.setTripKm(trenutniObd.getTripKm());
+		}
+		if (trenutniObd.getUkupnoVreme() != 0.0f) {
+			prvoObd.setUkupnoVreme(trenutniObd.getUkupnoVreme());
+		}
+		if (trenutniObd.getUkupnoGorivo() != 0.0f) {
+			prvoObd.setUkupnoGorivo(trenutniObd.getUkupnoGorivo());
+		}
+		if (trenutniObd.getUkupnoKm() != 0.0f) {
+			prvoObd.setUkupnoKm(trenutniObd.getUkupnoKm());
+		}
+	}
+	
 }
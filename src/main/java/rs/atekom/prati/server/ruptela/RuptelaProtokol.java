@@ -1,5 +1,6 @@
 package rs.atekom.prati.server.ruptela;
 
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
 import java.util.Date;
 
@@ -39,6 +40,10 @@ import rs.atekom.prati.server.Servis;
  * 8B-IO (N8 + ID8 + Val8...)
  * </pre>
  * 
+ * <p>Поред hex варијанти ({@link #vratiJavljanje(int, Objekti, String)}) постоје и
+ * бинарне ({@link #vratiJavljanje(Objekti, ByteBuffer, int, int)}) које читају поља
+ * директно из бајтова пакета, без претварања у hex string.</p>
+ * 
  * @author Atekom
  * @version 2.0
  * @see <a href="https://wiki.ruptela.lt/index.php?title=Protocol">Ruptela Protocol Wiki</a>
@@ -78,6 +83,20 @@ public class RuptelaProtokol {
 	private static final int IO_ENGINE_HOURS = 203;
 	private static final int IO_HR_TOTAL_FUEL_USED = 208;
 	
+	// ═══════════════════════════════════════════════════════════
+	// КОНСТАНТЕ - величине у бајтовима (бинарно парсирање)
+	// ═══════════════════════════════════════════════════════════
+	
+	/** Timestamp(4) + TsExt(1) + Priority(1) + Lon(4) + Lat(4) + Alt(2) + Angle(2) + Sat(1) + Speed(2) + HDOP(1) + EventID(1) */
+	public static final int STANDARD_HEADER_BYTES = 23;
+	/** Као стандардни + RecordExt(1) и EventID од 2 бајта */
+	public static final int EXTENDED_HEADER_BYTES = 25;
+	/** Заглавље + четири бројача IO елемената */
+	private static final int MIN_STANDARD_RECORD_BYTES = STANDARD_HEADER_BYTES + 4;
+	private static final int MIN_EXTENDED_RECORD_BYTES = EXTENDED_HEADER_BYTES + 4;
+	/** Величине вредности у IO блоковима, редом */
+	private static final int[] IO_VALUE_BYTES = {1, 2, 4, 8};
+	
 	// Alarm sistem
 	private SistemAlarmi redovno, sos, aktiviran, deaktiviran;
 	
@@ -216,7 +235,7 @@ public class RuptelaProtokol {
 			
 			for (int i = 0; i < brJedan; i++) {
 				int ioId = Integer.parseInt(poruka.substring(offset, offset + 2), 16);
-				String ioValue = poruka.substring(offset + 2, offset + 4);
+				int ioValue = Integer.parseInt(poruka.substring(offset + 2, offset + 4), 16);
 				upisi1bajt(ioId, ioValue, javljanje, eventId, obd);
 				offset += 4;
 			}
@@ -228,7 +247,7 @@ public class RuptelaProtokol {
 			
 			for (int j = 0; j < brDva; j++) {
 				int ioId = Integer.parseInt(poruka.substring(offset, offset + 2), 16);
-				String ioValue = poruka.substring(offset + 2, offset + 6);
+				int ioValue = Integer.parseInt(poruka.substring(offset + 2, offset + 6), 16);
 				upisi2bajta(ioId, ioValue, obd);
 				offset += 6;
 			}
@@ -240,7 +259,7 @@ public class RuptelaProtokol {
 			
 			for (int k = 0; k < brCetiri; k++) {
 				int ioId = Integer.parseInt(poruka.substring(offset, offset + 2), 16);
-				String ioValue = poruka.substring(offset + 2, offset + 10);
+				long ioValue = Long.parseLong(poruka.substring(offset + 2, offset + 10), 16);
 				upisi4bajta(ioId, ioValue, javljanje, obd);
 				offset += 10;
 			}
@@ -387,7 +406,7 @@ public class RuptelaProtokol {
 			
 			for (int i = 0; i < brJedan; i++) {
 				int ioId = Integer.parseInt(poruka.substring(offset, offset + 4), 16); // 4 hex chars!
-				String ioValue = poruka.substring(offset + 4, offset + 6);
+				int ioValue = Integer.parseInt(poruka.substring(offset + 4, offset + 6), 16);
 				upisi1bajt(ioId, ioValue, javljanje, eventId, obd);
 				offset += 6;
 			}
@@ -399,7 +418,7 @@ public class RuptelaProtokol {
 			
 			for (int j = 0; j < brDva; j++) {
 				int ioId = Integer.parseInt(poruka.substring(offset, offset + 4), 16); // 4 hex chars!
-				String ioValue = poruka.substring(offset + 4, offset + 8);
+				int ioValue = Integer.parseInt(poruka.substring(offset + 4, offset + 8), 16);
 				upisi2bajta(ioId, ioValue, obd);
 				offset += 8;
 			}
@@ -411,7 +430,7 @@ public class RuptelaProtokol {
 			
 			for (int k = 0; k < brCetiri; k++) {
 				int ioId = Integer.parseInt(poruka.substring(offset, offset + 4), 16); // 4 hex chars!
-				String ioValue = poruka.substring(offset + 4, offset + 12);
+				long ioValue = Long.parseLong(poruka.substring(offset + 4, offset + 12), 16);
 				upisi4bajta(ioId, ioValue, javljanje, obd);
 				offset += 12;
 			}
@@ -440,6 +459,194 @@ public class RuptelaProtokol {
 		}
 	}
 	
+	// ═══════════════════════════════════════════════════════════
+	// БИНАРНО ПАРСИРАЊЕ (без hex string-а)
+	// ═══════════════════════════════════════════════════════════
+	
+	/**
+	 * Парсира стандардни RUPTELA record (Command 0x01) директно из бајтова пакета.
+	 * Резултат је исти као {@link #vratiJavljanje(int, Objekti, String)} за hex истог записа.
+	 * 
+	 * @param objekat Објекат коме припада уређај
+	 * @param paket Бафер са пакетом (позиција и limit се не мењају)
+	 * @param pocetak Апсолутни offset првог бајта записа
+	 * @param kraj Апсолутни offset иза последњег бајта записа
+	 * @return JavljanjeObd са парсираним подацима или null
+	 */
+	public JavljanjeObd vratiJavljanje(Objekti objekat, ByteBuffer paket, int pocetak, int kraj) {
+		return vratiBinarno(objekat, paket, pocetak, kraj, false);
+	}
+	
+	/**
+	 * Парсира проширени RUPTELA record (Command 0x44) директно из бајтова пакета.
+	 * 
+	 * @see #vratiJavljanje(Objekti, ByteBuffer, int, int)
+	 */
+	public JavljanjeObd vratiExtended(Objekti objekat, ByteBuffer paket, int pocetak, int kraj) {
+		return vratiBinarno(objekat, paket, pocetak, kraj, true);
+	}
+	
+	/**
+	 * Налази крај записа који почиње на {@code pocetak} - заглавље и четири IO блока.
+	 * 
+	 * @return offset иза записа, или негативан број ако запис није комплетан:
+	 *         -1 заглавље, -2..-5 бројач 1/2/4/8-бајтних IO елемената, -6 тело записа
+	 */
+	public static int krajZapisa(ByteBuffer paket, int pocetak, int kraj, boolean extended) {
+		int idBajtova = extended ? 2 : 1;
+		int p = pocetak + (extended ? EXTENDED_HEADER_BYTES : STANDARD_HEADER_BYTES);
+		if (p > kraj) {
+			return -1;
+		}
+		for (int i = 0; i < IO_VALUE_BYTES.length; i++) {
+			if (p + 1 > kraj) {
+				return -(i + 2);
+			}
+			int broj = paket.get(p) & 0xFF;
+			p += 1 + broj * (idBajtova + IO_VALUE_BYTES[i]);
+		}
+		if (p > kraj) {
+			return -6;
+		}
+		return p;
+	}
+	
+	private JavljanjeObd vratiBinarno(Objekti objekat, ByteBuffer paket, int pocetak, int kraj, boolean extended) {
+		String tip = extended ? "EXTENDED" : "STANDARD";
+		
+		if (objekat == null) {
+			logger.error("Objekat je null");
+			return null;
+		}
+		
+		int minimum = extended ? MIN_EXTENDED_RECORD_BYTES : MIN_STANDARD_RECORD_BYTES;
+		if (paket == null || kraj - pocetak < minimum) {
+			logger.error("{} zapis prekratak: dužina={}, očekivano minimum={}", 
+			             tip, paket == null ? 0 : kraj - pocetak, minimum);
+			return null;
+		}
+		
+		try {
+			Date sada = new Date();
+			Javljanja javljanje = initJavljanje(objekat, sada);
+			Obd obd = initObd(objekat, sada);
+			int p = pocetak;
+			
+			// Timestamp (4 bytes, unsigned)
+			Timestamp datumVreme = new Timestamp((paket.getInt(p) & 0xFFFFFFFFL) * 1000);
+			javljanje.setDatumVreme(datumVreme);
+			obd.setDatumVreme(datumVreme);
+			p += 4;
+			
+			// Timestamp extension (1 byte)
+			p += 1;
+			
+			// Record extension (1 byte) - само EXTENDED
+			if (extended) {
+				p += 1;
+			}
+			
+			// Priority (1 byte)
+			p += 1;
+			
+			// Longitude / Latitude (4 bytes, signed, scale 10^7)
+			double lon = paket.getInt(p) / 10000000.0;
+			javljanje.setLon(lon);
+			p += 4;
+			
+			double lat = paket.getInt(p) / 10000000.0;
+			javljanje.setLat(lat);
+			p += 4;
+			
+			// Altitude (2 bytes, scale 10)
+			float visina = (float) (paket.getShort(p) & 0xFFFF) / 10.0f;
+			javljanje.setVisina(visina);
+			p += 2;
+			
+			// Angle (2 bytes, scale 100)
+			float pravac = (float) (paket.getShort(p) & 0xFFFF) / 100.0f;
+			javljanje.setPravac(pravac);
+			p += 2;
+			
+			// Satellites (1 byte)
+			p += 1;
+			
+			// Speed (2 bytes)
+			int brzina = paket.getShort(p) & 0xFFFF;
+			javljanje.setBrzina(brzina);
+			p += 2;
+			
+			// HDOP (1 byte)
+			p += 1;
+			
+			// Event ID (1 byte STANDARD, 2 bytes EXTENDED)
+			int eventId;
+			if (extended) {
+				eventId = paket.getShort(p) & 0xFFFF;
+				p += 2;
+			} else {
+				eventId = paket.get(p) & 0xFF;
+				p += 1;
+			}
+			
+			logger.trace("{} GPS data: lat={}, lon={}, speed={}, eventId={}", tip, lat, lon, brzina, eventId);
+			
+			javljanje.setSistemAlarmi(redovno);
+			javljanje.setEventData("0");
+			javljanje.setIbutton("0");
+			
+			int idBajtova = extended ? 2 : 1;
+			
+			// 1-byte IO elements
+			int brJedan = paket.get(p) & 0xFF;
+			p += 1;
+			for (int i = 0; i < brJedan; i++) {
+				upisi1bajt(procitajIoId(paket, p, extended), paket.get(p + idBajtova) & 0xFF, javljanje, eventId, obd);
+				p += idBajtova + 1;
+			}
+			
+			// 2-byte IO elements
+			int brDva = paket.get(p) & 0xFF;
+			p += 1;
+			for (int j = 0; j < brDva; j++) {
+				upisi2bajta(procitajIoId(paket, p, extended), paket.getShort(p + idBajtova) & 0xFFFF, obd);
+				p += idBajtova + 2;
+			}
+			
+			// 4-byte IO elements
+			int brCetiri = paket.get(p) & 0xFF;
+			p += 1;
+			for (int k = 0; k < brCetiri; k++) {
+				upisi4bajta(procitajIoId(paket, p, extended), paket.getInt(p + idBajtova) & 0xFFFFFFFFL, javljanje, obd);
+				p += idBajtova + 4;
+			}
+			
+			// 8-byte IO elements (preskačemo jer trenutno ne koristimo)
+			int brOsam = paket.get(p) & 0xFF;
+			p += 1 + brOsam * (idBajtova + 8);
+			
+			if (p > kraj) {
+				logger.error("{} zapis za objekat {} prelazi granicu ({} > {})", tip, objekat.getOznaka(), p, kraj);
+				return null;
+			}
+			
+			Obd finalObd = isObdEmpty(obd) ? null : obd;
+			
+			logger.debug("Uspešno parsiran {} zapis: objekat={}, brzina={}, kontakt={}, OBD={}", 
+			             tip, objekat.getOznaka(), brzina, javljanje.isKontakt(), finalObd != null);
+			
+			return new JavljanjeObd(javljanje, finalObd);
+			
+		} catch (RuntimeException e) {
+			logger.error("Greška pri parsiranju {} zapisa za objekat {}", tip, objekat.getOznaka(), e);
+			return null;
+		}
+	}
+	
+	private static int procitajIoId(ByteBuffer paket, int p, boolean extended) {
+		return extended ? paket.getShort(p) & 0xFFFF : paket.get(p) & 0xFF;
+	}
+	
 	// ═══════════════════════════════════════════════════════════
 	// HELPER МЕТОДЕ ЗА ПАРСИРАЊЕ
 	// ═══════════════════════════════════════════════════════════
@@ -541,9 +748,7 @@ public class RuptelaProtokol {
 	// IO ELEMENT ПАРСИРАЊЕ (1-byte values)
 	// ═══════════════════════════════════════════════════════════
 	
-	private void upisi1bajt(int id, String vrednost, Javljanja javljanje, int eventId, Obd obd) {
-		int rezultat = Integer.parseInt(vrednost, 16);
-		
+	private void upisi1bajt(int id, int rezultat, Javljanja javljanje, int eventId, Obd obd) {
 		switch (id) {
 		case IO_DIGITAL_INPUT_2:
 			logger.trace("IO 2: Digital Input 2 = {}", rezultat);
@@ -630,9 +835,7 @@ public class RuptelaProtokol {
 	// IO ELEMENT ПАРСИРАЊЕ (2-byte values)
 	// ═══════════════════════════════════════════════════════════
 	
-	private void upisi2bajta(int id, String vrednost, Obd obd) {
-		int rez = Integer.parseInt(vrednost, 16);
-		
+	private void upisi2bajta(int id, int rez, Obd obd) {
 		switch (id) {
 		case IO_BATTERY_VOLTAGE: // Napon akumulatora (mV)
 			obd.setAkumulator((float) (rez / 1000.0));
@@ -680,9 +883,7 @@ public class RuptelaProtokol {
 	// IO ELEMENT ПАРСИРАЊЕ (4-byte values)
 	// ═══════════════════════════════════════════════════════════
 	
-	private void upisi4bajta(int id, String vrednost, Javljanja javljanje, Obd obd) {
-		long rez = Long.parseLong(vrednost, 16);
-		
+	private void upisi4bajta(int id, long rez, Javljanja javljanje, Obd obd) {
 		switch (id) {
 		case IO_VIRTUAL_ODOMETER: // Virtuelni odometar (m → km)
 			float odo = (float) (rez / 1000.0);
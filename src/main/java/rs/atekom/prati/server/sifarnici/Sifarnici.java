@@ -0,0 +1,273 @@
+package rs.atekom.prati.server.sifarnici;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.Grupe;
+import pratiBaza.tabele.Korisnici;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.Organizacije;
+import pratiBaza.tabele.Partneri;
+import pratiBaza.tabele.SistemGoriva;
+import pratiBaza.tabele.SistemPretplatnici;
+import rs.atekom.prati.server.Servis;
+
+/**
+ * Заједнички кеш шифарника за комбо листе, форме и пријаву: организације,
+ * групе, партнери, горива и објекти, подељени по претплатнику.
+ *
+ * <p>Сви упити једног претплатника су у његовој партицији; упити без
+ * претплатника или системског корисника (виде све претплатнике) су у
+ * системској партицији; кључ упита носи и претплатника (или да га нема),
+ * јер се упит без претплатника и упит системског претплатника разликују.
+ * Унос, измена и брисање у {@code *Logika}/{@code *View}
+ * поништавају врсту у партицији претплатника и у системској
+ * ({@link #ponisti(Vrsta, SistemPretplatnici)}), а {@code ttl} покрива измене
+ * које не пролазе кроз апликацију.</p>
+ *
+ * <p>Враћа се увек нова листа, па позиваоци могу да је мењају.</p>
+ */
+public class Sifarnici {
+
+	private static final Logger logger = LoggerFactory.getLogger(Sifarnici.class);
+
+	/** Партиција за упите преко свих претплатника и за глобалне шифарнике. */
+	static final long SISTEM = 0L;
+
+	public enum Vrsta {
+		ORGANIZACIJE, GRUPE, PARTNERI, GORIVA, OBJEKTI
+	}
+
+	private final ConcurrentMap<Long, Particija> particije = new ConcurrentHashMap<>();
+	private final long ttlMs;
+	private final int najvise;
+	private final AtomicLong pogodaka = new AtomicLong();
+	private final AtomicLong promasaja = new AtomicLong();
+	private final List<BiConsumer<Vrsta, SistemPretplatnici>> slusaoci = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param ttlMs најдуже трајање листе у кешу
+	 * @param najvise највише листа по партицији
+	 */
+	public Sifarnici(long ttlMs, int najvise) {
+		this.ttlMs = ttlMs;
+		this.najvise = najvise;
+	}
+
+	/** Активне организације претплатника. */
+	public ArrayList<Organizacije> organizacije(SistemPretplatnici pretplatnik) {
+		return ucitaj(Vrsta.ORGANIZACIJE, particija(pretplatnik), upit(pretplatnik), () -> Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnik, true));
+	}
+
+	/** Активне групе претплатника, по организацији. */
+	public ArrayList<Grupe> grupe(SistemPretplatnici pretplatnik, Organizacije organizacija) {
+		return ucitaj(Vrsta.GRUPE, particija(pretplatnik), upit(pretplatnik) + id(organizacija), () -> Servis.grupeServis.vratiGrupeAktivne(pretplatnik, organizacija));
+	}
+
+	/** Активни партнери претплатника корисника. */
+	public ArrayList<Partneri> partneri(Korisnici korisnik) {
+		return partneri(korisnik.getSistemPretplatnici());
+	}
+
+	/** Активни партнери претплатника. */
+	public ArrayList<Partneri> partneri(SistemPretplatnici pretplatnik) {
+		return ucitaj(Vrsta.PARTNERI, particija(pretplatnik), upit(pretplatnik), () -> Servis.partnerServis.nadjiSvePartnerePoPretplatniku(pretplatnik, true));
+	}
+
+	/** Горива без избрисаних - исти шифарник за све претплатнике. */
+	public ArrayList<SistemGoriva> goriva() {
+		return ucitaj(Vrsta.GORIVA, SISTEM, "", () -> Servis.sistemGorivoServis.vratiSvaGoriva(false));
+	}
+
+	/** Сви активни објекти које корисник види ({@code vratiSveObjekte}). */
+	public ArrayList<Objekti> objekti(Korisnici korisnik) {
+		return ucitaj(Vrsta.OBJEKTI, particija(korisnik), "k" + korisnik.getId(), () -> Servis.objekatServis.vratiSveObjekte(korisnik, true));
+	}
+
+	/** Објекти из група корисника - за кориснике који нису администратори. */
+	public ArrayList<Objekti> objektiPoGrupama(Korisnici korisnik) {
+		return ucitaj(Vrsta.OBJEKTI, particija(korisnik), "g" + korisnik.getId(), () -> {
+			ArrayList<Grupe> grupe = new ArrayList<Grupe>();
+			grupe.addAll(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik));
+			return Servis.grupeObjekatServis.nadjiSveObjektePoGrupama(grupe);
+		});
+	}
+
+	/** Објекти без додељеног возила, за избор у форми возила. */
+	public ArrayList<Objekti> objektiBezVozila(SistemPretplatnici pretplatnik, Organizacije organizacija) {
+		return ucitaj(Vrsta.OBJEKTI, particija(pretplatnik), upit(pretplatnik) + "bv" + id(organizacija), () -> Servis.objekatServis.nadjiSveObjekteBezVozila(pretplatnik, organizacija));
+	}
+
+	/** Објекти са возилом, по организацији. */
+	public ArrayList<Objekti> objektiSaVozilom(SistemPretplatnici pretplatnik, Organizacije organizacija) {
+		return ucitaj(Vrsta.OBJEKTI, particija(pretplatnik), upit(pretplatnik) + "sv" + id(organizacija), () -> Servis.objekatServis.nadjiSveObjekteSavozilom(pretplatnik, organizacija));
+	}
+
+	/**
+	 * Измењена врста шифарника претплатника. Поништава се и системска
+	 * партиција, јер њени упити обухватају све претплатнике.
+	 */
+	public void ponisti(Vrsta vrsta, SistemPretplatnici pretplatnik) {
+		long particija = particija(pretplatnik);
+		ponisti(vrsta, particija);
+		if (particija != SISTEM) {
+			ponisti(vrsta, SISTEM);
+		}
+		obavesti(vrsta, pretplatnik);
+	}
+
+	/** Измењена врста у свим партицијама (нпр. горива). */
+	public void ponistiSve(Vrsta vrsta) {
+		for (Long particija : particije.keySet()) {
+			ponisti(vrsta, particija);
+		}
+		obavesti(vrsta, null);
+	}
+
+	/**
+	 * Слушалац поништавања, за кешеве изграђене над истим подацима;
+	 * {@code null} претплатник значи све претплатнике.
+	 */
+	public void dodajSlusaoca(BiConsumer<Vrsta, SistemPretplatnici> slusalac) {
+		slusaoci.add(slusalac);
+	}
+
+	public long getPogodaka() {
+		return pogodaka.get();
+	}
+
+	public long getPromasaja() {
+		return promasaja.get();
+	}
+
+	public int getVelicina() {
+		int velicina = 0;
+		for (Particija particija : particije.values()) {
+			velicina += particija.liste.size();
+		}
+		return velicina;
+	}
+
+	/**
+	 * Листа из кеша или из базе. Читање иде ван брава; ако је партиција за то
+	 * време поништена, учитана листа се враћа али се не памти.
+	 */
+	<T> ArrayList<T> ucitaj(Vrsta vrsta, long particija, String upit, Supplier<? extends Collection<? extends T>> ucitavanje) {
+		Particija p = particije.computeIfAbsent(particija, k -> new Particija());
+		Kljuc kljuc = new Kljuc(vrsta, upit);
+		Lista lista = p.liste.get(kljuc);
+		long sada = System.currentTimeMillis();
+		if (lista != null && sada - lista.vreme < ttlMs) {
+			pogodaka.incrementAndGet();
+			return lista.kopija();
+		}
+		promasaja.incrementAndGet();
+		long generacija = p.generacija.get();
+		Collection<? extends T> ucitano = ucitavanje.get();
+		lista = new Lista(ucitano != null ? new ArrayList<Object>(ucitano) : Collections.emptyList(), sada);
+		if (p.liste.size() >= najvise) {
+			p.liste.values().removeIf(l -> sada - l.vreme >= ttlMs);
+			if (p.liste.size() >= najvise) {
+				logger.debug("Šifarnici: particija {} puna ({}), prazni se", particija, najvise);
+				p.liste.clear();
+			}
+		}
+		p.liste.put(kljuc, lista);
+		if (p.generacija.get() != generacija) {
+			p.liste.remove(kljuc, lista);
+		}
+		return lista.kopija();
+	}
+
+	private void obavesti(Vrsta vrsta, SistemPretplatnici pretplatnik) {
+		for (BiConsumer<Vrsta, SistemPretplatnici> slusalac : slusaoci) {
+			try {
+				slusalac.accept(vrsta, pretplatnik);
+			} catch (RuntimeException e) {
+				logger.warn("Šifarnici: greška slušaoca poništavanja {}: {}", vrsta, e.getMessage());
+			}
+		}
+	}
+
+	void ponisti(Vrsta vrsta, long particija) {
+		Particija p = particije.get(particija);
+		if (p != null) {
+			p.generacija.incrementAndGet();
+			p.liste.keySet().removeIf(k -> k.vrsta == vrsta);
+		}
+	}
+
+	static long particija(SistemPretplatnici pretplatnik) {
+		return pretplatnik == null || pretplatnik.isSistem() || pretplatnik.getId() == null ? SISTEM : pretplatnik.getId();
+	}
+
+	/** Системски корисник види све претплатнике, па је у системској партицији. */
+	static long particija(Korisnici korisnik) {
+		return korisnik.isSistem() ? SISTEM : particija(korisnik.getSistemPretplatnici());
+	}
+
+	/** Део кључа за претплатника упита; {@code null} има свој кључ. */
+	static String upit(SistemPretplatnici pretplatnik) {
+		return pretplatnik == null ? "p-:" : "p" + pretplatnik.getId() + ":";
+	}
+
+	private static String id(Organizacije organizacija) {
+		return organizacija == null ? "-" : String.valueOf(organizacija.getId());
+	}
+
+	private static final class Particija {
+		final ConcurrentMap<Kljuc, Lista> liste = new ConcurrentHashMap<>();
+		final AtomicLong generacija = new AtomicLong();
+	}
+
+	private static final class Kljuc {
+		final Vrsta vrsta;
+		final String upit;
+
+		Kljuc(Vrsta vrsta, String upit) {
+			this.vrsta = vrsta;
+			this.upit = upit;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Kljuc)) {
+				return false;
+			}
+			Kljuc k = (Kljuc) o;
+			return vrsta == k.vrsta && upit.equals(k.upit);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(vrsta, upit);
+		}
+	}
+
+	private static final class Lista {
+		final List<Object> redovi;
+		final long vreme;
+
+		Lista(List<Object> redovi, long vreme) {
+			this.redovi = redovi;
+			this.vreme = vreme;
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> ArrayList<T> kopija() {
+			return new ArrayList<T>((List<T>) redovi);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package rs.atekom.prati.server.stanje;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Кеш живог стања свих објеката, по id објекта.
+ *
+ * <p>При покретању се пуни из javljanja_poslednja ({@link #zagrej}); објекат који
+ * није учитан чита се из базе једном, при првом јављању. После тога се
+ * последња позиција води само у меморији, па обрада јављања не чита базу.</p>
+ */
+public class StanjeObjekata {
+
+	private static final Logger logger = LoggerFactory.getLogger(StanjeObjekata.class);
+
+	private final ConcurrentMap<Long, StanjeObjekta> stanja = new ConcurrentHashMap<>();
+	private final Function<Objekti, JavljanjaPoslednja> ucitavanje;
+
+	/**
+	 * @param ucitavanje читање последњег јављања за објекат који није у кешу
+	 */
+	public StanjeObjekata(Function<Objekti, JavljanjaPoslednja> ucitavanje) {
+		this.ucitavanje = ucitavanje;
+	}
+
+	/**
+	 * Пуни кеш последњим јављањима; постојећа стања се не мењају.
+	 *
+	 * @return број нових стања
+	 */
+	public int zagrej(Collection<JavljanjaPoslednja> poslednja) {
+		int dodato = 0;
+		for (JavljanjaPoslednja p : poslednja) {
+			if (p == null || p.getObjekti() == null || p.getObjekti().getId() == null) {
+				continue;
+			}
+			if (stanja.putIfAbsent(p.getObjekti().getId(), new StanjeObjekta(p.getObjekti(), p)) == null) {
+				dodato++;
+			}
+		}
+		logger.info("Stanje objekata zagrejano: {} novih, ukupno {}", dodato, stanja.size());
+		return dodato;
+	}
+
+	/**
+	 * Стање објекта; ако није у кешу, последње јављање се чита из базе
+	 * (ван закључавања мапе) и стање се памти. Ако читање не успе, враћа
+	 * се привремено стање које се не памти.
+	 */
+	public StanjeObjekta zaObjekat(Objekti objekat) {
+		Long id = objekat.getId();
+		StanjeObjekta stanje = stanja.get(id);
+		if (stanje != null) {
+			return stanje;
+		}
+		JavljanjaPoslednja poslednje;
+		try {
+			poslednje = ucitavanje.apply(objekat);
+		} catch (RuntimeException e) {
+			// не памтимо стање без последњег јављања - километража би кренула од нуле
+			logger.warn("Stanje objekta {}: greška čitanja poslednjeg javljanja: {}", objekat.getOznaka(), e.getMessage());
+			return new StanjeObjekta(objekat, null);
+		}
+		StanjeObjekta novo = new StanjeObjekta(objekat, poslednje);
+		StanjeObjekta postojece = stanja.putIfAbsent(id, novo);
+		return postojece != null ? postojece : novo;
+	}
+
+	/** Стање објекта ако је већ у кешу, без читања базе. */
+	public StanjeObjekta akoPostoji(Long objekatId) {
+		return objekatId == null ? null : stanja.get(objekatId);
+	}
+
+	/** Уклања стање (нпр. обрисан објекат или промењен уређај). */
+	public void ukloni(Long objekatId) {
+		if (objekatId != null) {
+			stanja.remove(objekatId);
+		}
+	}
+
+	public int velicina() {
+		return stanja.size();
+	}
+}
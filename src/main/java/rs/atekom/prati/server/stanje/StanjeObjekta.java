@@ -0,0 +1,136 @@
+package rs.atekom.prati.server.stanje;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Obd;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Живо стање једног објекта: последња позиција, километража, зона,
+ * стајање и прекорачење брзине.
+ *
+ * <p>Стање мења само нит која тренутно обрађује конекцију уређаја; поља су
+ * {@code volatile} да би нова конекција (после поновног повезивања, у другој
+ * нити) видела оно што је претходна уписала. Последња позиција се објављује
+ * као нова, потпуно попуњена инстанца ({@link #azuriraj}).</p>
+ */
+public class StanjeObjekta {
+
+	private final Objekti objekat;
+	private final AtomicBoolean inicijalizovano = new AtomicBoolean(false);
+
+	private volatile JavljanjaPoslednja poslednje;
+	private volatile Javljanja javljanjeStop;
+	private volatile Obd obdStop;
+	private volatile boolean zaustavljeno;
+	private volatile boolean gorivo;
+	private volatile boolean prekoracenje;
+	private volatile int brojIspodNivoa;
+
+	public StanjeObjekta(Objekti objekat, JavljanjaPoslednja poslednje) {
+		this.objekat = objekat;
+		this.poslednje = poslednje;
+	}
+
+	/**
+	 * Враћа true само првој конекцији која преузме стање - она из базе
+	 * поставља почетно стајање, касније конекције настављају затечено стање.
+	 */
+	public boolean preuzmi() {
+		return inicijalizovano.compareAndSet(false, true);
+	}
+
+	/**
+	 * Преноси новије јављање у последњу позицију (уместо поновног читања
+	 * javljanja_poslednja из базе за следећи запис).
+	 *
+	 * <p>Последња позиција се не мења на месту - читају је и UI, флота и друге
+	 * сесије, па се објављује нова инстанца, да читалац не види нову ширину
+	 * уз стару дужину или време.</p>
+	 */
+	public void azuriraj(Javljanja trenutno) {
+		JavljanjaPoslednja prethodno = poslednje;
+		JavljanjaPoslednja p = new JavljanjaPoslednja();
+		if (prethodno != null) {
+			p.setId(prethodno.getId());
+			p.setObjekti(prethodno.getObjekti());
+		} else {
+			p.setObjekti(objekat);
+		}
+		p.setDatumVreme(trenutno.getDatumVreme());
+		p.setLat(trenutno.getLat());
+		p.setLon(trenutno.getLon());
+		p.setBrzina(trenutno.getBrzina());
+		p.setKontakt(trenutno.isKontakt());
+		p.setPravac(trenutno.getPravac());
+		p.setVirtualOdo(trenutno.getVirtualOdo());
+		p.setZona(trenutno.getZona());
+		p.setSistemAlarmi(trenutno.getSistemAlarmi());
+		poslednje = p;
+	}
+
+	/** Објекат је кренуо - поништава стајање и аларме везане за њега. */
+	public void pokrenut() {
+		javljanjeStop = null;
+		obdStop = null;
+		zaustavljeno = false;
+		gorivo = false;
+		brojIspodNivoa = 0;
+	}
+
+	/** Почетак стајања - памти прво јављање и OBD у мировању. */
+	public void zaustavljen(Javljanja javljanje, Obd obd) {
+		javljanjeStop = javljanje;
+		obdStop = obd;
+	}
+
+	public Objekti getObjekat() {
+		return objekat;
+	}
+
+	public JavljanjaPoslednja getPoslednje() {
+		return poslednje;
+	}
+
+	public Javljanja getJavljanjeStop() {
+		return javljanjeStop;
+	}
+
+	public Obd getObdStop() {
+		return obdStop;
+	}
+
+	public boolean isZaustavljeno() {
+		return zaustavljeno;
+	}
+
+	public void setZaustavljeno(boolean zaustavljeno) {
+		this.zaustavljeno = zaustavljeno;
+	}
+
+	public boolean isGorivo() {
+		return gorivo;
+	}
+
+	public void setGorivo(boolean gorivo) {
+		this.gorivo = gorivo;
+	}
+
+	public boolean isPrekoracenje() {
+		return prekoracenje;
+	}
+
+	public void setPrekoracenje(boolean prekoracenje) {
+		this.prekoracenje = prekoracenje;
+	}
+
+	public int getBrojIspodNivoa() {
+		return brojIspodNivoa;
+	}
+
+	public void setBrojIspodNivoa(int brojIspodNivoa) {
+		this.brojIspodNivoa = brojIspodNivoa;
+	}
+}
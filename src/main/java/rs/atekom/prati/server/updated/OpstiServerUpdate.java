@@ -7,16 +7,18 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.stereotype.Service;
 
 import pratiBaza.tabele.Javljanja;
 import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.server.ConnectionExecutors;
+import rs.atekom.prati.server.ServerMode;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.lifecycle.ConnectionAware;
 import rs.atekom.prati.view.komponente.Izvrsavanje;
 
 /**
@@ -31,9 +33,13 @@ import rs.atekom.prati.view.komponente.Izvrsavanje;
  *
  * Да би ово радило без даљих промена, NeonOpstiThread/GenekoOpstiThread/RuptelaOpstiThread
  * морају прихватати LinkedBlockingQueue<Socket> и унутра радити blocking take() и обраду.
+ *
+ * У VIRTUAL режиму worker-и се не стартују унапред: нови worker (на виртуелној нити)
+ * се додаје само када нема слободног worker-а за прихваћену везу, па број веза
+ * није ограничен са poolSize.
  */
 @Service
-public class OpstiServerUpdate implements Runnable {
+public class OpstiServerUpdate implements Runnable, ConnectionAware {
 
     private final int listeningPort;
     private ServerSocket serverSocket;
@@ -42,6 +48,8 @@ public class OpstiServerUpdate implements Runnable {
     private ArrayList<Socket> clientSockets;
     private volatile boolean isStopped = false;
     private final int poolSize;
+    private final ServerMode mode;
+    private final AtomicInteger workers = new AtomicInteger(0); // број покренутих worker-а
     private int rb = 1;
 
     public SistemAlarmi prekoracenjeBrzine, stajanje, istakanje, izlazak, ulazak, redovno;
@@ -55,12 +63,18 @@ public class OpstiServerUpdate implements Runnable {
      * Конструктор: port и poolSize (колико worker-а ће бити покренуто једном).
      */
     public OpstiServerUpdate(int port, int poolSizeS) {
+        this(port, poolSizeS, ServerMode.BLOCKING);
+    }
+
+    /**
+     * @param mode BLOCKING (фиксни worker-и) или VIRTUAL (worker-и на захтев); NIO није подржан
+     */
+    public OpstiServerUpdate(int port, int poolSizeS, ServerMode mode) {
+        this.mode = mode == ServerMode.VIRTUAL ? ServerMode.VIRTUAL : ServerMode.BLOCKING;
         this.clientSockets = new ArrayList<>();
         this.listeningPort = port;
         this.poolSize = Math.max(1, poolSizeS);
         this.queue = new LinkedBlockingQueue<>();
-        // workerPool size = poolSize (fixed); користимо cached именијама да лако shutdown-ујемо
-        this.workerPool = Executors.newFixedThreadPool(this.poolSize);
 
         // иницијализација протокола као и у оригиналу
         switch (listeningPort) {
@@ -89,38 +103,57 @@ public class OpstiServerUpdate implements Runnable {
         redovno = Servis.sistemAlarmServis.nadjiAlarmPoSifri("0");
         izvrsavanje = new Izvrsavanje();
 
+        // workerPool size = poolSize (fixed), у VIRTUAL режиму по једна виртуелна нит за сваки worker
+        this.workerPool = ConnectionExecutors.zaRezim(this.mode, this.poolSize, server.trim());
+
         // Start worker-a **једном** при конструкцији: сваки worker ће чекати на queue.take()
-        startWorkers();
+        if (this.mode == ServerMode.BLOCKING) {
+            startWorkers();
+        }
     }
 
     private void startWorkers() {
         for (int i = 0; i < poolSize; i++) {
-            switch (listeningPort) {
-                case 9000:
-                    workerPool.submit(new NeonOpstiThreadUpdate(queue, this));
-                    break;
-                case 9030:
-                    workerPool.submit(new GenekoOpstiThreadUpdate(queue, this));
-                    break;
-                case 9040:
-                    workerPool.submit(new RuptelaOpstiThreadUpdate(queue, this));
-                    break;
-                default:
-                    // опрез: ако је неизвестан порт, покрећемо general worker (можеш додати друге)
-                    workerPool.submit(() -> {
-                        while (!isStopped) {
-                            try {
-                                Socket s = queue.take();
-                                try { s.close(); } catch (Throwable ignored) {}
-                            } catch (InterruptedException ie) {
-                                Thread.currentThread().interrupt();
-                                break;
-                            }
+            startWorker();
+        }
+    }
+
+    private void startWorker() {
+        Runnable worker;
+        switch (listeningPort) {
+            case 9000:
+                worker = new NeonOpstiThreadUpdate(queue, this);
+                break;
+            case 9030:
+                worker = new GenekoOpstiThreadUpdate(queue, this);
+                break;
+            case 9040:
+                worker = new RuptelaOpstiThreadUpdate(queue, this);
+                break;
+            default:
+                // опрез: ако је неизвестан порт, покрећемо general worker (можеш додати друге)
+                worker = () -> {
+                    while (!isStopped) {
+                        try {
+                            Socket s = queue.take();
+                            try { s.close(); } catch (Throwable ignored) {}
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            break;
                         }
-                    });
-                    break;
-            }
+                    }
+                };
+                break;
         }
+        // бројимо живе worker-е (Ruptela worker завршава после једне везе)
+        workers.incrementAndGet();
+        workerPool.submit(() -> {
+            try {
+                worker.run();
+            } finally {
+                workers.decrementAndGet();
+            }
+        });
     }
 
     @Override
@@ -141,13 +174,18 @@ public class OpstiServerUpdate implements Runnable {
                     // track socket for cleanup
                     clientSockets.add(soket);
 
+                    // VIRTUAL: додајемо worker-а ако су сви постојећи заузети
+                    if (mode == ServerMode.VIRTUAL && workers.get() < getActiveConnectionCount()) {
+                        startWorker();
+                    }
+
                     // enqueue socket for existing (already started) workers
                     queue.put(soket);
 
                     if (rb == 1 || rb % 1000 == 0) {
                         System.out.println();
                         System.out.println("************************************************************");
-                        System.out.println(server + rb + " STARTOVAN" + " od " + ((ThreadPoolExecutor) workerPool).getActiveCount() + " " + getVreme() + " *****");
+                        System.out.println(server + rb + " STARTOVAN" + " od " + getActiveConnectionCount() + "/" + workers.get() + " " + getVreme() + " *****");
                         System.out.println("************************************************************");
                         System.out.println();
                     }
@@ -227,6 +265,19 @@ public class OpstiServerUpdate implements Runnable {
         }
     }
 
+    /**
+     * Број отворених веза уређаја (свака веза заузима једног worker-а).
+     */
+    @Override
+    public synchronized int getActiveConnectionCount() {
+        return clientSockets.size();
+    }
+
+    @Override
+    public String getConnectionMode() {
+        return mode.name();
+    }
+
     public String getVreme() {
         return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
     }
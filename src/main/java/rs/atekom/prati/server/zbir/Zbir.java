@@ -0,0 +1,149 @@
+package rs.atekom.prati.server.zbir;
+
+/**
+ * Збирни подаци једног објекта за један интервал (сат, дан или спојени период).
+ *
+ * <p>Километража и OBD бројачи су кумулативни, па се памте прва и последња
+ * вредност по времену записа - пређени пут периода је разлика последње и прве,
+ * као у постојећим извештајима, и не зависи од редоследа пристизања.</p>
+ */
+public class Zbir {
+
+	/** Брзина изнад које се јављање рачуна као кретање (као у извештајима). */
+	public static final int KRETANJE = 5;
+
+	private long prvoVreme = Long.MAX_VALUE;
+	private long poslednjeVreme = Long.MIN_VALUE;
+	private float prvaOdo;
+	private float poslednjaOdo;
+	private int maxBrzina;
+	private long zbirBrzina;
+	private int brojBrzina;
+	private int brojJavljanja;
+	private int brojStajanja;
+
+	private long prvoObd = Long.MAX_VALUE;
+	private long poslednjeObd = Long.MIN_VALUE;
+	private int prviKm;
+	private int poslednjiKm;
+	private float prvoGorivo;
+	private float poslednjeGorivo;
+	private float prvoRadno;
+	private float poslednjeRadno;
+
+	void dodajJavljanje(long vreme, float odo, int brzina, boolean stajanje) {
+		if(vreme < prvoVreme) {
+			prvoVreme = vreme;
+			prvaOdo = odo;
+		}
+		if(vreme >= poslednjeVreme) {
+			poslednjeVreme = vreme;
+			poslednjaOdo = odo;
+		}
+		if(brzina > maxBrzina) {
+			maxBrzina = brzina;
+		}
+		if(brzina > KRETANJE) {
+			zbirBrzina += brzina;
+			brojBrzina++;
+		}
+		if(stajanje) {
+			brojStajanja++;
+		}
+		brojJavljanja++;
+	}
+
+	void dodajObd(long vreme, int km, float gorivo, float radno) {
+		if(vreme < prvoObd) {
+			prvoObd = vreme;
+			prviKm = km;
+			prvoGorivo = gorivo;
+			prvoRadno = radno;
+		}
+		if(vreme >= poslednjeObd) {
+			poslednjeObd = vreme;
+			poslednjiKm = km;
+			poslednjeGorivo = gorivo;
+			poslednjeRadno = radno;
+		}
+	}
+
+	/** Додаје други интервал овом; редослед спајања није битан. */
+	public void spoji(Zbir drugi) {
+		if(drugi.brojJavljanja > 0) {
+			if(drugi.prvoVreme < prvoVreme) {
+				prvoVreme = drugi.prvoVreme;
+				prvaOdo = drugi.prvaOdo;
+			}
+			if(drugi.poslednjeVreme >= poslednjeVreme) {
+				poslednjeVreme = drugi.poslednjeVreme;
+				poslednjaOdo = drugi.poslednjaOdo;
+			}
+			maxBrzina = Math.max(maxBrzina, drugi.maxBrzina);
+			zbirBrzina += drugi.zbirBrzina;
+			brojBrzina += drugi.brojBrzina;
+			brojStajanja += drugi.brojStajanja;
+			brojJavljanja += drugi.brojJavljanja;
+		}
+		if(drugi.imaObd()) {
+			if(drugi.prvoObd < prvoObd) {
+				prvoObd = drugi.prvoObd;
+				prviKm = drugi.prviKm;
+				prvoGorivo = drugi.prvoGorivo;
+				prvoRadno = drugi.prvoRadno;
+			}
+			if(drugi.poslednjeObd >= poslednjeObd) {
+				poslednjeObd = drugi.poslednjeObd;
+				poslednjiKm = drugi.poslednjiKm;
+				poslednjeGorivo = drugi.poslednjeGorivo;
+				poslednjeRadno = drugi.poslednjeRadno;
+			}
+		}
+	}
+
+	public boolean isPrazan() {
+		return brojJavljanja == 0 && !imaObd();
+	}
+
+	public boolean imaObd() {
+		return prvoObd != Long.MAX_VALUE;
+	}
+
+	public int getBrojJavljanja() {
+		return brojJavljanja;
+	}
+
+	/** Пређени пут по GPS-у (разлика виртуелног одометра). */
+	public float getPredjeniPut() {
+		return brojJavljanja == 0 ? 0.0f : poslednjaOdo - prvaOdo;
+	}
+
+	public int getMaxBrzina() {
+		return maxBrzina;
+	}
+
+	/** Просечна брзина у кретању (изнад {@link #KRETANJE} км/ч). */
+	public int getProsecnaBrzina() {
+		return brojBrzina == 0 ? 0 : (int) (zbirBrzina / brojBrzina);
+	}
+
+	/** Број заустављања (прелаз из кретања у стајање). */
+	public int getBrojStajanja() {
+		return brojStajanja;
+	}
+
+	/** Пређени пут по OBD одометру. */
+	public int getObdKm() {
+		return imaObd() ? poslednjiKm - prviKm : 0;
+	}
+
+	/** Потрошено гориво по OBD бројачу. */
+	public float getPotrosnja() {
+		return imaObd() ? poslednjeGorivo - prvoGorivo : 0.0f;
+	}
+
+	/** Радно време мотора по OBD бројачу. */
+	public float getRadnoVreme() {
+		return imaObd() ? poslednjeRadno - prvoRadno : 0.0f;
+	}
+}
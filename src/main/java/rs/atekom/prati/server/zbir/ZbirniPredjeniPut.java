@@ -0,0 +1,63 @@
+package rs.atekom.prati.server.zbir;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import pratiBaza.pomocne.PredjeniPut;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.Servis;
+
+/**
+ * Пређени пут и потрошња по објекту из збирова, са читањем базе када збирови
+ * не покривају период.
+ */
+public final class ZbirniPredjeniPut {
+
+	private ZbirniPredjeniPut() {
+	}
+
+	/**
+	 * @param baza постојећи упит, позива се само ако збирови не покривају период
+	 */
+	public static List<PredjeniPut> vrati(List<Objekti> objekti, Timestamp od, Timestamp doo,
+			Function<ArrayList<Objekti>, List<PredjeniPut>> baza) {
+		List<PredjeniPut> lista = izZbirova(objekti, od, doo);
+		return lista != null ? lista : baza.apply(new ArrayList<Objekti>(objekti));
+	}
+
+	/** Пређени пут свих објеката из збирова; {@code null} ако збирови не покривају период. */
+	public static List<PredjeniPut> izZbirova(List<Objekti> objekti, Timestamp od, Timestamp doo) {
+		Zbirovi zbirovi = Servis.zbirovi;
+		if(zbirovi == null || !zbirovi.pokriva(od, doo)) {
+			return null;
+		}
+		List<PredjeniPut> lista = new ArrayList<PredjeniPut>(objekti.size());
+		for(Objekti objekat : objekti) {
+			Zbir zbir = zbirovi.zbir(objekat.getId(), od, doo);
+			if(zbir == null) {
+				return null;
+			}
+			lista.add(predjeniPut(objekat.getOznaka(), zbir));
+		}
+		return lista;
+	}
+
+	/** Исти прорачун као контролна табла: просечна потрошња на 100 км по GPS-у и по OBD-у. */
+	static PredjeniPut predjeniPut(String oznaka, Zbir zbir) {
+		PredjeniPut predjeniPut = new PredjeniPut(oznaka, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+		predjeniPut.setVirtualOdo(zbir.getPredjeniPut());
+		if(zbir.imaObd()) {
+			predjeniPut.setUkupnoKm(zbir.getObdKm());
+			predjeniPut.setUkupnoGorivo(zbir.getPotrosnja());
+			if(predjeniPut.getVirtualOdo() != 0.0f) {
+				predjeniPut.setProsPotGps(predjeniPut.getUkupnoGorivo()/(predjeniPut.getVirtualOdo()/100));
+			}
+			if(predjeniPut.getUkupnoKm() != 0.0f) {
+				predjeniPut.setProsPotr(predjeniPut.getUkupnoGorivo()/(predjeniPut.getUkupnoKm()/100));
+			}
+		}
+		return predjeniPut;
+	}
+}
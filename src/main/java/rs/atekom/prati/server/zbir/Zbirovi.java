@@ -0,0 +1,225 @@
+package rs.atekom.prati.server.zbir;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+
+/**
+ * Дневни и сатни збирови по објекту, ажурирани при упису јављања и OBD записа.
+ *
+ * <p>Сваки ред се, пошто је уписан ({@link rs.atekom.prati.server.persist.Zapisivac}),
+ * додаје у збир свог дана и свог сата, па контролна табла и извештаји о пређеном
+ * путу добијају км, брзине, гориво и радно време без читања сирових редова.
+ * Период се састоји од целих дана и, на крајевима, целих сати.</p>
+ *
+ * <p>Збирови се воде у меморији од покретања: {@link #zbir} враћа {@code null}
+ * за период који почиње пре првог целог сата после покретања, ван задржавања
+ * ({@code -Dprati.zbir.dana} дана за дневне, {@code -Dprati.zbir.sati.dana} за
+ * сатне) или са границама које нису на цео сат - тада позивалац чита базу као
+ * раније.</p>
+ */
+public class Zbirovi {
+
+	private static final Logger logger = LoggerFactory.getLogger(Zbirovi.class);
+
+	private static final long SAT = TimeUnit.HOURS.toMillis(1);
+	private static final long DAN = TimeUnit.DAYS.toMillis(1);
+
+	private final ConcurrentMap<Long, ZbiroviObjekta> objekti = new ConcurrentHashMap<>();
+	private final ZoneId zona;
+	private final int danaDnevnih;
+	private final int danaSatnih;
+	private final long pocetak;
+
+	public Zbirovi(int danaDnevnih, int danaSatnih) {
+		this(ZoneId.systemDefault(), danaDnevnih, danaSatnih, (System.currentTimeMillis() / SAT + 1) * SAT);
+	}
+
+	/**
+	 * @param pocetak тренутак од кога су збирови потпуни (први цео сат после покретања)
+	 */
+	Zbirovi(ZoneId zona, int danaDnevnih, int danaSatnih, long pocetak) {
+		this.zona = zona;
+		this.danaDnevnih = danaDnevnih;
+		this.danaSatnih = danaSatnih;
+		this.pocetak = pocetak;
+		logger.info("Zbirovi po objektu: dnevni {} dana, satni {} dana", danaDnevnih, danaSatnih);
+	}
+
+	public void dodaj(Javljanja javljanje) {
+		if(javljanje == null || javljanje.getObjekti() == null || javljanje.getObjekti().getId() == null
+				|| javljanje.getDatumVreme() == null) {
+			return;
+		}
+		long vreme = javljanje.getDatumVreme().getTime();
+		if(uOpsegu(vreme)) {
+			zaObjekat(javljanje.getObjekti().getId()).dodajJavljanje(vreme, javljanje.getVirtualOdo(), javljanje.getBrzina());
+		}
+	}
+
+	public void dodaj(Obd obd) {
+		if(obd == null || obd.getObjekti() == null || obd.getObjekti().getId() == null || obd.getDatumVreme() == null) {
+			return;
+		}
+		long vreme = obd.getDatumVreme().getTime();
+		if(uOpsegu(vreme)) {
+			zaObjekat(obd.getObjekti().getId()).dodajObd(vreme, obd.getUkupnoKm(), obd.getUkupnoGorivo(), obd.getUkupnoVreme());
+		}
+	}
+
+	/**
+	 * Збир објекта за период [od, do).
+	 *
+	 * @return празан збир ако објекат у периоду није имао записа; {@code null}
+	 *         ако збирови не покривају период
+	 */
+	public Zbir zbir(Long objekatId, Date od, Date doo) {
+		if(!pokriva(od, doo)) {
+			return null;
+		}
+		ZbiroviObjekta zbirovi = objekti.get(objekatId);
+		if(zbirovi == null) {
+			return new Zbir();
+		}
+		return zbirovi.zbir(Instant.ofEpochMilli(od.getTime()).atZone(zona), Instant.ofEpochMilli(doo.getTime()).atZone(zona));
+	}
+
+	/** Да ли се период може сложити из збирова (за сваки објекат исто). */
+	public boolean pokriva(Date od, Date doo) {
+		if(od == null || doo == null || !od.before(doo) || od.getTime() < pocetak || od.getTime() < granicaDnevnih()) {
+			return false;
+		}
+		return ceoSat(od.getTime()) && ceoSat(doo.getTime()) && pokrivajuSati(od.getTime(), doo.getTime());
+	}
+
+	public int getBrojObjekata() {
+		return objekti.size();
+	}
+
+	/** Делови периода који нису цели дани морају бити у сатним збировима. */
+	private boolean pokrivajuSati(long od, long doo) {
+		long prviSat;
+		if(!ceoDan(od)) {
+			prviSat = od;
+		}else if(!ceoDan(doo)) {
+			prviSat = Instant.ofEpochMilli(doo).atZone(zona).toLocalDate().atStartOfDay(zona).toInstant().toEpochMilli();
+		}else {
+			return true;
+		}
+		return prviSat >= granicaSatnih();
+	}
+
+	private boolean ceoSat(long vreme) {
+		ZonedDateTime t = Instant.ofEpochMilli(vreme).atZone(zona);
+		return t.getMinute() == 0 && t.getSecond() == 0 && t.getNano() == 0;
+	}
+
+	private boolean ceoDan(long vreme) {
+		return Instant.ofEpochMilli(vreme).atZone(zona).toLocalTime().equals(LocalTime.MIDNIGHT);
+	}
+
+	private boolean uOpsegu(long vreme) {
+		long sada = System.currentTimeMillis();
+		return vreme >= granicaDnevnih() && vreme <= sada + DAN;
+	}
+
+	private long granicaDnevnih() {
+		return LocalDate.now(zona).minusDays(danaDnevnih).atStartOfDay(zona).toInstant().toEpochMilli();
+	}
+
+	private long granicaSatnih() {
+		return (System.currentTimeMillis() - danaSatnih * DAN) / SAT * SAT;
+	}
+
+	private ZbiroviObjekta zaObjekat(Long objekatId) {
+		return objekti.computeIfAbsent(objekatId, id -> new ZbiroviObjekta());
+	}
+
+	/** Збирови једног објекта; све методе под закључавањем објекта. */
+	private final class ZbiroviObjekta {
+		private final TreeMap<Long, Zbir> dani = new TreeMap<>();
+		private final TreeMap<Long, Zbir> sati = new TreeMap<>();
+		private long poslednjeVreme = Long.MIN_VALUE;
+		private int poslednjaBrzina;
+
+		synchronized void dodajJavljanje(long vreme, float odo, int brzina) {
+			boolean stajanje = false;
+			if(vreme > poslednjeVreme) {
+				stajanje = poslednjeVreme != Long.MIN_VALUE && poslednjaBrzina > Zbir.KRETANJE && brzina <= Zbir.KRETANJE;
+				poslednjeVreme = vreme;
+				poslednjaBrzina = brzina;
+			}
+			dan(vreme).dodajJavljanje(vreme, odo, brzina, stajanje);
+			Zbir sat = sat(vreme);
+			if(sat != null) {
+				sat.dodajJavljanje(vreme, odo, brzina, stajanje);
+			}
+		}
+
+		synchronized void dodajObd(long vreme, int km, float gorivo, float radno) {
+			dan(vreme).dodajObd(vreme, km, gorivo, radno);
+			Zbir sat = sat(vreme);
+			if(sat != null) {
+				sat.dodajObd(vreme, km, gorivo, radno);
+			}
+		}
+
+		synchronized Zbir zbir(ZonedDateTime od, ZonedDateTime doo) {
+			Zbir rezultat = new Zbir();
+			ZonedDateTime t = od;
+			while(t.isBefore(doo)) {
+				LocalDate datum = t.toLocalDate();
+				ZonedDateTime sutra = datum.plusDays(1).atStartOfDay(zona);
+				if(t.equals(datum.atStartOfDay(zona)) && !sutra.isAfter(doo)) {
+					spoji(rezultat, dani.get(datum.toEpochDay()));
+					t = sutra;
+				}else {
+					spoji(rezultat, sati.get(t.toInstant().toEpochMilli() / SAT));
+					t = t.plusHours(1);
+				}
+			}
+			return rezultat;
+		}
+
+		private void spoji(Zbir rezultat, Zbir deo) {
+			if(deo != null) {
+				rezultat.spoji(deo);
+			}
+		}
+
+		private Zbir dan(long vreme) {
+			long kljuc = Instant.ofEpochMilli(vreme).atZone(zona).toLocalDate().toEpochDay();
+			Zbir zbir = dani.get(kljuc);
+			if(zbir == null) {
+				zbir = new Zbir();
+				dani.put(kljuc, zbir);
+				// нов дан - стари збирови се бришу
+				dani.headMap(LocalDate.now(zona).minusDays(danaDnevnih).toEpochDay()).clear();
+				sati.headMap(granicaSatnih() / SAT).clear();
+			}
+			return zbir;
+		}
+
+		/** Сатни збир; {@code null} за сат старији од задржавања сатних збирова. */
+		private Zbir sat(long vreme) {
+			long kljuc = vreme / SAT;
+			if(vreme < granicaSatnih()) {
+				return null;
+			}
+			return sati.computeIfAbsent(kljuc, k -> new Zbir());
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package rs.atekom.prati.server.zone;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Непроменљив просторни индекс кружних зона над правилном мрежом ћелија
+ * (степени географске ширине/дужине).
+ *
+ * <p>Свака зона се уписује у све ћелије које сече њен описани правоугаоник,
+ * па {@link #kandidati} за тачку враћа само зоне из ћелије у којој је тачка -
+ * суперскуп зона које тачку садрже. Тачну проверу растојања ради позивалац.</p>
+ *
+ * <p>Зоне које би заузеле више од {@link #MAX_CELIJA_PO_ZONI} ћелија (веома велики
+ * полупречник) не уписују се у мрежу, већ се враћају уз сваки упит.</p>
+ *
+ * @param <T> тип зоне
+ */
+public final class GeoGrid<T> {
+
+	/** Подразумевана величина ћелије: 0.01° ≈ 1.1 km по ширини. */
+	public static final double PODRAZUMEVANA_CELIJA = 0.01;
+	static final int MAX_CELIJA_PO_ZONI = 400;
+
+	private static final double METARA_PO_STEPENU = 111_320.0;
+	private static final double POLUPRECNIK_ZEMLJE = 6_371_000.0;
+	/** Резерва на полупречник, да разлике у формули растојања не избаце зону са ивице. */
+	private static final double REZERVA = 1.1;
+
+	private final double celija;
+	private final Map<Long, List<T>> mreza;
+	private final List<T> velike;
+	private final int velicina;
+
+	private GeoGrid(double celija, Map<Long, List<T>> mreza, List<T> velike, int velicina) {
+		this.celija = celija;
+		this.mreza = mreza;
+		this.velike = velike;
+		this.velicina = velicina;
+	}
+
+	/**
+	 * @param zone        зоне за индексирање
+	 * @param lat         географска ширина центра зоне
+	 * @param lon         географска дужина центра зоне
+	 * @param poluprecnik полупречник зоне у метрима
+	 * @param celija      величина ћелије у степенима
+	 */
+	public static <T> GeoGrid<T> izgradi(Collection<? extends T> zone, ToDoubleFunction<? super T> lat,
+			ToDoubleFunction<? super T> lon, ToDoubleFunction<? super T> poluprecnik, double celija) {
+		Map<Long, List<T>> mreza = new HashMap<>();
+		List<T> velike = new ArrayList<>();
+		for (T zona : zone) {
+			double zLat = lat.applyAsDouble(zona);
+			double zLon = lon.applyAsDouble(zona);
+			double r = Math.max(0, poluprecnik.applyAsDouble(zona)) * REZERVA;
+			double dLat = r / METARA_PO_STEPENU;
+			double cos = Math.cos(Math.toRadians(zLat));
+			double dLon = cos < 1e-6 ? 360 : r / (METARA_PO_STEPENU * cos);
+
+			int red0 = indeks(zLat - dLat, celija);
+			int red1 = indeks(zLat + dLat, celija);
+			int kol0 = indeks(zLon - dLon, celija);
+			int kol1 = indeks(zLon + dLon, celija);
+			if ((long) (red1 - red0 + 1) * (kol1 - kol0 + 1) > MAX_CELIJA_PO_ZONI) {
+				velike.add(zona);
+				continue;
+			}
+			for (int red = red0; red <= red1; red++) {
+				for (int kol = kol0; kol <= kol1; kol++) {
+					mreza.computeIfAbsent(kljuc(red, kol), k -> new ArrayList<>(2)).add(zona);
+				}
+			}
+		}
+		return new GeoGrid<>(celija, mreza, velike, zone.size());
+	}
+
+	/**
+	 * Зоне које би могле да садрже тачку; празна листа ако таквих нема.
+	 * Враћена листа се не сме мењати.
+	 */
+	public List<T> kandidati(double lat, double lon) {
+		List<T> uCeliji = mreza.get(kljuc(indeks(lat, celija), indeks(lon, celija)));
+		if (velike.isEmpty()) {
+			return uCeliji != null ? uCeliji : Collections.emptyList();
+		}
+		if (uCeliji == null) {
+			return velike;
+		}
+		List<T> sve = new ArrayList<>(uCeliji.size() + velike.size());
+		sve.addAll(uCeliji);
+		sve.addAll(velike);
+		return sve;
+	}
+
+	/** Укупан број индексираних зона. */
+	public int velicina() {
+		return velicina;
+	}
+
+	/** Растојање у метрима по haversine формули. */
+	public static double rastojanjeMetara(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * POLUPRECNIK_ZEMLJE * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	private static int indeks(double stepeni, double celija) {
+		return (int) Math.floor(stepeni / celija);
+	}
+
+	private static long kljuc(int red, int kol) {
+		return ((long) red << 32) | (kol & 0xffffffffL);
+	}
+}
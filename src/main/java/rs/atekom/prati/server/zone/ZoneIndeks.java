@@ -0,0 +1,132 @@
+package rs.atekom.prati.server.zone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pratiBaza.tabele.ObjekatZone;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Заједнички индекс зона по објекту за проверу уласка/изласка из зоне.
+ *
+ * <p>За сваки објекат се једном учитају везе објекат-зона и изгради {@link GeoGrid}
+ * над активним зонама са алармом. Измене у {@code ZoneView}/{@code ObjekatZoneView}
+ * поништавају само погођене објекте ({@link #osveziObjekat}, {@link #osveziZonu}),
+ * који се поново граде при следећем јављању.</p>
+ */
+public class ZoneIndeks {
+
+	private static final Logger logger = LoggerFactory.getLogger(ZoneIndeks.class);
+
+	private final ConcurrentMap<Long, ZoneObjekta> objekti = new ConcurrentHashMap<>();
+	private final Function<Objekti, ? extends List<ObjekatZone>> ucitavanje;
+	private final double celija;
+
+	/**
+	 * @param ucitavanje читање веза објекат-зона из базе
+	 */
+	public ZoneIndeks(Function<Objekti, ? extends List<ObjekatZone>> ucitavanje) {
+		this(ucitavanje, GeoGrid.PODRAZUMEVANA_CELIJA);
+	}
+
+	ZoneIndeks(Function<Objekti, ? extends List<ObjekatZone>> ucitavanje, double celija) {
+		this.ucitavanje = ucitavanje;
+		this.celija = celija;
+	}
+
+	/**
+	 * Зоне објекта; гради се при првом позиву и после сваког поништавања.
+	 * Ако читање не успе, враћа празан скуп који се не памти.
+	 */
+	public ZoneObjekta zaObjekat(Objekti objekat) {
+		Long id = objekat.getId();
+		ZoneObjekta zone = objekti.get(id);
+		if (zone != null) {
+			return zone;
+		}
+		List<ObjekatZone> lista;
+		try {
+			lista = ucitavanje.apply(objekat);
+		} catch (RuntimeException e) {
+			logger.warn("Zone objekta {}: greška učitavanja: {}", objekat.getOznaka(), e.getMessage());
+			return new ZoneObjekta(Collections.emptyList(), celija);
+		}
+		zone = new ZoneObjekta(lista != null ? lista : Collections.emptyList(), celija);
+		ZoneObjekta postojece = objekti.putIfAbsent(id, zone);
+		return postojece != null ? postojece : zone;
+	}
+
+	/** Промењене везе објекат-зона (унос, измена, брисање) за дати објекат. */
+	public void osveziObjekat(Long objekatId) {
+		if (objekatId != null) {
+			objekti.remove(objekatId);
+		}
+	}
+
+	/** Промењена или обрисана зона - поништавају се сви објекти који је користе. */
+	public void osveziZonu(Long zonaId) {
+		if (zonaId == null) {
+			return;
+		}
+		objekti.entrySet().removeIf(e -> e.getValue().poZoni(zonaId) != null);
+	}
+
+	public int brojObjekata() {
+		return objekti.size();
+	}
+
+	/**
+	 * Непроменљив скуп зона једног објекта.
+	 */
+	public static final class ZoneObjekta {
+
+		private final List<ObjekatZone> sve;
+		private final Map<Long, ObjekatZone> poZoni;
+		private final GeoGrid<ObjekatZone> ulazne;
+
+		ZoneObjekta(List<ObjekatZone> lista, double celija) {
+			List<ObjekatZone> aktivne = new ArrayList<>();
+			Map<Long, ObjekatZone> mapa = new HashMap<>();
+			for (ObjekatZone objekatZona : lista) {
+				if (objekatZona == null || objekatZona.getZone() == null) {
+					continue;
+				}
+				mapa.putIfAbsent(objekatZona.getZone().getId(), objekatZona);
+				if (objekatZona.isAktivan() && objekatZona.isIzlaz()) {
+					aktivne.add(objekatZona);
+				}
+			}
+			this.sve = Collections.unmodifiableList(new ArrayList<>(lista));
+			this.poZoni = mapa;
+			this.ulazne = GeoGrid.izgradi(aktivne,
+					oz -> oz.getZone().getLat(), oz -> oz.getZone().getLon(), oz -> oz.getZone().getPrecnik(), celija);
+		}
+
+		public boolean isEmpty() {
+			return sve.isEmpty();
+		}
+
+		public List<ObjekatZone> getSve() {
+			return sve;
+		}
+
+		/** Активне зоне са алармом које би могле да садрже тачку. */
+		public List<ObjekatZone> kandidati(double lat, double lon) {
+			return ulazne.kandidati(lat, lon);
+		}
+
+		/** Веза објекта са датом зоном или null. */
+		public ObjekatZone poZoni(Long zonaId) {
+			return poZoni.get(zonaId);
+		}
+	}
+}
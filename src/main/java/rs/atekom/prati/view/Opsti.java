@@ -28,6 +28,7 @@ import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.komponente.combo.ComboGrupe;
 import rs.atekom.prati.view.komponente.combo.ComboOrganizacije;
 import rs.atekom.prati.view.komponente.combo.ComboPretplatnici;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
 
 public class Opsti extends CssLayout{
 	private static final long serialVersionUID = 1L;
@@ -109,10 +110,10 @@ public class Opsti extends CssLayout{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<SistemPretplatnici> event) {
-				organizacijeCombo.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatniciCombo.getValue(), true));
+				organizacijeCombo.setItems(Servis.sifarnici.organizacije(pretplatniciCombo.getValue()));
 				organizacijeCombo.clear();
 				grupeCombo.clear();
-				grupeCombo.setItems(Servis.grupeServis.vratiGrupeAktivne(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
+				grupeCombo.setItems(Servis.sifarnici.grupe(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
 			}
 		});
         organizacijeCombo.addValueChangeListener(new ValueChangeListener<Organizacije>() {
@@ -120,7 +121,7 @@ public class Opsti extends CssLayout{
 			@Override
 			public void valueChange(ValueChangeEvent<Organizacije> event) {
 				grupeCombo.clear();
-				grupeCombo.setItems(Servis.grupeServis.vratiGrupeAktivne(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
+				grupeCombo.setItems(Servis.sifarnici.grupe(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
 			}
 		});
         
@@ -173,4 +174,22 @@ public class Opsti extends CssLayout{
 		return (korisnik.isSistem() && korisnik.getSistemPretplatnici().isSistem());
 	}
 	
+	/**
+	 * Ограничава упит табеле на претплатника пријављеног корисника и, ако је
+	 * корисник везан за организацију, на њу ({@code organizacija} је путања тог
+	 * својства или {@code null}). Систем види све; избрисане редове види само систем.
+	 */
+	public void opsegKorisnika(HibernateUpit<?> upit, String organizacija, boolean izbrisan) {
+		if(korisnik.isSistem() && (korisnik.getSistemPretplatnici() == null || korisnik.getSistemPretplatnici().isSistem())) {
+			return;
+		}
+		upit.jednako("sistemPretplatnici", korisnik.getSistemPretplatnici());
+		if(organizacija != null && korisnik.getOrganizacija() != null) {
+			upit.jednako(organizacija, korisnik.getOrganizacija());
+		}
+		if(izbrisan) {
+			upit.jednako("izbrisan", false);
+		}
+	}
+	
 }
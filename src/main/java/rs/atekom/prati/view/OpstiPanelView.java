@@ -108,11 +108,11 @@ public abstract class OpstiPanelView extends Panel implements View, Serializable
 				organizacijeCombo.clear();
 				grupeCombo.clear();
 				if(event.getValue() != null) {
-					organizacijeCombo.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatniciCombo.getValue(), true));
+					organizacijeCombo.setItems(Servis.sifarnici.organizacije(pretplatniciCombo.getValue()));
 					if(!korisnik.isAdmin()) {
 						grupeCombo.setItems(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik));
 					}else {
-						grupeCombo.setItems(Servis.grupeServis.vratiGrupeAktivne(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
+						grupeCombo.setItems(Servis.sifarnici.grupe(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
 					}
 				}
 			}
@@ -126,7 +126,7 @@ public abstract class OpstiPanelView extends Panel implements View, Serializable
 				if(!korisnik.isAdmin()) {
 					grupeCombo.setItems(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik));
 				}else {
-					grupeCombo.setItems(Servis.grupeServis.vratiGrupeAktivne(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
+					grupeCombo.setItems(Servis.sifarnici.grupe(pretplatniciCombo.getValue(), organizacijeCombo.getValue()));
 				}
 			}
 		});
@@ -104,10 +104,8 @@ public class PracenjeView extends OpstiPanelView{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<Grupe> event) {
-				if(event.getValue() != null && Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(event.getValue()) != null) {
-					ArrayList<Objekti> objekti = new ArrayList<Objekti>();
-					objekti.addAll(Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(event.getValue()));
-					Prati.getCurrent().poslednjaJavljanja.setItems(Servis.javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(objekti));
+				if(event.getValue() != null) {
+					Prati.getCurrent().poslednjaJavljanja.setItems(Servis.flota.poslednja(Servis.flota.objektiGrupe(event.getValue())));
 				}else {
 					Prati.getCurrent().poslednjaJavljanja.setItems(new ArrayList<JavljanjaPoslednja>());
 					//updateTable();
@@ -155,8 +153,7 @@ public class PracenjeView extends OpstiPanelView{
 		root.addComponent(content);
 		root.setExpandRatio(content, 1);
 		Prati.getCurrent().pracenjeView = this;
-		Prati.getCurrent().alarmiKorisnika.clear();
-		Prati.getCurrent().alarmiKorisnika .addAll(Servis.alarmKorisnikServis.vratiAlarmePoKorisniku(korisnik, true, false, true));
+		Prati.getCurrent().alarmiKorisnika = Servis.flota.alarmi(korisnik);
 		setContent(root);
 	}
 	
@@ -196,9 +193,7 @@ public class PracenjeView extends OpstiPanelView{
 			@Override
 			public void valueChange(ValueChangeEvent<Grupe> event) {
 				if(event.getValue() != null) {
-					ArrayList<Objekti> objekti = new ArrayList<Objekti>();
-					objekti.addAll(Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(event.getValue()));//Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(event.getValue())
-					Prati.getCurrent().poslednjaJavljanja.setItems(Servis.javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(objekti));
+					Prati.getCurrent().poslednjaJavljanja.setItems(Servis.flota.poslednja(Servis.flota.objektiGrupe(event.getValue())));
 				}else {
 					//updateTable();
 				}
@@ -247,20 +242,10 @@ public class PracenjeView extends OpstiPanelView{
 
 	public void updateTable() {
 		Prati.getCurrent().poslednjaJavljanja.setItems(new ArrayList<JavljanjaPoslednja>());
-		if(!korisnik.isAdmin()) {
-			ArrayList<Grupe> grupe = new ArrayList<Grupe>();
-			grupe.addAll(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik));
-			ArrayList<Objekti> objekti = Servis.grupeObjekatServis.nadjiSveObjektePoGrupama(grupe);
-			if(objekti != null && !objekti.isEmpty()) {
-				Prati.getCurrent().poslednjaJavljanja.setItems(Servis.javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(objekti));
-			}
-		}else {
-			if(korisnik.getSistemPretplatnici() != null) {
-				ArrayList<Objekti> objekti = new ArrayList<Objekti>();
-				objekti.addAll(Servis.objekatServis.vratiSveObjekte(korisnik, true));
-				if(objekti != null && !objekti.isEmpty()) {
-					Prati.getCurrent().poslednjaJavljanja.setItems(Servis.javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(objekti));
-				}
+		if(korisnik.getSistemPretplatnici() != null) {
+			List<Objekti> objekti = Servis.flota.objekti(korisnik);
+			if(!objekti.isEmpty()) {
+				Prati.getCurrent().poslednjaJavljanja.setItems(Servis.flota.poslednja(objekti));
 			}
 		}
 	}
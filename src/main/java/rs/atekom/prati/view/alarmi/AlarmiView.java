@@ -1,16 +1,15 @@
 package rs.atekom.prati.view.alarmi;
 
-import java.util.ArrayList;
 import java.util.NoSuchElementException;
 import com.github.appreciated.app.layout.annotations.MenuCaption;
 import com.github.appreciated.app.layout.annotations.MenuIcon;
 import com.github.appreciated.app.layout.annotations.NavigatorViewName;
-import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.event.selection.SelectionEvent;
 import com.vaadin.event.selection.SelectionListener;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
-import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.ui.ValueChangeMode;
 import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Button.ClickEvent;
@@ -20,6 +19,8 @@ import pratiBaza.tabele.SistemAlarmi;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
+import rs.atekom.prati.view.komponente.podaci.StranicniPodaci;
 
 @NavigatorViewName("alarmi") // an empty view name will also be the default view
 @MenuCaption("Аларми")
@@ -29,9 +30,7 @@ public class AlarmiView extends OpstiView implements OpstiViewInterface{
 	private static final long serialVersionUID = 1L;
 	public final String VIEW_NAME = "alarmi";
 	private Grid<SistemAlarmi> tabela;
-	private ListDataProvider<SistemAlarmi> dataProvider;
-	private SerializablePredicate<SistemAlarmi> filterPredicate;
-	private ArrayList<SistemAlarmi> pocetno, lista;
+	private ConfigurableFilterDataProvider<SistemAlarmi, Void, String> dataProvider;
 	private AlarmiLogika viewLogika;
 	private AlarmiForma forma;
 	private SistemAlarmi izabrani;
@@ -79,15 +78,19 @@ public class AlarmiView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void buildTable() {
 		tabela = new Grid<SistemAlarmi>();
-		pocetno = new ArrayList<SistemAlarmi>();
-		updateTable();
+		HibernateUpit<SistemAlarmi> upit = new HibernateUpit<SistemAlarmi>(SistemAlarmi.class)
+				.pretraga("sifra", "naziv", "opis")
+				.redosled("sifra", true);
+		dataProvider = new StranicniPodaci<SistemAlarmi>(upit, SistemAlarmi::getId).withConfigurableFilter();
+		tabela.setDataProvider(dataProvider);
+		dodajFilter();
 		tabela.setSizeFull();
 		tabela.setStyleName("list");
 		tabela.setSelectionMode(SelectionMode.SINGLE);
 		
-		tabela.addColumn(SistemAlarmi::getSifra).setCaption("шифра");
-		tabela.addColumn(SistemAlarmi::getNaziv).setCaption("назив");
-		tabela.addColumn(SistemAlarmi::getOpis).setCaption("опис");
+		tabela.addColumn(SistemAlarmi::getSifra).setCaption("шифра").setSortProperty("sifra");
+		tabela.addColumn(SistemAlarmi::getNaziv).setCaption("назив").setSortProperty("naziv");
+		tabela.addColumn(SistemAlarmi::getOpis).setCaption("опис").setSortProperty("opis");
 		tabela.addComponentColumn(sistemAlarmi -> {CheckBox chb = new CheckBox(); if(sistemAlarmi.isAdresa()) {chb.setValue(true); chb.setEnabled(false);}return chb;}).setCaption("адреса").setStyleGenerator(sistemAlarmi -> "v-align-right");
 		tabela.addComponentColumn(sistemAlarmi -> {CheckBox chb = new CheckBox(); if(sistemAlarmi.isEmail()) {chb.setValue(true); chb.setEnabled(false);}return chb;}).setCaption("е-пошта").setStyleGenerator(sistemAlarmi -> "v-align-right");
 		tabela.addComponentColumn(sistemAlarmi -> {CheckBox chb = new CheckBox(); if(sistemAlarmi.isPrikaz()) {chb.setValue(true); chb.setEnabled(false);}return chb;}).setCaption("приказ").setStyleGenerator(sistemAlarmi -> "v-align-right");
@@ -95,6 +98,7 @@ public class AlarmiView extends OpstiView implements OpstiViewInterface{
 		tabela.addComponentColumn(sistemAlarmi -> {CheckBox chb = new CheckBox(); if(sistemAlarmi.isAlarmiranje()) {chb.setValue(true); chb.setEnabled(false);}return chb;}).setCaption("алармирање").setStyleGenerator(sistemAlarmi -> "v-align-right");
 		tabela.addComponentColumn(sistemAlarmi -> {CheckBox chb = new CheckBox(); if(sistemAlarmi.isAktivan()) {chb.setValue(true); chb.setEnabled(false);}return chb;}).setCaption("активан").setStyleGenerator(sistemAlarmi -> "v-align-right");
 		tabela.addComponentColumn(sistemAlarmi -> {CheckBox chb = new CheckBox(); if(sistemAlarmi.isIzbrisan()) {chb.setValue(true); chb.setEnabled(false);}return chb;}).setCaption("избрисан").setStyleGenerator(sistemAlarmi -> "v-align-right");
+		StranicniPodaci.sortiranjePoSvojstvima(tabela);
 	}
 
 	@Override
@@ -149,34 +153,17 @@ public class AlarmiView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void updateTable() {
 		filter.clear();
-		lista = Servis.sistemAlarmServis.vratiSveAlarme();
-		if(lista != null) {
-			tabela.setItems(lista);
-		}else {
-			tabela.setItems(pocetno);
-		}
-		dodajFilter();
+		dataProvider.refreshAll();
 	}
 
 	@Override
 	public void osveziFilter() {
-		dataProvider.setFilter(filterPredicate);
-		dataProvider.refreshAll();
+		dataProvider.setFilter(filter.getValue());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void dodajFilter() {
-		dataProvider = (ListDataProvider<SistemAlarmi>)tabela.getDataProvider();
-		filterPredicate = new SerializablePredicate<SistemAlarmi>() {
-			private static final long serialVersionUID = 1L;
-			@Override
-			public boolean test(SistemAlarmi t) {
-				return (t.getNaziv().toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						t.getSifra().toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						t.getOpis().toLowerCase().contains(filter.getValue().toLowerCase()));
-			}
-		};
+		filter.setValueChangeMode(ValueChangeMode.LAZY);
 		filter.addValueChangeListener(e -> {osveziFilter();});
 	}
 
@@ -53,7 +53,7 @@ public class AlarmKorisnikForma extends OpstaForma implements OpstaFormaInterfac
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<SistemPretplatnici> event) {
-				organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnici.getValue(), true));
+				organizacije.setItems(Servis.sifarnici.organizacije(pretplatnici.getValue()));
 				
 			}
 		});
@@ -77,6 +77,7 @@ public class AlarmKorisnikLogika implements LogikaInterface{
 				view.pokaziPorukuGreska("проблем са уносом!");
 			}
 		}
+		Servis.flota.ponisti(alarmKorisnik.getKorisnik() == null ? null : alarmKorisnik.getKorisnik().getSistemPretplatnici());
 		view.updateTable();
 	}
 
@@ -144,6 +144,7 @@ public class AlarmKorisnikView extends OpstiView implements OpstiViewInterface{
 	public void ukloniPodatak() {
 		if(izabrani != null) {
 			Servis.alarmKorisnikServis.izbrisiAlarmiKorisnik(izabrani);
+			Servis.flota.ponisti(izabrani.getKorisnik() == null ? null : izabrani.getKorisnik().getSistemPretplatnici());
 			pokaziPorukuUspesno("аларм је избрисан");
 		}else {
 			pokaziPorukuGreska("аларм је већ избрисан!");
@@ -5,6 +5,7 @@ import com.vaadin.server.Page;
 import pratiBaza.tabele.SistemGoriva;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class GorivoLogika implements LogikaInterface{
@@ -70,6 +71,7 @@ public class GorivoLogika implements LogikaInterface{
 			Servis.sistemGorivoServis.unesiGorivo(gorivo);
 			view.pokaziPorukuUspesno("врста горива сачувана");
 		}
+		Servis.sifarnici.ponistiSve(Sifarnici.Vrsta.GORIVA);
 		view.updateTable();
 	}
 
@@ -20,6 +20,7 @@ import com.vaadin.ui.Grid.SelectionMode;
 
 import pratiBaza.tabele.SistemGoriva;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -134,6 +135,7 @@ public class GorivoView extends OpstiView implements OpstiViewInterface{
 		if(izabrani != null) {
 			if(!izabrani.isIzbrisan()) {
 				Servis.sistemGorivoServis.izbrisiGorivo(izabrani);
+				Servis.sifarnici.ponistiSve(Sifarnici.Vrsta.GORIVA);
 				pokaziPorukuUspesno("врста горива " + izabrani.getNaziv() + " је избрисана!");
 			}else {
 				pokaziPorukuGreska("модел је већ избрисан!");
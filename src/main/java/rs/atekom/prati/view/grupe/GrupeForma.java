@@ -34,7 +34,7 @@ public class GrupeForma extends OpstaForma implements OpstaFormaInterface{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<SistemPretplatnici> event) {
-				organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnici.getValue(), true));
+				organizacije.setItems(Servis.sifarnici.organizacije(pretplatnici.getValue()));
 			}
 		});
 		
@@ -5,6 +5,7 @@ import com.vaadin.server.Page;
 import pratiBaza.tabele.Grupe;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class GrupeLogika implements LogikaInterface{
@@ -70,6 +71,7 @@ public class GrupeLogika implements LogikaInterface{
 			Servis.grupeServis.unesiGrupu(grupa);
 			view.pokaziPorukuUspesno("група сачувана");
 		}
+		Servis.sifarnici.ponisti(Sifarnici.Vrsta.GRUPE, grupa.getSistemPretplatnici());
 		view.updateTable();
 	}
 
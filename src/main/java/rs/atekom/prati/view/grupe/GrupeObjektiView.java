@@ -19,6 +19,7 @@ import pratiBaza.tabele.Grupe;
 import pratiBaza.tabele.GrupeObjekti;
 import pratiBaza.tabele.Objekti;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -73,6 +74,7 @@ public class GrupeObjektiView extends OpstiView implements OpstiViewInterface{
 									grupaObjekat.setObjekti(objekat);
 									Servis.grupeObjekatServis.unesiGrupaObjekat(grupaObjekat);
 									}
+								Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, pretplatniciCombo.getValue());
 								pokaziPorukuUspesno("подаци сачувани");
 								}
 							}
@@ -19,6 +19,7 @@ import com.vaadin.ui.Grid.SelectionMode;
 import com.vaadin.ui.renderers.DateRenderer;
 import pratiBaza.tabele.Grupe;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -145,6 +146,8 @@ public class GrupeView extends OpstiView implements OpstiViewInterface{
 			if(!izabrani.isIzbrisan()) {
 				Servis.grupeObjekatServis.izbrisiSveGrupaObjekti(izabrani);//brišem sve kombinacije grupaObjekat po izabranoj grupi
 				Servis.grupeServis.izbrisiGrupu(izabrani);
+				Servis.sifarnici.ponisti(Sifarnici.Vrsta.GRUPE, izabrani.getSistemPretplatnici());
+				Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, izabrani.getSistemPretplatnici());
 				pokaziPorukuUspesno("група " + izabrani.getNaziv() + " је избрисана");
 			}else {
 				pokaziPorukuGreska("група је већ избрисана!");
@@ -15,7 +15,6 @@ import ar.com.fdvs.dj.domain.constants.Font;
 import ar.com.fdvs.dj.domain.constants.HorizontalAlign;
 import ar.com.fdvs.dj.domain.constants.Page;
 import pratiBaza.tabele.Javljanja;
-import pratiBaza.tabele.Obd;
 import pratiBaza.tabele.Objekti;
 import rs.atekom.prati.server.Servis;
 
@@ -27,66 +26,30 @@ public class IstorijaIzvestaj extends PrintPreviewReport<Javljanja>{
 	private List<Javljanja> lista = new ArrayList<Javljanja>();
 
 	public IstorijaIzvestaj(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo) {
+		this(IstorijaSesija.ucitaj(objekat, datumVremeOd, datumVremeDo));
+	}
+	
+	/**
+	 * Извештај над већ учитаном историјом - без поновног читања базе.
+	 */
+	public IstorijaIzvestaj(IstorijaSesija sesija) {
 		//setImageServletPathPattern("izvestaj-istorija?image={0}");
 		setSizeUndefined();
-		String strVremeOd = "од: ";
-		String strVremeDo = "до: ";
-		int brojBrzina = 0;
-		int prosBrzina = 0;
-		int maxBrzina = 0;
-		float predjeniPutGPS = 0.0f;
-		float ukPotrosnja = 0.0f;
-		int satPocetak = 0;
-		int satKraj = 0;
-		int satUkupno = 0;
-		float prosPotrosUk = 0.0f;
-		int brojProsPotr = 1;
-		float prosPotros = 0.0f;
-
-		List<Javljanja> javljanja = Servis.javljanjeServis.vratiJavljanjaObjektaOdDo(objekat, datumVremeOd, datumVremeDo);
-		ArrayList<Obd> obd = Servis.obdServis.nadjiObdPoObjektuOdDo(objekat, datumVremeOd, datumVremeDo);
-
-		Date vremeMaxBrzine = new Date();
-		for(Javljanja javljanje : javljanja) {
-			if(javljanje.getBrzina() > 5) {
-				prosBrzina += javljanje.getBrzina();
-				brojBrzina++;
-			}
-			if(javljanje.getBrzina() > maxBrzina) {
-				maxBrzina = javljanje.getBrzina();
-				vremeMaxBrzine = javljanje.getDatumVreme();
-			}
-		}
-		
-		if(brojBrzina == 0) {
-			brojBrzina = 1;
-		}
-		
+		Objekti objekat = sesija.getObjekat();
 		SimpleDateFormat outputFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
 		
-		strVremeOd += outputFormat.format(javljanja.get(0).getDatumVreme());
-		strVremeDo += outputFormat.format(javljanja.get(javljanja.size() - 1).getDatumVreme());
+		String strVremeOd = "од: " + outputFormat.format(sesija.getVremePrvog());
+		String strVremeDo = "до: " + outputFormat.format(sesija.getVremePoslednjeg());
+		int prosBrzina = sesija.getProsecnaBrzina();
+		int maxBrzina = sesija.getMaxBrzina();
+		Date vremeMaxBrzine = sesija.getVremeMaxBrzine();
+		float predjeniPutGPS = sesija.getPredjeniPutGPS();
+		float ukPotrosnja = sesija.getUkupnaPotrosnja();
+		int satPocetak = sesija.getOdometarPocetak();
+		int satKraj = sesija.getOdometarKraj();
+		int satUkupno = sesija.getOdometarRazlika();
+		float prosPotros = sesija.getProsecnaPotrosnja();
 		
-		if(javljanja != null &&!javljanja.isEmpty()) {
-			predjeniPutGPS = javljanja.get(javljanja.size()-1).getVirtualOdo() - javljanja.get(0).getVirtualOdo();
-		}
-
-		if(obd != null && !obd.isEmpty()) {
-			ukPotrosnja = obd.get(obd.size() - 1).getUkupnoGorivo() - obd.get(0).getUkupnoGorivo();
-			satPocetak = obd.get(0).getUkupnoKm();
-			satKraj = obd.get(obd.size() - 1).getUkupnoKm();
-			satUkupno = satKraj - satPocetak;
-			
-			for(Obd obdZapis : obd) {
-				if(obdZapis.getProsecnaPotrosnja() > 0.0f) {
-					prosPotrosUk += obdZapis.getProsecnaPotrosnja();
-					brojProsPotr++;
-				}
-			}
-			prosPotros = prosPotrosUk/brojProsPotr;
-		}else {
-			satUkupno = 0;
-		}
 		//setFont(new Font(Font.MEDIUM, "Arial Unicode MS", false));
 		//Font slova = new Font(10, Font._FONT_ARIAL, Font._FONT_ARIAL, Font.PDF_ENCODING_Identity_H_Unicode_with_horizontal_writing, true);
 		
@@ -111,7 +74,7 @@ public class IstorijaIzvestaj extends PrintPreviewReport<Javljanja>{
 		.addAutoText("Преглед података за објекат: " + objekat.getOznaka() + "    " + strVremeOd + "    " + strVremeDo, AutoText.POSITION_HEADER, AutoText.ALIGMENT_LEFT, 450, headerStyle)
 		.addAutoText("извештај урађен: " + datumVreme.format(new Date()), AutoText.POSITION_HEADER, AutoText.ALIGNMENT_RIGHT, 300, datum)
 		.addAutoText("пређени пут по гпс:  " + String.format("%.2f", predjeniPutGPS) + "км", AutoText.POSITION_HEADER, AutoText.ALIGMENT_LEFT, 800, headerStyle)
-		.addAutoText("просечна брзина: " + prosBrzina/brojBrzina + "км/ч;      " + "макс брзина: " + maxBrzina + "км/ч      остварена: " + outputFormat.format(vremeMaxBrzine), 
+		.addAutoText("просечна брзина: " + prosBrzina + "км/ч;      " + "макс брзина: " + maxBrzina + "км/ч      остварена: " + outputFormat.format(vremeMaxBrzine), 
 				AutoText.POSITION_HEADER, AutoText.ALIGMENT_LEFT, 800, headerStyle)
 		.addAutoText("одометар - почетак: " + String.format("%,d", satPocetak) + "км;      крај: " + String.format("%,d", satKraj) + "км;      разлика: " + String.format("%,d", satUkupno) + "км", 
 				AutoText.POSITION_HEADER, AutoText.ALIGMENT_LEFT, 800, headerStyle)
@@ -139,7 +102,8 @@ public class IstorijaIzvestaj extends PrintPreviewReport<Javljanja>{
 				.setTitle("опис")
 				.setStyle(datum)
 				.build());
-		setItems(vratiListu(objekat, datumVremeOd, datumVremeDo));
+		lista = sesija.getAlarmi();
+		setItems(lista);
 	}
 	
 	public List<Javljanja> vratiListu(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo){
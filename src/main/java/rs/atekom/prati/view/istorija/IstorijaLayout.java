@@ -17,6 +17,11 @@ public class IstorijaLayout extends VerticalLayout{
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
 	
 	public IstorijaLayout(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo) {
+		this(IstorijaSesija.ucitaj(objekat, datumVremeOd, datumVremeDo));
+	}
+	
+	public IstorijaLayout(IstorijaSesija sesija) {
+		Objekti objekat = sesija.getObjekat();
 		setSizeFull();
 		setMargin(new MarginInfo(false, false, true, false));
 		SimpleDateFormat datumVreme = new SimpleDateFormat(DATUMVREME);
@@ -33,7 +38,7 @@ public class IstorijaLayout extends VerticalLayout{
 		hLayout.addComponent(doc);
 		Panel panel = new Panel();
 		panel.setHeight("100%");
-		IstorijaIzvestaj izvestaj = new IstorijaIzvestaj(objekat, datumVremeOd, datumVremeDo);
+		IstorijaIzvestaj izvestaj = new IstorijaIzvestaj(sesija);
 		izvestaj.downloadPdfOnClick(pdf, "istorija_" + objekat.getOznaka() + datumVreme.format(new Date()) + ".pdf", izvestaj.vratiSeriju());
 		izvestaj.downloadDocxOnClick(doc, "istorija_" + objekat.getOznaka() + datumVreme.format(new Date()) + ".doc", izvestaj.vratiSeriju());
 		izvestaj.downloadXlsOnClick(xls, "istorija_" + objekat.getOznaka() + datumVreme.format(new Date()) + ".xlsx", izvestaj.vratiSeriju());
@@ -0,0 +1,177 @@
+package rs.atekom.prati.view.istorija;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.Servis;
+
+/**
+ * Историја једног објекта за један период, учитана једном.
+ *
+ * <p>Јављања, аларми и OBD записи се читају по једном упиту, а збирни подаци
+ * (брзине, пређени пут, одометар, гориво) рачунају се у једном пролазу. Мапа
+ * ({@link IstorijaView}), заглавље извештаја и табела аларма
+ * ({@link IstorijaIzvestaj}) користе исте податке.</p>
+ *
+ * <p>Аларми се читају постојећим упитом ({@code vratiJavljanjaObjektaOdDoSaAlarmima}),
+ * а не филтрирају из јављања, да табела аларма остане иста као раније.</p>
+ */
+public class IstorijaSesija implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Objekti objekat;
+	private final Timestamp datumVremeOd;
+	private final Timestamp datumVremeDo;
+	private final List<Javljanja> javljanja;
+	private final List<Javljanja> alarmi;
+
+	private int prosecnaBrzina;
+	private int maxBrzina;
+	private Date vremeMaxBrzine = new Date();
+	private float predjeniPutGPS;
+	private float ukupnaPotrosnja;
+	private int odometarPocetak;
+	private int odometarKraj;
+	private float prosecnaPotrosnja;
+
+	/**
+	 * Учитава период из базе; празна листа ако нема јављања.
+	 */
+	public static IstorijaSesija ucitaj(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo) {
+		List<Javljanja> javljanja = Servis.javljanjeServis.vratiJavljanjaObjektaOdDo(objekat, datumVremeOd, datumVremeDo);
+		List<Javljanja> alarmi = null;
+		List<Obd> obd = null;
+		if(javljanja != null && !javljanja.isEmpty()) {
+			alarmi = Servis.javljanjeServis.vratiJavljanjaObjektaOdDoSaAlarmima(objekat, datumVremeOd, datumVremeDo);
+			obd = Servis.obdServis.nadjiObdPoObjektuOdDo(objekat, datumVremeOd, datumVremeDo);
+		}
+		return new IstorijaSesija(objekat, datumVremeOd, datumVremeDo, javljanja, alarmi, obd);
+	}
+
+	IstorijaSesija(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo, List<Javljanja> javljanja,
+			List<Javljanja> alarmi, List<Obd> obd) {
+		this.objekat = objekat;
+		this.datumVremeOd = datumVremeOd;
+		this.datumVremeDo = datumVremeDo;
+		this.javljanja = javljanja != null ? javljanja : Collections.<Javljanja>emptyList();
+		this.alarmi = alarmi != null ? alarmi : Collections.<Javljanja>emptyList();
+		obradiJavljanja();
+		obradiObd(obd);
+	}
+
+	private void obradiJavljanja() {
+		long zbirBrzina = 0;
+		int brojBrzina = 0;
+		for(Javljanja javljanje : javljanja) {
+			if(javljanje.getBrzina() > 5) {
+				zbirBrzina += javljanje.getBrzina();
+				brojBrzina++;
+			}
+			if(javljanje.getBrzina() > maxBrzina) {
+				maxBrzina = javljanje.getBrzina();
+				vremeMaxBrzine = javljanje.getDatumVreme();
+			}
+		}
+		prosecnaBrzina = (int) (zbirBrzina / Math.max(1, brojBrzina));
+		if(!javljanja.isEmpty()) {
+			predjeniPutGPS = javljanja.get(javljanja.size() - 1).getVirtualOdo() - javljanja.get(0).getVirtualOdo();
+		}
+	}
+
+	private void obradiObd(List<Obd> obd) {
+		if(obd == null || obd.isEmpty()) {
+			return;
+		}
+		ukupnaPotrosnja = obd.get(obd.size() - 1).getUkupnoGorivo() - obd.get(0).getUkupnoGorivo();
+		odometarPocetak = obd.get(0).getUkupnoKm();
+		odometarKraj = obd.get(obd.size() - 1).getUkupnoKm();
+		float zbir = 0.0f;
+		int broj = 0;
+		for(Obd obdZapis : obd) {
+			if(obdZapis.getProsecnaPotrosnja() > 0.0f) {
+				zbir += obdZapis.getProsecnaPotrosnja();
+				broj++;
+			}
+		}
+		prosecnaPotrosnja = broj == 0 ? 0.0f : zbir / broj;
+	}
+
+	public boolean isEmpty() {
+		return javljanja.isEmpty();
+	}
+
+	public Objekti getObjekat() {
+		return objekat;
+	}
+
+	public Timestamp getDatumVremeOd() {
+		return datumVremeOd;
+	}
+
+	public Timestamp getDatumVremeDo() {
+		return datumVremeDo;
+	}
+
+	/** Сва јављања периода, по времену. */
+	public List<Javljanja> getJavljanja() {
+		return javljanja;
+	}
+
+	/** Јављања са алармом, за табелу извештаја. */
+	public List<Javljanja> getAlarmi() {
+		return alarmi;
+	}
+
+	public Date getVremePrvog() {
+		return javljanja.isEmpty() ? null : javljanja.get(0).getDatumVreme();
+	}
+
+	public Date getVremePoslednjeg() {
+		return javljanja.isEmpty() ? null : javljanja.get(javljanja.size() - 1).getDatumVreme();
+	}
+
+	/** Просечна брзина у кретању (изнад 5 км/ч). */
+	public int getProsecnaBrzina() {
+		return prosecnaBrzina;
+	}
+
+	public int getMaxBrzina() {
+		return maxBrzina;
+	}
+
+	public Date getVremeMaxBrzine() {
+		return vremeMaxBrzine;
+	}
+
+	public float getPredjeniPutGPS() {
+		return predjeniPutGPS;
+	}
+
+	public float getUkupnaPotrosnja() {
+		return ukupnaPotrosnja;
+	}
+
+	public int getOdometarPocetak() {
+		return odometarPocetak;
+	}
+
+	public int getOdometarKraj() {
+		return odometarKraj;
+	}
+
+	public int getOdometarRazlika() {
+		return odometarKraj - odometarPocetak;
+	}
+
+	/** Просечна потрошња из OBD записа (по радном сату), само записи са потрошњом. */
+	public float getProsecnaPotrosnja() {
+		return prosecnaPotrosnja;
+	}
+}
@@ -1,8 +1,9 @@
 package rs.atekom.prati.view.istorija;
 
+import java.io.Serializable;
 import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import com.github.appreciated.app.layout.annotations.MenuCaption;
@@ -12,6 +13,7 @@ import com.vaadin.data.HasValue.ValueChangeEvent;
 import com.vaadin.data.HasValue.ValueChangeListener;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.tapio.googlemaps.client.LatLon;
+import com.vaadin.tapio.googlemaps.client.events.MapMoveListener;
 import com.vaadin.tapio.googlemaps.client.overlays.GoogleMapMarker;
 import com.vaadin.tapio.googlemaps.client.overlays.GoogleMapPolyline;
 import com.vaadin.ui.Component;
@@ -22,6 +24,7 @@ import pratiBaza.tabele.Javljanja;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.SistemAlarmi;
 import rs.atekom.prati.mape.Gmap;
+import rs.atekom.prati.mape.UproscavanjeTrase;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiPanelView;
 
@@ -42,6 +45,16 @@ public class IstorijaView extends OpstiPanelView{
 	private Panel podaci;
 	private GoogleMapPolyline linija;
 	private HorizontalLayout preuzimanje;
+	private Trasa trasa;
+	private int zumTrase = -1;
+	/** Дозвољено одступање упрошћене трасе, у пикселима на текућем зуму. */
+	private static final double TOLERANCIJA_PX = 1.5;
+	/** Страница ћелије за груписање маркера, у пикселима. */
+	private static final double KLASTER_PX = 40;
+	private static final int MAX_TACAKA = 5_000;
+	/** Претпостављене димензије мапе за први цртеж, пре него што прегледач јави зум. */
+	private static final int PROCENA_SIRINE_PX = 800;
+	private static final int PROCENA_VISINE_PX = 600;
 	
 	public IstorijaView() {
 		root.addComponent(buildObjektiDatumVremeToolBar());
@@ -61,6 +74,17 @@ public class IstorijaView extends OpstiPanelView{
 		
 		mapa = new Gmap(apKey, null, "serbian");
 		
+		// при промени зума траса се поново упрошћава за нови ниво детаља
+		mapa.addMapMoveListener(new MapMoveListener() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			public void mapMoved(int zoomLevel, LatLon center, LatLon boundsNE, LatLon boundsSW) {
+				if(trasa != null && zoomLevel != zumTrase) {
+					nacrtajTrasu(zoomLevel);
+				}
+			}
+		});
+		
 		Component content = buildContent(createContentWraper(mapa, slot, true, "мапа"), createContentWraper(podaci, slot, true, "статистика"));
 		
 		grupeCombo.addValueChangeListener(new ValueChangeListener<Grupe>() {
@@ -121,64 +145,30 @@ public class IstorijaView extends OpstiPanelView{
 		
 		if(linija != null) {
 			mapa.removePolyline(linija);
+			linija = null;
 		}
+		trasa = null;
 		
 		if(objekat != null) {
 			if(!datumVremeOd.after(datumVremeDo) && !datumVremeOd.equals(datumVremeDo)) {
-				if((datumVremeDo.getTime() - datumVremeOd.getTime())/1000 > 86400 && prikaziMarkere.getValue() && alarm == null) {
-					pokaziPorukuGreska("За приказ свих маркера на мапи време не може бити дуже од 24 часа!");
-				}else {
-					ArrayList<LatLon> tacke = new ArrayList<LatLon>();
-					ArrayList<Double> lat = new ArrayList<Double>();
-					ArrayList<Double> lon = new ArrayList<Double>();
+				// једно читање за мапу, заглавље извештаја и табелу аларма
+				IstorijaSesija sesija = IstorijaSesija.ucitaj(objekat, datumVremeOd, datumVremeDo);
+				if(!sesija.isEmpty()) {
+					trasa = new Trasa(sesija.getJavljanja(), prikaziMarkere.getValue(), alarm);
+					nacrtajTrasu(UproscavanjeTrase.procenaZuma(trasa.minLat, trasa.maxLat, trasa.minLon, trasa.maxLon, 
+							PROCENA_SIRINE_PX, PROCENA_VISINE_PX));
 					
-					List<Javljanja> javljanja = Servis.javljanjeServis.vratiJavljanjaObjektaOdDo(objekat, datumVremeOd, datumVremeDo);
-					if(javljanja != null && !javljanja.isEmpty()) {
-						if(prikaziMarkere.getValue()) {
-							for(Javljanja javljanje : javljanja) {
-								tacke.add(new LatLon(javljanje.getLat(), javljanje.getLon()));
-								lat.add(javljanje.getLat());
-								lon.add(javljanje.getLon());
-								if(alarm == null) {
-									GoogleMapMarker marker = new GoogleMapMarker(mapa.podesiCaption(javljanje),  new LatLon(javljanje.getLat(), javljanje.getLon()), false);
-									marker.setAnimationEnabled(false);
-									marker.setIconUrl(mapa.ikonica.icon(javljanje));
-									mapa.addMarker(marker);
-								}else {
-									if(javljanje.getSistemAlarmi().getId().equals(alarm.getId())) {
-										GoogleMapMarker marker = new GoogleMapMarker(mapa.podesiCaption(javljanje),  new LatLon(javljanje.getLat(), javljanje.getLon()), false);
-										marker.setAnimationEnabled(false);
-										marker.setIconUrl(mapa.ikonica.icon(javljanje));
-										mapa.addMarker(marker);
-									}
-								}
-								
-							}
-						}else {
-							for(Javljanja javljanje : javljanja) {
-								tacke.add(new LatLon(javljanje.getLat(), javljanje.getLon()));
-								lat.add(javljanje.getLat());
-								lon.add(javljanje.getLon());
-							}
-						}
-
-						
-						linija = new GoogleMapPolyline(tacke, "#0066ff", 0.6, 6);
-						mapa.addPolyline(linija);
-						
-						mapa.fitToBounds(new LatLon(Collections.max(lat), Collections.max(lon)), new LatLon(Collections.min(lat), Collections.min(lon)));
-						IstorijaLayout istorija = new IstorijaLayout(objekat, datumVremeOd, datumVremeDo);
-						
-						preuzimanje = istorija.vratiPreuzimanje();
-						if(preuzimanje != null) {
-							topLayout.addComponent(preuzimanje);
-						}
-						
-						podaci.setContent(istorija);
-					}else {
-						pokaziPorukuGreska("За одабрани објекат и период нема података!");
+					mapa.fitToBounds(new LatLon(trasa.maxLat, trasa.maxLon), new LatLon(trasa.minLat, trasa.minLon));
+					IstorijaLayout istorija = new IstorijaLayout(sesija);
+					
+					preuzimanje = istorija.vratiPreuzimanje();
+					if(preuzimanje != null) {
+						topLayout.addComponent(preuzimanje);
 					}
 					
+					podaci.setContent(istorija);
+				}else {
+					pokaziPorukuGreska("За одабрани објекат и период нема података!");
 				}
 			}else {
 					pokaziPorukuGreska("Почетно време мора бити старије од крајњег!");
@@ -188,6 +178,66 @@ public class IstorijaView extends OpstiPanelView{
 		}
 	}
 	
+	/**
+	 * Црта упрошћену трасу и груписане маркере за дати зум. Толеранција је
+	 * {@link #TOLERANCIJA_PX} пиксела на том зуму, па се при зумирању траса
+	 * поново црта са више или мање детаља.
+	 */
+	private void nacrtajTrasu(int zum) {
+		if(trasa == null) {
+			return;
+		}
+		zumTrase = zum;
+		double metaraPoPikselu = UproscavanjeTrase.metaraPoPikselu(zum, (trasa.minLat + trasa.maxLat) / 2);
+		int[] indeksi = UproscavanjeTrase.uprosti(trasa.lat, trasa.lon, trasa.obavezne, 
+				metaraPoPikselu * TOLERANCIJA_PX, MAX_TACAKA);
+		ArrayList<LatLon> tacke = new ArrayList<LatLon>(indeksi.length);
+		for(int i : indeksi) {
+			tacke.add(new LatLon(trasa.lat[i], trasa.lon[i]));
+		}
+		if(linija != null) {
+			mapa.removePolyline(linija);
+		}
+		linija = new GoogleMapPolyline(tacke, "#0066ff", 0.6, 6);
+		mapa.addPolyline(linija);
+		
+		mapa.clearMarkers();
+		if(trasa.markeri) {
+			if(trasa.alarm != null) {
+				// само тражени аларми, без груписања
+				for(int i = 0; i < trasa.javljanja.size(); i++) {
+					Javljanja javljanje = trasa.javljanja.get(i);
+					if(javljanje.getSistemAlarmi() != null && javljanje.getSistemAlarmi().getId().equals(trasa.alarm.getId())) {
+						dodajMarker(mapa.podesiCaption(javljanje), javljanje);
+					}
+				}
+			}else {
+				for(int[] grupa : UproscavanjeTrase.grupisi(trasa.lat, trasa.lon, null, trasa.obavezne, metaraPoPikselu * KLASTER_PX)) {
+					Javljanja prvo = trasa.javljanja.get(grupa[0]);
+					if(grupa.length == 1) {
+						dodajMarker(mapa.podesiCaption(prvo), prvo);
+					}else {
+						Javljanja poslednje = trasa.javljanja.get(grupa[grupa.length - 1]);
+						dodajMarker(captionGrupe(prvo, poslednje, grupa.length), prvo);
+					}
+				}
+			}
+		}
+	}
+	
+	private String captionGrupe(Javljanja prvo, Javljanja poslednje, int broj) {
+		SimpleDateFormat format = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
+		return String.join("\n", prvo.getObjekti().getOznaka() + "; ", broj + " јављања; ", 
+				"од " + format.format(prvo.getDatumVreme()) + "; ", "до " + format.format(poslednje.getDatumVreme()));
+	}
+	
+	private void dodajMarker(String caption, Javljanja javljanje) {
+		GoogleMapMarker marker = new GoogleMapMarker(caption, new LatLon(javljanje.getLat(), javljanje.getLon()), false);
+		marker.setAnimationEnabled(false);
+		marker.setIconUrl(mapa.ikonica.icon(javljanje));
+		mapa.addMarker(marker);
+	}
+	
 	private void ukloniPreuzimanje() {
 		if(preuzimanje != null) {
 			topLayout.removeComponent(preuzimanje);
@@ -195,4 +245,43 @@ public class IstorijaView extends OpstiPanelView{
 		}
 	}
 
+	/**
+	 * Учитана траса у низовима за упрошћавање. Обавезне тачке су аларми
+	 * и промене кретање/стајање, да се не изгубе при упрошћавању.
+	 */
+	private static final class Trasa implements Serializable {
+		private static final long serialVersionUID = 1L;
+		final List<Javljanja> javljanja;
+		final boolean markeri;
+		final SistemAlarmi alarm;
+		final double[] lat;
+		final double[] lon;
+		final boolean[] obavezne;
+		double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+		
+		Trasa(List<Javljanja> javljanja, boolean markeri, SistemAlarmi alarm) {
+			this.javljanja = javljanja;
+			this.markeri = markeri;
+			this.alarm = alarm;
+			int n = javljanja.size();
+			lat = new double[n];
+			lon = new double[n];
+			obavezne = new boolean[n];
+			boolean kretanje = false;
+			for(int i = 0; i < n; i++) {
+				Javljanja javljanje = javljanja.get(i);
+				lat[i] = javljanje.getLat();
+				lon[i] = javljanje.getLon();
+				minLat = Math.min(minLat, lat[i]);
+				maxLat = Math.max(maxLat, lat[i]);
+				minLon = Math.min(minLon, lon[i]);
+				maxLon = Math.max(maxLon, lon[i]);
+				boolean kreceSe = javljanje.isKontakt() && javljanje.getBrzina() > 5;
+				boolean alarmTacka = javljanje.getSistemAlarmi() != null && !"0".equals(javljanje.getSistemAlarmi().getSifra());
+				obavezne[i] = alarmTacka || (i > 0 && kreceSe != kretanje);
+				kretanje = kreceSe;
+			}
+		}
+	}
+
 }
@@ -0,0 +1,152 @@
+package rs.atekom.prati.view.izvestaji;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import com.vaadin.server.SerializableConsumer;
+import com.vaadin.ui.Alignment;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.ProgressBar;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+import com.vaadin.ui.VerticalLayout;
+
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Kljuc;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Posao;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Slusalac;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Upit;
+import rs.atekom.prati.server.Servis;
+
+/**
+ * Приказ извештаја који се припрема у {@link IzvrsilacIzvestaja}: трака напретка
+ * и дугме за отказивање. Напредак и резултат стижу преко push-а, а кад је
+ * резултат готов позива се {@code gotovo} у нити корисничког интерфејса.
+ *
+ * <p>Одговори посла који је у међувремену отказан или замењен новим (корисник
+ * је променио извештај или параметре) се одбацују, да стари резултат не
+ * прегази приказ новог.</p>
+ */
+public class IzvestajUToku extends VerticalLayout {
+
+	private static final long serialVersionUID = 1L;
+	private final ProgressBar traka;
+	private final Label poruka;
+	private final Button otkazi;
+	private transient Posao posao;
+	/** Ознака текућег позива {@link #pokreni}; null кад ниједан посао није активан. */
+	private transient Object tekuci;
+
+	public IzvestajUToku() {
+		setSpacing(true);
+		traka = new ProgressBar();
+		traka.setIndeterminate(true);
+		traka.setWidth("300px");
+		poruka = new Label("извештај се припрема...");
+		otkazi = new Button("откажи", e -> {
+			otkazi();
+			zavrsi("извештај је отказан");
+		});
+		addComponents(poruka, traka, otkazi);
+		setComponentAlignment(traka, Alignment.MIDDLE_LEFT);
+	}
+
+	/**
+	 * Покреће посао; позива се кад је приказ већ на екрану, јер резултат из
+	 * кеша стиже одмах.
+	 */
+	public <T> void pokreni(Kljuc kljuc, Upit<T> upit, SerializableConsumer<T> gotovo) {
+		UI ui = UI.getCurrent();
+		otkazi();
+		// резултат из кеша стиже пре него што pokreni врати посао, па се посао препознаје по ознаци
+		Object oznaka = new Object();
+		tekuci = oznaka;
+		try {
+			Posao pokrenut = Servis.izvrsilacIzvestaja.pokreni(kljuc, upit, new Slusalac<T>() {
+				@Override
+				public void napredak(int uradjeno, int ukupno) {
+					uUI(ui, () -> {
+						if(!aktivan(oznaka)) {
+							return;
+						}
+						traka.setIndeterminate(false);
+						traka.setValue(ukupno == 0 ? 0f : (float) uradjeno / ukupno);
+					});
+				}
+
+				@Override
+				public void gotovo(T rezultat) {
+					uUI(ui, () -> {
+						if(!aktivan(oznaka)) {
+							return;
+						}
+						tekuci = null;
+						posao = null;
+						gotovo.accept(rezultat);
+					});
+				}
+
+				@Override
+				public void greska(Throwable greska) {
+					uUI(ui, () -> {
+						if(aktivan(oznaka)) {
+							zavrsi("извештај није могуће припремити");
+						}
+					});
+				}
+
+				@Override
+				public void otkazano() {
+					uUI(ui, () -> {
+						if(aktivan(oznaka)) {
+							zavrsi("извештај је отказан");
+						}
+					});
+				}
+			});
+			if(tekuci == oznaka) {
+				posao = pokrenut;
+			}
+		}catch (RejectedExecutionException e) {
+			zavrsi("превише извештаја је у припреми, покушајте поново за који тренутак");
+		}
+	}
+
+	/** Отказује посао; позива се и кад корисник промени извештај или параметре. */
+	public void otkazi() {
+		tekuci = null;
+		if(posao != null) {
+			posao.otkazi();
+			posao = null;
+		}
+	}
+
+	/** Да ли је позив са овом ознаком још текући и његов посао није отказан. */
+	private boolean aktivan(Object oznaka) {
+		return tekuci == oznaka && (posao == null || !posao.isOtkazan());
+	}
+
+	private void zavrsi(String tekst) {
+		tekuci = null;
+		posao = null;
+		removeComponent(traka);
+		removeComponent(otkazi);
+		poruka.setValue(tekst);
+	}
+
+	/** Резултат из кеша стиже у истој нити, остало из радне нити преко push-а. */
+	private static void uUI(UI ui, Runnable radnja) {
+		if(ui == null) {
+			return;
+		}
+		if(UI.getCurrent() == ui && ui.getSession() != null && ui.getSession().hasLock()) {
+			radnja.run();
+			return;
+		}
+		try {
+			ui.access(radnja::run);
+		}catch (UIDetachedException e) {
+			// корисник је напустио страницу
+		}
+	}
+}
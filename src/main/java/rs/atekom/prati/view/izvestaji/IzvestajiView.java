@@ -3,6 +3,7 @@ package rs.atekom.prati.view.izvestaji;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -14,6 +15,7 @@ import com.vaadin.data.HasValue.ValueChangeListener;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.shared.ui.datefield.DateTimeResolution;
 import com.vaadin.ui.Button;
+import com.vaadin.ui.Component;
 import com.vaadin.ui.HorizontalLayout;
 import com.vaadin.ui.NativeSelect;
 import com.vaadin.ui.Panel;
@@ -26,6 +28,9 @@ import pratiBaza.tabele.Javljanja;
 import pratiBaza.tabele.Obd;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Kljuc;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiPanelView;
 import rs.atekom.prati.view.izvestaji.nivoGoriva.NivoGorivaLayout;
@@ -49,6 +54,7 @@ public class IzvestajiView extends OpstiPanelView{
 	private HorizontalLayout parametri;
 	private Panel podaci;
 	private HorizontalLayout preuzimanje;
+	private IzvestajUToku uToku;
 	private NativeSelect<Integer> satiOd, satiDo;
 	private ClickListener prikaziClick;
 	
@@ -88,6 +94,7 @@ public class IzvestajiView extends OpstiPanelView{
 			@Override
 			public void valueChange(ValueChangeEvent<Grupe> event) {
 				objektiCombo.clear();
+				otkaziPosao();
 				podaci.setContent(null);
 				if(event.getValue() != null) {
 					objektiCombo.setItems(Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(event.getValue()));
@@ -105,6 +112,7 @@ public class IzvestajiView extends OpstiPanelView{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<Objekti> event) {
+				otkaziPosao();
 				podaci.setContent(null);
 				if(preuzimanje != null) {
 					topLayout.removeComponent(preuzimanje);
@@ -194,10 +202,15 @@ public class IzvestajiView extends OpstiPanelView{
 						        topLayout.addComponent(preuzimanje);
 						        podaci.setContent(predjeniPut2);
 							break;
-						case 9: KontrolaGorivaLayout kontrolaGoriva = new KontrolaGorivaLayout(objekti, Timestamp.valueOf(vremeOd.getValue()), Timestamp.valueOf(vremeDo.getValue()));
-						        preuzimanje = kontrolaGoriva.vratiPreuzimanje();
-						        topLayout.addComponent(preuzimanje);
-						        podaci.setContent(kontrolaGoriva);
+						case 9: Timestamp od = Timestamp.valueOf(vremeOd.getValue());
+						        Timestamp doo = Timestamp.valueOf(vremeDo.getValue());
+						        IzvestajUToku kontrolaGoriva = pripremi();
+						        kontrolaGoriva.pokreni(new Kljuc("kontrolaGoriva", objekti, od, doo), 
+						        		napredak -> TokIzvestaja.ucitajPregled(KontrolaGorivaIzvestaj.izvor(objekti, od, doo), napredak), 
+						        		pregled -> {
+						        			KontrolaGorivaLayout layout = new KontrolaGorivaLayout(objekti, od, doo, pregled);
+						        			prikaziIzvestaj(layout, layout.vratiPreuzimanje());
+						        		});
 							break;
 						case 10:GorivoSaCenamaLayout gorivoSaCenama = new GorivoSaCenamaLayout(objekti, Timestamp.valueOf(vremeOd.getValue()), Timestamp.valueOf(vremeDo.getValue()));
 						        preuzimanje = gorivoSaCenama.vratiPreuzimanje();
@@ -360,12 +373,19 @@ public class IzvestajiView extends OpstiPanelView{
 				}
 				if(vremeOd.getValue() != null && vremeDo.getValue() != null && ((Timestamp.valueOf(vremeDo.getValue()).getTime() - Timestamp.valueOf(vremeOd.getValue()).getTime())/1000 < 32*86400)) {
 					if(objektiCombo.getValue() != null) {
-						RadnoVremeGPSLayout rv = new RadnoVremeGPSLayout(objektiCombo.getValue(), 
-								Timestamp.valueOf(vremeOd.getValue()), Timestamp.valueOf(vremeDo.getValue()), satiOd.getValue(), satiDo.getValue());
-						preuzimanje = rv.vratiPreuzimanje();
-						topLayout.addComponent(preuzimanje);
-						podaci.setContent(rv);
+						Objekti objekat = objektiCombo.getValue();
+						Timestamp od = Timestamp.valueOf(vremeOd.getValue());
+						Timestamp doo = Timestamp.valueOf(vremeDo.getValue());
+						int sOd = satiOd.getValue();
+						int sDo = satiDo.getValue();
+						IzvestajUToku rv = pripremi();
 						dodajPodatke();
+						rv.pokreni(new Kljuc("radnoVremeGPS", Collections.singletonList(objekat), od, doo, sOd, sDo), 
+								napredak -> Servis.proceduraServis.radnoVremePutGPS(objekat.getId().intValue(), od, doo, sOd, sDo), 
+								lista -> {
+									RadnoVremeGPSLayout layout = new RadnoVremeGPSLayout(objekat, od, doo, sOd, sDo, lista);
+									prikaziIzvestaj(layout, layout.vratiPreuzimanje());
+								});
 					}else {
 						pokaziPorukuGreska("морате изабрати објекат!");
 					}
@@ -415,9 +435,32 @@ public class IzvestajiView extends OpstiPanelView{
 		dodajParametreDatum(false, true);
 	}
 	
+	/** Приказ припреме извештаја у {@link IzvrsilacIzvestaja}; претходни посао се отказује. */
+	private IzvestajUToku pripremi() {
+		otkaziPosao();
+		uToku = new IzvestajUToku();
+		podaci.setContent(uToku);
+		return uToku;
+	}
+	
+	private void prikaziIzvestaj(Component izvestaj, HorizontalLayout dugmici) {
+		uToku = null;
+		preuzimanje = dugmici;
+		topLayout.addComponent(preuzimanje);
+		podaci.setContent(izvestaj);
+	}
+	
+	private void otkaziPosao() {
+		if(uToku != null) {
+			uToku.otkazi();
+			uToku = null;
+		}
+	}
+	
 	@SuppressWarnings("deprecation")
 	private void brisanje() {
 		prikazi.getListeners(ClickEvent.class) .forEach( listener -> prikazi.removeListener(ClickEvent.class, listener));
+		otkaziPosao();
 		podaci.setContent(null);
 		if(vremeOd != null)
 			vremeOd.clear();
@@ -3,12 +3,10 @@ package rs.atekom.prati.view.izvestaji;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 
 import org.vaadin.reports.PrintPreviewReport;
 
 import com.ibm.icu.text.SimpleDateFormat;
-import com.vaadin.server.SerializableSupplier;
 
 import ar.com.fdvs.dj.domain.AutoText;
 import ar.com.fdvs.dj.domain.Style;
@@ -19,6 +17,9 @@ import ar.com.fdvs.dj.domain.constants.HorizontalAlign;
 import ar.com.fdvs.dj.domain.constants.Page;
 import pratiBaza.pomocne.KontrolaGoriva;
 import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.izvestaji.StranicniIzvor;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
+import rs.atekom.prati.izvestaji.TokIzvestaja.Pregled;
 import rs.atekom.prati.server.Servis;
 
 @SuppressWarnings("deprecation")
@@ -27,9 +28,16 @@ public class KontrolaGorivaIzvestaj extends PrintPreviewReport<KontrolaGoriva>{
 	private static final long serialVersionUID = 1L;
 	private String decimalFormat = "###,###,###.##";
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
-	private List<KontrolaGoriva> lista = new ArrayList<KontrolaGoriva>();
+	private final TokIzvestaja tok;
 	
 	public KontrolaGorivaIzvestaj(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo) {
+		this(objekti, datumVremeOd, datumVremeDo, null);
+	}
+	
+	/**
+	 * @param pregled преглед учитан у {@link rs.atekom.prati.izvestaji.IzvrsilacIzvestaja}; {@code null} - учитава се овде
+	 */
+	public KontrolaGorivaIzvestaj(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo, Pregled<KontrolaGoriva> pregled) {
 		setSizeUndefined();
 		SimpleDateFormat datumVreme = new SimpleDateFormat(DATUMVREME);
 		SimpleDateFormat outputFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
@@ -120,17 +128,16 @@ public class KontrolaGorivaIzvestaj extends PrintPreviewReport<KontrolaGoriva>{
 				.setWidth(sirina)
 				.setStyle(broj)
 				.build());
-		setItems(vratiListu(objekti, datumVremeOd, datumVremeDo));
+		tok = new TokIzvestaja(() -> getReportBuilder().build(), () -> izvor(objekti, datumVremeOd, datumVremeDo));
+		setItems(pregled != null ? tok.pregled(pregled) : tok.<KontrolaGoriva>pregled());
 	}
-
-	public List<KontrolaGoriva> vratiListu(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo){
-		lista.clear();
-		lista = Servis.javljanjeServis.vratiKontroluGoriva(objekti, datumVremeOd, datumVremeDo);
-		return lista;
+	
+	public static StranicniIzvor<KontrolaGoriva> izvor(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo) {
+		return StranicniIzvor.<KontrolaGoriva>poObjektima(objekti, TokIzvestaja.GRUPA, 
+				grupa -> Servis.javljanjeServis.vratiKontroluGoriva(grupa, datumVremeOd, datumVremeDo));
 	}
 	
-	public SerializableSupplier<List<? extends KontrolaGoriva>> vratiSeriju(){
-		SerializableSupplier<List<? extends KontrolaGoriva>> serija = () -> lista;
-		return serija;
+	public TokIzvestaja vratiTok() {
+		return tok;
 	}
 }
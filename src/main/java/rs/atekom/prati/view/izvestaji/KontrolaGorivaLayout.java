@@ -8,10 +8,15 @@ import com.ibm.icu.text.SimpleDateFormat;
 import com.vaadin.shared.ui.MarginInfo;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
 import com.vaadin.ui.Panel;
 import com.vaadin.ui.VerticalLayout;
 
+import pratiBaza.pomocne.KontrolaGoriva;
 import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
+import rs.atekom.prati.izvestaji.TokIzvestaja.Format;
+import rs.atekom.prati.izvestaji.TokIzvestaja.Pregled;
 
 public class KontrolaGorivaLayout extends VerticalLayout{
 
@@ -20,6 +25,10 @@ public class KontrolaGorivaLayout extends VerticalLayout{
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
 	
 	public KontrolaGorivaLayout(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo) {
+		this(objekti, datumVremeOd, datumVremeDo, null);
+	}
+	
+	public KontrolaGorivaLayout(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo, Pregled<KontrolaGoriva> pregled) {
 		setSizeFull();
 		setMargin(new MarginInfo(false, false, true, false));
 		SimpleDateFormat datumVreme = new SimpleDateFormat(DATUMVREME);
@@ -36,10 +45,14 @@ public class KontrolaGorivaLayout extends VerticalLayout{
 		hLayout.addComponent(doc);
 		Panel panel = new Panel();
 		panel.setHeight("100%");
-		KontrolaGorivaIzvestaj izvestaj = new KontrolaGorivaIzvestaj(objekti, datumVremeOd, datumVremeDo);
-		izvestaj.downloadPdfOnClick(pdf, "kontrola_goriva_" + datumVreme.format(new Date()) + ".pdf", izvestaj.vratiSeriju());
-		izvestaj.downloadDocxOnClick(doc, "kontrola_goriva_" + datumVreme.format(new Date()) + ".doc", izvestaj.vratiSeriju());
-		izvestaj.downloadXlsOnClick(xls, "kontrola_goriva_" + datumVreme.format(new Date()) + ".xlsx", izvestaj.vratiSeriju());
+		KontrolaGorivaIzvestaj izvestaj = new KontrolaGorivaIzvestaj(objekti, datumVremeOd, datumVremeDo, pregled);
+		TokIzvestaja tok = izvestaj.vratiTok();
+		tok.preuzimanje(pdf, "kontrola_goriva_" + datumVreme.format(new Date()), Format.PDF);
+		tok.preuzimanje(doc, "kontrola_goriva_" + datumVreme.format(new Date()), Format.DOCX);
+		tok.preuzimanje(xls, "kontrola_goriva_" + datumVreme.format(new Date()), Format.XLSX);
+		if(tok.isSkracen()) {
+			hLayout.addComponent(new Label("приказано је првих " + TokIzvestaja.PREGLED + " редова, комплетан извештај преузмите"));
+		}
 		panel.setContent(izvestaj);
 		addComponentsAndExpand(panel);
 	}
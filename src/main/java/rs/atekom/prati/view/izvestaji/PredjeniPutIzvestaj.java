@@ -17,6 +17,7 @@ import ar.com.fdvs.dj.domain.constants.Page;
 import pratiBaza.pomocne.PredjeniPut;
 import pratiBaza.tabele.Objekti;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.zbir.ZbirniPredjeniPut;
 
 @SuppressWarnings("deprecation")
 public class PredjeniPutIzvestaj extends PrintPreviewReport<PredjeniPut>{
@@ -91,7 +92,9 @@ public class PredjeniPutIzvestaj extends PrintPreviewReport<PredjeniPut>{
 	
 	public List<PredjeniPut> vratilistu(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo){
 		lista.clear();
-		lista = Servis.javljanjeServis.vratiPredjeniPut(objekti, datumVremeOd, datumVremeDo);
+		// из дневних/сатних збирова кад покривају период, иначе из базе
+		lista = ZbirniPredjeniPut.vrati(objekti, datumVremeOd, datumVremeDo, 
+				sviObjekti -> Servis.javljanjeServis.vratiPredjeniPut(sviObjekti, datumVremeOd, datumVremeDo));
 		return lista;
 	}
 	
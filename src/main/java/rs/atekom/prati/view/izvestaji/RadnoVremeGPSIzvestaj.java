@@ -28,6 +28,13 @@ public class RadnoVremeGPSIzvestaj extends PrintPreviewReport<RadnoVremePutGPS>{
 	private List<RadnoVremePutGPS> lista;
 
 	public RadnoVremeGPSIzvestaj(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo, int satiOd, int satiDo) {
+		this(objekat, datumVremeOd, datumVremeDo, satiOd, satiDo, null);
+	}
+	
+	/**
+	 * @param lista резултат учитан у {@link rs.atekom.prati.izvestaji.IzvrsilacIzvestaja}; {@code null} - учитава се овде
+	 */
+	public RadnoVremeGPSIzvestaj(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo, int satiOd, int satiDo, List<RadnoVremePutGPS> lista) {
 		setSizeUndefined();
 		SimpleDateFormat datumVreme = new SimpleDateFormat(DATUMVREME);
 		SimpleDateFormat outputFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
@@ -87,7 +94,12 @@ public class RadnoVremeGPSIzvestaj extends PrintPreviewReport<RadnoVremePutGPS>{
 		.addColumn(predjeniPut)
 		.addGlobalFooterVariable(predjeniPut, DJCalculation.SUM, broj);
 		
-		setItems(vratiListu(objekat, datumVremeOd, datumVremeDo, satiOd, satiDo));
+		if(lista != null) {
+			this.lista = lista;
+			setItems(lista);
+		}else {
+			setItems(vratiListu(objekat, datumVremeOd, datumVremeDo, satiOd, satiDo));
+		}
 	}
 	
 	public List<RadnoVremePutGPS> vratiListu(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo, int satiOd, int satiDo){
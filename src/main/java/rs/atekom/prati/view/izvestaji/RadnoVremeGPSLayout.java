@@ -2,12 +2,14 @@ package rs.atekom.prati.view.izvestaji;
 
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.List;
 import com.ibm.icu.text.SimpleDateFormat;
 import com.vaadin.shared.ui.MarginInfo;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.HorizontalLayout;
 import com.vaadin.ui.Panel;
 import com.vaadin.ui.VerticalLayout;
+import pratiBaza.pomocne.RadnoVremePutGPS;
 import pratiBaza.tabele.Objekti;
 
 public class RadnoVremeGPSLayout extends VerticalLayout{
@@ -17,6 +19,10 @@ public class RadnoVremeGPSLayout extends VerticalLayout{
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
 
 	public RadnoVremeGPSLayout(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo, int satiOd, int satiDo) {
+		this(objekat, datumVremeOd, datumVremeDo, satiOd, satiDo, null);
+	}
+	
+	public RadnoVremeGPSLayout(Objekti objekat, Timestamp datumVremeOd, Timestamp datumVremeDo, int satiOd, int satiDo, List<RadnoVremePutGPS> lista) {
 		setSizeFull();
 		setMargin(new MarginInfo(false, false, true, false));
 		SimpleDateFormat datumVreme = new SimpleDateFormat(DATUMVREME);
@@ -33,7 +39,7 @@ public class RadnoVremeGPSLayout extends VerticalLayout{
 		hLayout.addComponent(doc);
 		Panel panel = new Panel();
 		panel.setHeight("100%");
-		RadnoVremeGPSIzvestaj izvestaj = new RadnoVremeGPSIzvestaj(objekat, datumVremeOd, datumVremeDo, satiOd, satiDo);
+		RadnoVremeGPSIzvestaj izvestaj = new RadnoVremeGPSIzvestaj(objekat, datumVremeOd, datumVremeDo, satiOd, satiDo, lista);
 		izvestaj.downloadPdfOnClick(pdf, "radno_vreme_" + datumVreme.format(new Date()) + ".pdf", izvestaj.vratiSeriju());
 		izvestaj.downloadDocxOnClick(doc, "radno_vreme_" + datumVreme.format(new Date()) + ".doc", izvestaj.vratiSeriju());
 		izvestaj.downloadXlsOnClick(xls, "radno_vreme_" + datumVreme.format(new Date()) + ".xlsx", izvestaj.vratiSeriju());
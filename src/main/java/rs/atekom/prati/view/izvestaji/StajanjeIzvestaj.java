@@ -3,12 +3,10 @@ package rs.atekom.prati.view.izvestaji;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 
 import org.vaadin.reports.PrintPreviewReport;
 
 import com.ibm.icu.text.SimpleDateFormat;
-import com.vaadin.server.SerializableSupplier;
 
 import ar.com.fdvs.dj.domain.AutoText;
 import ar.com.fdvs.dj.domain.Style;
@@ -19,6 +17,8 @@ import ar.com.fdvs.dj.domain.constants.HorizontalAlign;
 import ar.com.fdvs.dj.domain.constants.Page;
 import pratiBaza.pomocne.StajanjeMirovanje;
 import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.izvestaji.StranicniIzvor;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
 import rs.atekom.prati.server.Servis;
 
 @SuppressWarnings("deprecation")
@@ -27,7 +27,7 @@ public class StajanjeIzvestaj extends PrintPreviewReport<StajanjeMirovanje>{
 	private static final long serialVersionUID = 1L;
 	private String decimalFormat = "###,###,###.##";
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
-	private List<StajanjeMirovanje> lista;
+	private final TokIzvestaja tok;
 
 	public StajanjeIzvestaj(ArrayList<Objekti> objekti, Timestamp vremeOd, Timestamp vremeDo, int duzina) {
 		setSizeUndefined();
@@ -100,17 +100,13 @@ public class StajanjeIzvestaj extends PrintPreviewReport<StajanjeMirovanje>{
 				.setTitle("опис")
 				.setStyle(tekstDesno)
 				.build());
-		setItems(vratiListu(objekti, vremeOd, vremeDo, duzina));
+		tok = new TokIzvestaja(() -> getReportBuilder().build(), 
+				() -> StranicniIzvor.<StajanjeMirovanje>poObjektima(objekti, TokIzvestaja.GRUPA, 
+						grupa -> Servis.javljanjeServis.vratiStajanjaMirovanja(grupa, vremeOd, vremeDo, duzina)));
+		setItems(tok.<StajanjeMirovanje>pregled());
 	}
 	
-	public List<StajanjeMirovanje> vratiListu(ArrayList<Objekti> objekti, Timestamp vremeOd, Timestamp vremeDo, int duzina){
-		lista = Servis.javljanjeServis.vratiStajanjaMirovanja(objekti, vremeOd, vremeDo, duzina);
-		return lista;
-	}
-	
-	public SerializableSupplier<List<? extends StajanjeMirovanje>> vratiSeriju(){
-		SerializableSupplier<List<? extends StajanjeMirovanje>> serija = () -> lista; 
-		//Servis.javljanjeServis.vratiStajanjaMirovanja(objekti, vremeOd, vremeDo, duzina);
-		return serija;
+	public TokIzvestaja vratiTok() {
+		return tok;
 	}
 }
@@ -8,10 +8,13 @@ import com.ibm.icu.text.SimpleDateFormat;
 import com.vaadin.shared.ui.MarginInfo;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
 import com.vaadin.ui.Panel;
 import com.vaadin.ui.VerticalLayout;
 
 import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
+import rs.atekom.prati.izvestaji.TokIzvestaja.Format;
 
 public class StajanjeLayout extends VerticalLayout{
 
@@ -37,9 +40,13 @@ public class StajanjeLayout extends VerticalLayout{
 		Panel panel = new Panel();
 		panel.setHeight("100%");
 		StajanjeIzvestaj izvestaj = new StajanjeIzvestaj(objekti, vremeOd, vremeDo, duzina);
-		izvestaj.downloadPdfOnClick(pdf, "stajanje_" + datumVreme.format(new Date()) + ".pdf", izvestaj.vratiSeriju());
-		izvestaj.downloadDocxOnClick(doc, "stajanje_" + datumVreme.format(new Date()) + ".doc", izvestaj.vratiSeriju());
-		izvestaj.downloadXlsOnClick(xls, "stajanje_" + datumVreme.format(new Date()) + ".xlsx", izvestaj.vratiSeriju());
+		TokIzvestaja tok = izvestaj.vratiTok();
+		tok.preuzimanje(pdf, "stajanje_" + datumVreme.format(new Date()), Format.PDF);
+		tok.preuzimanje(doc, "stajanje_" + datumVreme.format(new Date()), Format.DOCX);
+		tok.preuzimanje(xls, "stajanje_" + datumVreme.format(new Date()), Format.XLSX);
+		if(tok.isSkracen()) {
+			hLayout.addComponent(new Label("приказано је првих " + TokIzvestaja.PREGLED + " редова, комплетан извештај преузмите"));
+		}
 		panel.setContent(izvestaj);
 		addComponentsAndExpand(panel);
 	}
@@ -3,10 +3,8 @@ package rs.atekom.prati.view.izvestaji;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import org.vaadin.reports.PrintPreviewReport;
 import com.ibm.icu.text.SimpleDateFormat;
-import com.vaadin.server.SerializableSupplier;
 import ar.com.fdvs.dj.domain.AutoText;
 import ar.com.fdvs.dj.domain.Style;
 import ar.com.fdvs.dj.domain.builders.ColumnBuilder;
@@ -17,6 +15,8 @@ import ar.com.fdvs.dj.domain.constants.Page;
 import pratiBaza.tabele.Javljanja;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.izvestaji.StranicniIzvor;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
 import rs.atekom.prati.server.Servis;
 
 
@@ -26,7 +26,7 @@ public class ZoneIzvestaj extends PrintPreviewReport<Javljanja>{
 	private static final long serialVersionUID = 1L;
 	private String decimalFormat = "###,###,###.##";
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
-	private List<Javljanja> lista = new ArrayList<Javljanja>();;
+	private final TokIzvestaja tok;
 
 	public ZoneIzvestaj(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo, ArrayList<SistemAlarmi> alarmi) {
 		setSizeUndefined();
@@ -82,22 +82,14 @@ public class ZoneIzvestaj extends PrintPreviewReport<Javljanja>{
 				.setTitle("опис")
 				.setStyle(datum)
 				.build());
-		setItems(vratiListu(objekti, datumVremeOd, datumVremeDo, alarmi));
+		tok = new TokIzvestaja(() -> getReportBuilder().build(), 
+				() -> StranicniIzvor.<Javljanja>poObjektima(objekti, 1, 
+						grupa -> Servis.javljanjeServis.vratiJavljanjaObjektaOdDoSaAlarmimaZona(grupa.get(0), datumVremeOd, datumVremeDo, alarmi)));
+		setItems(tok.<Javljanja>pregled());
 	}
 	
-	public List<Javljanja> vratiListu(ArrayList<Objekti> objekti, Timestamp datumVremeOd, Timestamp datumVremeDo, ArrayList<SistemAlarmi> alarmi){
-		lista.clear();
-		for(Objekti objekat : objekti) {
-			List<Javljanja> javljanja = Servis.javljanjeServis.vratiJavljanjaObjektaOdDoSaAlarmimaZona(objekat, datumVremeOd, datumVremeDo, alarmi);
-			//Collections.sort(javljanja, (o1, o2) -> o1.getDatumVreme().compareTo(o2.getDatumVreme()));
-			lista.addAll(javljanja);
-		}
-		return lista;
-	}
-	
-	public SerializableSupplier<List<? extends Javljanja>> vratiSeriju(){
-		SerializableSupplier<List<? extends Javljanja>> serija = () -> lista;
-		return serija;
+	public TokIzvestaja vratiTok() {
+		return tok;
 	}
 	
 }
@@ -7,10 +7,13 @@ import com.ibm.icu.text.SimpleDateFormat;
 import com.vaadin.shared.ui.MarginInfo;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
 import com.vaadin.ui.Panel;
 import com.vaadin.ui.VerticalLayout;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.izvestaji.TokIzvestaja;
+import rs.atekom.prati.izvestaji.TokIzvestaja.Format;
 
 
 public class ZoneLayout extends VerticalLayout{
@@ -37,9 +40,13 @@ public class ZoneLayout extends VerticalLayout{
 		Panel panel = new Panel();
 		panel.setHeight("100%");
 		ZoneIzvestaj izvestaj = new ZoneIzvestaj(objekti, datumVremeOd, datumVremeDo, alarmi);
-		izvestaj.downloadPdfOnClick(pdf, "zone_" + datumVreme.format(new Date()) + ".pdf", izvestaj.vratiSeriju());
-		izvestaj.downloadDocxOnClick(doc, "zone_" + datumVreme.format(new Date()) + ".doc", izvestaj.vratiSeriju());
-		izvestaj.downloadXlsOnClick(xls, "zone_" + datumVreme.format(new Date()) + ".xlsx", izvestaj.vratiSeriju());
+		TokIzvestaja tok = izvestaj.vratiTok();
+		tok.preuzimanje(pdf, "zone_" + datumVreme.format(new Date()), Format.PDF);
+		tok.preuzimanje(doc, "zone_" + datumVreme.format(new Date()), Format.DOCX);
+		tok.preuzimanje(xls, "zone_" + datumVreme.format(new Date()), Format.XLSX);
+		if(tok.isSkracen()) {
+			hLayout.addComponent(new Label("приказано је првих " + TokIzvestaja.PREGLED + " редова, комплетан извештај преузмите"));
+		}
 		panel.setContent(izvestaj);
 		addComponentsAndExpand(panel);
 	}
@@ -2,128 +2,160 @@ package rs.atekom.prati.view.komponente;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 //import com.google.maps.model.LatLng;
 import com.ibm.icu.text.SimpleDateFormat;
 //import com.google.maps.model.GeocodingResult;
 //import com.google.maps.GeoApiContext;
 //import com.google.maps.GeocodingApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import pratiBaza.tabele.AlarmiKorisnik;
 import pratiBaza.tabele.Javljanja;
 import rs.atekom.prati.Broadcaster;
-import rs.atekom.prati.server.Address;
-import rs.atekom.prati.server.NominatimReverseGeocodingJAPI;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.geokod.GeokodiranjeServis;
+import rs.atekom.prati.server.persist.Zapisivac;
+import rs.atekom.prati.server.posta.Poruka;
 
 public class Izvrsavanje {
 
+	private static final Logger logger = LoggerFactory.getLogger(Izvrsavanje.class);
+
 	private static final String DATUMVREME = "dd/MM/yyyy HH:mm:ss";
 	private SimpleDateFormat datumVreme;
+	/** null - {@link Servis#geokodiranje}, које се прави тек при покретању. */
+	private final GeokodiranjeServis geokodiranje;
+	private final UnaryOperator<Javljanja> upis;
+	private final BiConsumer<Javljanja, String> izmena;
 	
 	public Izvrsavanje() {
+		this(null, Zapisivac::upisiJavljanje, Zapisivac::izmeniJavljanje);
+	}
+	
+	/**
+	 * @param upis   предаје јављање за унос и враћа предату копију
+	 * @param izmena мења eventData већ предате копије
+	 */
+	Izvrsavanje(GeokodiranjeServis geokodiranje, UnaryOperator<Javljanja> upis, BiConsumer<Javljanja, String> izmena) {
 		datumVreme = new SimpleDateFormat(DATUMVREME);
+		this.geokodiranje = geokodiranje;
+		this.upis = upis;
+		this.izmena = izmena;
 	}
 	
 	
 	public void obradaAlarma(Javljanja javljanje, ArrayList<AlarmiKorisnik> alarmiKorisnici) {
-		alarmAdresa(javljanje);
+		obradaAlarma(javljanje, alarmiKorisnici, false);
+	}
+	
+	/**
+	 * @param reprodukcija јављање из дневника ({@link rs.atekom.prati.server.dnevnik.ReprodukcijaDnevnika}) -
+	 *                     само се уписује, без приказа, мејла и геокодирања; аларм је већ прошао
+	 */
+	public void obradaAlarma(Javljanja javljanje, ArrayList<AlarmiKorisnik> alarmiKorisnici, boolean reprodukcija) {
+		if (reprodukcija) {
+			upis.apply(javljanje);
+			return;
+		}
+		GeokodiranjeServis geokodiranje = this.geokodiranje != null ? this.geokodiranje : Servis.geokodiranje;
+		boolean cekaAdresu = trebaAdresa(javljanje);
+		if (cekaAdresu) {
+			// поновљени аларм на истом месту - адреса је већ у кешу
+			String saAdresom = saAdresom(javljanje.getEventData(),
+					geokodiranje.izKesa(javljanje.getLat(), javljanje.getLon()));
+			if (saAdresom != null) {
+				javljanje.setEventData(saAdresom);
+				cekaAdresu = false;
+			}
+		}
+		
+		// нит конекције наставља да мења javljanje - даље се ради са предатом копијом
+		Javljanja zapis = upis.apply(javljanje);
+		Broadcaster.broadcast(zapis);
+		// мејл се саставља од снимка - после асинхроног скока копију мења само нит уписа
+		Obavestenje obavestenje = new Obavestenje(zapis, alarmiKorisnici);
 		
-		Servis.javljanjeServis.unesiJavljanja(javljanje);//ovde negde problem??
+		if (!cekaAdresu) {
+			obavestenje.posalji(obavestenje.eventData);
+			return;
+		}
 		
-        Broadcaster.broadcast(javljanje);
-        
-        for(AlarmiKorisnik alarmKorisnik : alarmiKorisnici) {
-        	if(alarmKorisnik.getSistemAlarmi().getId().equals(javljanje.getSistemAlarmi().getId()) && alarmKorisnik.isEmail()) {
-        		String zaglavlje = "Праћење возила - " + javljanje.getObjekti().getOznaka() + " - " + javljanje.getSistemAlarmi().getNaziv();
-        		String poruka = String.join("\n"
-        		         , "Поштовани,"
-        		         , "Објекат " + javljanje.getObjekti().getOznaka() + " је активирао аларм " + javljanje.getSistemAlarmi().getNaziv()
-        		         , "у " + datumVreme.format(javljanje.getDatumVreme()) + " " + javljanje.getEventData()
-        		         , " "
-        		         , "Порука је аутоматски генерисана, немојте одговарати."
-        		         , "Атеком доо, www.atekom.rs prati@atekom.rs"
-        		);
-        		Servis.posta.posaljiMail(alarmKorisnik.getKorisnik().getEmail(), zaglavlje, poruka);
-        	}
-        }
+		// адреса стиже асинхроно - измена иде кроз ред уписа, иза уноса истог реда
+		geokodiranje.adresa(zapis.getLat(), zapis.getLon()).thenAccept(adresa -> {
+			try {
+				String saAdresom = saAdresom(obavestenje.eventData, adresa);
+				if (saAdresom != null) {
+					izmena.accept(zapis, saAdresom);
+				}
+				obavestenje.posalji(saAdresom != null ? saAdresom : obavestenje.eventData);
+			} catch (Exception e) {
+				logger.error("Greška dopune adrese alarma za {}", obavestenje.oznaka, e);
+			}
+		});
 	}
 	
-	private void alarmAdresa(Javljanja javljanje) {
-	    if (javljanje == null || javljanje.getSistemAlarmi() == null) return;
-	    if ("0".equals(javljanje.getSistemAlarmi().getSifra())) return;
-	    double lat = javljanje.getLat(), lon = javljanje.getLon();
-	    if (lat == 0.0 || lon == 0.0) return;
-
-	    String adresa = "";
-	    try {
-	        if (javljanje.getSistemAlarmi().isAdresa()) {
-	            // 1) Google (globalni ključ iz Servis.ensureGContext)
-	            /*try {
-	                GeoApiContext gctx = Servis.ensureGContext();
-	                LatLng poz = new LatLng(lat, lon);
-	                GeocodingResult[] r = GeocodingApi.reverseGeocode(gctx, poz).await();
-	                
-	                if (r != null && r.length > 0 && r[0] != null && r[0].formattedAddress != null) {
-	                    adresa = r[0].formattedAddress;
-	                }
-	                
-	            } catch (Exception ge) {
-	                System.err.println("[alarmAdresa] Google error: " + ge.getMessage());
-	            }*/
-
-	            // 2) Ako nema Google adrese → Nominatim JSON
-	            if (adresa.isEmpty()) {
-//	                try {
-//	                    Address a = Servis.ensureNominatimJson().getAdress(lat, lon);
-//	                    if (a != null) {
-//	                        StringBuilder sb = new StringBuilder();
-//	                        if (!a.getHouseNumber().isEmpty()) sb.append(a.getHouseNumber()).append(", ");
-//	                        if (!a.getRoad().isEmpty())        sb.append(a.getRoad()).append(", ");
-//	                        if (!a.getSuburb().isEmpty())      sb.append(a.getSuburb()).append(", ");
-//	                        if (!a.getCity().isEmpty())        sb.append(a.getCity()).append(' ');
-//	                        if (!a.getPostcode().isEmpty())    sb.append(a.getPostcode());
-//	                        if (!a.getCounty().isEmpty())      sb.append(", ").append(a.getCounty()).append(", ");
-//	                        if (!a.getCountry().isEmpty())     sb.append(a.getCountry());
-//	                        adresa = sb.toString().trim();
-//	                    }
-//	                } catch (Exception ne) {
-//	                    System.err.println("[alarmAdresa] Nominatim JSON error: " + ne.getMessage());
-//	                }
-	            	try {
-	            		NominatimReverseGeocodingJAPI api =
-	                            new NominatimReverseGeocodingJAPI("https://nominatim.openstreetmap.org");
-	            		adresa = api.getAdress(lat, lon).getDisplayName();
-	            	}catch (Exception e) {
-	            		System.err.println("[alarmAdresa] Nominatim JSON error: " + e.getMessage());
-					}
-	            }
-
-	            // 3) Ako i dalje prazno → NominatimClient
-	            if (adresa.isEmpty()) {
-	                try {
-	                    adresa = Servis.ensureNClient().getAddress(lat, lon);
-	                    if (adresa == null) adresa = "";
-	                } catch (Exception ce) {
-	                    System.err.println("[alarmAdresa] NominatimClient error: " + ce.getMessage());
-	                }
-	            }
-
-	            // 4) Upis u eventData
-	            if (!adresa.isEmpty()) {
-	                String cur = javljanje.getEventData();
-	                if (cur == null || cur.isBlank() || "0".equals(cur)) {
-	                    javljanje.setEventData(adresa);
-	                } else {
-	                    String novo = (cur + " " + adresa).trim();
-	                    javljanje.setEventData(novo.length() > 250 ? adresa : novo);
-	                }
-	            }
-	        }
-	    } catch (Exception e) {
-	        System.err.println("[alarmAdresa] Neočekivana greška: " + e.getMessage());
+	/**
+	 * Да ли аларм тражи адресу (аларм са адресом, исправне координате).
+	 */
+	private boolean trebaAdresa(Javljanja javljanje) {
+	    if (javljanje == null || javljanje.getSistemAlarmi() == null) return false;
+	    if ("0".equals(javljanje.getSistemAlarmi().getSifra())) return false;
+	    if (!javljanje.getSistemAlarmi().isAdresa()) return false;
+	    return javljanje.getLat() != 0.0 && javljanje.getLon() != 0.0;
+	}
+	
+	/**
+	 * eventData допуњен адресом.
+	 * 
+	 * @return null ако адресе нема
+	 */
+	private static String saAdresom(String eventData, String adresa) {
+	    if (adresa == null || adresa.isEmpty()) return null;
+	    if (eventData == null || eventData.isBlank() || "0".equals(eventData)) {
+	        return adresa;
 	    }
+	    String novo = (eventData + " " + adresa).trim();
+	    return novo.length() > 250 ? adresa : novo;
 	}
 
-
+	/** Подаци аларма за мејл, узети у нити конекције пре чекања на адресу. */
+	private final class Obavestenje {
+		final String oznaka;
+		final String nazivAlarma;
+		final String vreme;
+		final String eventData;
+		final List<String> primaoci = new ArrayList<>();
+		
+		Obavestenje(Javljanja javljanje, ArrayList<AlarmiKorisnik> alarmiKorisnici) {
+			oznaka = javljanje.getObjekti().getOznaka();
+			nazivAlarma = javljanje.getSistemAlarmi().getNaziv();
+			synchronized (datumVreme) {
+				vreme = datumVreme.format(javljanje.getDatumVreme());
+			}
+			eventData = javljanje.getEventData();
+			for(AlarmiKorisnik alarmKorisnik : alarmiKorisnici) {
+				if(alarmKorisnik.getSistemAlarmi().getId().equals(javljanje.getSistemAlarmi().getId()) && alarmKorisnik.isEmail()) {
+					primaoci.add(alarmKorisnik.getKorisnik().getEmail());
+				}
+			}
+		}
+		
+		void posalji(String eventData) {
+			String zaglavlje = "Праћење возила - " + oznaka + " - " + nazivAlarma;
+			String stavka = String.join("\n"
+			         , "Објекат " + oznaka + " је активирао аларм " + nazivAlarma
+			         , "у " + vreme + " " + eventData
+			);
+			for (String primalac : primaoci) {
+				// поздрав и потпис додаје AlarmPosiljalac; налет аларма иде као збирни мејл
+				Servis.alarmPosta.dodaj(new Poruka(primalac, zaglavlje, stavka));
+			}
+		}
+	}
 	
     public long razlika(Date vreme){
     	return System.currentTimeMillis() - vreme.getTime();
@@ -20,6 +20,6 @@ public class ComboGorivo extends ComboBox<SistemGoriva>{
 	}
 	
 	private List<SistemGoriva> lista(){
-		return Servis.sistemGorivoServis.vratiSvaGoriva(false);
+		return Servis.sifarnici.goriva();
 	}
 }
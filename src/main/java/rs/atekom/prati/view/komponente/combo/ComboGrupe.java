@@ -24,6 +24,6 @@ public class ComboGrupe extends ComboBox<Grupe>{
 	}
 	
 	private List<Grupe> lista(SistemPretplatnici pretplatnik, Organizacije organizacija){
-		return Servis.grupeServis.vratiGrupeAktivne(pretplatnik, organizacija);
+		return Servis.sifarnici.grupe(pretplatnik, organizacija);
 	}
 }
@@ -1,11 +1,9 @@
 package rs.atekom.prati.view.komponente.combo;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.vaadin.ui.ComboBox;
 
-import pratiBaza.tabele.Grupe;
 import pratiBaza.tabele.Korisnici;
 import pratiBaza.tabele.Objekti;
 import rs.atekom.prati.server.Servis;
@@ -28,11 +26,9 @@ public class ComboObjekti extends ComboBox<Objekti>{
 	
 	public List<Objekti> lista(Korisnici korisnik){
 		if(korisnik.isAdmin()) {
-			return Servis.objekatServis.vratiSveObjekte(korisnik, true);
+			return Servis.sifarnici.objekti(korisnik);
 		}else {
-			ArrayList<Grupe> grupe = new ArrayList<Grupe>();
-			grupe.addAll(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(korisnik));
-			return Servis.grupeObjekatServis.nadjiSveObjektePoGrupama(grupe);
+			return Servis.sifarnici.objektiPoGrupama(korisnik);
 		}
 	}
 }
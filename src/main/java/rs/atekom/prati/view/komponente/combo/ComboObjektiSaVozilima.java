@@ -26,7 +26,7 @@ public class ComboObjektiSaVozilima extends ComboBox<Objekti>{
 	}
 	
 	public List<Objekti> lista(SistemPretplatnici pretplatnik, Organizacije organizacija){
-		return Servis.objekatServis.nadjiSveObjekteSavozilom(pretplatnik, organizacija);
+		return Servis.sifarnici.objektiSaVozilom(pretplatnik, organizacija);
 	}
 	
 	public ArrayList<Objekti> lista(Grupe grupa){
@@ -21,6 +21,6 @@ public class ComboOrganizacije extends ComboBox<Organizacije>{
 	}
 	
 	private List<Organizacije> lista(SistemPretplatnici pretplatnik){
-		return Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnik, true);
+		return Servis.sifarnici.organizacije(pretplatnik);
 	}
 }
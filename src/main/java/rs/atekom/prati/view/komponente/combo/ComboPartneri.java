@@ -23,6 +23,6 @@ public class ComboPartneri extends ComboBox<Partneri>{
 	}
 	
 	public List<Partneri> lista(Korisnici korisnik){
-		return Servis.partnerServis.nadjiSvePartnerePoPretplatniku(korisnik.getSistemPretplatnici(), true);
+		return Servis.sifarnici.partneri(korisnik);
 		}
 }
@@ -0,0 +1,196 @@
+package rs.atekom.prati.view.komponente.podaci;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.sql.JoinType;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+import rs.atekom.prati.ApplicationContextProvider;
+
+/**
+ * {@link Upit} над Hibernate ентитетом из {@code sessionFactory}-а: број редова
+ * и страница се раде у бази (COUNT и LIMIT/OFFSET), а претрага је ILIKE над
+ * задатим својствима. pratiBaza сервиси враћају само целе листе, па административне
+ * табеле читају странице овуда.
+ *
+ * <p>Угнежђена својства ({@code objekti.oznaka}) добијају left join по путањи.
+ * Сваки позив је посебна read-only трансакција {@code txManager}-а; везе
+ * ентитета се учитавају онако како су мапиране, као и у сервисима.</p>
+ *
+ * @param <T> тип ентитета
+ */
+public class HibernateUpit<T> implements Upit<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static volatile TransactionTemplate citanje;
+
+	private enum Vrsta { JEDNAKO, RAZLICITO, VECE }
+
+	private static final class Uslov implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final String svojstvo;
+		final Vrsta vrsta;
+		final Object vrednost;
+
+		Uslov(String svojstvo, Vrsta vrsta, Object vrednost) {
+			this.svojstvo = svojstvo;
+			this.vrsta = vrsta;
+			this.vrednost = vrednost;
+		}
+	}
+
+	private final Class<T> tip;
+	private final List<Uslov> uslovi = new ArrayList<>();
+	private String[] pretraga = new String[0];
+	private String redosled = "id";
+	private boolean rastuce = true;
+
+	public HibernateUpit(Class<T> tip) {
+		this.tip = tip;
+	}
+
+	/** Својства (и путање) по којима се тражи текст из филтера. */
+	public HibernateUpit<T> pretraga(String... svojstva) {
+		pretraga = svojstva.clone();
+		return this;
+	}
+
+	/** Сортирање када корисник није изабрао колону (и после изабране). */
+	public HibernateUpit<T> redosled(String svojstvo, boolean rastuce) {
+		this.redosled = svojstvo;
+		this.rastuce = rastuce;
+		return this;
+	}
+
+	/** Стални услов; {@code null} вредност значи {@code is null}. */
+	public HibernateUpit<T> jednako(String svojstvo, Object vrednost) {
+		uslovi.add(new Uslov(svojstvo, Vrsta.JEDNAKO, vrednost));
+		return this;
+	}
+
+	public HibernateUpit<T> razlicito(String svojstvo, Object vrednost) {
+		uslovi.add(new Uslov(svojstvo, Vrsta.RAZLICITO, vrednost));
+		return this;
+	}
+
+	public HibernateUpit<T> vece(String svojstvo, Object vrednost) {
+		uslovi.add(new Uslov(svojstvo, Vrsta.VECE, vrednost));
+		return this;
+	}
+
+	@Override
+	public int broj(String filter) {
+		return izvrsi(sesija -> {
+			Criteria kriterijum = kriterijum(sesija, filter, new HashMap<>());
+			kriterijum.setProjection(Projections.rowCount());
+			Number broj = (Number) kriterijum.uniqueResult();
+			return broj == null ? 0 : broj.intValue();
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<T> stranica(String filter, int od, int koliko, List<QuerySortOrder> redosledi) {
+		return izvrsi(sesija -> {
+			Map<String, String> aliasi = new HashMap<>();
+			Criteria kriterijum = kriterijum(sesija, filter, aliasi);
+			Set<String> sortirano = new HashSet<>();
+			for (QuerySortOrder red : redosledi) {
+				String putanja = putanja(kriterijum, aliasi, red.getSorted());
+				if (sortirano.add(putanja)) {
+					kriterijum.addOrder(red.getDirection() == SortDirection.DESCENDING ? Order.desc(putanja) : Order.asc(putanja));
+				}
+			}
+			String putanja = putanja(kriterijum, aliasi, redosled);
+			if (sortirano.add(putanja)) {
+				kriterijum.addOrder(rastuce ? Order.asc(putanja) : Order.desc(putanja));
+			}
+			// стабилан редослед између страница - id, ако већ није кључ сортирања
+			if (sortirano.add("id")) {
+				kriterijum.addOrder(Order.asc("id"));
+			}
+			kriterijum.setFirstResult(od);
+			kriterijum.setMaxResults(koliko);
+			return (List<T>) kriterijum.list();
+		});
+	}
+
+	private Criteria kriterijum(Session sesija, String filter, Map<String, String> aliasi) {
+		Criteria kriterijum = sesija.createCriteria(tip);
+		for (Uslov uslov : uslovi) {
+			kriterijum.add(uslov(putanja(kriterijum, aliasi, uslov.svojstvo), uslov));
+		}
+		if (filter != null && pretraga.length > 0) {
+			Disjunction ili = Restrictions.disjunction();
+			for (String svojstvo : pretraga) {
+				ili.add(Restrictions.ilike(putanja(kriterijum, aliasi, svojstvo), filter, MatchMode.ANYWHERE));
+			}
+			kriterijum.add(ili);
+		}
+		return kriterijum;
+	}
+
+	private static Criterion uslov(String putanja, Uslov uslov) {
+		switch (uslov.vrsta) {
+		case RAZLICITO:
+			return uslov.vrednost == null ? Restrictions.isNotNull(putanja) : Restrictions.ne(putanja, uslov.vrednost);
+		case VECE:
+			return Restrictions.gt(putanja, uslov.vrednost);
+		default:
+			return uslov.vrednost == null ? Restrictions.isNull(putanja) : Restrictions.eq(putanja, uslov.vrednost);
+		}
+	}
+
+	/** {@code a.b.c} -> alias за {@code a.b} (left join, једном по упиту) + {@code .c}. */
+	private static String putanja(Criteria kriterijum, Map<String, String> aliasi, String svojstvo) {
+		int tacka = svojstvo.lastIndexOf('.');
+		if (tacka < 0) {
+			return svojstvo;
+		}
+		String veza = svojstvo.substring(0, tacka);
+		String alias = aliasi.get(veza);
+		if (alias == null) {
+			String roditelj = putanja(kriterijum, aliasi, veza);
+			alias = "v" + aliasi.size();
+			kriterijum.createAlias(roditelj, alias, JoinType.LEFT_OUTER_JOIN);
+			aliasi.put(veza, alias);
+		}
+		return alias + svojstvo.substring(tacka);
+	}
+
+	private static <R> R izvrsi(Function<Session, R> posao) {
+		ApplicationContext kontekst = ApplicationContextProvider.getApplicationContext();
+		TransactionTemplate transakcija = citanje;
+		if (transakcija == null) {
+			transakcija = new TransactionTemplate(kontekst.getBean("txManager", PlatformTransactionManager.class));
+			transakcija.setReadOnly(true);
+			citanje = transakcija;
+		}
+		SessionFactory fabrika = kontekst.getBean("sessionFactory", SessionFactory.class);
+		return transakcija.execute(status -> posao.apply(fabrika.getCurrentSession()));
+	}
+}
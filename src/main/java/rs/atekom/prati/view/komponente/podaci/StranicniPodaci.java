@@ -0,0 +1,62 @@
+package rs.atekom.prati.view.komponente.podaci;
+
+import java.util.stream.Stream;
+
+import com.vaadin.data.provider.AbstractBackEndDataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.server.SerializableFunction;
+import com.vaadin.shared.data.sort.SortDirection;
+import com.vaadin.ui.Grid;
+
+/**
+ * DataProvider табеле над {@link Upit}-ом: Grid тражи само видљиве редове,
+ * а претрага, сортирање и бројање се раде у упиту, па сесија не држи целу табелу.
+ *
+ * <p>Редови се поистовећују по кључу ({@code Uredjaji::getId}), тако да избор
+ * у табели преживи поновно учитавање страница.</p>
+ *
+ * @param <T> тип реда
+ */
+public class StranicniPodaci<T> extends AbstractBackEndDataProvider<T, String> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Upit<T> upit;
+	private final SerializableFunction<T, Object> kljuc;
+
+	public StranicniPodaci(Upit<T> upit, SerializableFunction<T, Object> kljuc) {
+		this.upit = upit;
+		this.kljuc = kljuc;
+	}
+
+	@Override
+	protected Stream<T> fetchFromBackEnd(Query<T, String> query) {
+		return upit.stranica(filter(query), query.getOffset(), query.getLimit(), query.getSortOrders()).stream();
+	}
+
+	@Override
+	protected int sizeInBackEnd(Query<T, String> query) {
+		return upit.broj(filter(query));
+	}
+
+	@Override
+	public Object getId(T red) {
+		return kljuc.apply(red);
+	}
+
+	/**
+	 * Колоне без својства за сортирање ({@code setSortProperty}) се не могу
+	 * сортирати - упит их не би видео, а редови на страници нису сви редови.
+	 */
+	public static void sortiranjePoSvojstvima(Grid<?> tabela) {
+		for (Grid.Column<?, ?> kolona : tabela.getColumns()) {
+			kolona.setSortable(kolona.getSortOrder(SortDirection.ASCENDING).findAny().isPresent());
+		}
+	}
+
+	/** Текст претраге без размака на крајевима; празан значи без филтера. */
+	private static String filter(Query<?, String> query) {
+		String filter = query.getFilter().map(String::trim).orElse("");
+		return filter.isEmpty() ? null : filter;
+	}
+}
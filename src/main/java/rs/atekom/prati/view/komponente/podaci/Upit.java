@@ -0,0 +1,28 @@
+package rs.atekom.prati.view.komponente.podaci;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.vaadin.data.provider.QuerySortOrder;
+
+/**
+ * Извор редова табеле по страницама: колико редова има за филтер и једна
+ * страница тих редова, сортирана по својствима колона.
+ *
+ * @param <T> тип реда
+ */
+public interface Upit<T> extends Serializable {
+
+	/**
+	 * @param filter текст претраге или {@code null} за све редове
+	 */
+	int broj(String filter);
+
+	/**
+	 * @param filter текст претраге или {@code null} за све редове
+	 * @param od први ред странице
+	 * @param koliko највише редова
+	 * @param redosled сортирање по својствима колона, може бити празно
+	 */
+	List<T> stranica(String filter, int od, int koliko, List<QuerySortOrder> redosled);
+}
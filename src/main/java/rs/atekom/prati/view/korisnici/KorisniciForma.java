@@ -65,7 +65,7 @@ public class KorisniciForma extends OpstaForma implements OpstaFormaInterface{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<SistemPretplatnici> event) {
-				organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnici.getValue(), true));
+				organizacije.setItems(Servis.sifarnici.organizacije(pretplatnici.getValue()));
 				popuniTabeluGrupe();
 			}
 		});
@@ -288,7 +288,7 @@ public class KorisniciForma extends OpstaForma implements OpstaFormaInterface{
 	
 	private void popuniTabeluGrupe() {
 		lista = new ArrayList<Grupe>();
-		lista.addAll(Servis.grupeServis.vratiGrupeAktivne(pretplatnici.getValue(), organizacije.getValue()));
+		lista.addAll(Servis.sifarnici.grupe(pretplatnici.getValue(), organizacije.getValue()));
 		grupeTabela.setItems(lista);
 	}
 
@@ -8,6 +8,7 @@ import pratiBaza.tabele.GrupeKorisnici;
 import pratiBaza.tabele.Korisnici;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class KorisniciLogika implements LogikaInterface{
@@ -129,6 +130,8 @@ public class KorisniciLogika implements LogikaInterface{
 			grKorisnik.setGrupe(grupa);
 			Servis.grupeKorisnikServis.unesiGrupaZaposleni(grKorisnik);
 			}
+		// објекти корисника зависе од његових група и права
+		Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, korisnik.getSistemPretplatnici());
 		}
 
 }
@@ -5,12 +5,12 @@ import java.util.NoSuchElementException;
 import com.github.appreciated.app.layout.annotations.MenuCaption;
 import com.github.appreciated.app.layout.annotations.MenuIcon;
 import com.github.appreciated.app.layout.annotations.NavigatorViewName;
-import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.event.selection.SelectionEvent;
 import com.vaadin.event.selection.SelectionListener;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
-import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.ui.ValueChangeMode;
 import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Button.ClickEvent;
@@ -23,6 +23,8 @@ import pratiBaza.tabele.Korisnici;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
+import rs.atekom.prati.view.komponente.podaci.StranicniPodaci;
 
 @NavigatorViewName("korisnici")
 @MenuCaption("Корисници")
@@ -32,9 +34,7 @@ public class KorisniciView extends OpstiView implements OpstiViewInterface{
 	private static final long serialVersionUID = 1L;
 	public final String VIEW_NAME = "korisnici";
 	private Grid<Korisnici> tabela;
-	private ListDataProvider<Korisnici> dataProvider;
-	private SerializablePredicate<Korisnici> filterPredicate;
-	private ArrayList<Korisnici> pocetno, lista;
+	private ConfigurableFilterDataProvider<Korisnici, Void, String> dataProvider;
 	private KorisniciLogika viewLogika;
 	public KorisniciForma forma;
 	private Korisnici izabrani;
@@ -82,35 +82,41 @@ public class KorisniciView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void buildTable() {
 		tabela = new Grid<Korisnici>();
-		pocetno = new ArrayList<Korisnici>();
-		updateTable();
+		HibernateUpit<Korisnici> upit = new HibernateUpit<Korisnici>(Korisnici.class)
+				.pretraga("ime", "prezime", "email", "ibutton")
+				.redosled("prezime", true);
+		opsegKorisnika(upit, "organizacija", true);
+		dataProvider = new StranicniPodaci<Korisnici>(upit, Korisnici::getId).withConfigurableFilter();
+		tabela.setDataProvider(dataProvider);
+		dodajFilter();
 		tabela.setSizeFull();
 		tabela.setStyleName("list");
 		tabela.setSelectionMode(SelectionMode.SINGLE);
 		
 		if(isSistem()) {
-			tabela.addColumn(korisnici -> korisnici.getSistemPretplatnici() == null ? "" : korisnici.getSistemPretplatnici().getNaziv()).setCaption("претплатник");
+			tabela.addColumn(korisnici -> korisnici.getSistemPretplatnici() == null ? "" : korisnici.getSistemPretplatnici().getNaziv()).setCaption("претплатник").setSortProperty("sistemPretplatnici.naziv");
 		}
-		tabela.addColumn(Korisnici::getIme).setCaption("име");
-		tabela.addColumn(Korisnici::getPrezime).setCaption("презиме");
-		tabela.addColumn(Korisnici::getEmail).setCaption("е-пошта");
+		tabela.addColumn(Korisnici::getIme).setCaption("име").setSortProperty("ime");
+		tabela.addColumn(Korisnici::getPrezime).setCaption("презиме").setSortProperty("prezime");
+		tabela.addColumn(Korisnici::getEmail).setCaption("е-пошта").setSortProperty("email");
 		tabela.addComponentColumn(korisnici -> {CheckBox chb = new CheckBox(); if(korisnici.isAktivan()) {chb.setValue(true);} return chb;}).setCaption("активан").setStyleGenerator(korisnici -> "v-align-right");
-		tabela.addColumn(Korisnici::getAktivanDo, new DateRenderer(DANFORMAT)).setCaption("активан до").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Korisnici::getAktivanDo, new DateRenderer(DANFORMAT)).setCaption("активан до").setSortProperty("aktivanDo").setStyleGenerator(objekti -> "v-align-right");
 		tabela.addComponentColumn(korisnici -> {CheckBox chb = new CheckBox(); if(korisnici.isKorisnik()) {chb.setValue(true);} return chb;}).setCaption("корисник").setStyleGenerator(korisnici -> "v-align-right");
 		tabela.addComponentColumn(korisnici -> {CheckBox chb = new CheckBox(); if(korisnici.isVozac()) {chb.setValue(true);} return chb;}).setCaption("возач").setStyleGenerator(korisnici -> "v-align-right");
 		tabela.addComponentColumn(korisnici -> {CheckBox chb = new CheckBox(); if(korisnici.isAdmin()) {chb.setValue(true);} return chb;}).setCaption("администратор").setStyleGenerator(korisnici -> "v-align-right");
-		tabela.addColumn(Korisnici::getTelefon).setCaption("телефон");
-		tabela.addColumn(Korisnici::getMobilni).setCaption("мобилни");
-		tabela.addColumn(Korisnici::getIbutton).setCaption("и-дугме");
+		tabela.addColumn(Korisnici::getTelefon).setCaption("телефон").setSortProperty("telefon");
+		tabela.addColumn(Korisnici::getMobilni).setCaption("мобилни").setSortProperty("mobilni");
+		tabela.addColumn(Korisnici::getIbutton).setCaption("и-дугме").setSortProperty("ibutton");
 		if(isSistem() || (korisnik.isAdmin() && korisnik.getOrganizacija() == null)) {
-			tabela.addColumn(korisnici -> korisnici.getOrganizacija() == null ? "" : korisnici.getOrganizacija().getNaziv()).setCaption("организација");
+			tabela.addColumn(korisnici -> korisnici.getOrganizacija() == null ? "" : korisnici.getOrganizacija().getNaziv()).setCaption("организација").setSortProperty("organizacija.naziv");
 		}
 		if(isSistem()) {
 			tabela.addComponentColumn(korisnici -> {CheckBox chb = new CheckBox(); if(korisnici.isSistem()) {chb.setValue(true);} return chb;}).setCaption("систем").setStyleGenerator(korisnici -> "v-align-right");
 			tabela.addComponentColumn(korisnici -> {CheckBox chb = new CheckBox(); if(korisnici.isIzbrisan()) {chb.setValue(true);} return chb;}).setCaption("избрисан").setStyleGenerator(korisnici -> "v-align-right");
 		}
-		tabela.addColumn(Korisnici::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Korisnici::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Korisnici::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setSortProperty("izmenjeno").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Korisnici::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setSortProperty("kreirano").setStyleGenerator(objekti -> "v-align-right");
+		StranicniPodaci.sortiranjePoSvojstvima(tabela);
 	}
 
 	@Override
@@ -170,35 +176,17 @@ public class KorisniciView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void updateTable() {
 		filter.clear();
-		lista = Servis.korisnikServis.nadjiSveKorisnike(korisnik, false);
-		if(lista != null) {
-			tabela.setItems(lista);
-		}else {
-			tabela.setItems(pocetno);
-		}
-		dodajFilter();
+		dataProvider.refreshAll();
 	}
 
 	@Override
 	public void osveziFilter() {
-		dataProvider.setFilter(filterPredicate);
-		dataProvider.refreshAll();
+		dataProvider.setFilter(filter.getValue());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void dodajFilter() {
-		dataProvider = (ListDataProvider<Korisnici>)tabela.getDataProvider();
-		filterPredicate = new SerializablePredicate<Korisnici>() {
-			private static final long serialVersionUID = 1L;
-			@Override
-			public boolean test(Korisnici t) {
-				return ((t.getIme() == null ? "" : t.getIme().toLowerCase()).contains(filter.getValue().toLowerCase()) ||
-						(t.getPrezime() == null ? "" : t.getPrezime()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getEmail() == null ? "" : t.getEmail()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getIbutton() == null ? "" : t.getIbutton()).toLowerCase().contains(filter.getValue().toLowerCase()));
-			}
-		};
+		filter.setValueChangeMode(ValueChangeMode.LAZY);
 		filter.addValueChangeListener(e -> {osveziFilter();});
 	}
 
@@ -66,6 +66,9 @@ public class ObjekatZoneLogika implements LogikaInterface{
 		ObjekatZone objekatZona = (ObjekatZone)podatak;
 		if(objekatZona.getId() != null) {
 			Servis.zonaObjekatServis.izmeniZonaObjekat(objekatZona);
+			// објекат је могао бити промењен у форми - поништавамо и стари преко зоне
+			Servis.zoneIndeks.osveziZonu(objekatZona.getZone().getId());
+			Servis.zoneIndeks.osveziObjekat(objekatZona.getObjekti().getId());
 			view.pokaziPorukuUspesno("објекат зона измењен");
 		}else {
 			try {
@@ -80,6 +83,7 @@ public class ObjekatZoneLogika implements LogikaInterface{
 					}
 					if(!ima) {
 						Servis.zonaObjekatServis.unesiZonaObjekat(objekatZona);
+						Servis.zoneIndeks.osveziObjekat(objekatZona.getObjekti().getId());
 						view.pokaziPorukuUspesno("објекат зона сачуван");
 					}else {
 						view.pokaziPorukuGreska("ова комбинација објекта и зоне већ постоји, молим промените!");
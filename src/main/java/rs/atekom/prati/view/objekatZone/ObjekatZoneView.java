@@ -141,6 +141,7 @@ public class ObjekatZoneView extends OpstiView implements OpstiViewInterface{
 		if(izabrani != null) {
 			if(!izabrani.isIzbrisan()) {
 				Servis.zonaObjekatServis.izbrisiZonaObjekat(izabrani);
+				Servis.zoneIndeks.osveziObjekat(izabrani.getObjekti().getId());
 				pokaziPorukuUspesno("објекат зона је избрисан");
 			}else {
 				pokaziPorukuGreska("објекат зона је већ избрисан!");
@@ -53,7 +53,7 @@ public class ObjektiForma extends OpstaForma implements OpstaFormaInterface{
 					organizacije.clear();
 					uredjaji.clear();
 					if(event.getValue() != null) {
-						organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+						organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 						uredjaji.setItems(Servis.uredjajServis.nadjiSveAktivneSlobodneUredjaje(logika.view.korisnik, event.getValue(), null));
 					}
 				}
@@ -221,7 +221,7 @@ public class ObjektiForma extends OpstaForma implements OpstaFormaInterface{
 			}catch (Exception e) {
 				oznaka.setValue("");
 			}
-			organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(objekat.getSistemPretplatnici(), true));
+			organizacije.setItems(Servis.sifarnici.organizacije(objekat.getSistemPretplatnici()));
 			organizacije.setValue(objekat.getOrganizacija());
 			pretplatnici.setEnabled(false);
 			try {
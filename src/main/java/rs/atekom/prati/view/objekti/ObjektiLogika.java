@@ -6,6 +6,7 @@ import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.Uredjaji;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class ObjektiLogika implements LogikaInterface{
@@ -88,6 +89,7 @@ public class ObjektiLogika implements LogikaInterface{
 				view.pokaziPorukuGreska("објекат због грешке није сачуван!");
 			}
 		}
+		Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, objekat.getSistemPretplatnici());
 		view.updateTable();
 	}
 
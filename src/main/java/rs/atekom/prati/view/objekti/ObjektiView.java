@@ -19,6 +19,7 @@ import com.vaadin.ui.Grid.SelectionMode;
 import com.vaadin.ui.renderers.DateRenderer;
 import pratiBaza.tabele.Objekti;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -154,6 +155,9 @@ public class ObjektiView extends OpstiView implements OpstiViewInterface{
 				Servis.grupeObjekatServis.izbrisiSveGrupeObjekatPoObjektu(izabrani);
 				Servis.zonaObjekatServis.izbrisiZoneObjektiPoObjektu(izabrani);
 				Servis.objekatServis.izbrisiObjekte(izabrani);
+				Servis.stanjeObjekata.ukloni(izabrani.getId());
+				Servis.zoneIndeks.osveziObjekat(izabrani.getId());
+				Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, izabrani.getSistemPretplatnici());
 				pokaziPorukuUspesno("корисник " + izabrani.getOznaka() + " је избрисан");
 			}else {
 				pokaziPorukuGreska("објекат је већ избрисан!");
@@ -5,6 +5,7 @@ import com.vaadin.server.Page;
 import pratiBaza.tabele.Organizacije;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class OrganizacijeLogika implements LogikaInterface{
@@ -69,6 +70,7 @@ public class OrganizacijeLogika implements LogikaInterface{
 			Servis.organizacijaServis.unesiOrganizacije(organizacija);
 			view.pokaziPorukuUspesno("организација измењена");
 		}
+		Servis.sifarnici.ponisti(Sifarnici.Vrsta.ORGANIZACIJE, organizacija.getSistemPretplatnici());
 		view.updateTable();
 	}
 
@@ -20,6 +20,7 @@ import com.vaadin.ui.Grid.SelectionMode;
 import com.vaadin.ui.renderers.DateRenderer;
 import pratiBaza.tabele.Organizacije;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -142,6 +143,7 @@ public class OrganizacijeView extends OpstiView implements OpstiViewInterface{
 		if(izabrani != null) {
 			if(!izabrani.isIzbrisan()) {
 				Servis.organizacijaServis.izbrisiOrganizacije(izabrani);
+				Servis.sifarnici.ponisti(Sifarnici.Vrsta.ORGANIZACIJE, izabrani.getSistemPretplatnici());
 				pokaziPorukuUspesno("организација " + izabrani.getNaziv() + " је избрисана");
 			}else {
 				pokaziPorukuGreska("организација је већ избрисана!");
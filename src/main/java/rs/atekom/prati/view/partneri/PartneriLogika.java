@@ -4,6 +4,7 @@ import com.vaadin.server.Page;
 import pratiBaza.tabele.Partneri;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class PartneriLogika implements LogikaInterface{
@@ -78,6 +79,7 @@ public class PartneriLogika implements LogikaInterface{
 				view.pokaziPorukuGreska("партнер са овим ПИБ-ом је већ унет!");
 			}
 		}
+		Servis.sifarnici.ponisti(Sifarnici.Vrsta.PARTNERI, partner.getSistemPretplatnici());
 		view.updateTable();
 	}
 
@@ -19,6 +19,7 @@ import com.vaadin.ui.Grid.SelectionMode;
 import com.vaadin.ui.renderers.DateRenderer;
 import pratiBaza.tabele.Partneri;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -144,6 +145,7 @@ public class PartneriView extends OpstiView implements OpstiViewInterface{
 	public void ukloniPodatak() {
 		if(izabrani != null) {
 			Servis.partnerServis.izbrisiPartnera(izabrani);
+			Servis.sifarnici.ponisti(Sifarnici.Vrsta.PARTNERI, izabrani.getSistemPretplatnici());
 			pokaziPorukuUspesno("партнер " + izabrani.getNaziv() + " је избрисан");
 		}else {
 			pokaziPorukuGreska("партнер је већ избрисан!");
@@ -7,7 +7,9 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.List;
 import com.github.appreciated.app.layout.annotations.MenuCaption;
 import com.github.appreciated.app.layout.annotations.MenuIcon;
 import com.github.appreciated.app.layout.annotations.NavigatorViewName;
@@ -21,6 +23,7 @@ import com.vaadin.ui.Grid.SelectionMode;
 import com.vaadin.ui.renderers.DateRenderer;
 import com.vaadin.ui.renderers.NumberRenderer;
 import com.vaadin.ui.themes.ValoTheme;
+import pratiBaza.pomocne.PredjeniPut;
 import pratiBaza.tabele.Grupe;
 import pratiBaza.tabele.JavljanjaPoslednja;
 import pratiBaza.tabele.ObdPoslednji;
@@ -28,6 +31,7 @@ import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.Troskovi;
 import pratiBaza.tabele.Vozila;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.zbir.ZbirniPredjeniPut;
 import rs.atekom.prati.view.OpstiPanelView;
 
 @NavigatorViewName("pregled") // an empty view name will also be the default view
@@ -41,7 +45,7 @@ public class PocetnaView extends OpstiPanelView{
 	private Grid<Troskovi> troskoviTabela;
 	private String slotStyle = "dashboard-panel-slot";
 	private boolean maxSize = true;
-	private Date /*datumDo, datumOd,*/ datumOdSedam;
+	private Date datumDo, datumOd, datumOdSedam;
 	private Calendar cal;
 	private ArrayList<Vozila> vozila, vozilaObr;
 	private ArrayList<Objekti> objekti;
@@ -68,10 +72,10 @@ public class PocetnaView extends OpstiPanelView{
 	    cal.set(Calendar.HOUR_OF_DAY, 0);
 	    cal.set(Calendar.MINUTE, 0);
 	    cal.set(Calendar.SECOND, 0);
-	    //datumDo = cal.getTime();
-	    //datumOd = new Date();
+	    cal.set(Calendar.MILLISECOND, 0);
+	    datumDo = cal.getTime();
 	    cal.set(Calendar.DATE, LocalDate.now().getDayOfMonth() - 1);
-	    //datumOd = cal.getTime();
+	    datumOd = cal.getTime();
 	    cal.set(Calendar.DATE, LocalDate.now().getDayOfMonth() - 31);
 	    datumOdSedam = cal.getTime();
 	    troskovi = Servis.trosakServis.nadjiSveTroskoveOd(new Timestamp(datumOdSedam.getTime()), korisnik.getSistemPretplatnici(), korisnik.getOrganizacija());
@@ -124,6 +128,10 @@ public class PocetnaView extends OpstiPanelView{
 		if(trosak != null) {
 			paneli.addComponent(trosak);
 		}
+		Component km = buildKilometri();
+		if(km != null) {
+			paneli.addComponent(km);
+		}
 		/*
 		Component alarmi = buildAlarmi();
 		if(alarmi != null) {
@@ -133,10 +141,6 @@ public class PocetnaView extends OpstiPanelView{
 		if(brzina != null) {
 			paneli.addComponent(brzina);
 		}
-		Component km = buildKilometri();
-		if(km != null) {
-			paneli.addComponent(km);
-		}
 		**/
 		return paneli;
 	}
@@ -272,53 +276,26 @@ public class PocetnaView extends OpstiPanelView{
 		}else {
 			return null;
 		}
-	}
+	}*/
 	
+	/**
+	 * Десет објеката са највише пређених км јуче, из дневних збирова. Док збирови
+	 * не покривају јучерашњи дан (први дан после покретања), панел се не приказује
+	 * - ранији прорачун је читао базу по два пута за сваки објекат.
+	 */
 	private Component buildKilometri() {
-		List<PredjeniPut> lista = new ArrayList<PredjeniPut>();
-		ArrayList<Objekti> objekti = vratiObjekte();
-		if(objekti != null && !objekti.isEmpty()) {
-			for(Objekti objekat : objekti) {
-				
-				ArrayList<Javljanja> javljanja = Servis.javljanjeServis.vratiJavljanjaObjektaOdDoPrvoPoslednje(objekat,
-						new Timestamp(datumOd.getTime()), new Timestamp(datumDo.getTime()));
-				ArrayList<Obd> obdLista = Servis.obdServis.nadjiObdPoObjektuOdDoPrvoPoslednje(objekat,
-						new Timestamp(datumOd.getTime()), new Timestamp(datumDo.getTime()));
-
-				PredjeniPut predjeniPut = new PredjeniPut(objekat.getOznaka(), 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
-				
-				if(javljanja != null && !javljanja.isEmpty()) {
-					predjeniPut.setVirtualOdo(javljanja.get(1).getVirtualOdo() - javljanja.get(0).getVirtualOdo());
-					if(obdLista != null && !obdLista.isEmpty()) {
-						predjeniPut.setUkupnoKm(obdLista.get(1).getUkupnoKm() - obdLista.get(0).getUkupnoKm());
-						predjeniPut.setUkupnoGorivo(obdLista.get(1).getUkupnoGorivo() - obdLista.get(0).getUkupnoGorivo());
-						if(predjeniPut.getVirtualOdo() != 0.0f) {
-							predjeniPut.setProsPotGps(predjeniPut.getUkupnoGorivo()/(predjeniPut.getVirtualOdo()/100));
-						}
-						if(predjeniPut.getUkupnoKm() != 0.0f) {
-							predjeniPut.setProsPotr(predjeniPut.getUkupnoGorivo()/(predjeniPut.getUkupnoKm()/100));
-						}
-					}
-				}
-				lista.add(predjeniPut);
-			}
-			lista.sort(Comparator.comparing(PredjeniPut::getVirtualOdo).reversed());
-			ArrayList<PredjeniPut> konacno = new ArrayList<PredjeniPut>();
-			if(lista.size() < 11) {
-				konacno.addAll(lista);
-			}else {
-				int x = 0;
-				while(x < 10) {
-					konacno.add(lista.get(x));
-					x++;
-				}
-			}
-			PregledKilometara kilometri = new PregledKilometara(konacno);
-			return createContentWraper(kilometri, slotStyle, maxSize, "пређени пут");
-		}else {
+		if(objekti == null || objekti.isEmpty()) {
 			return null;
 		}
-	}*/
+		List<PredjeniPut> lista = ZbirniPredjeniPut.izZbirova(objekti, new Timestamp(datumOd.getTime()), new Timestamp(datumDo.getTime()));
+		if(lista == null) {
+			return null;
+		}
+		lista.sort(Comparator.comparing(PredjeniPut::getVirtualOdo).reversed());
+		ArrayList<PredjeniPut> konacno = new ArrayList<PredjeniPut>(lista.subList(0, Math.min(10, lista.size())));
+		PregledKilometara kilometri = new PregledKilometara(konacno);
+		return createContentWraper(kilometri, slotStyle, maxSize, "пређени пут");
+	}
 	
 	private ArrayList<Objekti> vratiObjekte() {
 		ArrayList<Objekti> objekti = new ArrayList<Objekti>();
@@ -8,7 +8,6 @@ import com.vaadin.ui.Button.ClickEvent;
 import com.vaadin.ui.Button.ClickListener;
 import pratiBaza.tabele.Grupe;
 import pratiBaza.tabele.JavljanjaPoslednja;
-import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.Organizacije;
 import pratiBaza.tabele.SistemPretplatnici;
 import rs.atekom.prati.Prati;
@@ -49,11 +48,11 @@ public class RutaForma extends OpstaForma implements OpstaFormaInterface{
 				organizacije.clear();
 				grupeCombo.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnici.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(pretplatnici.getValue()));
 					if(!logika.view.korisnik.isAdmin()) {
 						grupeCombo.setItems(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(logika.view.korisnik));
 					}else {
-						grupeCombo.setItems(Servis.grupeServis.vratiGrupeAktivne(pretplatnici.getValue(), organizacije.getValue()));
+						grupeCombo.setItems(Servis.sifarnici.grupe(pretplatnici.getValue(), organizacije.getValue()));
 					}
 				}
 			}
@@ -67,7 +66,7 @@ public class RutaForma extends OpstaForma implements OpstaFormaInterface{
 				if(!logika.view.korisnik.isAdmin()) {
 					grupeCombo.setItems(Servis.grupeKorisnikServis.vratiSveGrupePoKorisniku(logika.view.korisnik));
 				}else {
-					grupeCombo.setItems(Servis.grupeServis.vratiGrupeAktivne(pretplatnici.getValue(), organizacije.getValue()));
+					grupeCombo.setItems(Servis.sifarnici.grupe(pretplatnici.getValue(), organizacije.getValue()));
 				}
 			}
 		});
@@ -77,9 +76,7 @@ public class RutaForma extends OpstaForma implements OpstaFormaInterface{
 			@Override
 			public void valueChange(ValueChangeEvent<Grupe> event) {
 				if(event.getValue() != null) {
-					ArrayList<Objekti> objekti = new ArrayList<Objekti>();
-					objekti.addAll(Servis.grupeObjekatServis.nadjiSveObjektePoGrupi(event.getValue()));
-					javljanjaPoslednjaCombo.setItems(Servis.javljanjePoslednjeServis.vratiListuJavljanjaPoslednjih(objekti));
+					javljanjaPoslednjaCombo.setItems(Servis.flota.poslednja(Servis.flota.objektiGrupe(event.getValue())));
 				}else {
 					javljanjaPoslednjaCombo.setItems(new ArrayList<JavljanjaPoslednja>());
 				}
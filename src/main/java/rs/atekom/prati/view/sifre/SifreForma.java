@@ -39,8 +39,8 @@ public class SifreForma extends OpstaForma implements OpstaFormaInterface{
 				partneri.clear();
 				organizacije.clear();
 				if(event.getValue() != null) {
-					partneri.setItems(Servis.partnerServis.nadjiSvePartnerePoPretplatniku(event.getValue(), true));
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+					partneri.setItems(Servis.sifarnici.partneri(event.getValue()));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 				}
 			}
 		});
@@ -50,7 +50,7 @@ public class SifreForma extends OpstaForma implements OpstaFormaInterface{
 			@Override
 			public void valueChange(ValueChangeEvent<Organizacije> event) {
 				partneri.clear();
-				partneri.setItems(Servis.partnerServis.nadjiSvePartnerePoPretplatniku(pretplatnici.getValue(), true));
+				partneri.setItems(Servis.sifarnici.partneri(pretplatnici.getValue()));
 			}
 		});
 		
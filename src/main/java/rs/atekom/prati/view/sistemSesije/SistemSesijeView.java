@@ -1,12 +1,11 @@
 package rs.atekom.prati.view.sistemSesije;
 
-import java.util.ArrayList;
 import com.github.appreciated.app.layout.annotations.MenuCaption;
 import com.github.appreciated.app.layout.annotations.MenuIcon;
 import com.github.appreciated.app.layout.annotations.NavigatorViewName;
-import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.icons.VaadinIcons;
-import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.ui.ValueChangeMode;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Grid.SelectionMode;
 import com.vaadin.ui.renderers.DateRenderer;
@@ -14,6 +13,8 @@ import pratiBaza.tabele.SistemSesije;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
+import rs.atekom.prati.view.komponente.podaci.StranicniPodaci;
 
 @NavigatorViewName("sesije") // an empty view name will also be the default view
 @MenuCaption("Сесије")
@@ -23,9 +24,7 @@ public class SistemSesijeView extends OpstiView implements OpstiViewInterface{
 	private static final long serialVersionUID = 1L;
 	public static final String VIEW_NAME = "sesije";
 	private Grid<SistemSesije> tabela;
-	private ListDataProvider<SistemSesije> dataProvider;
-	private SerializablePredicate<SistemSesije> filterPredicate;
-	private ArrayList<SistemSesije> pocetno, lista;
+	private ConfigurableFilterDataProvider<SistemSesije, Void, String> dataProvider;
 	
 	public SistemSesijeView() {
 		buildToolbar();
@@ -43,20 +42,26 @@ public class SistemSesijeView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void buildTable() {
 		tabela = new Grid<SistemSesije>();
-		pocetno = new ArrayList<SistemSesije>();
-		updateTable();
+		HibernateUpit<SistemSesije> upit = new HibernateUpit<SistemSesije>(SistemSesije.class)
+				.pretraga("sistemPretplatnici.naziv", "organizacija.naziv", "korisnici.ime", "korisnici.prezime", "ipAdresa")
+				.redosled("datumPocetak", false);
+		opsegKorisnika(upit, "organizacija", false);
+		dataProvider = new StranicniPodaci<SistemSesije>(upit, SistemSesije::getId).withConfigurableFilter();
+		tabela.setDataProvider(dataProvider);
+		dodajFilter();
 		tabela.setSizeFull();
 		tabela.setStyleName("list");
 		tabela.setSelectionMode(SelectionMode.SINGLE);
 		
 		if(korisnik.isSistem() && korisnik.getSistemPretplatnici() == null) {
-			tabela.addColumn(sistemSesije -> sistemSesije.getSistemPretplatnici() == null ? "" : sistemSesije.getSistemPretplatnici().getNaziv()).setCaption("претплатник");
+			tabela.addColumn(sistemSesije -> sistemSesije.getSistemPretplatnici() == null ? "" : sistemSesije.getSistemPretplatnici().getNaziv()).setCaption("претплатник").setSortProperty("sistemPretplatnici.naziv");
 		}
-		tabela.addColumn(sistemSesije -> sistemSesije.getKorisnici() == null ? "" : (sistemSesije.getKorisnici().getIme() + " " + sistemSesije.getKorisnici().getPrezime())).setCaption("корисник");
-		tabela.addColumn(SistemSesije::getIpAdresa).setCaption("ИП адреса");
-		tabela.addColumn(SistemSesije::getDatumPocetak,  new DateRenderer(DANSATFORMAT)).setCaption("почетак").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(SistemSesije::getDatumKraj,  new DateRenderer(DANSATFORMAT)).setCaption("крај").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(sistemSesije -> sistemSesije.getOrganizacija() == null ? "" : sistemSesije.getOrganizacija().getNaziv()).setCaption("организација");
+		tabela.addColumn(sistemSesije -> sistemSesije.getKorisnici() == null ? "" : (sistemSesije.getKorisnici().getIme() + " " + sistemSesije.getKorisnici().getPrezime())).setCaption("корисник").setSortProperty("korisnici.prezime");
+		tabela.addColumn(SistemSesije::getIpAdresa).setCaption("ИП адреса").setSortProperty("ipAdresa");
+		tabela.addColumn(SistemSesije::getDatumPocetak,  new DateRenderer(DANSATFORMAT)).setCaption("почетак").setSortProperty("datumPocetak").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(SistemSesije::getDatumKraj,  new DateRenderer(DANSATFORMAT)).setCaption("крај").setSortProperty("datumKraj").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(sistemSesije -> sistemSesije.getOrganizacija() == null ? "" : sistemSesije.getOrganizacija().getNaziv()).setCaption("организација").setSortProperty("organizacija.naziv");
+		StranicniPodaci.sortiranjePoSvojstvima(tabela);
 	}
 
 	@Override
@@ -92,37 +97,17 @@ public class SistemSesijeView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void updateTable() {
 		filter.clear();
-		lista = Servis.sistemSesijaServis.nadjiSveSesije(korisnik);
-		if(lista != null) {
-			tabela.setItems(lista);
-		}else {
-			tabela.setItems(pocetno);
-		}
-		dodajFilter();
+		dataProvider.refreshAll();
 	}
 
 	@Override
 	public void osveziFilter() {
-		dataProvider.setFilter(filterPredicate);
-		dataProvider.refreshAll();
+		dataProvider.setFilter(filter.getValue());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void dodajFilter() {
-		dataProvider = (ListDataProvider<SistemSesije>)tabela.getDataProvider();
-		filterPredicate = new SerializablePredicate<SistemSesije>() {
-			private static final long serialVersionUID = 1L;
-			@Override
-			public boolean test(SistemSesije t) {
-				return ((t.getSistemPretplatnici() == null ? "" : t.getSistemPretplatnici().getNaziv().toLowerCase()).contains(filter.getValue().toLowerCase()) ||
-						(t.getOrganizacija() == null ? "" : t.getOrganizacija().getNaziv().toLowerCase()).contains(filter.getValue().toLowerCase()) ||
-						(t.getKorisnici() == null ? "" : (t.getKorisnici().getIme() + " " + t.getKorisnici().getPrezime()).toLowerCase()).contains(filter.getValue().toLowerCase()) ||
-						(t.getIpAdresa() == null ? "" : t.getIpAdresa()).contains(filter.getValue().toLowerCase()) ||
-						(t.getDatumPocetak() ==  null ? "" : t.getDatumPocetak().toString().toLowerCase()).contains(filter.getValue().toLowerCase()) ||
-						(t.getDatumKraj() ==  null ? "" : t.getDatumKraj().toString().toLowerCase()).contains(filter.getValue().toLowerCase()));
-			}
-		};
+		filter.setValueChangeMode(ValueChangeMode.LAZY);
 		filter.addValueChangeListener(e -> {osveziFilter();});
 	}
 
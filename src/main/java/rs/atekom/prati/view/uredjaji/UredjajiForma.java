@@ -51,7 +51,7 @@ public class UredjajiForma extends OpstaForma implements OpstaFormaInterface{
 					sim.clear();
 					sim2.clear();
 					if(event.getValue() != null) {
-						organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+						organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 						ArrayList<Sim> lista = Servis.simServis.vratiSveSlobodneSim(logika.view.korisnik, event.getValue(), null, null);
 						sim.setItems(lista);
 						sim2.setItems(lista);
@@ -242,7 +242,7 @@ public class UredjajiForma extends OpstaForma implements OpstaFormaInterface{
 		Uredjaji uredjaj = (Uredjaji)podatak;
 		if(uredjaj.getId() != null) {
 			pretplatnici.setValue(uredjaj.getSistemPretplatnici());
-			organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(uredjaj.getSistemPretplatnici(), true));
+			organizacije.setItems(Servis.sifarnici.organizacije(uredjaj.getSistemPretplatnici()));
 			organizacije.setValue(uredjaj.getOrganizacija());
 			pretplatnici.setEnabled(false);
 			modeli.setValue(uredjaj.getSistemUredjajiModeli());
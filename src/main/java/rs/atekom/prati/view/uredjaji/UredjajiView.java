@@ -1,17 +1,16 @@
 package rs.atekom.prati.view.uredjaji;
 
-import java.util.ArrayList;
 import java.util.NoSuchElementException;
 
 import com.github.appreciated.app.layout.annotations.MenuCaption;
 import com.github.appreciated.app.layout.annotations.MenuIcon;
 import com.github.appreciated.app.layout.annotations.NavigatorViewName;
-import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.event.selection.SelectionEvent;
 import com.vaadin.event.selection.SelectionListener;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
-import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.ui.ValueChangeMode;
 import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Button.ClickEvent;
@@ -22,6 +21,8 @@ import pratiBaza.tabele.Uredjaji;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
+import rs.atekom.prati.view.komponente.podaci.StranicniPodaci;
 
 @NavigatorViewName("uredjaji") // an empty view name will also be the default view
 @MenuCaption("Уређаји")
@@ -31,9 +32,7 @@ public class UredjajiView extends OpstiView implements OpstiViewInterface{
 	private static final long serialVersionUID = 1L;
 	public final String VIEW_NAME = "uredjaji";
 	private Grid<Uredjaji> tabela;
-	private ListDataProvider<Uredjaji> dataProvider;
-	private SerializablePredicate<Uredjaji> filterPredicate;
-	private ArrayList<Uredjaji> pocetno, lista;
+	private ConfigurableFilterDataProvider<Uredjaji, Void, String> dataProvider;
 	private UredjajiLogika viewLogika;
 	private UredjajiForma forma;
 	private Uredjaji izabrani;
@@ -81,30 +80,36 @@ public class UredjajiView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void buildTable() {
 		tabela = new Grid<Uredjaji>();
-		pocetno = new ArrayList<Uredjaji>();
-		updateTable();
+		HibernateUpit<Uredjaji> upit = new HibernateUpit<Uredjaji>(Uredjaji.class)
+				.pretraga("kod", "serijskiBr", "objekti.oznaka", "sistemPretplatnici.naziv", "sim.broj", "sistemUredjajiModeli.naziv")
+				.redosled("kod", true);
+		opsegKorisnika(upit, "organizacija", true);
+		dataProvider = new StranicniPodaci<Uredjaji>(upit, Uredjaji::getId).withConfigurableFilter();
+		tabela.setDataProvider(dataProvider);
+		dodajFilter();
 		tabela.setSizeFull();
 		tabela.setStyleName("list");
 		tabela.setSelectionMode(SelectionMode.SINGLE);
 		
 		if(isSistem()) {
-			tabela.addColumn(uredjaji -> uredjaji.getSistemPretplatnici() == null ? "" : uredjaji.getSistemPretplatnici().getNaziv()).setCaption("претплатник");
+			tabela.addColumn(uredjaji -> uredjaji.getSistemPretplatnici() == null ? "" : uredjaji.getSistemPretplatnici().getNaziv()).setCaption("претплатник").setSortProperty("sistemPretplatnici.naziv");
 		}
-		tabela.addColumn(Uredjaji::getSerijskiBr).setCaption("серијски број");
-		tabela.addColumn(Uredjaji::getKod).setCaption("код");
-		tabela.addColumn(uredjaji -> uredjaji.getSistemUredjajiModeli() == null ? "": uredjaji.getSistemUredjajiModeli().getNaziv()).setCaption("модел");		
+		tabela.addColumn(Uredjaji::getSerijskiBr).setCaption("серијски број").setSortProperty("serijskiBr");
+		tabela.addColumn(Uredjaji::getKod).setCaption("код").setSortProperty("kod");
+		tabela.addColumn(uredjaji -> uredjaji.getSistemUredjajiModeli() == null ? "": uredjaji.getSistemUredjajiModeli().getNaziv()).setCaption("модел").setSortProperty("sistemUredjajiModeli.naziv");		
 		tabela.addColumn(uredjaji -> uredjaji.getSistemUredjajiModeli() == null ? "" : uredjaji.getSistemUredjajiModeli().getSistemUredjajiProizvodjac() == null ? "" : 
-			uredjaji.getSistemUredjajiModeli().getSistemUredjajiProizvodjac().getNaziv()).setCaption("произвођач");		
-		tabela.addColumn(uredjaji -> uredjaji.getSim() == null ? "" : uredjaji.getSim().getBroj()).setCaption("сим број");
-		tabela.addColumn(uredjaji -> uredjaji.getSim() == null ? "" : uredjaji.getSim().getIccid()).setCaption("сим iccid");
-		tabela.addColumn(uredjaji -> uredjaji.getObjekti() == null ? "" : uredjaji.getObjekti().getOznaka()).setCaption("објекат");
+			uredjaji.getSistemUredjajiModeli().getSistemUredjajiProizvodjac().getNaziv()).setCaption("произвођач").setSortProperty("sistemUredjajiModeli.sistemUredjajiProizvodjac.naziv");		
+		tabela.addColumn(uredjaji -> uredjaji.getSim() == null ? "" : uredjaji.getSim().getBroj()).setCaption("сим број").setSortProperty("sim.broj");
+		tabela.addColumn(uredjaji -> uredjaji.getSim() == null ? "" : uredjaji.getSim().getIccid()).setCaption("сим iccid").setSortProperty("sim.iccid");
+		tabela.addColumn(uredjaji -> uredjaji.getObjekti() == null ? "" : uredjaji.getObjekti().getOznaka()).setCaption("објекат").setSortProperty("objekti.oznaka");
 		tabela.addComponentColumn(uredjaji -> {CheckBox chb = new CheckBox(); if(uredjaji.isAktivno()) {chb.setValue(true); }return chb;}).setCaption("активан").setStyleGenerator(uredjaji -> "v-align-right");
-		tabela.addColumn(uredjaji -> uredjaji.getOrganizacija() == null ? "" : uredjaji.getOrganizacija().getNaziv()).setCaption("организација");
+		tabela.addColumn(uredjaji -> uredjaji.getOrganizacija() == null ? "" : uredjaji.getOrganizacija().getNaziv()).setCaption("организација").setSortProperty("organizacija.naziv");
 		if(isSistem()) {
 			tabela.addComponentColumn(uredjaji -> {CheckBox chb = new CheckBox(); if(uredjaji.isIzbrisan()) {chb.setValue(true); }return chb;}).setCaption("избрисан").setStyleGenerator(uredjaji -> "v-align-right");
 		}
-		tabela.addColumn(Uredjaji::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setStyleGenerator(uredjaji -> "v-align-right");
-		tabela.addColumn(Uredjaji::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setStyleGenerator(uredjaji -> "v-align-right");
+		tabela.addColumn(Uredjaji::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setSortProperty("izmenjeno").setStyleGenerator(uredjaji -> "v-align-right");
+		tabela.addColumn(Uredjaji::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setSortProperty("kreirano").setStyleGenerator(uredjaji -> "v-align-right");
+		StranicniPodaci.sortiranjePoSvojstvima(tabela);
 	}
 
 	@Override
@@ -159,38 +164,17 @@ public class UredjajiView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void updateTable() {
 		filter.clear();
-		lista = new ArrayList<Uredjaji>();
-		lista.addAll(Servis.uredjajServis.nadjiSveUredjaje(korisnik, false));
-		if(lista != null) {
-			tabela.setItems(lista);
-		}else {
-			tabela.setItems(pocetno);
-		}
-		dodajFilter();
+		dataProvider.refreshAll();
 	}
 
 	@Override
 	public void osveziFilter() {
-		dataProvider.setFilter(filterPredicate);
-		dataProvider.refreshAll();
+		dataProvider.setFilter(filter.getValue());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void dodajFilter() {
-		dataProvider = (ListDataProvider<Uredjaji>)tabela.getDataProvider();
-		filterPredicate = new SerializablePredicate<Uredjaji>() {
-			private static final long serialVersionUID = 1L;
-			@Override
-			public boolean test(Uredjaji t) {
-				return (t.getKod().toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getSerijskiBr() == null ? "" : t.getSerijskiBr()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getObjekti() == null ? "" : t.getObjekti().getOznaka()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getSistemPretplatnici() == null ? "" : t.getSistemPretplatnici().getNaziv()).contains(filter.getValue().toLowerCase()) ||
-						(t.getSim() == null ? "" : t.getSim().getBroj()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getSistemUredjajiModeli() == null ? "" : t.getSistemUredjajiModeli().getNaziv()).toLowerCase().contains(filter.getValue().toLowerCase()));
-			}
-		};
+		filter.setValueChangeMode(ValueChangeMode.LAZY);
 		filter.addValueChangeListener(e -> {osveziFilter();});
 	}
 
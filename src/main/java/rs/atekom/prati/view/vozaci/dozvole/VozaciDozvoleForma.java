@@ -86,7 +86,7 @@ public class VozaciDozvoleForma extends OpstaForma implements OpstaFormaInterfac
 				organizacije.clear();
 				vozaci.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 					vozaci.setItems(Servis.korisnikServis.nadjiSveKorisnikeVozace(event.getValue(), null, true));
 				}
 			}
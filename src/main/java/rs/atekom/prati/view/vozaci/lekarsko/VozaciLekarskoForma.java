@@ -43,7 +43,7 @@ public class VozaciLekarskoForma extends OpstaForma implements OpstaFormaInterfa
 				organizacije.clear();
 				vozaci.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnici.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(pretplatnici.getValue()));
 					vozaci.setItems(Servis.korisnikServis.nadjiSveKorisnikeVozace(event.getValue(), null, true));
 				}
 				
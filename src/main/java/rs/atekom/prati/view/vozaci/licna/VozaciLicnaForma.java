@@ -43,7 +43,7 @@ public class VozaciLicnaForma extends OpstaForma implements OpstaFormaInterface{
 				organizacije.clear();
 				vozaci.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 					vozaci.setItems(Servis.korisnikServis.nadjiSveKorisnikeVozace(event.getValue(), null, true));
 				}
 			}
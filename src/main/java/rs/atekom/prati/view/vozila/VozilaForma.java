@@ -83,8 +83,8 @@ public class VozilaForma extends OpstaForma implements OpstaFormaInterface{
 				organizacije.clear();
 				objekti.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
-					objekti.setItems(Servis.objekatServis.nadjiSveObjekteBezVozila(event.getValue(), null));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
+					objekti.setItems(Servis.sifarnici.objektiBezVozila(event.getValue(), null));
 				}
 			}
 		});
@@ -94,7 +94,7 @@ public class VozilaForma extends OpstaForma implements OpstaFormaInterface{
 			@Override
 			public void valueChange(ValueChangeEvent<Organizacije> event) {
 				objekti.clear();
-				objekti.setItems(Servis.objekatServis.nadjiSveObjekteBezVozila(pretplatnici.getValue(), event.getValue()));
+				objekti.setItems(Servis.sifarnici.objektiBezVozila(pretplatnici.getValue(), event.getValue()));
 			}
 		});
 		
@@ -6,6 +6,7 @@ import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.Vozila;
 import rs.atekom.prati.Prati;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.LogikaInterface;
 
 public class VozilaLogika implements LogikaInterface{
@@ -84,6 +85,7 @@ public class VozilaLogika implements LogikaInterface{
 				view.pokaziPorukuGreska("подаци за возило због грешке нису сачувани!");
 			}
 		}
+		Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, vozilo.getSistemPretplatnici());
 		view.updateTable();
 	}
 
@@ -24,6 +24,7 @@ import pratiBaza.tabele.Vozila;
 import pratiBaza.tabele.VozilaSaobracajne;
 import pratiBaza.tabele.VozilaSaobracajne2;
 import rs.atekom.prati.server.Servis;
+import rs.atekom.prati.server.sifarnici.Sifarnici;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
 
@@ -178,6 +179,7 @@ public class VozilaView extends OpstiView implements OpstiViewInterface{
 					objekat.setVozilo(null);
 					Servis.objekatServis.azurirajObjekte(objekat);
 				}
+				Servis.sifarnici.ponisti(Sifarnici.Vrsta.OBJEKTI, izabrani.getSistemPretplatnici());
 				pokaziPorukuUspesno("возило избрисано");
 			}else {
 				pokaziPorukuGreska("возило већ избрисано!");
@@ -59,7 +59,7 @@ public class VozilaSaobracajnaForma extends OpstaForma implements OpstaFormaInte
 				vozila.clear();
 				organizacije.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 					vozila.setItems(Servis.voziloServis.nadjiSvaVozilaBezSaobracajnePoPretplatniku(event.getValue(), null));
 				}
 			}
@@ -51,7 +51,7 @@ public class VozilaSaobracajna2Forma extends OpstaForma implements OpstaFormaInt
 				saobracajna.clear();
 				organizacije.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 					saobracajna.setItems(Servis.saobracajnaServis.nadjiSlobodneSaobracajnePoPretplatniku(event.getValue(), null));
 				}
 			}
@@ -53,7 +53,7 @@ public class RacuniForma extends OpstaForma implements OpstaFormaInterface{
 			public void valueChange(ValueChangeEvent<SistemPretplatnici> event) {
 				partneri.clear();
 				if(event.getValue() != null) {
-					partneri.setItems(Servis.partnerServis.nadjiSvePartnerePoPretplatniku(event.getValue(), true));
+					partneri.setItems(Servis.sifarnici.partneri(event.getValue()));
 				}
 			}
 		});
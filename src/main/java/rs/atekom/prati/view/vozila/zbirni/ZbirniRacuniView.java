@@ -139,7 +139,7 @@ public class ZbirniRacuniView extends Panel implements View, Serializable{
         root.addComponent(troskovi);
         //root.addComponent(raspodelaPanel);
         //root.addComponent(raspodela);
-        vrsteGoriva = Servis.sistemGorivoServis.vratiSvaGoriva(false);
+        vrsteGoriva = Servis.sifarnici.goriva();
         
         setContent(root);
 	}
@@ -165,8 +165,8 @@ public class ZbirniRacuniView extends Panel implements View, Serializable{
 			private static final long serialVersionUID = 1L;
 			@Override
 			public void valueChange(ValueChangeEvent<SistemPretplatnici> event) {
-				organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
-				partneri.setItems(Servis.partnerServis.nadjiSvePartnerePoPretplatniku(event.getValue(), true));
+				organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
+				partneri.setItems(Servis.sifarnici.partneri(event.getValue()));
 				updateTableRacuni();
 			}
 		});
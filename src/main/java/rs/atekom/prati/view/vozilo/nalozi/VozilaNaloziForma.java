@@ -54,7 +54,7 @@ public class VozilaNaloziForma extends OpstaForma implements OpstaFormaInterface
 				vozila.clear();
 				vozaci.clear();
 				if(event.getValue() != null) {
-					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
+					organizacije.setItems(Servis.sifarnici.organizacije(event.getValue()));
 					vozila.setItems(Servis.objekatServis.vratiSveObjekteVozila(event.getValue(), null));
 					vozaci.setItems(Servis.korisnikServis.nadjiSveKorisnikeVozace(event.getValue(), null, true));
 				}
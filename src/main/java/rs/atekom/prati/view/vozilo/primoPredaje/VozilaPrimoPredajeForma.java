@@ -111,7 +111,7 @@ public class VozilaPrimoPredajeForma extends OpstaForma implements OpstaFormaInt
 				vozila.clear();
 				vozacPrijem.clear();
 				vozacPredaja.clear();
-				organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(pretplatnici.getValue(), true));
+				organizacije.setItems(Servis.sifarnici.organizacije(pretplatnici.getValue()));
 				vozila.setItems(Servis.voziloServis.nadjisvaVozilaPoPretplatniku(event.getValue()));
 				vozacPrijem.setItems(Servis.korisnikServis.nadjiSveKorisnikeVozace(event.getValue(), null, true));
 				vozacPredaja.setItems(Servis.korisnikServis.nadjiSveKorisnikeVozace(event.getValue(), null, true));
@@ -64,6 +64,7 @@ public class ZoneLogika implements LogikaInterface{
 		Zone zona = (Zone)podatak;
 		if(zona.getId() != null) {
 			Servis.zonaServis.izmeniZonu(zona);
+			Servis.zoneIndeks.osveziZonu(zona.getId());
 			view.pokaziPorukuUspesno("зона измењена");
 		}else {
 			try {
@@ -183,6 +183,7 @@ public class ZoneView extends OpstiPanelView implements OpstiViewInterface{
 			if(!izabrani.isIzbrisan()) {
 				Servis.zonaObjekatServis.izbrisiZoneObjektiPOZoni(izabrani);
 				Servis.zonaServis.izbrisiZonu(izabrani);
+				Servis.zoneIndeks.osveziZonu(izabrani.getId());
 				pokaziPorukuUspesno("зона " + izabrani.getNaziv() + " је избрисана");
 			}else {
 				pokaziPorukuGreska("зона је већ избрисана!");
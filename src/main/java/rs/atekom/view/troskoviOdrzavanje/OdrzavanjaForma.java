@@ -64,7 +64,7 @@ public class OdrzavanjaForma extends OpstaForma implements OpstaFormaInterface{
 				organizacije.clear();
 				objekti.clear();
 				if(event.getValue() != null) {
-					partneri.setItems(Servis.partnerServis.nadjiSvePartnerePoPretplatniku(event.getValue(), true));
+					partneri.setItems(Servis.sifarnici.partneri(event.getValue()));
 					organizacije.setItems(Servis.organizacijaServis.nadjiSveOrganizacije(event.getValue(), true));
 					objekti.setItems(Servis.objekatServis.nadjiSveObjekteSavozilom(event.getValue(), null));
 				}
@@ -1,16 +1,15 @@
 package rs.atekom.view.troskoviOdrzavanje;
 
-import java.util.ArrayList;
 import java.util.NoSuchElementException;
 import com.github.appreciated.app.layout.annotations.MenuCaption;
 import com.github.appreciated.app.layout.annotations.MenuIcon;
 import com.github.appreciated.app.layout.annotations.NavigatorViewName;
-import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.event.selection.SelectionEvent;
 import com.vaadin.event.selection.SelectionListener;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.navigator.ViewChangeListener.ViewChangeEvent;
-import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.ui.ValueChangeMode;
 import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Button.ClickEvent;
@@ -25,6 +24,8 @@ import pratiBaza.tabele.Vozila;
 import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.OpstiView;
 import rs.atekom.prati.view.OpstiViewInterface;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
+import rs.atekom.prati.view.komponente.podaci.StranicniPodaci;
 
 @NavigatorViewName("odrzavanje") // an empty view name will also be the default view
 @MenuCaption("Одржавање")
@@ -34,9 +35,7 @@ public class OdrzavanjaView extends OpstiView implements OpstiViewInterface{
 	private static final long serialVersionUID = 1L;
 	public final String VIEW_NAME = "odrzavanje";
 	private Grid<Troskovi> tabela;
-	private ListDataProvider<Troskovi> dataProvider;
-	private SerializablePredicate<Troskovi> filterPredicate;
-	private ArrayList<Troskovi> pocetno, lista;
+	private ConfigurableFilterDataProvider<Troskovi, Void, String> dataProvider;
 	private OdrzavanjaLogika viewLogika;
 	private OdrzavanjaForma forma;
 	private Troskovi izabrani;
@@ -89,34 +88,42 @@ public class OdrzavanjaView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void buildTable() {
 		tabela = new Grid<Troskovi>();
-		pocetno = new ArrayList<Troskovi>();
-		updateTable();
+		// одржавања су трошкови са типом сервиса, потрошња горива има тип 0
+		HibernateUpit<Troskovi> upit = new HibernateUpit<Troskovi>(Troskovi.class)
+				.vece("tipServisa", 0)
+				.pretraga("sistemPretplatnici.naziv", "objekti.oznaka", "partner.naziv")
+				.redosled("datumVreme", false);
+		opsegKorisnika(upit, "objekti.organizacija", true);
+		dataProvider = new StranicniPodaci<Troskovi>(upit, Troskovi::getId).withConfigurableFilter();
+		tabela.setDataProvider(dataProvider);
+		dodajFilter();
 		tabela.setSizeFull();
 		tabela.setStyleName("list");
 		tabela.setSelectionMode(SelectionMode.SINGLE);
 		
 		if(isSistem()) {
-			tabela.addColumn(troskovi -> troskovi.getSistemPretplatnici() == null ? "" : troskovi.getSistemPretplatnici().getNaziv()).setCaption("претплатник");
+			tabela.addColumn(troskovi -> troskovi.getSistemPretplatnici() == null ? "" : troskovi.getSistemPretplatnici().getNaziv()).setCaption("претплатник").setSortProperty("sistemPretplatnici.naziv");
 		}
-		tabela.addColumn(Troskovi::getDatumVreme, new DateRenderer(DANFORMAT)).setCaption("датум").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(troskovi -> troskovi.getPartner() == null ? "" : troskovi.getPartner().getNaziv()).setCaption("партнер");
-		tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOznaka()).setCaption("објекат");
+		tabela.addColumn(Troskovi::getDatumVreme, new DateRenderer(DANFORMAT)).setCaption("датум").setSortProperty("datumVreme").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(troskovi -> troskovi.getPartner() == null ? "" : troskovi.getPartner().getNaziv()).setCaption("партнер").setSortProperty("partner.naziv");
+		tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOznaka()).setCaption("објекат").setSortProperty("objekti.oznaka");
 		tabela.addColumn(troskovi -> troskovi.getMarka() == null ? "" : troskovi.getMarka()).setCaption("марка");
 		tabela.addColumn(troskovi -> troskovi.getModel() == null ? "" : troskovi.getMarka()).setCaption("модел");
 		tabela.addColumn(Troskovi::getTipServisaNaziv).setCaption("тип одржавања").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getCena).setCaption("цена").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getPdvProcenat).setCaption("ПДВ %").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getPdvIznos).setCaption("ПДВ").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getUkupno).setCaption("укупно").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getOpis).setCaption("опис").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getCena).setCaption("цена").setSortProperty("cena").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getPdvProcenat).setCaption("ПДВ %").setSortProperty("pdvProcenat").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getPdvIznos).setCaption("ПДВ").setSortProperty("pdvIznos").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getUkupno).setCaption("укупно").setSortProperty("ukupno").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getOpis).setCaption("опис").setSortProperty("opis").setStyleGenerator(objekti -> "v-align-right");
 		if(isSistem() || (korisnik.isAdmin() && korisnik.getOrganizacija() == null)) {
-			tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOrganizacija() == null ? "" : troskovi.getObjekti().getOrganizacija().getNaziv()).setCaption("организација");
+			tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOrganizacija() == null ? "" : troskovi.getObjekti().getOrganizacija().getNaziv()).setCaption("организација").setSortProperty("objekti.organizacija.naziv");
 		}
 		if(isSistem()) {
 			tabela.addComponentColumn(troskovi -> {CheckBox chb = new CheckBox(); if(troskovi.isIzbrisan()) {chb.setValue(true);} return chb;}).setCaption("izbrisan").setStyleGenerator(objekti -> "v-align-right");
 		}
-		tabela.addColumn(Troskovi::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setSortProperty("izmenjeno").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setSortProperty("kreirano").setStyleGenerator(objekti -> "v-align-right");
+		StranicniPodaci.sortiranjePoSvojstvima(tabela);
 	}
 
 	@Override
@@ -222,34 +229,17 @@ public class OdrzavanjaView extends OpstiView implements OpstiViewInterface{
 	@Override
 	public void updateTable() {
 		filter.clear();
-		lista = Servis.trosakServis.nadjiSvaOdrzavanja(korisnik);
-		if(lista != null) {
-			tabela.setItems(lista);
-		}else {
-			tabela.setItems(pocetno);
-		}
-		dodajFilter();
+		dataProvider.refreshAll();
 	}
 
 	@Override
 	public void osveziFilter() {
-		dataProvider.setFilter(filterPredicate);
-		dataProvider.refreshAll();
+		dataProvider.setFilter(filter.getValue());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void dodajFilter() {
-		dataProvider = (ListDataProvider<Troskovi>)tabela.getDataProvider();
-		filterPredicate = new SerializablePredicate<Troskovi>() {
-			private static final long serialVersionUID = 1L;
-			@Override
-			public boolean test(Troskovi t) {
-				return ((t.getSistemPretplatnici() == null ? "" : t.getSistemPretplatnici().getNaziv()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getObjekti() == null ? "" : t.getObjekti().getOznaka()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getPartner() == null ? "" : t.getPartner().getNaziv()).toLowerCase().contains(filter.getValue().toLowerCase()));
-			}
-		};
+		filter.setValueChangeMode(ValueChangeMode.LAZY);
 		filter.addValueChangeListener(e -> {osveziFilter();});
 	}
 }
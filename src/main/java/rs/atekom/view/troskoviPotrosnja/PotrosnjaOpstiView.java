@@ -1,11 +1,10 @@
 package rs.atekom.view.troskoviPotrosnja;
 
-import java.util.ArrayList;
 import java.util.NoSuchElementException;
-import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.event.selection.SelectionEvent;
 import com.vaadin.event.selection.SelectionListener;
-import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.ui.ValueChangeMode;
 import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Button.ClickEvent;
@@ -17,15 +16,15 @@ import rs.atekom.prati.server.Servis;
 import rs.atekom.prati.view.Opsti;
 import rs.atekom.prati.view.OpstiViewInterface;
 import rs.atekom.prati.view.vozila.zbirni.ZbirniRacuniView;
+import rs.atekom.prati.view.komponente.podaci.HibernateUpit;
+import rs.atekom.prati.view.komponente.podaci.StranicniPodaci;
 
 public class PotrosnjaOpstiView extends Opsti implements OpstiViewInterface{
 
 	private static final long serialVersionUID = 1L;
 	public final String VIEW_NAME = "potrosnja";
 	public Grid<Troskovi> tabela;
-	public ListDataProvider<Troskovi> dataProvider;
-	public SerializablePredicate<Troskovi> filterPredicate;
-	public ArrayList<Troskovi> pocetno, lista;
+	public ConfigurableFilterDataProvider<Troskovi, Void, String> dataProvider;
 	public PotrosnjaLogika viewLogika;
 	public PotrosnjaForma forma;
 	public Troskovi izabrani;
@@ -79,33 +78,40 @@ public class PotrosnjaOpstiView extends Opsti implements OpstiViewInterface{
 	@Override
 	public void buildTable() {
 		tabela = new Grid<Troskovi>();
-		pocetno = new ArrayList<Troskovi>();
-		updateTable();
+		HibernateUpit<Troskovi> upit = new HibernateUpit<Troskovi>(Troskovi.class)
+				.jednako("tipServisa", 0)
+				.pretraga("sistemPretplatnici.naziv", "objekti.oznaka", "partner.naziv")
+				.redosled("datumVreme", false);
+		opsegKorisnika(upit, "objekti.organizacija", true);
+		dataProvider = new StranicniPodaci<Troskovi>(upit, Troskovi::getId).withConfigurableFilter();
+		tabela.setDataProvider(dataProvider);
+		dodajFilter();
 		tabela.setSizeFull();
 		tabela.setStyleName("list");
 		tabela.setSelectionMode(SelectionMode.SINGLE);
 		
 		if(isSistem()) {
-			tabela.addColumn(troskovi -> troskovi.getSistemPretplatnici() == null ? "" : troskovi.getSistemPretplatnici().getNaziv()).setCaption("претплатник");
+			tabela.addColumn(troskovi -> troskovi.getSistemPretplatnici() == null ? "" : troskovi.getSistemPretplatnici().getNaziv()).setCaption("претплатник").setSortProperty("sistemPretplatnici.naziv");
 		}
-		tabela.addColumn(Troskovi::getDatumVreme, new DateRenderer(DANFORMAT)).setCaption("датум").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(troskovi -> troskovi.getPartner() == null ? "" : troskovi.getPartner().getNaziv()).setCaption("партнер");
-		tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOznaka()).setCaption("објекат");
-		tabela.addColumn(troskovi -> troskovi.getSistemGoriva() == null ? "" : troskovi.getSistemGoriva().getNaziv()).setCaption("врста горива").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getKolicina).setCaption("количина").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getCena).setCaption("цена").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getPdvProcenat).setCaption("ПДВ %").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getPdvIznos).setCaption("ПДВ").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getUkupno).setCaption("укупно").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getOpis).setCaption("опис").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getDatumVreme, new DateRenderer(DANFORMAT)).setCaption("датум").setSortProperty("datumVreme").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(troskovi -> troskovi.getPartner() == null ? "" : troskovi.getPartner().getNaziv()).setCaption("партнер").setSortProperty("partner.naziv");
+		tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOznaka()).setCaption("објекат").setSortProperty("objekti.oznaka");
+		tabela.addColumn(troskovi -> troskovi.getSistemGoriva() == null ? "" : troskovi.getSistemGoriva().getNaziv()).setCaption("врста горива").setSortProperty("sistemGoriva.naziv").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getKolicina).setCaption("количина").setSortProperty("kolicina").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getCena).setCaption("цена").setSortProperty("cena").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getPdvProcenat).setCaption("ПДВ %").setSortProperty("pdvProcenat").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getPdvIznos).setCaption("ПДВ").setSortProperty("pdvIznos").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getUkupno).setCaption("укупно").setSortProperty("ukupno").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getOpis).setCaption("опис").setSortProperty("opis").setStyleGenerator(objekti -> "v-align-right");
 		if(isSistem() || (korisnik.isAdmin() && korisnik.getOrganizacija() == null)) {
-			tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOrganizacija() == null ? "" : troskovi.getObjekti().getOrganizacija().getNaziv()).setCaption("организација");
+			tabela.addColumn(troskovi -> troskovi.getObjekti() == null ? "" : troskovi.getObjekti().getOrganizacija() == null ? "" : troskovi.getObjekti().getOrganizacija().getNaziv()).setCaption("организација").setSortProperty("objekti.organizacija.naziv");
 		}
 		if(isSistem()) {
 			tabela.addComponentColumn(troskovi -> {CheckBox chb = new CheckBox(); if(troskovi.isIzbrisan()) {chb.setValue(true);} return chb;}).setCaption("избрисан").setStyleGenerator(objekti -> "v-align-right");
 		}
-		tabela.addColumn(Troskovi::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setStyleGenerator(objekti -> "v-align-right");
-		tabela.addColumn(Troskovi::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getIzmenjeno, new DateRenderer(DANSATFORMAT)).setCaption("измењено").setSortProperty("izmenjeno").setStyleGenerator(objekti -> "v-align-right");
+		tabela.addColumn(Troskovi::getKreirano, new DateRenderer(DANSATFORMAT)).setCaption("креирано").setSortProperty("kreirano").setStyleGenerator(objekti -> "v-align-right");
+		StranicniPodaci.sortiranjePoSvojstvima(tabela);
 	}
 
 	@Override
@@ -155,34 +161,17 @@ public class PotrosnjaOpstiView extends Opsti implements OpstiViewInterface{
 	@Override
 	public void updateTable() {
 		filter.clear();
-		lista = Servis.trosakServis.nadjiSvuPotrosnju(korisnik);
-		if(lista != null) {
-			tabela.setItems(lista);
-		}else {
-			tabela.setItems(pocetno);
-		}
-		dodajFilter();
+		dataProvider.refreshAll();
 	}
 
 	@Override
 	public void osveziFilter() {
-		dataProvider.setFilter(filterPredicate);
-		dataProvider.refreshAll();
+		dataProvider.setFilter(filter.getValue());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void dodajFilter() {
-		dataProvider = (ListDataProvider<Troskovi>)tabela.getDataProvider();
-		filterPredicate = new SerializablePredicate<Troskovi>() {
-			private static final long serialVersionUID = 1L;
-			@Override
-			public boolean test(Troskovi t) {
-				return ((t.getSistemPretplatnici() == null ? "" : t.getSistemPretplatnici().getNaziv()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getObjekti() == null ? "" : t.getObjekti().getOznaka()).toLowerCase().contains(filter.getValue().toLowerCase()) ||
-						(t.getPartner() == null ? "" : t.getPartner().getNaziv()).toLowerCase().contains(filter.getValue().toLowerCase()));
-			}
-		};
+		filter.setValueChangeMode(ValueChangeMode.LAZY);
 		filter.addValueChangeListener(e -> {osveziFilter();});
 	}
 
@@ -0,0 +1,141 @@
+package rs.atekom.prati;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.SistemAlarmi;
+import rs.atekom.prati.Broadcaster.BroadcastListener;
+
+/**
+ * Unit тестови за {@link Broadcaster}: спор слушалац не задржава нити
+ * конекција ни остале слушаоце, позиције истог возила се спајају, а пуно
+ * сандуче не одбацује аларме.
+ */
+public class BroadcasterTest {
+
+    /** Слушалац који бележи испоруке; прва испорука чека на {@code pusti}. */
+    private static class Slusalac implements BroadcastListener {
+        final List<Javljanja> primljeno = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch pusti;
+        final CountDownLatch prva = new CountDownLatch(1);
+
+        Slusalac(CountDownLatch pusti) {
+            this.pusti = pusti;
+        }
+
+        @Override
+        public void receiveBroadcast(Javljanja message) {
+            prva.countDown();
+            try {
+                pusti.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            primljeno.add(message);
+        }
+    }
+
+    private static Javljanja javljanje(long objekatId, long vreme, String sifra) {
+        Objekti objekat = new Objekti();
+        objekat.setId(objekatId);
+        SistemAlarmi alarm = new SistemAlarmi();
+        alarm.setSifra(sifra);
+        Javljanja j = new Javljanja();
+        j.setObjekti(objekat);
+        j.setSistemAlarmi(alarm);
+        j.setDatumVreme(new Timestamp(vreme));
+        return j;
+    }
+
+    private static void cekaj(List<?> lista, int broj) throws InterruptedException {
+        long rok = System.currentTimeMillis() + 5_000;
+        while (lista.size() < broj && System.currentTimeMillis() < rok) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testSporSlusalacSpajaPozicijeINeBlokira() throws Exception {
+        CountDownLatch pusti = new CountDownLatch(1);
+        Slusalac spor = new Slusalac(pusti);
+        Slusalac brz = new Slusalac(new CountDownLatch(0));
+        Broadcaster.register(spor);
+        Broadcaster.register(brz);
+        try {
+            Broadcaster.broadcast(javljanje(1, 0, "0"));
+            assertTrue(spor.prva.await(5, TimeUnit.SECONDS));
+
+            long pocetak = System.nanoTime();
+            for (int i = 1; i <= 100; i++) {
+                Broadcaster.broadcast(javljanje(1, i, "0"));
+            }
+            Broadcaster.broadcast(javljanje(1, 50, "7"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pocetak) < 1_000);
+
+            // брз слушалац не чека на спорог
+            cekaj(brz.primljeno, 3);
+            assertTrue(spor.primljeno.isEmpty());
+
+            pusti.countDown();
+            cekaj(spor.primljeno, 3);
+            Thread.sleep(50);
+            assertEquals(3, spor.primljeno.size());
+            assertEquals(100L, spor.primljeno.get(1).getDatumVreme().getTime());
+            assertEquals("7", spor.primljeno.get(2).getSistemAlarmi().getSifra());
+        } finally {
+            Broadcaster.unregister(spor);
+            Broadcaster.unregister(brz);
+        }
+    }
+
+    @Test
+    public void testPunoSanduceOdbacujePozicijuNeAlarm() throws Exception {
+        CountDownLatch pusti = new CountDownLatch(1);
+        Slusalac spor = new Slusalac(pusti);
+        Broadcaster.register(spor);
+        try {
+            Broadcaster.broadcast(javljanje(1, 0, "0"));
+            assertTrue(spor.prva.await(5, TimeUnit.SECONDS));
+
+            Broadcaster.broadcast(javljanje(1, 1, "7"));
+            // позиције различитих објеката пуне сандуче преко капацитета
+            for (int i = 0; i < 1_100; i++) {
+                Broadcaster.broadcast(javljanje(1_000 + i, 2, "0"));
+            }
+
+            pusti.countDown();
+            cekaj(spor.primljeno, 1_001);
+            Thread.sleep(50);
+            assertEquals(1_001, spor.primljeno.size());
+            assertEquals("7", spor.primljeno.get(1).getSistemAlarmi().getSifra());
+            // одбачене су најстарије позиције
+            assertEquals(1_101L, spor.primljeno.get(2).getObjekti().getId().longValue());
+        } finally {
+            Broadcaster.unregister(spor);
+        }
+    }
+
+    @Test
+    public void testOdjavljenSlusalacNePrima() throws Exception {
+        Slusalac slusalac = new Slusalac(new CountDownLatch(0));
+        Broadcaster.register(slusalac);
+        Broadcaster.broadcast(javljanje(2, 1, "0"));
+        cekaj(slusalac.primljeno, 1);
+        Broadcaster.unregister(slusalac);
+
+        Broadcaster.broadcast(javljanje(2, 2, "0"));
+        Thread.sleep(50);
+        assertEquals(1, slusalac.primljeno.size());
+        assertEquals(0, Broadcaster.getBrojSlusalaca());
+    }
+}
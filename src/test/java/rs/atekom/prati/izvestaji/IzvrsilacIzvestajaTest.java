@@ -0,0 +1,145 @@
+package rs.atekom.prati.izvestaji;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Kljuc;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Posao;
+import rs.atekom.prati.izvestaji.IzvrsilacIzvestaja.Slusalac;
+
+/**
+ * Unit тестови за {@link IzvrsilacIzvestaja}: кеш за затворене периоде,
+ * отказивање и ограничен ред.
+ */
+public class IzvrsilacIzvestajaTest {
+
+    private IzvrsilacIzvestaja izvrsilac;
+
+    @After
+    public void zatvori() {
+        if (izvrsilac != null) {
+            izvrsilac.zatvori();
+        }
+    }
+
+    private static Objekti objekat(long id) {
+        Objekti objekat = new Objekti();
+        objekat.setId(id);
+        return objekat;
+    }
+
+    private static Kljuc kljuc(long doo) {
+        return new Kljuc("test", Arrays.asList(objekat(2), objekat(1)), new Date(0), new Date(doo));
+    }
+
+    /** Слушалац који чека исход посла. */
+    private static class Cekac<T> implements Slusalac<T> {
+        final CountDownLatch kraj = new CountDownLatch(1);
+        final AtomicReference<T> rezultat = new AtomicReference<>();
+        volatile boolean otkazan;
+
+        @Override
+        public void gotovo(T r) {
+            rezultat.set(r);
+            kraj.countDown();
+        }
+
+        @Override
+        public void greska(Throwable greska) {
+            kraj.countDown();
+        }
+
+        @Override
+        public void otkazano() {
+            otkazan = true;
+            kraj.countDown();
+        }
+
+        void cekaj() throws InterruptedException {
+            assertTrue(kraj.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testZatvorenPeriodSeVracaIzKesa() throws Exception {
+        izvrsilac = new IzvrsilacIzvestaja(1, 5, 10, TimeUnit.MINUTES.toMillis(1));
+        AtomicInteger upita = new AtomicInteger();
+        long juce = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+
+        Cekac<String> prvi = new Cekac<>();
+        izvrsilac.pokreni(kljuc(juce), n -> "r" + upita.incrementAndGet(), prvi);
+        prvi.cekaj();
+        // исти објекти другим редом - исти кључ
+        Cekac<String> drugi = new Cekac<>();
+        izvrsilac.pokreni(new Kljuc("test", Arrays.asList(objekat(1), objekat(2)), new Date(0), new Date(juce)),
+                n -> "r" + upita.incrementAndGet(), drugi);
+        drugi.cekaj();
+
+        assertEquals("r1", drugi.rezultat.get());
+        assertEquals(1, upita.get());
+        assertEquals(1, izvrsilac.getIzKesa());
+
+        // период који још траје се не кешира
+        long sutra = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < 2; i++) {
+            Cekac<String> otvoren = new Cekac<>();
+            izvrsilac.pokreni(kljuc(sutra), n -> "r" + upita.incrementAndGet(), otvoren);
+            otvoren.cekaj();
+        }
+        assertEquals(3, upita.get());
+    }
+
+    @Test
+    public void testOtkazivanjePrekidaUpit() throws Exception {
+        izvrsilac = new IzvrsilacIzvestaja(1, 5, 10, TimeUnit.MINUTES.toMillis(1));
+        CountDownLatch poceo = new CountDownLatch(1);
+        Cekac<Integer> cekac = new Cekac<>();
+        Posao posao = izvrsilac.pokreni(kljuc(1), n -> {
+            poceo.countDown();
+            for (int i = 0; ; i++) {
+                n.javi(i, 0);
+                Thread.sleep(5);
+            }
+        }, cekac);
+        assertTrue(poceo.await(5, TimeUnit.SECONDS));
+        posao.otkazi();
+        cekac.cekaj();
+
+        assertTrue(cekac.otkazan);
+        assertEquals(1, izvrsilac.getOtkazano());
+        assertEquals(0, izvrsilac.getZavrseno());
+    }
+
+    @Test
+    public void testPunRedOdbijaPosao() throws Exception {
+        izvrsilac = new IzvrsilacIzvestaja(1, 1, 10, TimeUnit.MINUTES.toMillis(1));
+        CountDownLatch pusti = new CountDownLatch(1);
+        CountDownLatch poceo = new CountDownLatch(1);
+        izvrsilac.pokreni(kljuc(1), n -> {
+            poceo.countDown();
+            pusti.await();
+            return 1;
+        }, new Cekac<Integer>());
+        assertTrue(poceo.await(5, TimeUnit.SECONDS));
+        izvrsilac.pokreni(kljuc(2), n -> 2, new Cekac<Integer>());
+        try {
+            izvrsilac.pokreni(kljuc(3), n -> 3, new Cekac<Integer>());
+            fail("ред је пун");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, izvrsilac.getOdbijeno());
+        } finally {
+            pusti.countDown();
+        }
+    }
+}
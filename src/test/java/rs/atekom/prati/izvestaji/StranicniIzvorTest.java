@@ -0,0 +1,81 @@
+package rs.atekom.prati.izvestaji;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.jasperreports.engine.JRField;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Unit тестови за {@link StranicniIzvor}: странице се учитавају редом, тек
+ * кад се претходна потроши, а премотавање почиње испочетка.
+ */
+public class StranicniIzvorTest {
+
+    private static List<Objekti> objekti(int broj) {
+        List<Objekti> lista = new ArrayList<>();
+        for (int i = 1; i <= broj; i++) {
+            Objekti objekat = new Objekti();
+            objekat.setId((long) i);
+            lista.add(objekat);
+        }
+        return lista;
+    }
+
+    @Test
+    public void testGrupeObjekataSeUcitavajuRedom() throws Exception {
+        List<Integer> velicine = new ArrayList<>();
+        StranicniIzvor<Long> izvor = StranicniIzvor.poObjektima(objekti(7), 3, grupa -> {
+            velicine.add(grupa.size());
+            List<Long> ids = new ArrayList<>();
+            for (Objekti objekat : grupa) {
+                if (objekat.getId() != 4L) {
+                    ids.add(objekat.getId());
+                }
+            }
+            return ids;
+        });
+
+        assertTrue(izvor.next());
+        assertEquals(1, velicine.size());
+        List<Long> procitano = new ArrayList<>();
+        procitano.add(1L);
+        Long id;
+        while ((id = izvor.sledeci()) != null) {
+            procitano.add(id);
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L, 5L, 6L, 7L), procitano);
+        assertEquals(Arrays.asList(3, 3, 1), velicine);
+        assertEquals(6, izvor.getBrojRedova());
+        assertFalse(izvor.next());
+    }
+
+    @Test
+    public void testPrvihIPremotavanje() throws Exception {
+        StranicniIzvor<Objekti> izvor = new StranicniIzvor<>(3, rb -> rb == 1 ? Collections.<Objekti>emptyList() : objekti(2));
+
+        assertEquals(3, izvor.prvih(3).size());
+        assertEquals(4, izvor.prvih(10).size());
+
+        izvor.moveFirst();
+        JRField id = new JRField() {
+            @Override
+            public String getName() {
+                return "id";
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+        };
+        assertTrue(izvor.next());
+        assertEquals(1L, izvor.getFieldValue(id));
+    }
+}
@@ -0,0 +1,66 @@
+package rs.atekom.prati.mape;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit тестови за {@link UproscavanjeTrase}: Douglas–Peucker са обавезним
+ * тачкама, ограничење броја тачака и груписање маркера.
+ */
+public class UproscavanjeTraseTest {
+
+    @Test
+    public void testPravaLinijaSeSvodiNaKrajeveIObavezne() {
+        int n = 1_000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        boolean[] obavezne = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 44.0 + i * 0.0001;
+            lon[i] = 20.0 + i * 0.0001;
+        }
+        obavezne[500] = true;
+
+        assertArrayEquals(new int[] { 0, 500, 999 }, UproscavanjeTrase.uprosti(lat, lon, obavezne, 5));
+        assertArrayEquals(new int[] { 0, 999 }, UproscavanjeTrase.uprosti(lat, lon, null, 5));
+    }
+
+    @Test
+    public void testCikCakIznadTolerancijeOstaje() {
+        // 11 тачака, свака друга ~111 m северно
+        double[] lat = new double[11];
+        double[] lon = new double[11];
+        for (int i = 0; i < 11; i++) {
+            lat[i] = 44.0 + (i % 2) * 0.001;
+            lon[i] = 20.0 + i * 0.001;
+        }
+        assertEquals(11, UproscavanjeTrase.uprosti(lat, lon, null, 50).length);
+        assertEquals(2, UproscavanjeTrase.uprosti(lat, lon, null, 200).length);
+        assertTrue(UproscavanjeTrase.uprosti(lat, lon, null, 50, 5).length <= 5);
+    }
+
+    @Test
+    public void testGrupisanjeMarkera() {
+        double[] lat = { 44.0, 44.0001, 44.0002, 44.5, 44.0001 };
+        double[] lon = { 20.0, 20.0001, 20.0002, 20.5, 20.0001 };
+        boolean[] obavezne = { false, false, false, false, true };
+
+        List<int[]> grupe = UproscavanjeTrase.grupisi(lat, lon, null, obavezne, 1_000);
+        assertEquals(3, grupe.size());
+        assertArrayEquals(new int[] { 0, 1, 2 }, grupe.get(0));
+        assertArrayEquals(new int[] { 3 }, grupe.get(1));
+        assertArrayEquals(new int[] { 4 }, grupe.get(2));
+    }
+
+    @Test
+    public void testZum() {
+        assertTrue(UproscavanjeTrase.metaraPoPikselu(10, 44) > UproscavanjeTrase.metaraPoPikselu(15, 44));
+        int gradski = UproscavanjeTrase.procenaZuma(44.80, 44.82, 20.44, 20.48, 800, 600);
+        int drzava = UproscavanjeTrase.procenaZuma(42.2, 46.2, 18.8, 23.0, 800, 600);
+        assertTrue(gradski > drzava);
+        assertTrue(drzava >= 5 && drzava <= 8);
+    }
+}
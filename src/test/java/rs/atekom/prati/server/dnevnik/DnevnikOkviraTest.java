@@ -0,0 +1,224 @@
+package rs.atekom.prati.server.dnevnik;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rs.atekom.prati.server.persist.WriteBehindQueue;
+
+/**
+ * Unit тестови за {@link DnevnikOkvira} и {@link CitacDnevnika}: оквири се
+ * читају онако како су уписани, сегменти се ротирају и бришу (неуписани тек
+ * преко двоструког лимита), а читање стаје на оштећеном запису.
+ */
+public class DnevnikOkviraTest {
+
+    private Path direktorijum;
+
+    @Before
+    public void napravi() throws IOException {
+        direktorijum = Files.createTempDirectory("dnevnik");
+    }
+
+    @After
+    public void obrisi() throws IOException {
+        try (Stream<Path> fajlovi = Files.walk(direktorijum)) {
+            fajlovi.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static ByteBuffer okvir(int duzina, int vrednost) {
+        byte[] podaci = new byte[duzina];
+        for (int i = 0; i < duzina; i++) {
+            podaci[i] = (byte) (vrednost + i);
+        }
+        return ByteBuffer.wrap(podaci);
+    }
+
+    private List<OkvirDnevnika> procitaj() throws IOException {
+        List<OkvirDnevnika> okviri = new ArrayList<>();
+        CitacDnevnika.citaj(direktorijum, okviri::add);
+        return okviri;
+    }
+
+    @Test
+    public void testUpisanoSeCitaRedom() throws IOException {
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 64 * 1024, 4);
+        assertTrue(dnevnik.zapisi("RUPTELA", "864547034433333", 1000L, okvir(20, 1)));
+        // уписује се само део бафера од position до limit
+        ByteBuffer deo = okvir(30, 50);
+        deo.position(10).limit(25);
+        assertTrue(dnevnik.zapisi("NEON", "77", 2000L, deo));
+        assertEquals(10, deo.position());
+        dnevnik.zatvori();
+
+        List<OkvirDnevnika> okviri = procitaj();
+        assertEquals(2, okviri.size());
+        assertEquals("RUPTELA", okviri.get(0).getProtokol());
+        assertEquals("864547034433333", okviri.get(0).getImei());
+        assertEquals(1000L, okviri.get(0).getVremePrijema());
+        assertArrayEquals(okvir(20, 1).array(), okviri.get(0).getPodaci());
+        assertEquals("77", okviri.get(1).getImei());
+        assertEquals(15, okviri.get(1).getPodaci().length);
+        assertEquals((byte) 60, okviri.get(1).getPodaci()[0]);
+        assertEquals(2, dnevnik.getZapisa());
+        assertFalse(dnevnik.zapisi("RUPTELA", "1", 3000L, okvir(5, 0)));
+    }
+
+    @Test
+    public void testRotacijaIBrisanjeStarihSegmenata() throws IOException {
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 4096, 2);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(dnevnik.zapisi("RUPTELA", "1", i, okvir(1000, i)));
+        }
+        dnevnik.zatvori();
+
+        assertEquals(2, CitacDnevnika.segmenti(direktorijum).size());
+        List<OkvirDnevnika> okviri = procitaj();
+        assertFalse(okviri.isEmpty());
+        assertEquals(19L, okviri.get(okviri.size() - 1).getVremePrijema());
+        for (int i = 1; i < okviri.size(); i++) {
+            assertEquals(okviri.get(i - 1).getVremePrijema() + 1, okviri.get(i).getVremePrijema());
+        }
+    }
+
+    @Test
+    public void testNeupisaniSegmentiSeZadrzavaju() throws IOException {
+        AtomicLong upisanoDo = new AtomicLong(0);
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 4096, 2, upisanoDo::get);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(dnevnik.zapisi("RUPTELA", "1", i, okvir(1000, i)));
+        }
+        // упис у базу не напредује - чува се до двоструког лимита, старији се бришу уз грешку
+        assertEquals(4, CitacDnevnika.segmenti(direktorijum).size());
+        assertEquals(2, dnevnik.getZadrzanih());
+        assertTrue(dnevnik.getObrisanoNeupisanih() > 0);
+
+        long obrisano = dnevnik.getObrisanoNeupisanih();
+        upisanoDo.set(System.currentTimeMillis() + DnevnikOkvira.OBRADA_MS + 1_000);
+        for (int i = 20; i < 24; i++) {
+            assertTrue(dnevnik.zapisi("RUPTELA", "1", i, okvir(1000, i)));
+        }
+        dnevnik.zatvori();
+
+        assertEquals(2, CitacDnevnika.segmenti(direktorijum).size());
+        assertEquals(0, dnevnik.getZadrzanih());
+        assertEquals(obrisano, dnevnik.getObrisanoNeupisanih());
+        assertTrue(Files.exists(direktorijum.resolve(DnevnikOkvira.UPISANO)));
+    }
+
+    @Test
+    public void testOdbacenZapisZadrzavaSegment() throws Exception {
+        WriteBehindQueue<Integer> red = new WriteBehindQueue<>("test", 10, 10, 10, 10, paket -> {
+            throw new IllegalStateException("baza nije dostupna");
+        });
+        red.pokreni();
+        Thread.sleep(100);
+        long prijem = System.currentTimeMillis();
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 4096, 2, red::getUpisanoDo);
+        assertTrue(dnevnik.zapisi("RUPTELA", "1", prijem, okvir(1000, 0)));
+        red.dodaj(1);
+        for (int i = 0; i < 50 && red.getNeuspesno() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, red.getNeuspesno());
+        long granica = red.getUpisanoDo();
+        Thread.sleep(300);
+
+        // нит уписа је празна, али граница не прелази одбачени запис
+        assertEquals(granica, red.getUpisanoDo());
+        assertTrue(granica <= prijem);
+
+        Path prvi = CitacDnevnika.segmenti(direktorijum).get(0);
+        for (int i = 1; i < 12; i++) {
+            assertTrue(dnevnik.zapisi("RUPTELA", "1", prijem + i, okvir(1000, i)));
+        }
+        dnevnik.zatvori();
+        red.zatvori(5_000);
+
+        assertTrue(CitacDnevnika.segmenti(direktorijum).size() > 2);
+        assertTrue(Files.exists(prvi));
+        assertTrue(dnevnik.getZadrzanih() > 0);
+        assertEquals(0, dnevnik.getObrisanoNeupisanih());
+        assertEquals(granica, red.getUpisanoDo());
+    }
+
+    @Test
+    public void testPonovoOtvorenDnevnikNastavljaUNovomSegmentu() throws IOException {
+        DnevnikOkvira prvi = new DnevnikOkvira(direktorijum, 64 * 1024, 4);
+        prvi.zapisi("RUPTELA", "1", 1L, okvir(10, 0));
+        prvi.zatvori();
+        DnevnikOkvira drugi = new DnevnikOkvira(direktorijum, 64 * 1024, 4);
+        drugi.zapisi("RUPTELA", "1", 2L, okvir(10, 0));
+        drugi.zatvori();
+
+        assertEquals(2, CitacDnevnika.segmenti(direktorijum).size());
+        List<OkvirDnevnika> okviri = procitaj();
+        assertEquals(2, okviri.size());
+        assertEquals(1L, okviri.get(0).getVremePrijema());
+        assertEquals(2L, okviri.get(1).getVremePrijema());
+    }
+
+    @Test
+    public void testCitanjeStajeNaOstecenomZapisu() throws IOException {
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 64 * 1024, 4);
+        for (int i = 0; i < 3; i++) {
+            dnevnik.zapisi("RUPTELA", "1", i, okvir(10, i));
+        }
+        dnevnik.zatvori();
+
+        // последњи бајт другог записа: заглавље сегмента + први запис + цео други запис
+        int zapis = DnevnikOkvira.ZAGLAVLJE_ZAPISA + 8 + 1 + 7 + 1 + 1 + 10;
+        try (FileChannel kanal = FileChannel.open(CitacDnevnika.segmenti(direktorijum).get(0), StandardOpenOption.WRITE)) {
+            kanal.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), DnevnikOkvira.ZAGLAVLJE_SEGMENTA + 2 * zapis - 1);
+        }
+
+        assertEquals(1, procitaj().size());
+    }
+
+    @Test
+    public void testIstovremeniUpisi() throws Exception {
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 16 * 1024, 1000);
+        Thread[] niti = new Thread[8];
+        for (int n = 0; n < niti.length; n++) {
+            String imei = String.valueOf(n);
+            niti[n] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    dnevnik.zapisi("RUPTELA", imei, i, okvir(100, i));
+                }
+            });
+            niti[n].start();
+        }
+        for (Thread nit : niti) {
+            nit.join();
+        }
+        dnevnik.zatvori();
+
+        List<OkvirDnevnika> okviri = procitaj();
+        assertEquals(1600, okviri.size());
+        // редослед по уређају је очуван
+        long[] poslednje = new long[niti.length];
+        Arrays.fill(poslednje, -1);
+        for (OkvirDnevnika okvir : okviri) {
+            int n = Integer.parseInt(okvir.getImei());
+            assertEquals(poslednje[n] + 1, okvir.getVremePrijema());
+            poslednje[n] = okvir.getVremePrijema();
+        }
+        assertTrue(dnevnik.getFsyncova() <= 1600);
+    }
+}
@@ -0,0 +1,143 @@
+package rs.atekom.prati.server.dnevnik;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rs.atekom.prati.server.nio.FrameHandler;
+
+/**
+ * Unit тестови за {@link ReprodukcijaDnevnika}: оквири уређаја стижу у
+ * сесију редом пријема, период и IMEI филтрирају, а задата брзина
+ * задржава размак пријема.
+ */
+public class ReprodukcijaDnevnikaTest {
+
+    private Path direktorijum;
+    private final Map<String, List<Integer>> primljeno = new ConcurrentHashMap<>();
+    private final AtomicInteger sesija = new AtomicInteger();
+
+    /** Сесија која памти први бајт сваког оквира по уређају. */
+    private class Sesija implements FrameHandler {
+
+        private String uredjaj;
+
+        @Override
+        public void attach(String clientId, OutputStream out) {
+            sesija.incrementAndGet();
+            uredjaj = clientId.substring(clientId.lastIndexOf(':') + 1);
+        }
+
+        @Override
+        public boolean handleFrame(byte[] frame) {
+            primljeno.computeIfAbsent(uredjaj, k -> Collections.synchronizedList(new ArrayList<>())).add((int) frame[0]);
+            // оквир 99 затвара сесију као неисправан пакет
+            return frame[0] != 99;
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    @Before
+    public void napravi() throws IOException {
+        direktorijum = Files.createTempDirectory("reprodukcija");
+    }
+
+    @After
+    public void obrisi() throws IOException {
+        try (Stream<Path> fajlovi = Files.walk(direktorijum)) {
+            fajlovi.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void zapisi(String protokol, String imei, long vreme, int vrednost) throws IOException {
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 64 * 1024, 100);
+        dnevnik.zapisi(protokol, imei, vreme, ByteBuffer.wrap(new byte[] {(byte) vrednost, 1, 2}));
+        dnevnik.zatvori();
+    }
+
+    private ReprodukcijaDnevnika reprodukcija(long pocetak, long kraj, String samo, double brzina) {
+        return new ReprodukcijaDnevnika(direktorijum, protokol -> "RUPTELA".equals(protokol) ? new Sesija() : null,
+                pocetak, kraj, samo == null ? kod -> true : samo::equals, brzina, 3, 2);
+    }
+
+    @Test
+    public void testRedosledPoUredjajuIJednaSesija() throws IOException {
+        DnevnikOkvira dnevnik = new DnevnikOkvira(direktorijum, 64 * 1024, 10);
+        for (int i = 0; i < 50; i++) {
+            for (int u = 0; u < 5; u++) {
+                dnevnik.zapisi("RUPTELA", "u" + u, 1000 + i, ByteBuffer.wrap(new byte[] {(byte) i}));
+            }
+        }
+        dnevnik.zapisi("NEON", "n1", 1100, ByteBuffer.wrap(new byte[] {1}));
+        dnevnik.zatvori();
+
+        ReprodukcijaDnevnika reprodukcija = reprodukcija(0, Long.MAX_VALUE, null, 0);
+        assertEquals(250, reprodukcija.izvrsi());
+
+        assertTrue(reprodukcija.isZavrseno());
+        assertEquals(5, sesija.get());
+        assertEquals(1, reprodukcija.getOdbaceno());
+        for (int u = 0; u < 5; u++) {
+            List<Integer> okviri = primljeno.get("u" + u);
+            assertEquals(50, okviri.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(Integer.valueOf(i), okviri.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testPeriodIUredjaj() throws IOException {
+        zapisi("RUPTELA", "a", 100, 1);
+        zapisi("RUPTELA", "a", 200, 2);
+        zapisi("RUPTELA", "b", 200, 3);
+        zapisi("RUPTELA", "a", 300, 4);
+
+        ReprodukcijaDnevnika reprodukcija = reprodukcija(200, 300, "a", 0);
+        assertEquals(1, reprodukcija.izvrsi());
+        assertEquals(Collections.singletonList(2), primljeno.get("a"));
+        assertNull(primljeno.get("b"));
+        assertEquals(4, reprodukcija.getProcitano());
+    }
+
+    @Test
+    public void testZatvorenaSesijaSeOtvaraPonovo() throws IOException {
+        zapisi("RUPTELA", "a", 1, 99);
+        zapisi("RUPTELA", "a", 2, 5);
+
+        reprodukcija(0, Long.MAX_VALUE, null, 0).izvrsi();
+        assertEquals(2, sesija.get());
+        assertEquals(2, primljeno.get("a").size());
+    }
+
+    @Test
+    public void testBrzinaPratiRazmakPrijema() throws IOException {
+        zapisi("RUPTELA", "a", 1_000, 1);
+        zapisi("RUPTELA", "a", 1_400, 2);
+
+        long pocetak = System.nanoTime();
+        reprodukcija(0, Long.MAX_VALUE, null, 2).izvrsi();
+        long ms = (System.nanoTime() - pocetak) / 1_000_000;
+        assertTrue("reprodukcija brzinom 2 trajala " + ms + " ms", ms >= 190);
+        assertEquals(2, primljeno.get("a").size());
+    }
+}
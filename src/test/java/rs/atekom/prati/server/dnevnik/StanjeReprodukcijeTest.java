@@ -0,0 +1,80 @@
+package rs.atekom.prati.server.dnevnik;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.stanje.StanjeObjekta;
+
+/**
+ * Unit тестови за {@link StanjeReprodukcije}: провера већ уписаних јављања
+ * и почетно стање објекта из базе.
+ */
+public class StanjeReprodukcijeTest {
+
+    private static final long POCETAK = 100_000;
+    private static final long KRAJ = 200_000;
+
+    private static Objekti objekat(long id) {
+        Objekti o = new Objekti();
+        o.setId(id);
+        o.setOznaka("O" + id);
+        return o;
+    }
+
+    private static Javljanja javljanje(long vreme, int brzina) {
+        Javljanja j = new Javljanja();
+        j.setDatumVreme(new Date(vreme));
+        j.setBrzina(brzina);
+        return j;
+    }
+
+    @Test
+    public void testUpisanaUPerioduSeCitajuJednom() {
+        Javljanja upisano = javljanje(150_000, 40);
+        AtomicInteger citanja = new AtomicInteger();
+        StanjeReprodukcije stanje = new StanjeReprodukcije(POCETAK, KRAJ, (o, vreme) -> null, o -> {
+            citanja.incrementAndGet();
+            return Arrays.asList(upisano, javljanje(160_000, 50));
+        });
+        Objekti o = objekat(1);
+
+        assertSame(upisano, stanje.upisano(o, new Date(150_000)));
+        assertNull(stanje.upisano(o, new Date(155_000)));
+        assertNotNull(stanje.upisano(o, new Date(160_000)));
+        assertEquals(1, citanja.get());
+        assertEquals(2, stanje.getPreskoceno());
+    }
+
+    @Test
+    public void testVanPeriodaSeProveravaPoslednje() {
+        Javljanja poslednje = javljanje(50_000, 0);
+        StanjeReprodukcije stanje = new StanjeReprodukcije(POCETAK, KRAJ, (o, vreme) -> poslednje, o -> null);
+        Objekti o = objekat(1);
+
+        assertSame(poslednje, stanje.upisano(o, new Date(50_000)));
+        assertNull(stanje.upisano(o, new Date(60_000)));
+        assertEquals(1, stanje.getPreskoceno());
+    }
+
+    @Test
+    public void testStanjePocinjeOdPoslednjegPrePerioda() {
+        Javljanja prethodno = javljanje(90_000, 0);
+        StanjeReprodukcije stanje = new StanjeReprodukcije(POCETAK, KRAJ, (o, vreme) -> prethodno, o -> null);
+        Objekti o = objekat(1);
+
+        StanjeObjekta s = stanje.zaObjekat(o);
+        assertSame(s, stanje.zaObjekat(o));
+        assertNotSame(s, stanje.zaObjekat(objekat(2)));
+        // већ преузето - сесија репродукције не поставља почетно стајање
+        assertFalse(s.preuzmi());
+        assertEquals(90_000L, s.getPoslednje().getDatumVreme().getTime());
+        assertSame(prethodno, s.getJavljanjeStop());
+    }
+}
@@ -0,0 +1,209 @@
+package rs.atekom.prati.server.flota;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import pratiBaza.tabele.AlarmiKorisnik;
+import pratiBaza.tabele.Grupe;
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Korisnici;
+import pratiBaza.tabele.Objekti;
+import pratiBaza.tabele.SistemPretplatnici;
+
+/**
+ * Unit тестови за {@link Flota}: снимак се гради једном по претплатнику,
+ * сесије добијају исте инстанце објеката, а редови последњих јављања су
+ * копије са позицијом из живог стања.
+ */
+public class FlotaTest {
+
+    /** Извор у меморији, броји читања објеката претплатника. */
+    private static class MemorijskiIzvor implements Flota.Izvor {
+
+        final List<Objekti> objekti = new ArrayList<>();
+        final Map<Long, List<Objekti>> grupe = new HashMap<>();
+        final Map<Long, List<Grupe>> grupeKorisnika = new HashMap<>();
+        final Map<Long, JavljanjaPoslednja> zivo = new HashMap<>();
+        final AtomicInteger citanja = new AtomicInteger();
+        final AtomicInteger citanjaPoslednjih = new AtomicInteger();
+
+        @Override
+        public Collection<Objekti> objekti(SistemPretplatnici pretplatnik) {
+            citanja.incrementAndGet();
+            // свако читање враћа нове инстанце, као нова Hibernate сесија
+            List<Objekti> lista = new ArrayList<>();
+            for (Objekti objekat : objekti) {
+                lista.add(objekat(objekat.getId(), objekat.isAktivan(), pretplatnik));
+            }
+            return lista;
+        }
+
+        @Override
+        public Collection<JavljanjaPoslednja> poslednja(List<Objekti> lista) {
+            citanjaPoslednjih.incrementAndGet();
+            List<JavljanjaPoslednja> poslednja = new ArrayList<>();
+            for (Objekti objekat : lista) {
+                poslednja.add(javljanje(objekat, 44.0));
+            }
+            return poslednja;
+        }
+
+        @Override
+        public Collection<Objekti> clanoviGrupe(Grupe grupa) {
+            return grupe.getOrDefault(grupa.getId(), Collections.<Objekti>emptyList());
+        }
+
+        @Override
+        public Collection<Grupe> grupeKorisnika(Korisnici korisnik) {
+            return grupeKorisnika.getOrDefault(korisnik.getId(), Collections.<Grupe>emptyList());
+        }
+
+        @Override
+        public Collection<AlarmiKorisnik> alarmiKorisnika(Korisnici korisnik) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<Objekti> objektiKorisnika(Korisnici korisnik) {
+            return objekti;
+        }
+
+        @Override
+        public JavljanjaPoslednja zivo(Long objekatId) {
+            return zivo.get(objekatId);
+        }
+    }
+
+    private static SistemPretplatnici pretplatnik(long id) {
+        SistemPretplatnici pretplatnik = new SistemPretplatnici();
+        pretplatnik.setId(id);
+        pretplatnik.setNaziv("p" + id);
+        return pretplatnik;
+    }
+
+    private static Objekti objekat(long id, boolean aktivan, SistemPretplatnici pretplatnik) {
+        Objekti objekat = new Objekti();
+        objekat.setId(id);
+        objekat.setAktivan(aktivan);
+        objekat.setIzbrisan(false);
+        objekat.setSistemPretplatnici(pretplatnik);
+        return objekat;
+    }
+
+    private static JavljanjaPoslednja javljanje(Objekti objekat, double lat) {
+        JavljanjaPoslednja javljanje = new JavljanjaPoslednja();
+        javljanje.setId(objekat.getId());
+        javljanje.setObjekti(objekat);
+        javljanje.setLat(lat);
+        return javljanje;
+    }
+
+    private static Korisnici korisnik(long id, boolean admin, SistemPretplatnici pretplatnik) {
+        Korisnici korisnik = new Korisnici();
+        korisnik.setId(id);
+        korisnik.setAdmin(admin);
+        korisnik.setSistem(false);
+        korisnik.setSistemPretplatnici(pretplatnik);
+        return korisnik;
+    }
+
+    private static Grupe grupa(long id, SistemPretplatnici pretplatnik) {
+        Grupe grupa = new Grupe();
+        grupa.setId(id);
+        grupa.setSistemPretplatnici(pretplatnik);
+        return grupa;
+    }
+
+    @Test
+    public void testSnimakSeGradiJednomIBezNeaktivnih() {
+        SistemPretplatnici pretplatnik = pretplatnik(5);
+        MemorijskiIzvor izvor = new MemorijskiIzvor();
+        izvor.objekti.add(objekat(1, true, pretplatnik));
+        izvor.objekti.add(objekat(2, false, pretplatnik));
+        izvor.objekti.add(objekat(3, true, pretplatnik));
+        Flota flota = new Flota(izvor, 60_000);
+
+        List<Objekti> prvi = flota.objekti(korisnik(10, true, pretplatnik));
+        List<Objekti> drugi = flota.objekti(korisnik(11, true, pretplatnik));
+
+        assertEquals(2, prvi.size());
+        assertSame(prvi, drugi);
+        assertEquals(1, izvor.citanja.get());
+        assertEquals(1, izvor.citanjaPoslednjih.get());
+        assertEquals(1, flota.getBrojSnimaka());
+    }
+
+    @Test
+    public void testGrupeSuZajednickeInstance() {
+        SistemPretplatnici pretplatnik = pretplatnik(5);
+        MemorijskiIzvor izvor = new MemorijskiIzvor();
+        izvor.objekti.add(objekat(1, true, pretplatnik));
+        izvor.objekti.add(objekat(2, true, pretplatnik));
+        izvor.objekti.add(objekat(3, true, pretplatnik));
+        izvor.grupe.put(7L, Arrays.asList(objekat(2, true, pretplatnik), objekat(9, true, pretplatnik)));
+        izvor.grupe.put(8L, Arrays.asList(objekat(2, true, pretplatnik), objekat(3, true, pretplatnik)));
+        izvor.grupeKorisnika.put(10L, Arrays.asList(grupa(7, pretplatnik), grupa(8, pretplatnik)));
+        Flota flota = new Flota(izvor, 60_000);
+
+        List<Objekti> vidljivi = flota.objekti(korisnik(10, false, pretplatnik));
+        SnimakFlote snimak = flota.snimak(pretplatnik);
+
+        // објекат ван снимка (9) се прескаче, а дупликат (2) се види једном
+        assertEquals(2, vidljivi.size());
+        assertSame(snimak.objekat(2L), vidljivi.get(0));
+        assertSame(snimak.objekat(3L), vidljivi.get(1));
+        assertSame(flota.objektiGrupe(grupa(7, pretplatnik)), flota.objektiGrupe(grupa(7, pretplatnik)));
+    }
+
+    @Test
+    public void testPonistavanjeGradiNoviSnimak() {
+        SistemPretplatnici pretplatnik = pretplatnik(5);
+        MemorijskiIzvor izvor = new MemorijskiIzvor();
+        izvor.objekti.add(objekat(1, true, pretplatnik));
+        Flota flota = new Flota(izvor, 60_000);
+        Korisnici admin = korisnik(10, true, pretplatnik);
+
+        flota.objekti(admin);
+        flota.ponisti(pretplatnik(6));
+        flota.objekti(admin);
+        assertEquals(1, izvor.citanja.get());
+
+        izvor.objekti.add(objekat(2, true, pretplatnik));
+        flota.ponisti(pretplatnik);
+        assertEquals(2, flota.objekti(admin).size());
+        assertEquals(2, izvor.citanja.get());
+        assertEquals(2, flota.getIzgradnji());
+    }
+
+    @Test
+    public void testPoslednjaSuKopijeSaZivimStanjem() {
+        SistemPretplatnici pretplatnik = pretplatnik(5);
+        MemorijskiIzvor izvor = new MemorijskiIzvor();
+        izvor.objekti.add(objekat(1, true, pretplatnik));
+        izvor.objekti.add(objekat(2, true, pretplatnik));
+        Flota flota = new Flota(izvor, 60_000);
+        List<Objekti> objekti = flota.objekti(korisnik(10, true, pretplatnik));
+        izvor.zivo.put(2L, javljanje(objekat(2, true, pretplatnik), 45.5));
+
+        ArrayList<JavljanjaPoslednja> prvi = flota.poslednja(objekti);
+        ArrayList<JavljanjaPoslednja> drugi = flota.poslednja(objekti);
+
+        assertEquals(2, prvi.size());
+        assertEquals(44.0, prvi.get(0).getLat(), 0);
+        assertEquals(45.5, prvi.get(1).getLat(), 0);
+        assertSame(objekti.get(1), prvi.get(1).getObjekti());
+        assertNotSame(prvi.get(0), drugi.get(0));
+        // позиције су из снимка и живог стања - без новог читања из базе
+        assertEquals(1, izvor.citanjaPoslednjih.get());
+    }
+}
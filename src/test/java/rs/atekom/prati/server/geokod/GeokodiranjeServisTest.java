@@ -0,0 +1,130 @@
+package rs.atekom.prati.server.geokod;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit тестови за {@link GeokodiranjeServis} према локалном stub Nominatim серверу:
+ * кеш по заокруженим координатама, спајање истовремених захтева и пун ред.
+ */
+public class GeokodiranjeServisTest {
+
+    private static final String ODGOVOR = "Žike Popovića, Šabac";
+
+    private HttpServer server;
+    private final AtomicInteger poziva = new AtomicInteger();
+    private final CountDownLatch pusti = new CountDownLatch(1);
+    private volatile int status = 200;
+    private GeokodiranjeServis servis;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/reverse", razmena -> {
+            poziva.incrementAndGet();
+            try {
+                pusti.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] telo = ODGOVOR.getBytes(StandardCharsets.UTF_8);
+            razmena.sendResponseHeaders(status, telo.length);
+            try (OutputStream out = razmena.getResponseBody()) {
+                out.write(telo);
+            }
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort();
+        servis = new GeokodiranjeServis((lat, lon) -> preuzmi(url + "/reverse?lat=" + lat + "&lon=" + lon),
+                2, 10, 100, 60_000, 4);
+    }
+
+    private static String preuzmi(String adresa) throws IOException {
+        HttpURLConnection veza = (HttpURLConnection) new URL(adresa).openConnection();
+        try {
+            if (veza.getResponseCode() != 200) {
+                throw new IOException("HTTP " + veza.getResponseCode());
+            }
+            try (InputStream in = veza.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            veza.disconnect();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        servis.zatvori();
+        server.stop(0);
+    }
+
+    @Test
+    public void testIstovremeniZahteviDeleJedanPozivIKes() throws Exception {
+        List<CompletableFuture<String>> rezultati = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // иста ћелија од ~11 m
+            rezultati.add(servis.adresa(44.75179 + i * 0.000001, 19.70317));
+        }
+        pusti.countDown();
+        for (CompletableFuture<String> r : rezultati) {
+            assertEquals("Žike Popovića, Šabac", r.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, poziva.get());
+        assertEquals(4, servis.getSpojeno());
+
+        assertEquals("Žike Popovića, Šabac", servis.izKesa(44.75179, 19.70317));
+        assertEquals("Žike Popovića, Šabac", servis.adresa(44.751791, 19.703171).get(1, TimeUnit.SECONDS));
+        assertEquals(1, poziva.get());
+        assertEquals(1, servis.getPogodaka());
+    }
+
+    @Test
+    public void testGreskaSeNeKesira() throws Exception {
+        status = 500;
+        pusti.countDown();
+        assertEquals("", servis.adresa(45.0, 20.0).get(10, TimeUnit.SECONDS));
+        assertNull(servis.izKesa(45.0, 20.0));
+        assertEquals(0, servis.getVelicinaKesa());
+    }
+
+    @Test
+    public void testPunRedVracaPraznuAdresu() throws Exception {
+        CountDownLatch blokada = new CountDownLatch(1);
+        GeokodiranjeServis mali = new GeokodiranjeServis((lat, lon) -> {
+            blokada.await(5, TimeUnit.SECONDS);
+            return "adresa";
+        }, 1, 1, 10, 60_000, 4);
+        try {
+            mali.adresa(1, 1);          // заузима нит
+            Thread.sleep(50);
+            mali.adresa(2, 2);          // чека у реду
+            CompletableFuture<String> odbijen = mali.adresa(3, 3);
+            assertTrue(odbijen.isDone());
+            assertEquals("", odbijen.get());
+            assertEquals(1, mali.getOdbijeno());
+        } finally {
+            blokada.countDown();
+            mali.zatvori();
+        }
+    }
+}
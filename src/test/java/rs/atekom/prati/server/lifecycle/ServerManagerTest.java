@@ -216,6 +216,29 @@ public class ServerManagerTest {
         assertTrue(server3.waitForStop(5, TimeUnit.SECONDS));
     }
     
+    // ═══════════════════════════════════════════════════════════
+    // ТЕСТ 4: Број живих конекција у статусу
+    // ═══════════════════════════════════════════════════════════
+    
+    @Test
+    public void testGetServerStatus_ReportsActiveConnections() {
+        // Given: Сервер који пријављује конекције и обичан сервер
+        ConnectionAwareMockServer aware = new ConnectionAwareMockServer("VIRT", 1000);
+        aware.connections = 42;
+        manager.registerServer("VIRT", aware, 9040);
+        manager.registerServer("PLAIN", new MockServer("PLAIN", 1000), 9010);
+        
+        // When: Читамо статус
+        List<ServerInfo> status = manager.getServerStatus();
+        
+        // Then: Први има број конекција и режим, други -1
+        assertEquals(42, status.get(0).activeConnections);
+        assertEquals("VIRTUAL", status.get(0).mode);
+        assertTrue(status.get(0).toString().contains("конекције=42"));
+        assertEquals(-1, status.get(1).activeConnections);
+        assertNull(status.get(1).mode);
+    }
+    
     // ═══════════════════════════════════════════════════════════
     // MOCK СЕРВЕР - симулира прави TCP сервер
     // ═══════════════════════════════════════════════════════════
@@ -290,4 +313,25 @@ public class ServerManagerTest {
             return running.get();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Mock сервер који пријављује број живих конекција.
+     */
+    private static class ConnectionAwareMockServer extends MockServer implements ConnectionAware {
+        volatile int connections;
+        
+        public ConnectionAwareMockServer(String name, long runDurationMs) {
+            super(name, runDurationMs);
+        }
+        
+        @Override
+        public int getActiveConnectionCount() {
+            return connections;
+        }
+        
+        @Override
+        public String getConnectionMode() {
+            return "VIRTUAL";
+        }
+    }
+}
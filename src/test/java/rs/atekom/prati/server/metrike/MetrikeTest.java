@@ -0,0 +1,67 @@
+package rs.atekom.prati.server.metrike;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import rs.atekom.prati.server.metrike.Metrike.Brojac;
+import rs.atekom.prati.server.metrike.Metrike.Histogram;
+
+/**
+ * Unit тестови за {@link Metrike}: иста метрика за исти назив и ознаке,
+ * кумулативне корпе хистограма и мерачи који се читају при испису.
+ */
+public class MetrikeTest {
+
+    @Test
+    public void testBrojacPoOznakama() {
+        Brojac a = Metrike.brojac("test_brojac_ukupno", "test", "protokol", "A");
+        Brojac a2 = Metrike.brojac("test_brojac_ukupno", "test", "protokol", "A");
+        Brojac b = Metrike.brojac("test_brojac_ukupno", "test", "protokol", "B\"x");
+        a.povecaj();
+        a2.povecaj(2);
+        b.povecaj();
+
+        assertSame(a, a2);
+        String tekst = Metrike.prometheus();
+        assertTrue(tekst.contains("# TYPE test_brojac_ukupno counter\n"));
+        assertTrue(tekst.contains("test_brojac_ukupno{protokol=\"A\"} 3\n"));
+        assertTrue(tekst.contains("test_brojac_ukupno{protokol=\"B\\\"x\"} 1\n"));
+    }
+
+    @Test
+    public void testHistogramKumulativneKorpe() {
+        Histogram h = Metrike.histogram("test_trajanje_sekunde", "test", "red", "x");
+        h.zabelezi(TimeUnit.MICROSECONDS.toNanos(500));
+        h.zabelezi(TimeUnit.MILLISECONDS.toNanos(7));
+        h.zabelezi(TimeUnit.SECONDS.toNanos(20));
+
+        String tekst = Metrike.prometheus();
+        assertTrue(tekst.contains("test_trajanje_sekunde_bucket{red=\"x\",le=\"0.001\"} 1\n"));
+        assertTrue(tekst.contains("test_trajanje_sekunde_bucket{red=\"x\",le=\"0.005\"} 1\n"));
+        assertTrue(tekst.contains("test_trajanje_sekunde_bucket{red=\"x\",le=\"0.01\"} 2\n"));
+        assertTrue(tekst.contains("test_trajanje_sekunde_bucket{red=\"x\",le=\"10\"} 2\n"));
+        assertTrue(tekst.contains("test_trajanje_sekunde_bucket{red=\"x\",le=\"+Inf\"} 3\n"));
+        assertTrue(tekst.contains("test_trajanje_sekunde_count{red=\"x\"} 3\n"));
+        assertEquals(3, h.getBroj());
+        assertEquals(20_000.0, h.getNajduzeMs(), 0.001);
+    }
+
+    @Test
+    public void testMeracSeCitaPriIspisu() {
+        AtomicInteger red = new AtomicInteger(4);
+        Metrike.merac("test_red", "test", red::get);
+        assertTrue(Metrike.prometheus().contains("test_red 4\n"));
+        red.set(9);
+        assertTrue(Metrike.prometheus().contains("test_red 9\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIstiNazivDrugiTip() {
+        Metrike.brojac("test_mesano", "test");
+        Metrike.histogram("test_mesano", "test");
+    }
+}
@@ -0,0 +1,92 @@
+package rs.atekom.prati.server.nio;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit тестови за {@link FrameAccumulator} - оквири сечени на произвољним границама читања.
+ */
+public class FrameAccumulatorTest {
+
+    /** Стрим који враћа највише {@code chunk} бајтова по читању, као спор уређај. */
+    private static InputStream uDelovima(byte[] podaci, int chunk) {
+        return new ByteArrayInputStream(podaci) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static List<String> procitajSve(FrameAccumulator akumulator, InputStream in) throws IOException {
+        List<String> poruke = new ArrayList<>();
+        while (akumulator.readFrom(in) > 0) {
+            ByteBuffer okvir;
+            while ((okvir = akumulator.nextFrame()) != null) {
+                poruke.add(FrameAccumulator.text(okvir, StandardCharsets.US_ASCII));
+            }
+        }
+        return poruke;
+    }
+
+    @Test
+    public void testNeonPorukePrekoGranicaCitanja() throws IOException {
+        FrameAccumulator akumulator = new FrameAccumulator(new DelimiterFrameDecoder(">", 4096), 64);
+        byte[] podaci = "<oris,1,111><oris,2,222><oris,3,333>".getBytes(StandardCharsets.US_ASCII);
+
+        List<String> poruke = procitajSve(akumulator, uDelovima(podaci, 5));
+
+        assertEquals(3, poruke.size());
+        assertEquals("<oris,2,222", poruke.get(1));
+        assertEquals(0, akumulator.buffered());
+    }
+
+    @Test
+    public void testRuptelaVelikiBacklogUMalomBaferu() throws IOException {
+        // 200 пакета кроз бафер од 32 бајта - остатак се само помера, бафер не расте
+        FrameAccumulator akumulator = new FrameAccumulator(new LengthPrefixedFrameDecoder(1024), 32);
+        byte[] paket = {0x00, 0x03, 0x01, 0x02, 0x03, 0x00, 0x00};
+        byte[] podaci = new byte[paket.length * 200];
+        for (int i = 0; i < 200; i++) {
+            System.arraycopy(paket, 0, podaci, i * paket.length, paket.length);
+        }
+
+        InputStream in = uDelovima(podaci, 11);
+        int brojPaketa = 0;
+        while (akumulator.readFrom(in) > 0) {
+            ByteBuffer okvir;
+            while ((okvir = akumulator.nextFrame()) != null) {
+                assertEquals(paket.length, okvir.remaining());
+                assertEquals(0x03, okvir.get(4));
+                brojPaketa++;
+            }
+        }
+
+        assertEquals(200, brojPaketa);
+        assertEquals(0, akumulator.getDroppedBytes());
+    }
+
+    @Test
+    public void testPunBaferBezOkviraSeOdbacuje() throws IOException {
+        FrameAccumulator akumulator = new FrameAccumulator(new DelimiterFrameDecoder("</fox>", 4096), 16);
+        byte[] smece = new byte[16];
+        byte[] frame = "<fox>1</fox>".getBytes(StandardCharsets.US_ASCII);
+        byte[] podaci = new byte[smece.length + frame.length];
+        System.arraycopy(frame, 0, podaci, smece.length, frame.length);
+
+        List<String> poruke = procitajSve(akumulator, uDelovima(podaci, 16));
+
+        assertEquals(1, poruke.size());
+        assertEquals("<fox>1", poruke.get(0));
+        assertEquals(16, akumulator.getDroppedBytes());
+    }
+}
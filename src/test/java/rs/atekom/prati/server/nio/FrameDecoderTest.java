@@ -0,0 +1,89 @@
+package rs.atekom.prati.server.nio;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit тестови за декодере оквира NIO режима.
+ */
+public class FrameDecoderTest {
+
+    private static ByteBuffer bafer(byte[]... delovi) {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (byte[] deo : delovi) {
+            buffer.put(deo);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testDelimiter_NeonPorukeSecenePreko() {
+        DelimiterFrameDecoder decoder = new DelimiterFrameDecoder(">", 4096);
+        List<byte[]> frames = new ArrayList<>();
+
+        ByteBuffer buffer = bafer(ascii("<oris,1,123>#<oris,2,12"));
+        decoder.decode(buffer, frames);
+
+        // Прва порука је комплетна, друга чека наставак
+        assertEquals(1, frames.size());
+        assertEquals("<oris,1,123", new String(frames.get(0), StandardCharsets.US_ASCII));
+        assertEquals("#<oris,2,12", StandardCharsets.US_ASCII.decode(buffer.duplicate()).toString());
+    }
+
+    @Test
+    public void testDelimiter_GenekoVisebajtniGranicnik() {
+        DelimiterFrameDecoder decoder = new DelimiterFrameDecoder("</fox>", 4096);
+        List<byte[]> frames = new ArrayList<>();
+
+        ByteBuffer buffer = bafer(ascii("<fox>\"1\"a\"b\"</fox><fox>\"2\"</f"));
+        decoder.decode(buffer, frames);
+
+        assertEquals(1, frames.size());
+        assertEquals("<fox>\"1\"a\"b\"", new String(frames.get(0), StandardCharsets.US_ASCII));
+        assertEquals(ascii("<fox>\"2\"</f").length, buffer.remaining());
+    }
+
+    @Test
+    public void testLengthPrefixed_DvaPaketaIOstatak() {
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder(1024);
+        List<byte[]> frames = new ArrayList<>();
+
+        byte[] prvi = {0x00, 0x02, 0x11, 0x22, 0x33, 0x44};
+        byte[] drugi = {0x00, 0x01, 0x55, 0x66, 0x77};
+        byte[] pocetakTreceg = {0x00, 0x05, 0x01};
+
+        ByteBuffer buffer = bafer(prvi, drugi, pocetakTreceg);
+        decoder.decode(buffer, frames);
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(prvi, frames.get(0));
+        assertArrayEquals(drugi, frames.get(1));
+        assertEquals(pocetakTreceg.length, buffer.remaining());
+    }
+
+    @Test
+    public void testLengthPrefixed_NevalidnaDuzinaResinhronizacija() {
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder(1024);
+        List<byte[]> frames = new ArrayList<>();
+
+        // 0xFF 0xFF је дужина већа од максимума - декодер прескаче бајт по бајт
+        byte[] smece = {(byte) 0xFF};
+        byte[] paket = {0x00, 0x01, 0x42, 0x00, 0x00};
+
+        decoder.decode(bafer(smece, paket), frames);
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(paket, frames.get(0));
+    }
+}
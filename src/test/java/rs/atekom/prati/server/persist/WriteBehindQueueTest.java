@@ -0,0 +1,142 @@
+package rs.atekom.prati.server.persist;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit тестови за {@link WriteBehindQueue} - пакети по величини, пражњење при
+ * затварању, појединачни упис после неуспелог пакета и чекање на место у пуном реду.
+ */
+public class WriteBehindQueueTest {
+
+    @Test
+    public void testPaketiPoVeliciniIZatvaranjeUpisujeSve() {
+        List<Integer> upisano = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> velicine = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> red = new WriteBehindQueue<>("test", 1000, 10, 10_000, 100, paket -> {
+            velicine.add(paket.size());
+            upisano.addAll(paket);
+        });
+        red.pokreni();
+        for (int i = 0; i < 95; i++) {
+            red.dodaj(i);
+        }
+        red.zatvori(5_000);
+
+        assertEquals(95, upisano.size());
+        for (int i = 0; i < 95; i++) {
+            assertEquals(Integer.valueOf(i), upisano.get(i));
+        }
+        for (int velicina : velicine) {
+            assertTrue("paket veći od zadatog: " + velicina, velicina <= 10);
+        }
+        assertEquals(95, red.getUpisano());
+        assertEquals(0, red.getQueueDepth());
+        assertEquals(velicine.size(), red.getBrojPaketa());
+    }
+
+    @Test
+    public void testNeispravanZapisNeObaraPaket() {
+        List<Integer> upisano = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> red = new WriteBehindQueue<>("test", 100, 50, 10_000, 100, paket -> {
+            if (paket.contains(3)) {
+                throw new IllegalStateException("los zapis");
+            }
+            upisano.addAll(paket);
+        });
+        red.pokreni();
+        for (int i = 0; i < 6; i++) {
+            red.dodaj(i);
+        }
+        red.zatvori(5_000);
+
+        assertEquals(5, upisano.size());
+        assertFalse(upisano.contains(3));
+        assertEquals(1, red.getNeuspesno());
+    }
+
+    /** Запис коме упис додељује id, као Hibernate сесија. */
+    private static final class Red {
+        final int broj;
+        Long id;
+
+        Red(int broj) {
+            this.broj = broj;
+        }
+    }
+
+    @Test
+    public void testPojedinacniUpisIdeNaKopije() {
+        List<Integer> upisano = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Red> red = new WriteBehindQueue<>("test", 100, 50, 10_000, 100, paket -> {
+            List<Integer> uTransakciji = new ArrayList<>();
+            for (Red zapis : paket) {
+                if (zapis.id != null) {
+                    throw new IllegalStateException("zapis već ima id - update umesto insert");
+                }
+                zapis.id = (long) zapis.broj;
+                if (zapis.broj == 3) {
+                    throw new IllegalStateException("los zapis");
+                }
+                uTransakciji.add(zapis.broj);
+            }
+            upisano.addAll(uTransakciji);
+        }, zapis -> new Red(zapis.broj));
+        red.pokreni();
+        for (int i = 0; i < 6; i++) {
+            red.dodaj(new Red(i));
+        }
+        red.zatvori(5_000);
+
+        // враћени пакет је записима већ доделио id - без копија би пали и исправни
+        assertEquals(Arrays.asList(0, 1, 2, 4, 5), upisano);
+        assertEquals(1, red.getNeuspesno());
+    }
+
+    @Test
+    public void testPunRedCekaMestoIZadrzavaRedosled() throws Exception {
+        CountDownLatch pusti = new CountDownLatch(1);
+        List<Integer> upisano = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> red = new WriteBehindQueue<>("test", 1, 1, 1, 10, paket -> {
+            pusti.await(5, TimeUnit.SECONDS);
+            upisano.addAll(paket);
+        });
+        red.pokreni();
+        red.dodaj(1); // позадинска нит га узима и блокира
+        Thread.sleep(100);
+        red.dodaj(2); // попуњава ред
+        Thread proizvodjac = new Thread(() -> red.dodaj(3)); // нема места - чека
+        proizvodjac.start();
+        proizvodjac.join(200);
+        assertTrue(proizvodjac.isAlive());
+        assertTrue(upisano.isEmpty());
+
+        pusti.countDown();
+        proizvodjac.join(5_000);
+        red.zatvori(5_000);
+
+        assertEquals(Arrays.asList(1, 2, 3), upisano);
+        assertEquals(0, red.getSinhrono());
+    }
+
+    @Test
+    public void testPosleZatvaranjaUpisujeSinhrono() {
+        List<Integer> upisano = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> red = new WriteBehindQueue<>("test", 10, 10, 10, 10, upisano::addAll);
+        red.pokreni();
+        red.dodaj(1);
+        red.zatvori(5_000);
+        red.dodaj(2);
+
+        assertEquals(Arrays.asList(1, 2), upisano);
+        assertEquals(1, red.getSinhrono());
+    }
+}
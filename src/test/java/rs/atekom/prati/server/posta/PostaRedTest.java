@@ -0,0 +1,105 @@
+package rs.atekom.prati.server.posta;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit тестови за {@link PostaRed} са пошиљаоцем у меморији уместо SMTP сервера:
+ * збирне поруке по примаоцу, понављање и ограничење реда.
+ */
+public class PostaRedTest {
+
+    /** Бележи послате пакете; првих {@code gresaka} слања баца изузетак. */
+    private static class Sanduce implements Posiljalac {
+        final List<String> primaoci = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> velicine = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger gresaka;
+
+        Sanduce(int gresaka) {
+            this.gresaka = new AtomicInteger(gresaka);
+        }
+
+        @Override
+        public void posalji(String primalac, List<Poruka> poruke) throws Exception {
+            if (gresaka.getAndDecrement() > 0) {
+                throw new IllegalStateException("SMTP nedostupan");
+            }
+            primaoci.add(primalac);
+            velicine.add(poruke.size());
+        }
+    }
+
+    private static Poruka poruka(String primalac, int i) {
+        return new Poruka(primalac, "Праћење возила - BG-" + i, "Објекат BG-" + i + " је активирао аларм");
+    }
+
+    private static void cekaj(PostaRed red, long poslato) throws InterruptedException {
+        long rok = System.currentTimeMillis() + 5_000;
+        while (red.getPoslato() + red.getNeuspesno() < poslato && System.currentTimeMillis() < rok) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testNaletSeSpajaUZbirniMejl() throws Exception {
+        Sanduce sanduce = new Sanduce(0);
+        PostaRed red = new PostaRed(sanduce, 2, 100, 300, 3, 10);
+        try {
+            red.dodaj(poruka("a@atekom.rs", 0));
+            cekaj(red, 1);
+            for (int i = 1; i <= 5; i++) {
+                red.dodaj(poruka("a@atekom.rs", i));
+            }
+            red.dodaj(poruka("b@atekom.rs", 9));
+            cekaj(red, 7);
+
+            assertEquals(7, red.getPoslato());
+            assertEquals(3, red.getMejlova());
+            assertEquals(4, red.getSpojeno());
+            assertTrue(sanduce.velicine.contains(5));
+            assertEquals(0, red.getNaCekanju());
+        } finally {
+            red.zatvori(1_000);
+        }
+    }
+
+    @Test
+    public void testPonavljanjePosleGreske() throws Exception {
+        Sanduce sanduce = new Sanduce(2);
+        PostaRed red = new PostaRed(sanduce, 1, 100, 0, 3, 10);
+        try {
+            red.dodaj(poruka("a@atekom.rs", 1));
+            cekaj(red, 1);
+            assertEquals(1, red.getPoslato());
+            assertEquals(2, red.getPonovljeno());
+            assertEquals(0, red.getNeuspesno());
+        } finally {
+            red.zatvori(1_000);
+        }
+    }
+
+    @Test
+    public void testPunRedIZatvaranje() throws Exception {
+        Sanduce sanduce = new Sanduce(0);
+        PostaRed red = new PostaRed(sanduce, 1, 3, 60_000, 3, 10);
+        red.dodaj(poruka("a@atekom.rs", 0));
+        cekaj(red, 1);
+        assertTrue(red.dodaj(poruka("a@atekom.rs", 1)));
+        assertTrue(red.dodaj(poruka("a@atekom.rs", 2)));
+        assertTrue(red.dodaj(poruka("a@atekom.rs", 3)));
+        assertFalse(red.dodaj(poruka("a@atekom.rs", 4)));
+        assertEquals(1, red.getOdbaceno());
+
+        // поруке у прозору се шаљу при заустављању
+        red.zatvori(1_000);
+        assertEquals(4, red.getPoslato());
+        assertEquals(Integer.valueOf(3), sanduce.velicine.get(1));
+        assertFalse(red.dodaj(poruka("a@atekom.rs", 5)));
+    }
+}
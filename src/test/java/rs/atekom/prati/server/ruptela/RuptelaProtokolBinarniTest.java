@@ -0,0 +1,117 @@
+package rs.atekom.prati.server.ruptela;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+import pratiBaza.tabele.Objekti;
+import rs.atekom.prati.server.JavljanjeObd;
+
+/**
+ * Бинарно парсирање мора дати исте вредности као hex парсирање истог записа.
+ */
+public class RuptelaProtokolBinarniTest {
+
+	// Први запис из RuptelaProtokolPacketTest (Command 0x01) + бројач 8B IO елемената (00)
+	private static final String STANDARD_RECORD_HEX =
+		"68E7236E00000BEED8E21B4C95260380484410001009090A0501020003001C01AD018600870082108F000400071D36B81E0F1816004217003D8B000289000083000001410166C7AB"
+		+ "00";
+
+	// Проширени запис (Command 0x44): RecordExt=0x10, EventID=0x0005, 2-bajtni IO ID-jevi
+	private static final String EXTENDED_RECORD_HEX =
+		"68E7236E0010000BEED8E21B4C95260380484410001009"   // header do event ID-ja (23B)
+		+ "0005"                                            // event ID
+		+ "02" + "000501" + "00CF64"                        // 1B IO: kontakt=1, gorivo 207
+		+ "02" + "001D3070" + "005E0FA0"                    // 2B IO: akumulator, OBD RPM
+		+ "02" + "00410001E240" + "00720000C350"            // 4B IO: odometar, ukupno km
+		+ "01" + "00AA0000000000000001";                    // 8B IO (preskače se)
+
+	private RuptelaProtokol protokol;
+	private Objekti objekat;
+
+	@Before
+	public void setUp() {
+		protokol = new RuptelaProtokol();
+		objekat = new Objekti();
+		objekat.setOznaka("TEST-OBJ");
+	}
+
+	@Test
+	public void testStandardIstiKaoHex() {
+		JavljanjeObd hex = protokol.vratiJavljanje(0, objekat, STANDARD_RECORD_HEX);
+		byte[] bajtovi = DatatypeConverter.parseHexBinary(STANDARD_RECORD_HEX);
+		ByteBuffer paket = ByteBuffer.wrap(bajtovi);
+
+		int kraj = RuptelaProtokol.krajZapisa(paket, 0, bajtovi.length, false);
+		assertTrue("запис мора бити комплетан", kraj > 0);
+		JavljanjeObd bin = protokol.vratiJavljanje(objekat, paket, 0, kraj);
+
+		uporedi(hex, bin);
+	}
+
+	@Test
+	public void testExtendedIstiKaoHex() {
+		JavljanjeObd hex = protokol.vratiExtended(0, objekat, EXTENDED_RECORD_HEX);
+		byte[] bajtovi = DatatypeConverter.parseHexBinary(EXTENDED_RECORD_HEX);
+		ByteBuffer paket = ByteBuffer.wrap(bajtovi);
+
+		int kraj = RuptelaProtokol.krajZapisa(paket, 0, bajtovi.length, true);
+		assertEquals(bajtovi.length, kraj);
+		JavljanjeObd bin = protokol.vratiExtended(objekat, paket, 0, kraj);
+
+		uporedi(hex, bin);
+		assertTrue(bin.getJavljanje().isKontakt());
+		assertEquals(123.456f, bin.getJavljanje().getVirtualOdo(), 0.001f);
+		assertNotNull(bin.getObd());
+		assertEquals(1000, bin.getObd().getRpm());
+		assertEquals(250, bin.getObd().getUkupnoKm());
+	}
+
+	@Test
+	public void testKrajZapisaNekompletan() {
+		byte[] bajtovi = DatatypeConverter.parseHexBinary(STANDARD_RECORD_HEX);
+		ByteBuffer paket = ByteBuffer.wrap(bajtovi);
+
+		assertEquals(-1, RuptelaProtokol.krajZapisa(paket, 0, 10, false));
+		assertEquals(-2, RuptelaProtokol.krajZapisa(paket, 0, RuptelaProtokol.STANDARD_HEADER_BYTES, false));
+		assertTrue(RuptelaProtokol.krajZapisa(paket, 0, bajtovi.length - 1, false) < 0);
+		assertNull(protokol.vratiJavljanje(objekat, paket, 0, 10));
+	}
+
+	private static void uporedi(JavljanjeObd hex, JavljanjeObd bin) {
+		assertNotNull(hex);
+		assertNotNull(bin);
+		Javljanja h = hex.getJavljanje();
+		Javljanja b = bin.getJavljanje();
+		assertEquals(h.getDatumVreme(), b.getDatumVreme());
+		assertEquals(h.getLat(), b.getLat(), 0.0);
+		assertEquals(h.getLon(), b.getLon(), 0.0);
+		assertEquals(h.getVisina(), b.getVisina(), 0.0f);
+		assertEquals(h.getPravac(), b.getPravac(), 0.0f);
+		assertEquals(h.getBrzina(), b.getBrzina());
+		assertEquals(h.isKontakt(), b.isKontakt());
+		assertEquals(h.getVirtualOdo(), b.getVirtualOdo(), 0.0f);
+		assertEquals(h.getSistemAlarmi(), b.getSistemAlarmi());
+
+		Obd ho = hex.getObd();
+		Obd bo = bin.getObd();
+		assertEquals(ho == null, bo == null);
+		if (ho != null) {
+			assertEquals(ho.getRpm(), bo.getRpm());
+			assertEquals(ho.getTemperatura(), bo.getTemperatura());
+			assertEquals(ho.getNivoGoriva(), bo.getNivoGoriva(), 0.0f);
+			assertEquals(ho.getAkumulator(), bo.getAkumulator(), 0.0f);
+			assertEquals(ho.getUkupnoKm(), bo.getUkupnoKm());
+			assertEquals(ho.getUkupnoVreme(), bo.getUkupnoVreme(), 0.0f);
+			assertEquals(ho.getUkupnoGorivo(), bo.getUkupnoGorivo(), 0.0f);
+			assertEquals(ho.getProsecnaPotrosnja(), bo.getProsecnaPotrosnja(), 0.0f);
+		}
+	}
+}
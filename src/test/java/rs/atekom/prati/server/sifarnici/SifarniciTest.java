@@ -0,0 +1,127 @@
+package rs.atekom.prati.server.sifarnici;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import rs.atekom.prati.server.sifarnici.Sifarnici.Vrsta;
+
+/**
+ * Unit тестови за {@link Sifarnici}: листа се чита једном по партицији и
+ * упиту (упит без претплатника и упит системског претплатника су различити),
+ * поништавање брише само своју врсту, а системска партиција се поништава уз
+ * сваког претплатника.
+ */
+public class SifarniciTest {
+
+    private static Supplier<List<String>> brojac(AtomicInteger citanja, String... redovi) {
+        return () -> {
+            citanja.incrementAndGet();
+            return new ArrayList<>(Arrays.asList(redovi));
+        };
+    }
+
+    @Test
+    public void testListaSeCitaJednom() {
+        Sifarnici sifarnici = new Sifarnici(60_000, 100);
+        AtomicInteger citanja = new AtomicInteger();
+
+        assertEquals(Arrays.asList("a", "b"), sifarnici.ucitaj(Vrsta.ORGANIZACIJE, 5L, "", brojac(citanja, "a", "b")));
+        List<String> druga = sifarnici.ucitaj(Vrsta.ORGANIZACIJE, 5L, "", brojac(citanja, "a", "b"));
+        assertEquals(Arrays.asList("a", "b"), druga);
+        assertEquals(1, citanja.get());
+        assertEquals(1, sifarnici.getPogodaka());
+        assertEquals(1, sifarnici.getPromasaja());
+
+        // позивалац добија копију
+        druga.clear();
+        assertEquals(2, sifarnici.ucitaj(Vrsta.ORGANIZACIJE, 5L, "", brojac(citanja)).size());
+    }
+
+    @Test
+    public void testParticijeIUpitiSuOdvojeni() {
+        Sifarnici sifarnici = new Sifarnici(60_000, 100);
+        AtomicInteger citanja = new AtomicInteger();
+
+        sifarnici.ucitaj(Vrsta.GRUPE, 5L, "1", brojac(citanja, "a"));
+        sifarnici.ucitaj(Vrsta.GRUPE, 5L, "2", brojac(citanja, "b"));
+        assertEquals(Arrays.asList("c"), sifarnici.ucitaj(Vrsta.GRUPE, 6L, "1", brojac(citanja, "c")));
+        assertEquals(3, citanja.get());
+        assertEquals(3, sifarnici.getVelicina());
+    }
+
+    @Test
+    public void testPonistavanjeVrstePretplatnika() {
+        Sifarnici sifarnici = new Sifarnici(60_000, 100);
+        AtomicInteger citanja = new AtomicInteger();
+        sifarnici.ucitaj(Vrsta.OBJEKTI, 5L, "k1", brojac(citanja, "a"));
+        sifarnici.ucitaj(Vrsta.PARTNERI, 5L, "", brojac(citanja, "p"));
+        sifarnici.ucitaj(Vrsta.OBJEKTI, 6L, "k2", brojac(citanja, "b"));
+        sifarnici.ucitaj(Vrsta.OBJEKTI, Sifarnici.SISTEM, "k3", brojac(citanja, "s"));
+
+        sifarnici.ponisti(Vrsta.OBJEKTI, 5L);
+        sifarnici.ponisti(Vrsta.OBJEKTI, Sifarnici.SISTEM);
+        citanja.set(0);
+
+        assertEquals(Arrays.asList("a2"), sifarnici.ucitaj(Vrsta.OBJEKTI, 5L, "k1", brojac(citanja, "a2")));
+        assertEquals(Arrays.asList("s2"), sifarnici.ucitaj(Vrsta.OBJEKTI, Sifarnici.SISTEM, "k3", brojac(citanja, "s2")));
+        assertEquals(2, citanja.get());
+        assertEquals(Arrays.asList("p"), sifarnici.ucitaj(Vrsta.PARTNERI, 5L, "", brojac(citanja)));
+        assertEquals(Arrays.asList("b"), sifarnici.ucitaj(Vrsta.OBJEKTI, 6L, "k2", brojac(citanja)));
+        assertEquals(2, citanja.get());
+    }
+
+    @Test
+    public void testPonistavanjeTokomCitanjaSeNePamti() {
+        Sifarnici sifarnici = new Sifarnici(60_000, 100);
+        sifarnici.ucitaj(Vrsta.GORIVA, Sifarnici.SISTEM, "x", brojac(new AtomicInteger()));
+        List<String> ucitano = sifarnici.ucitaj(Vrsta.GORIVA, Sifarnici.SISTEM, "", () -> {
+            sifarnici.ponistiSve(Vrsta.GORIVA);
+            return Arrays.asList("staro");
+        });
+        assertEquals(Arrays.asList("staro"), ucitano);
+
+        AtomicInteger citanja = new AtomicInteger();
+        assertEquals(Arrays.asList("novo"), sifarnici.ucitaj(Vrsta.GORIVA, Sifarnici.SISTEM, "", brojac(citanja, "novo")));
+        assertEquals(1, citanja.get());
+    }
+
+    @Test
+    public void testIsteklaListaSeCitaPonovo() throws Exception {
+        Sifarnici sifarnici = new Sifarnici(20, 100);
+        AtomicInteger citanja = new AtomicInteger();
+        sifarnici.ucitaj(Vrsta.ORGANIZACIJE, 5L, "", brojac(citanja, "a"));
+        Thread.sleep(40);
+        sifarnici.ucitaj(Vrsta.ORGANIZACIJE, 5L, "", brojac(citanja, "a"));
+        assertEquals(2, citanja.get());
+    }
+
+    @Test
+    public void testBezPretplatnikaJeSistemskaParticija() {
+        assertEquals(Sifarnici.SISTEM, Sifarnici.particija((pratiBaza.tabele.SistemPretplatnici) null));
+    }
+
+    @Test
+    public void testBezPretplatnikaISistemskiPretplatnikSuRazlicitiUpiti() {
+        pratiBaza.tabele.SistemPretplatnici sistemski = new pratiBaza.tabele.SistemPretplatnici();
+        sistemski.setId(1L);
+        sistemski.setSistem(true);
+        assertEquals(Sifarnici.SISTEM, Sifarnici.particija(sistemski));
+        assertNotEquals(Sifarnici.upit(null), Sifarnici.upit(sistemski));
+
+        // исте партиције, различити упити у бази - ниједан не сме да послужи други
+        Sifarnici sifarnici = new Sifarnici(60_000, 100);
+        AtomicInteger citanja = new AtomicInteger();
+        assertEquals(Arrays.asList("svi"), sifarnici.ucitaj(Vrsta.ORGANIZACIJE, Sifarnici.particija(sistemski),
+                Sifarnici.upit(null), brojac(citanja, "svi")));
+        assertEquals(Arrays.asList("sistem"), sifarnici.ucitaj(Vrsta.ORGANIZACIJE, Sifarnici.particija(sistemski),
+                Sifarnici.upit(sistemski), brojac(citanja, "sistem")));
+        assertEquals(2, citanja.get());
+    }
+}
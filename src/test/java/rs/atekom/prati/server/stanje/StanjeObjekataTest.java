@@ -0,0 +1,96 @@
+package rs.atekom.prati.server.stanje;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.JavljanjaPoslednja;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Unit тестови за {@link StanjeObjekata} - загревање, читање базе највише
+ * једном по објекту и вођење последње позиције у меморији.
+ */
+public class StanjeObjekataTest {
+
+    private static Objekti objekat(long id) {
+        Objekti o = new Objekti();
+        o.setId(id);
+        o.setOznaka("BG-" + id);
+        return o;
+    }
+
+    private static JavljanjaPoslednja poslednje(Objekti o, float odo) {
+        JavljanjaPoslednja p = new JavljanjaPoslednja();
+        p.setObjekti(o);
+        p.setVirtualOdo(odo);
+        p.setDatumVreme(new Timestamp(1_000L));
+        return p;
+    }
+
+    @Test
+    public void testZagrejaniObjekatSeNeCitaIzBaze() {
+        AtomicInteger upita = new AtomicInteger();
+        StanjeObjekata kes = new StanjeObjekata(o -> {
+            upita.incrementAndGet();
+            return null;
+        });
+        Objekti prvi = objekat(1);
+        assertEquals(1, kes.zagrej(Arrays.asList(poslednje(prvi, 12.5f), null)));
+
+        StanjeObjekta stanje = kes.zaObjekat(objekat(1));
+        assertEquals(12.5f, stanje.getPoslednje().getVirtualOdo(), 0.0001);
+        assertSame(stanje, kes.zaObjekat(objekat(1)));
+        assertEquals(0, upita.get());
+    }
+
+    @Test
+    public void testNepoznatObjekatSeCitaJednom() {
+        AtomicInteger upita = new AtomicInteger();
+        StanjeObjekata kes = new StanjeObjekata(o -> {
+            upita.incrementAndGet();
+            return poslednje(o, 3f);
+        });
+        StanjeObjekta stanje = kes.zaObjekat(objekat(7));
+        for (int i = 0; i < 10; i++) {
+            assertSame(stanje, kes.zaObjekat(objekat(7)));
+        }
+        assertEquals(1, upita.get());
+        assertTrue(stanje.preuzmi());
+        assertFalse(stanje.preuzmi());
+    }
+
+    @Test
+    public void testAzuriranjeIGreskaCitanja() {
+        StanjeObjekata kes = new StanjeObjekata(o -> {
+            throw new IllegalStateException("baza nedostupna");
+        });
+        StanjeObjekta privremeno = kes.zaObjekat(objekat(9));
+        assertNull(privremeno.getPoslednje());
+        assertEquals(0, kes.velicina());
+
+        Javljanja javljanje = new Javljanja();
+        javljanje.setDatumVreme(new Timestamp(5_000L));
+        javljanje.setVirtualOdo(42f);
+        javljanje.setLat(44.8);
+        javljanje.setLon(20.4);
+        privremeno.azuriraj(javljanje);
+        assertEquals(42f, privremeno.getPoslednje().getVirtualOdo(), 0.0001);
+        assertEquals(new Timestamp(5_000L), privremeno.getPoslednje().getDatumVreme());
+        assertEquals(9L, privremeno.getPoslednje().getObjekti().getId().longValue());
+
+        // објављује се нова инстанца - читалац претходне не види пола измене
+        JavljanjaPoslednja prethodno = privremeno.getPoslednje();
+        javljanje.setDatumVreme(new Timestamp(6_000L));
+        javljanje.setLat(45.0);
+        privremeno.azuriraj(javljanje);
+        assertEquals(44.8, prethodno.getLat(), 0.0001);
+        assertEquals(new Timestamp(5_000L), prethodno.getDatumVreme());
+        assertEquals(45.0, privremeno.getPoslednje().getLat(), 0.0001);
+    }
+}
@@ -0,0 +1,99 @@
+package rs.atekom.prati.server.zbir;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import org.junit.Test;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+import pratiBaza.tabele.Objekti;
+
+/**
+ * Unit тестови за {@link Zbirovi}: период се слаже из дневних и сатних збирова
+ * независно од редоследа пристизања, а непокривени период враћа {@code null}.
+ */
+public class ZbiroviTest {
+
+    private static final long SAT = 3_600_000L;
+    private static final long JUCE = LocalDate.now(ZoneOffset.UTC).minusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    private static Objekti objekat(long id) {
+        Objekti objekat = new Objekti();
+        objekat.setId(id);
+        return objekat;
+    }
+
+    private static Javljanja javljanje(long vreme, float odo, int brzina) {
+        Javljanja j = new Javljanja();
+        j.setObjekti(objekat(1));
+        j.setDatumVreme(new Timestamp(vreme));
+        j.setVirtualOdo(odo);
+        j.setBrzina(brzina);
+        return j;
+    }
+
+    private static Obd obd(long vreme, int km, float gorivo) {
+        Obd o = new Obd();
+        o.setObjekti(objekat(1));
+        o.setDatumVreme(new Timestamp(vreme));
+        o.setUkupnoKm(km);
+        o.setUkupnoGorivo(gorivo);
+        return o;
+    }
+
+    @Test
+    public void testDanISatiBezObziraNaRedosled() {
+        Zbirovi zbirovi = new Zbirovi(ZoneOffset.UTC, 62, 3, 0);
+        zbirovi.dodaj(javljanje(JUCE + 8 * SAT, 100.0f, 0));
+        zbirovi.dodaj(javljanje(JUCE + 10 * SAT, 140.0f, 0));
+        zbirovi.dodaj(javljanje(JUCE + 9 * SAT, 120.0f, 60));
+        zbirovi.dodaj(javljanje(JUCE + 9 * SAT + 60_000, 121.0f, 80));
+        zbirovi.dodaj(javljanje(JUCE + 22 * SAT, 150.0f, 3));
+        zbirovi.dodaj(obd(JUCE + 8 * SAT, 5_000, 300.0f));
+        zbirovi.dodaj(obd(JUCE + 22 * SAT, 5_045, 306.5f));
+
+        Zbir dan = zbirovi.zbir(1L, new Date(JUCE), new Date(JUCE + 24 * SAT));
+        assertEquals(5, dan.getBrojJavljanja());
+        assertEquals(50.0f, dan.getPredjeniPut(), 0.001f);
+        assertEquals(80, dan.getMaxBrzina());
+        assertEquals(70, dan.getProsecnaBrzina());
+        assertEquals(45, dan.getObdKm());
+        assertEquals(6.5f, dan.getPotrosnja(), 0.001f);
+
+        Zbir jutro = zbirovi.zbir(1L, new Date(JUCE + 9 * SAT), new Date(JUCE + 10 * SAT));
+        assertEquals(2, jutro.getBrojJavljanja());
+        assertEquals(1.0f, jutro.getPredjeniPut(), 0.001f);
+        assertFalse(jutro.imaObd());
+
+        // дан и сати после њега
+        Zbir duze = zbirovi.zbir(1L, new Date(JUCE), new Date(JUCE + 26 * SAT));
+        assertEquals(5, duze.getBrojJavljanja());
+
+        assertTrue(zbirovi.zbir(2L, new Date(JUCE), new Date(JUCE + 24 * SAT)).isPrazan());
+    }
+
+    @Test
+    public void testBrojStajanja() {
+        Zbirovi zbirovi = new Zbirovi(ZoneOffset.UTC, 62, 3, 0);
+        int[] brzine = { 0, 40, 50, 0, 0, 30, 2, 60 };
+        for (int i = 0; i < brzine.length; i++) {
+            zbirovi.dodaj(javljanje(JUCE + 12 * SAT + i * 60_000L, i, brzine[i]));
+        }
+        assertEquals(2, zbirovi.zbir(1L, new Date(JUCE), new Date(JUCE + 24 * SAT)).getBrojStajanja());
+    }
+
+    @Test
+    public void testNepokrivenPeriod() {
+        Zbirovi zbirovi = new Zbirovi(ZoneOffset.UTC, 62, 3, JUCE + 12 * SAT);
+        assertNull(zbirovi.zbir(1L, new Date(JUCE), new Date(JUCE + 24 * SAT)));
+        assertNull(zbirovi.zbir(1L, new Date(JUCE + 13 * SAT + 1_000), new Date(JUCE + 24 * SAT)));
+        assertNotNull(zbirovi.zbir(1L, new Date(JUCE + 13 * SAT), new Date(JUCE + 24 * SAT)));
+        // ван задржавања дневних збирова
+        assertFalse(new Zbirovi(ZoneOffset.UTC, 62, 3, 0).pokriva(new Date(JUCE - 90 * 24 * SAT), new Date(JUCE)));
+    }
+}
@@ -0,0 +1,76 @@
+package rs.atekom.prati.server.zone;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit тестови за {@link GeoGrid} - индекс мора наћи исте зоне као линеарна претрага.
+ */
+public class GeoGridTest {
+
+    static final class Krug {
+        final double lat, lon, r;
+
+        Krug(double lat, double lon, double r) {
+            this.lat = lat;
+            this.lon = lon;
+            this.r = r;
+        }
+
+        boolean sadrzi(double tLat, double tLon) {
+            return GeoGrid.rastojanjeMetara(tLat, tLon, lat, lon) <= r;
+        }
+    }
+
+    static List<Krug> nasumicneZone(Random rnd, int broj) {
+        List<Krug> zone = new ArrayList<>();
+        for (int i = 0; i < broj; i++) {
+            // Србија, полупречници 50 m - 5 km
+            zone.add(new Krug(42.2 + rnd.nextDouble() * 4, 19.0 + rnd.nextDouble() * 4, 50 + rnd.nextDouble() * 4950));
+        }
+        return zone;
+    }
+
+    static GeoGrid<Krug> indeks(List<Krug> zone) {
+        return GeoGrid.izgradi(zone, k -> k.lat, k -> k.lon, k -> k.r, GeoGrid.PODRAZUMEVANA_CELIJA);
+    }
+
+    @Test
+    public void testIstiPogociKaoLinearnaPretraga() {
+        Random rnd = new Random(42);
+        List<Krug> zone = nasumicneZone(rnd, 500);
+        GeoGrid<Krug> grid = indeks(zone);
+        assertEquals(500, grid.velicina());
+
+        for (int i = 0; i < 20_000; i++) {
+            Krug z = zone.get(rnd.nextInt(zone.size()));
+            // тачке око центара зона, део унутра, део ван
+            double lat = z.lat + (rnd.nextDouble() - 0.5) * 0.1;
+            double lon = z.lon + (rnd.nextDouble() - 0.5) * 0.1;
+            for (Krug k : zone) {
+                if (k.sadrzi(lat, lon)) {
+                    assertTrue("zona nije među kandidatima", grid.kandidati(lat, lon).contains(k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPraznaIVelikaZona() {
+        assertTrue(indeks(Collections.<Krug>emptyList()).kandidati(44.8, 20.4).isEmpty());
+
+        Krug velika = new Krug(44.0, 20.0, 200_000);
+        Krug mala = new Krug(44.8, 20.4, 100);
+        GeoGrid<Krug> grid = indeks(List.of(velika, mala));
+        assertTrue(grid.kandidati(43.0, 19.0).contains(velika));
+        assertTrue(grid.kandidati(44.8, 20.4).contains(mala));
+        assertTrue(grid.kandidati(44.8, 20.4).contains(velika));
+        assertFalse(grid.kandidati(43.0, 19.0).contains(mala));
+    }
+}
@@ -0,0 +1,79 @@
+package rs.atekom.prati.view.istorija;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import pratiBaza.tabele.Javljanja;
+import pratiBaza.tabele.Obd;
+import pratiBaza.tabele.SistemAlarmi;
+
+/**
+ * Unit тестови за {@link IstorijaSesija}: збирни подаци из једног пролаза
+ * кроз јављања и OBD записе.
+ */
+public class IstorijaSesijaTest {
+
+    private static Javljanja javljanje(long vreme, int brzina, float odo, String sifra) {
+        SistemAlarmi alarm = new SistemAlarmi();
+        alarm.setSifra(sifra);
+        Javljanja j = new Javljanja();
+        j.setDatumVreme(new Timestamp(vreme));
+        j.setBrzina(brzina);
+        j.setVirtualOdo(odo);
+        j.setSistemAlarmi(alarm);
+        return j;
+    }
+
+    private static Obd obd(int km, float gorivo, float potrosnja) {
+        Obd o = new Obd();
+        o.setUkupnoKm(km);
+        o.setUkupnoGorivo(gorivo);
+        o.setProsecnaPotrosnja(potrosnja);
+        return o;
+    }
+
+    @Test
+    public void testZbirniPodaciIAlarmi() {
+        List<Javljanja> javljanja = Arrays.asList(
+                javljanje(1_000, 0, 10.0f, "0"),
+                javljanje(2_000, 40, 11.0f, "0"),
+                javljanje(3_000, 80, 12.5f, "1095"),
+                javljanje(4_000, 3, 13.0f, "0"),
+                javljanje(5_000, 60, 15.0f, "1"));
+        List<Obd> obd = Arrays.asList(obd(1_000, 100.0f, 8.0f), obd(1_005, 102.5f, 0.0f), obd(1_010, 104.0f, 10.0f));
+
+        List<Javljanja> alarmi = Arrays.asList(javljanja.get(2), javljanja.get(4));
+
+        IstorijaSesija sesija = new IstorijaSesija(null, null, null, javljanja, alarmi, obd);
+
+        assertFalse(sesija.isEmpty());
+        assertEquals(60, sesija.getProsecnaBrzina());
+        assertEquals(80, sesija.getMaxBrzina());
+        assertEquals(3_000L, sesija.getVremeMaxBrzine().getTime());
+        assertEquals(5.0f, sesija.getPredjeniPutGPS(), 0.001f);
+        assertEquals(1_000L, sesija.getVremePrvog().getTime());
+        assertEquals(5_000L, sesija.getVremePoslednjeg().getTime());
+        assertSame(alarmi, sesija.getAlarmi());
+
+        assertEquals(4.0f, sesija.getUkupnaPotrosnja(), 0.001f);
+        assertEquals(10, sesija.getOdometarRazlika());
+        // просек само записа са потрошњом: (8 + 10) / 2
+        assertEquals(9.0f, sesija.getProsecnaPotrosnja(), 0.001f);
+    }
+
+    @Test
+    public void testPrazanPeriod() {
+        IstorijaSesija sesija = new IstorijaSesija(null, null, null, new ArrayList<Javljanja>(), null, null);
+        assertTrue(sesija.isEmpty());
+        assertTrue(sesija.getAlarmi().isEmpty());
+        assertNull(sesija.getVremePrvog());
+        assertEquals(0, sesija.getOdometarRazlika());
+        assertEquals(0.0f, sesija.getProsecnaPotrosnja(), 0.0f);
+    }
+}
@@ -1,65 +1,120 @@
 package rs.atekom.prati.view.komponente;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.junit.Before;
+import org.junit.After;
 import org.junit.Test;
 
+import pratiBaza.tabele.AlarmiKorisnik;
 import pratiBaza.tabele.Javljanja;
 import pratiBaza.tabele.Objekti;
 import pratiBaza.tabele.SistemAlarmi;
-import pratiBaza.tabele.SistemPretplatnici;
-import rs.atekom.prati.server.NominatimClient;
+import rs.atekom.prati.server.geokod.GeokodiranjeServis;
 
+/**
+ * Unit тестови за адресу аларма у {@link Izvrsavanje}: адреса из кеша иде у
+ * јављање пре предаје, а без ње се геокодирање заказује и адреса стиже као
+ * измена предате копије.
+ */
 public class IzvrsavanjeAlarmAdresaTest {
 
-    // Минималан „stub“ NominatimClient-а за unit тест (без Spring-а)
-    static class NominatimClientStub extends NominatimClient {
-        public NominatimClientStub() { super("test@example.com", "https://nominatim.openstreetmap.org"); }
-        @Override public String getAddress(Double lat, Double lon) {
-            return "Fallback Addr, Beograd";
+    private static final String ADRESA = "Knez Mihailova 1, Beograd";
+
+    private final List<Javljanja> predato = new ArrayList<>();
+    private final List<String> izmene = new ArrayList<>();
+    private final CountDownLatch izmenjeno = new CountDownLatch(1);
+    private final CountDownLatch pusti = new CountDownLatch(1);
+    private final AtomicInteger poziva = new AtomicInteger();
+    private final GeokodiranjeServis geokodiranje = new GeokodiranjeServis((lat, lon) -> {
+        poziva.incrementAndGet();
+        pusti.await(5, TimeUnit.SECONDS);
+        return ADRESA;
+    }, 1, 10, 100, 60_000, 4);
+
+    private final Izvrsavanje izvrsavanje = new Izvrsavanje(geokodiranje, javljanje -> {
+        // предата копија, као Zapisivac.upisiJavljanje
+        Javljanja kopija = new Javljanja();
+        kopija.setObjekti(javljanje.getObjekti());
+        kopija.setDatumVreme(javljanje.getDatumVreme());
+        kopija.setLat(javljanje.getLat());
+        kopija.setLon(javljanje.getLon());
+        kopija.setSistemAlarmi(javljanje.getSistemAlarmi());
+        kopija.setEventData(javljanje.getEventData());
+        synchronized (predato) {
+            predato.add(kopija);
         }
-    }
+        return kopija;
+    }, (javljanje, eventData) -> {
+        synchronized (izmene) {
+            assertTrue(predato.contains(javljanje));
+            izmene.add(eventData);
+        }
+        izmenjeno.countDown();
+    });
 
-    @Before
-    public void setup() {
-        // У unit тесту ручно постављамо fallback клијент (у продукцији га прави sistemServis)
-    	NominatimClientStub nClient = new NominatimClientStub();
+    @After
+    public void zatvori() {
+        geokodiranje.zatvori();
     }
 
-    private Javljanja napraviJavljanjeSaGoogleKeyKojiCePasti() {
+    private static Javljanja alarm() {
+        SistemAlarmi sa = new SistemAlarmi();
+        sa.setSifra("1");     // != "0" → аларм
+        sa.setAdresa(true);
+        sa.setNaziv("Panik");
+
+        Objekti obj = new Objekti();
+        obj.setOznaka("BG-001-AA");
+
         Javljanja j = new Javljanja();
         j.setLat(44.7866);
         j.setLon(20.4489);
         j.setEventData("0");
-
-        SistemAlarmi sa = new SistemAlarmi();
-        sa.setSifra("1");     // != "0" → омогући адресирање
-        sa.setAdresa(true);
+        j.setDatumVreme(new Date());
         j.setSistemAlarmi(sa);
-
-        Objekti obj = new Objekti();
-        SistemPretplatnici sp = new SistemPretplatnici();
-        sp.setApiKey("DUMMY_KEY_THAT_WILL_FAIL"); // намерно „лош“ кључ → Google грана пада → fallback
-        obj.setSistemPretplatnici(sp);
         j.setObjekti(obj);
-
         return j;
     }
 
     @Test
-    public void kadaGooglePukne_ideFallbackNaNominatimClient_iPuniEventData() throws Exception {
-        Izvrsavanje comp = new Izvrsavanje();
-        Javljanja j = napraviJavljanjeSaGoogleKeyKojiCePasti();
+    public void testAdresaIzKesaIdeUPredatoJavljanje() throws Exception {
+        pusti.countDown();
+        Javljanja j = alarm();
+        geokodiranje.adresa(j.getLat(), j.getLon()).get(5, TimeUnit.SECONDS);
+        assertEquals(1, poziva.get());
+
+        izvrsavanje.obradaAlarma(j, new ArrayList<AlarmiKorisnik>());
 
-        // Позивамо приватни метод преко рефлексије да изолујемо само адресирање
-        Method m = Izvrsavanje.class.getDeclaredMethod("alarmAdresa", Javljanja.class);
-        m.setAccessible(true);
-        m.invoke(comp, j);
+        assertEquals(1, predato.size());
+        assertEquals(ADRESA, predato.get(0).getEventData());
+        assertEquals(1, poziva.get());
+        assertTrue(izmene.isEmpty());
+    }
 
-        String ev = j.getEventData();
-        assertTrue("Очекиван је fallback на NominatimClient", ev != null && ev.contains("Fallback Addr"));
+    @Test
+    public void testBezKesaAdresaStizeKaoIzmena() throws Exception {
+        Javljanja j = alarm();
+
+        izvrsavanje.obradaAlarma(j, new ArrayList<AlarmiKorisnik>());
+
+        // нит конекције не чека геокодирање - јављање је предато без адресе
+        assertEquals(1, predato.size());
+        assertEquals("0", predato.get(0).getEventData());
+        assertTrue(izmene.isEmpty());
+
+        pusti.countDown();
+        assertTrue(izmenjeno.await(5, TimeUnit.SECONDS));
+        assertEquals(1, poziva.get());
+        synchronized (izmene) {
+            assertEquals(1, izmene.size());
+            assertEquals(ADRESA, izmene.get(0));
+        }
     }
 }
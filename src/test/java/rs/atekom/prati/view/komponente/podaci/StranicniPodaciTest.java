@@ -0,0 +1,86 @@
+package rs.atekom.prati.view.komponente.podaci;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+/**
+ * Unit тестови за {@link StranicniPodaci}: Grid-ов опсег, филтер и сортирање
+ * стижу до упита непромењени, а празна претрага значи без филтера.
+ */
+public class StranicniPodaciTest {
+
+    /** Упит над бројевима 1..100, памти последње аргументе. */
+    private static class BrojeviUpit implements Upit<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        String filter = "-";
+        int od = -1;
+        int koliko = -1;
+        List<QuerySortOrder> redosled;
+
+        @Override
+        public int broj(String filter) {
+            this.filter = filter;
+            return filter == null ? 100 : 11;
+        }
+
+        @Override
+        public List<Integer> stranica(String filter, int od, int koliko, List<QuerySortOrder> redosled) {
+            this.filter = filter;
+            this.od = od;
+            this.koliko = koliko;
+            this.redosled = redosled;
+            List<Integer> lista = new ArrayList<>();
+            for (int i = od + 1; i <= Math.min(100, od + koliko); i++) {
+                lista.add(i);
+            }
+            return lista;
+        }
+    }
+
+    @Test
+    public void testStranicaSeTraziUpitu() {
+        BrojeviUpit upit = new BrojeviUpit();
+        StranicniPodaci<Integer> podaci = new StranicniPodaci<>(upit, broj -> (long) broj);
+        List<QuerySortOrder> redosled = Collections.singletonList(new QuerySortOrder("oznaka", SortDirection.DESCENDING));
+
+        List<Integer> redovi = podaci.fetch(new Query<>(40, 10, redosled, null, " ab ")).collect(Collectors.toList());
+
+        assertEquals(10, redovi.size());
+        assertEquals(Integer.valueOf(41), redovi.get(0));
+        assertEquals(40, upit.od);
+        assertEquals(10, upit.koliko);
+        assertEquals("ab", upit.filter);
+        assertEquals(redosled, upit.redosled);
+    }
+
+    @Test
+    public void testPraznaPretragaJeBezFiltera() {
+        BrojeviUpit upit = new BrojeviUpit();
+        StranicniPodaci<Integer> podaci = new StranicniPodaci<>(upit, broj -> (long) broj);
+
+        assertEquals(100, podaci.size(new Query<>("   ")));
+        assertNull(upit.filter);
+        assertEquals(100, podaci.size(new Query<>()));
+        assertNull(upit.filter);
+        assertEquals(11, podaci.size(new Query<>("x")));
+        assertEquals("x", upit.filter);
+    }
+
+    @Test
+    public void testRedoviSePoistovecujuPoKljucu() {
+        StranicniPodaci<Integer> podaci = new StranicniPodaci<>(new BrojeviUpit(), broj -> (long) broj);
+        assertEquals(Long.valueOf(7), podaci.getId(7));
+    }
+}